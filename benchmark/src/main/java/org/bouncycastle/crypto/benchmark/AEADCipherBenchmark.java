@@ -0,0 +1,115 @@
+package org.bouncycastle.crypto.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.modes.ChaCha20Poly1305;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encryption and decryption throughput for the AEAD ciphers, AES/GCM and ChaCha20Poly1305. Each operation
+ * re-initialises the cipher with a fresh nonce (reusing the expanded key) as a record layer would.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AEADCipherBenchmark
+{
+    private static final int MAC_SIZE = 128;
+
+    @Param({ "AES/GCM", "ChaCha20Poly1305" })
+    public String algorithm;
+
+    @Param({ "16", "64", "256", "1024", "8192", "65536", "1048576", "16777216" })
+    public int size;
+
+    private AEADCipher encCipher;
+    private AEADCipher decCipher;
+    private byte[] nonce;
+    private byte[] input;
+    private byte[] output;
+    private byte[] cipherText;
+    private byte[] plainText;
+    private byte[] decNonce;
+
+    @Setup
+    public void setup()
+        throws Exception
+    {
+        KeyParameter key;
+        if (algorithm.equals("AES/GCM"))
+        {
+            key = new KeyParameter(BenchmarkUtils.randomBytes(16));
+            encCipher = GCMBlockCipher.newInstance(AESEngine.newInstance());
+            decCipher = GCMBlockCipher.newInstance(AESEngine.newInstance());
+        }
+        else if (algorithm.equals("ChaCha20Poly1305"))
+        {
+            key = new KeyParameter(BenchmarkUtils.randomBytes(32));
+            encCipher = new ChaCha20Poly1305();
+            decCipher = new ChaCha20Poly1305();
+        }
+        else
+        {
+            throw new IllegalArgumentException("unknown algorithm: " + algorithm);
+        }
+
+        nonce = BenchmarkUtils.randomBytes(12);
+        decNonce = BenchmarkUtils.randomBytes(12);
+        input = BenchmarkUtils.randomBytes(size);
+
+        encCipher.init(true, new AEADParameters(key, MAC_SIZE, decNonce));
+        cipherText = new byte[encCipher.getOutputSize(size)];
+        int len = encCipher.processBytes(input, 0, size, cipherText, 0);
+        encCipher.doFinal(cipherText, len);
+
+        decCipher.init(false, new AEADParameters(key, MAC_SIZE, decNonce));
+        plainText = new byte[size];
+
+        // subsequent calls reuse the key schedule and only change the nonce.
+        encCipher.init(true, new AEADParameters(key, MAC_SIZE, nonce));
+        output = new byte[cipherText.length];
+    }
+
+    @Benchmark
+    public byte[] encrypt(ByteCounter counter)
+        throws Exception
+    {
+        BenchmarkUtils.incrementNonce(nonce);
+        encCipher.init(true, new AEADParameters(null, MAC_SIZE, nonce));
+
+        int len = encCipher.processBytes(input, 0, size, output, 0);
+        encCipher.doFinal(output, len);
+        counter.bytes += size;
+        return output;
+    }
+
+    @Benchmark
+    public byte[] decrypt(ByteCounter counter)
+        throws Exception
+    {
+        decCipher.init(false, new AEADParameters(null, MAC_SIZE, decNonce));
+
+        int len = decCipher.processBytes(cipherText, 0, cipherText.length, plainText, 0);
+        decCipher.doFinal(plainText, len);
+        counter.bytes += size;
+        return plainText;
+    }
+}
@@ -0,0 +1,97 @@
+package org.bouncycastle.crypto.benchmark;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.asn1.sec.SECObjectIdentifiers;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPairGenerator;
+import org.bouncycastle.crypto.RawAgreement;
+import org.bouncycastle.crypto.agreement.BasicRawAgreement;
+import org.bouncycastle.crypto.agreement.ECDHBasicAgreement;
+import org.bouncycastle.crypto.agreement.X25519Agreement;
+import org.bouncycastle.crypto.agreement.X448Agreement;
+import org.bouncycastle.crypto.generators.ECKeyPairGenerator;
+import org.bouncycastle.crypto.generators.X25519KeyPairGenerator;
+import org.bouncycastle.crypto.generators.X448KeyPairGenerator;
+import org.bouncycastle.crypto.params.ECKeyGenerationParameters;
+import org.bouncycastle.crypto.params.ECNamedDomainParameters;
+import org.bouncycastle.crypto.params.X25519KeyGenerationParameters;
+import org.bouncycastle.crypto.params.X448KeyGenerationParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Key generation and key agreement latency for X25519, X448 and ECDH over P-256.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AgreementBenchmark
+{
+    @Param({ "X25519", "X448", "ECDH-P256" })
+    public String algorithm;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private AsymmetricCipherKeyPairGenerator kpGen;
+    private RawAgreement agreement;
+    private AsymmetricCipherKeyPair peerKeyPair;
+    private byte[] secret;
+
+    @Setup
+    public void setup()
+    {
+        if (algorithm.equals("X25519"))
+        {
+            kpGen = new X25519KeyPairGenerator();
+            kpGen.init(new X25519KeyGenerationParameters(random));
+            agreement = new X25519Agreement();
+        }
+        else if (algorithm.equals("X448"))
+        {
+            kpGen = new X448KeyPairGenerator();
+            kpGen.init(new X448KeyGenerationParameters(random));
+            agreement = new X448Agreement();
+        }
+        else if (algorithm.equals("ECDH-P256"))
+        {
+            kpGen = new ECKeyPairGenerator();
+            kpGen.init(new ECKeyGenerationParameters(ECNamedDomainParameters.lookup(SECObjectIdentifiers.secp256r1), random));
+            agreement = new BasicRawAgreement(new ECDHBasicAgreement());
+        }
+        else
+        {
+            throw new IllegalArgumentException("unknown algorithm: " + algorithm);
+        }
+
+        agreement.init(kpGen.generateKeyPair().getPrivate());
+        peerKeyPair = kpGen.generateKeyPair();
+        secret = new byte[agreement.getAgreementSize()];
+    }
+
+    @Benchmark
+    public AsymmetricCipherKeyPair keyGen()
+    {
+        return kpGen.generateKeyPair();
+    }
+
+    @Benchmark
+    public byte[] agree()
+    {
+        agreement.calculateAgreement(peerKeyPair.getPublic(), secret, 0);
+        return secret;
+    }
+}
@@ -0,0 +1,32 @@
+package org.bouncycastle.crypto.benchmark;
+
+import java.security.SecureRandom;
+
+/**
+ * Shared helpers for the symmetric benchmarks.
+ */
+class BenchmarkUtils
+{
+    private static final SecureRandom random = new SecureRandom();
+
+    static byte[] randomBytes(int length)
+    {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Update a nonce in place by treating its trailing 8 bytes as a big endian counter.
+     */
+    static void incrementNonce(byte[] nonce)
+    {
+        for (int i = nonce.length - 1; i >= nonce.length - 8; --i)
+        {
+            if (++nonce[i] != 0)
+            {
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.bouncycastle.crypto.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.DefaultBufferedBlockCipher;
+import org.bouncycastle.crypto.engines.AESBitslicedEngine;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Bulk encryption throughput for AES in ECB, CBC and CTR (SIC) modes, with the bitsliced engine in ECB mode
+ * for comparison.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BlockCipherBenchmark
+{
+    @Param({ "AES/ECB", "AES/CBC", "AES/CTR", "AESBitsliced/ECB" })
+    public String algorithm;
+
+    @Param({ "16", "64", "256", "1024", "8192", "65536", "1048576", "16777216" })
+    public int size;
+
+    private BufferedBlockCipher cipher;
+    private byte[] input;
+    private byte[] output;
+
+    @Setup
+    public void setup()
+    {
+        KeyParameter key = new KeyParameter(BenchmarkUtils.randomBytes(16));
+        byte[] iv = BenchmarkUtils.randomBytes(16);
+
+        if (algorithm.equals("AES/ECB"))
+        {
+            cipher = new DefaultBufferedBlockCipher(AESEngine.newInstance());
+            cipher.init(true, key);
+        }
+        else if (algorithm.equals("AES/CBC"))
+        {
+            cipher = new DefaultBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()));
+            cipher.init(true, new ParametersWithIV(key, iv));
+        }
+        else if (algorithm.equals("AES/CTR"))
+        {
+            cipher = new DefaultBufferedBlockCipher(SICBlockCipher.newInstance(AESEngine.newInstance()));
+            cipher.init(true, new ParametersWithIV(key, iv));
+        }
+        else if (algorithm.equals("AESBitsliced/ECB"))
+        {
+            cipher = new DefaultBufferedBlockCipher(AESBitslicedEngine.newInstance());
+            cipher.init(true, key);
+        }
+        else
+        {
+            throw new IllegalArgumentException("unknown algorithm: " + algorithm);
+        }
+
+        input = BenchmarkUtils.randomBytes(size);
+        output = new byte[cipher.getOutputSize(size)];
+    }
+
+    @Benchmark
+    public byte[] encrypt(ByteCounter counter)
+        throws Exception
+    {
+        int len = cipher.processBytes(input, 0, size, output, 0);
+        cipher.doFinal(output, len);
+        counter.bytes += size;
+        return output;
+    }
+}
@@ -0,0 +1,24 @@
+package org.bouncycastle.crypto.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Auxiliary counter used to report the number of message bytes processed by a benchmark, JMH reports it
+ * as a rate so the result is directly comparable as bytes/second across message sizes.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class ByteCounter
+{
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void clean()
+    {
+        bytes = 0;
+    }
+}
@@ -0,0 +1,85 @@
+package org.bouncycastle.crypto.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.Blake2bDigest;
+import org.bouncycastle.crypto.digests.Blake3Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA3Digest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hashing throughput for the commonly deployed message digests.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DigestBenchmark
+{
+    @Param({ "SHA-256", "SHA-512", "SHA3-256", "BLAKE2b-512", "BLAKE3-256" })
+    public String algorithm;
+
+    @Param({ "16", "64", "256", "1024", "8192", "65536", "1048576", "16777216" })
+    public int size;
+
+    private Digest digest;
+    private byte[] input;
+    private byte[] output;
+
+    @Setup
+    public void setup()
+    {
+        digest = createDigest(algorithm);
+        input = BenchmarkUtils.randomBytes(size);
+        output = new byte[digest.getDigestSize()];
+    }
+
+    @Benchmark
+    public byte[] digest(ByteCounter counter)
+    {
+        digest.update(input, 0, size);
+        digest.doFinal(output, 0);
+        counter.bytes += size;
+        return output;
+    }
+
+    static Digest createDigest(String algorithm)
+    {
+        if (algorithm.equals("SHA-256"))
+        {
+            return new SHA256Digest();
+        }
+        if (algorithm.equals("SHA-512"))
+        {
+            return new SHA512Digest();
+        }
+        if (algorithm.equals("SHA3-256"))
+        {
+            return new SHA3Digest(256);
+        }
+        if (algorithm.equals("BLAKE2b-512"))
+        {
+            return new Blake2bDigest(512);
+        }
+        if (algorithm.equals("BLAKE3-256"))
+        {
+            return new Blake3Digest(256);
+        }
+        throw new IllegalArgumentException("unknown algorithm: " + algorithm);
+    }
+}
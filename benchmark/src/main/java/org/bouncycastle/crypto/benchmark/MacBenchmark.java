@@ -0,0 +1,84 @@
+package org.bouncycastle.crypto.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.generators.Poly1305KeyGenerator;
+import org.bouncycastle.crypto.macs.CMac;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.macs.Poly1305;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * MAC calculation throughput for HMAC-SHA256, AES-CMAC and Poly1305.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MacBenchmark
+{
+    @Param({ "HMAC-SHA256", "AES-CMAC", "Poly1305" })
+    public String algorithm;
+
+    @Param({ "16", "64", "256", "1024", "8192", "65536", "1048576", "16777216" })
+    public int size;
+
+    private Mac mac;
+    private byte[] input;
+    private byte[] output;
+
+    @Setup
+    public void setup()
+    {
+        if (algorithm.equals("HMAC-SHA256"))
+        {
+            mac = new HMac(new SHA256Digest());
+            mac.init(new KeyParameter(BenchmarkUtils.randomBytes(32)));
+        }
+        else if (algorithm.equals("AES-CMAC"))
+        {
+            mac = new CMac(AESEngine.newInstance());
+            mac.init(new KeyParameter(BenchmarkUtils.randomBytes(16)));
+        }
+        else if (algorithm.equals("Poly1305"))
+        {
+            byte[] key = BenchmarkUtils.randomBytes(32);
+            Poly1305KeyGenerator.clamp(key);
+
+            mac = new Poly1305();
+            mac.init(new KeyParameter(key));
+        }
+        else
+        {
+            throw new IllegalArgumentException("unknown algorithm: " + algorithm);
+        }
+
+        input = BenchmarkUtils.randomBytes(size);
+        output = new byte[mac.getMacSize()];
+    }
+
+    @Benchmark
+    public byte[] mac(ByteCounter counter)
+    {
+        mac.update(input, 0, size);
+        mac.doFinal(output, 0);
+        counter.bytes += size;
+        return output;
+    }
+}
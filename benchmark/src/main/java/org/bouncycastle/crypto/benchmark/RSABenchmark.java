@@ -0,0 +1,95 @@
+package org.bouncycastle.crypto.benchmark;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.AsymmetricBlockCipher;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.engines.RSABlindedEngine;
+import org.bouncycastle.crypto.engines.RSAEngine;
+import org.bouncycastle.crypto.generators.RSAKeyPairGenerator;
+import org.bouncycastle.crypto.params.ParametersWithRandom;
+import org.bouncycastle.crypto.params.RSAKeyGenerationParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of the raw RSA public and private key operations. RSAEngine is a thin wrapper over the package
+ * private RSACoreEngine, RSABlindedEngine adds the blinding used by the signers and encodings.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RSABenchmark
+{
+    @Param({ "2048", "3072", "4096" })
+    public int keySize;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private RSAKeyPairGenerator kpGen;
+    private AsymmetricBlockCipher publicEngine;
+    private AsymmetricBlockCipher privateEngine;
+    private AsymmetricBlockCipher blindedEngine;
+    private byte[] input;
+
+    @Setup
+    public void setup()
+    {
+        kpGen = new RSAKeyPairGenerator();
+        kpGen.init(new RSAKeyGenerationParameters(BigInteger.valueOf(0x10001), random, keySize, 100));
+
+        AsymmetricCipherKeyPair keyPair = kpGen.generateKeyPair();
+
+        publicEngine = new RSAEngine();
+        publicEngine.init(true, keyPair.getPublic());
+        privateEngine = new RSAEngine();
+        privateEngine.init(false, keyPair.getPrivate());
+        blindedEngine = new RSABlindedEngine();
+        blindedEngine.init(false, new ParametersWithRandom(keyPair.getPrivate(), random));
+
+        input = new byte[publicEngine.getInputBlockSize()];
+        random.nextBytes(input);
+        input[0] &= 0x7f;
+    }
+
+    @Benchmark
+    public AsymmetricCipherKeyPair keyGen()
+    {
+        return kpGen.generateKeyPair();
+    }
+
+    @Benchmark
+    public byte[] publicOp()
+        throws Exception
+    {
+        return publicEngine.processBlock(input, 0, input.length);
+    }
+
+    @Benchmark
+    public byte[] privateOp()
+        throws Exception
+    {
+        return privateEngine.processBlock(input, 0, input.length);
+    }
+
+    @Benchmark
+    public byte[] privateOpBlinded()
+        throws Exception
+    {
+        return blindedEngine.processBlock(input, 0, input.length);
+    }
+}
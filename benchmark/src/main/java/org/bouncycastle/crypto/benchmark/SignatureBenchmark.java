@@ -0,0 +1,132 @@
+package org.bouncycastle.crypto.benchmark;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.asn1.sec.SECObjectIdentifiers;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPairGenerator;
+import org.bouncycastle.crypto.Signer;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA384Digest;
+import org.bouncycastle.crypto.generators.ECKeyPairGenerator;
+import org.bouncycastle.crypto.generators.Ed25519KeyPairGenerator;
+import org.bouncycastle.crypto.generators.Ed448KeyPairGenerator;
+import org.bouncycastle.crypto.params.ECKeyGenerationParameters;
+import org.bouncycastle.crypto.params.ECNamedDomainParameters;
+import org.bouncycastle.crypto.params.Ed25519KeyGenerationParameters;
+import org.bouncycastle.crypto.params.Ed448KeyGenerationParameters;
+import org.bouncycastle.crypto.params.ParametersWithRandom;
+import org.bouncycastle.crypto.signers.DSADigestSigner;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.bouncycastle.crypto.signers.Ed25519Signer;
+import org.bouncycastle.crypto.signers.Ed448Signer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Key generation, signing and verification latency for ECDSA, Ed25519 and Ed448.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SignatureBenchmark
+{
+    @Param({ "ECDSA-P256", "ECDSA-P384", "Ed25519", "Ed448" })
+    public String algorithm;
+
+    private final SecureRandom random = new SecureRandom();
+    private final byte[] message = new byte[256];
+
+    private AsymmetricCipherKeyPairGenerator kpGen;
+    private Signer signer;
+    private Signer verifier;
+    private byte[] signature;
+
+    @Setup
+    public void setup()
+        throws Exception
+    {
+        random.nextBytes(message);
+
+        if (algorithm.equals("ECDSA-P256"))
+        {
+            kpGen = new ECKeyPairGenerator();
+            kpGen.init(new ECKeyGenerationParameters(ECNamedDomainParameters.lookup(SECObjectIdentifiers.secp256r1), random));
+            signer = new DSADigestSigner(new ECDSASigner(), new SHA256Digest());
+            verifier = new DSADigestSigner(new ECDSASigner(), new SHA256Digest());
+        }
+        else if (algorithm.equals("ECDSA-P384"))
+        {
+            kpGen = new ECKeyPairGenerator();
+            kpGen.init(new ECKeyGenerationParameters(ECNamedDomainParameters.lookup(SECObjectIdentifiers.secp384r1), random));
+            signer = new DSADigestSigner(new ECDSASigner(), new SHA384Digest());
+            verifier = new DSADigestSigner(new ECDSASigner(), new SHA384Digest());
+        }
+        else if (algorithm.equals("Ed25519"))
+        {
+            kpGen = new Ed25519KeyPairGenerator();
+            kpGen.init(new Ed25519KeyGenerationParameters(random));
+            signer = new Ed25519Signer();
+            verifier = new Ed25519Signer();
+        }
+        else if (algorithm.equals("Ed448"))
+        {
+            kpGen = new Ed448KeyPairGenerator();
+            kpGen.init(new Ed448KeyGenerationParameters(random));
+            signer = new Ed448Signer(new byte[0]);
+            verifier = new Ed448Signer(new byte[0]);
+        }
+        else
+        {
+            throw new IllegalArgumentException("unknown algorithm: " + algorithm);
+        }
+
+        AsymmetricCipherKeyPair keyPair = kpGen.generateKeyPair();
+
+        if (algorithm.startsWith("ECDSA"))
+        {
+            signer.init(true, new ParametersWithRandom(keyPair.getPrivate(), random));
+        }
+        else
+        {
+            signer.init(true, keyPair.getPrivate());
+        }
+        verifier.init(false, keyPair.getPublic());
+
+        signature = sign();
+    }
+
+    @Benchmark
+    public AsymmetricCipherKeyPair keyGen()
+    {
+        return kpGen.generateKeyPair();
+    }
+
+    @Benchmark
+    public byte[] sign()
+        throws Exception
+    {
+        signer.update(message, 0, message.length);
+        return signer.generateSignature();
+    }
+
+    @Benchmark
+    public boolean verify()
+    {
+        verifier.update(message, 0, message.length);
+        return verifier.verifySignature(signature);
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * JMH benchmarks for the light-weight API primitives.
+ * <p>
+ * The symmetric benchmarks - block ciphers, modes, AEAD ciphers, digests and MACs - are parameterised over message
+ * sizes from 16 bytes to 16 MiB and report a "bytes" auxiliary counter alongside the usual operation rate, so
+ * throughput can be read directly in bytes/second. The public key benchmarks run in sample time mode and report
+ * per-operation latency percentiles. Allocation rates (gc.alloc.rate.norm) are available by running with the JMH
+ * GC profiler, for example:
+ * <pre>
+ *     gradle :benchmark:jmh -PjmhArgs="-prof gc DigestBenchmark"
+ * </pre>
+ */
+package org.bouncycastle.crypto.benchmark;
@@ -0,0 +1,155 @@
+package org.bouncycastle.pqc.crypto.benchmark;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPairGenerator;
+import org.bouncycastle.crypto.EncapsulatedSecretExtractor;
+import org.bouncycastle.crypto.EncapsulatedSecretGenerator;
+import org.bouncycastle.crypto.SecretWithEncapsulation;
+import org.bouncycastle.pqc.crypto.bike.BIKEKEMExtractor;
+import org.bouncycastle.pqc.crypto.bike.BIKEKEMGenerator;
+import org.bouncycastle.pqc.crypto.bike.BIKEKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.bike.BIKEKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.bike.BIKEParameters;
+import org.bouncycastle.pqc.crypto.bike.BIKEPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.cmce.CMCEKEMExtractor;
+import org.bouncycastle.pqc.crypto.cmce.CMCEKEMGenerator;
+import org.bouncycastle.pqc.crypto.cmce.CMCEKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.cmce.CMCEKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.cmce.CMCEParameters;
+import org.bouncycastle.pqc.crypto.cmce.CMCEPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.frodo.FrodoKEMExtractor;
+import org.bouncycastle.pqc.crypto.frodo.FrodoKEMGenerator;
+import org.bouncycastle.pqc.crypto.frodo.FrodoKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.frodo.FrodoKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.frodo.FrodoParameters;
+import org.bouncycastle.pqc.crypto.frodo.FrodoPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.hqc.HQCKEMExtractor;
+import org.bouncycastle.pqc.crypto.hqc.HQCKEMGenerator;
+import org.bouncycastle.pqc.crypto.hqc.HQCKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.hqc.HQCKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.hqc.HQCParameters;
+import org.bouncycastle.pqc.crypto.hqc.HQCPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.mlkem.MLKEMExtractor;
+import org.bouncycastle.pqc.crypto.mlkem.MLKEMGenerator;
+import org.bouncycastle.pqc.crypto.mlkem.MLKEMKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.mlkem.MLKEMKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.mlkem.MLKEMParameters;
+import org.bouncycastle.pqc.crypto.mlkem.MLKEMPrivateKeyParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Key generation, encapsulation and decapsulation latency for the post-quantum KEMs.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class KEMBenchmark
+{
+    @Param({
+        "mlkem/ml_kem_512", "mlkem/ml_kem_768", "mlkem/ml_kem_1024",
+        "hqc/hqc128", "hqc/hqc192", "hqc/hqc256",
+        "bike/bike128", "bike/bike192", "bike/bike256",
+        "frodo/frodokem640aes", "frodo/frodokem640shake", "frodo/frodokem976aes", "frodo/frodokem1344aes",
+        "cmce/mceliece348864r3", "cmce/mceliece460896r3", "cmce/mceliece6688128r3" })
+    public String parameterSet;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private AsymmetricCipherKeyPairGenerator kpGen;
+    private EncapsulatedSecretGenerator kemGen;
+    private EncapsulatedSecretExtractor kemExt;
+    private AsymmetricCipherKeyPair keyPair;
+    private byte[] encapsulation;
+
+    @Setup
+    public void setup()
+    {
+        String family = ParameterSets.getFamily(parameterSet);
+
+        if (family.equals("mlkem"))
+        {
+            kpGen = new MLKEMKeyPairGenerator();
+            kpGen.init(new MLKEMKeyGenerationParameters(random,
+                (MLKEMParameters)ParameterSets.lookup(MLKEMParameters.class, parameterSet)));
+            keyPair = kpGen.generateKeyPair();
+            kemGen = new MLKEMGenerator(random);
+            kemExt = new MLKEMExtractor((MLKEMPrivateKeyParameters)keyPair.getPrivate());
+        }
+        else if (family.equals("hqc"))
+        {
+            kpGen = new HQCKeyPairGenerator();
+            kpGen.init(new HQCKeyGenerationParameters(random,
+                (HQCParameters)ParameterSets.lookup(HQCParameters.class, parameterSet)));
+            keyPair = kpGen.generateKeyPair();
+            kemGen = new HQCKEMGenerator(random);
+            kemExt = new HQCKEMExtractor((HQCPrivateKeyParameters)keyPair.getPrivate());
+        }
+        else if (family.equals("bike"))
+        {
+            kpGen = new BIKEKeyPairGenerator();
+            kpGen.init(new BIKEKeyGenerationParameters(random,
+                (BIKEParameters)ParameterSets.lookup(BIKEParameters.class, parameterSet)));
+            keyPair = kpGen.generateKeyPair();
+            kemGen = new BIKEKEMGenerator(random);
+            kemExt = new BIKEKEMExtractor((BIKEPrivateKeyParameters)keyPair.getPrivate());
+        }
+        else if (family.equals("frodo"))
+        {
+            kpGen = new FrodoKeyPairGenerator();
+            kpGen.init(new FrodoKeyGenerationParameters(random,
+                (FrodoParameters)ParameterSets.lookup(FrodoParameters.class, parameterSet)));
+            keyPair = kpGen.generateKeyPair();
+            kemGen = new FrodoKEMGenerator(random);
+            kemExt = new FrodoKEMExtractor((FrodoPrivateKeyParameters)keyPair.getPrivate());
+        }
+        else if (family.equals("cmce"))
+        {
+            kpGen = new CMCEKeyPairGenerator();
+            kpGen.init(new CMCEKeyGenerationParameters(random,
+                (CMCEParameters)ParameterSets.lookup(CMCEParameters.class, parameterSet)));
+            keyPair = kpGen.generateKeyPair();
+            kemGen = new CMCEKEMGenerator(random);
+            kemExt = new CMCEKEMExtractor((CMCEPrivateKeyParameters)keyPair.getPrivate());
+        }
+        else
+        {
+            throw new IllegalArgumentException("unknown KEM family: " + family);
+        }
+
+        encapsulation = kemGen.generateEncapsulated(keyPair.getPublic()).getEncapsulation();
+    }
+
+    @Benchmark
+    public AsymmetricCipherKeyPair keyGen()
+    {
+        return kpGen.generateKeyPair();
+    }
+
+    @Benchmark
+    public SecretWithEncapsulation encapsulate()
+    {
+        return kemGen.generateEncapsulated(keyPair.getPublic());
+    }
+
+    @Benchmark
+    public byte[] decapsulate()
+    {
+        return kemExt.extractSecret(encapsulation);
+    }
+}
@@ -0,0 +1,33 @@
+package org.bouncycastle.pqc.crypto.benchmark;
+
+import java.lang.reflect.Field;
+
+/**
+ * Resolve "family/field" parameter set names to the static parameter objects of the PQC parameter classes.
+ */
+class ParameterSets
+{
+    static String getFamily(String parameterSet)
+    {
+        int pos = parameterSet.indexOf('/');
+        if (pos < 0)
+        {
+            throw new IllegalArgumentException("parameter set must be of the form family/name: " + parameterSet);
+        }
+        return parameterSet.substring(0, pos);
+    }
+
+    static Object lookup(Class parametersClass, String parameterSet)
+    {
+        String name = parameterSet.substring(parameterSet.indexOf('/') + 1);
+        try
+        {
+            Field field = parametersClass.getField(name);
+            return field.get(null);
+        }
+        catch (Exception e)
+        {
+            throw new IllegalArgumentException("unknown parameter set: " + parameterSet);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package org.bouncycastle.pqc.crypto.benchmark;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPairGenerator;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.params.ParametersWithRandom;
+import org.bouncycastle.pqc.crypto.MessageSigner;
+import org.bouncycastle.pqc.crypto.falcon.FalconKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.falcon.FalconKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.falcon.FalconParameters;
+import org.bouncycastle.pqc.crypto.falcon.FalconSigner;
+import org.bouncycastle.pqc.crypto.mayo.MayoKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.mayo.MayoKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.mayo.MayoParameters;
+import org.bouncycastle.pqc.crypto.mayo.MayoSigner;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSAKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSAKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSAParameters;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSASigner;
+import org.bouncycastle.pqc.crypto.slhdsa.SLHDSAKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.slhdsa.SLHDSAKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.slhdsa.SLHDSAParameters;
+import org.bouncycastle.pqc.crypto.slhdsa.SLHDSASigner;
+import org.bouncycastle.pqc.crypto.snova.SnovaKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.snova.SnovaKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.snova.SnovaParameters;
+import org.bouncycastle.pqc.crypto.snova.SnovaSigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Key generation, signing and verification latency for the stateless post-quantum signature schemes.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SignerBenchmark
+{
+    @Param({
+        "mldsa/ml_dsa_44", "mldsa/ml_dsa_65", "mldsa/ml_dsa_87",
+        "slhdsa/sha2_128f", "slhdsa/sha2_128s", "slhdsa/shake_128f", "slhdsa/sha2_256f",
+        "falcon/falcon_512", "falcon/falcon_1024",
+        "mayo/mayo1", "mayo/mayo2", "mayo/mayo3", "mayo/mayo5",
+        "snova/SNOVA_24_5_4_SSK", "snova/SNOVA_24_5_4_SHAKE_ESK", "snova/SNOVA_37_17_2_SSK" })
+    public String parameterSet;
+
+    private final SecureRandom random = new SecureRandom();
+    private final byte[] message = new byte[256];
+
+    private AsymmetricCipherKeyPairGenerator kpGen;
+    private MessageSigner signer;
+    private MessageSigner verifier;
+    private byte[] signature;
+
+    @Setup
+    public void setup()
+    {
+        random.nextBytes(message);
+
+        String family = ParameterSets.getFamily(parameterSet);
+
+        if (family.equals("mldsa"))
+        {
+            kpGen = new MLDSAKeyPairGenerator();
+            kpGen.init(new MLDSAKeyGenerationParameters(random,
+                (MLDSAParameters)ParameterSets.lookup(MLDSAParameters.class, parameterSet)));
+            signer = new MLDSAMessageSigner();
+            verifier = new MLDSAMessageSigner();
+        }
+        else if (family.equals("slhdsa"))
+        {
+            kpGen = new SLHDSAKeyPairGenerator();
+            kpGen.init(new SLHDSAKeyGenerationParameters(random,
+                (SLHDSAParameters)ParameterSets.lookup(SLHDSAParameters.class, parameterSet)));
+            signer = new SLHDSASigner();
+            verifier = new SLHDSASigner();
+        }
+        else if (family.equals("falcon"))
+        {
+            kpGen = new FalconKeyPairGenerator();
+            kpGen.init(new FalconKeyGenerationParameters(random,
+                (FalconParameters)ParameterSets.lookup(FalconParameters.class, parameterSet)));
+            signer = new FalconSigner();
+            verifier = new FalconSigner();
+        }
+        else if (family.equals("mayo"))
+        {
+            kpGen = new MayoKeyPairGenerator();
+            kpGen.init(new MayoKeyGenerationParameters(random,
+                (MayoParameters)ParameterSets.lookup(MayoParameters.class, parameterSet)));
+            signer = new MayoSigner();
+            verifier = new MayoSigner();
+        }
+        else if (family.equals("snova"))
+        {
+            kpGen = new SnovaKeyPairGenerator();
+            kpGen.init(new SnovaKeyGenerationParameters(random,
+                (SnovaParameters)ParameterSets.lookup(SnovaParameters.class, parameterSet)));
+            signer = new SnovaSigner();
+            verifier = new SnovaSigner();
+        }
+        else
+        {
+            throw new IllegalArgumentException("unknown signature family: " + family);
+        }
+
+        AsymmetricCipherKeyPair keyPair = kpGen.generateKeyPair();
+
+        signer.init(true, new ParametersWithRandom(keyPair.getPrivate(), random));
+        verifier.init(false, keyPair.getPublic());
+
+        signature = signer.generateSignature(message);
+    }
+
+    @Benchmark
+    public AsymmetricCipherKeyPair keyGen()
+    {
+        return kpGen.generateKeyPair();
+    }
+
+    @Benchmark
+    public byte[] sign()
+    {
+        return signer.generateSignature(message);
+    }
+
+    @Benchmark
+    public boolean verify()
+    {
+        return verifier.verifySignature(message, signature);
+    }
+
+    /**
+     * MLDSASigner is a streaming Signer, adapt it so all the schemes can be driven the same way.
+     */
+    private static class MLDSAMessageSigner
+        implements MessageSigner
+    {
+        private final MLDSASigner signer = new MLDSASigner();
+
+        public void init(boolean forSigning, CipherParameters param)
+        {
+            signer.init(forSigning, param);
+        }
+
+        public byte[] generateSignature(byte[] message)
+        {
+            signer.update(message, 0, message.length);
+            try
+            {
+                return signer.generateSignature();
+            }
+            catch (Exception e)
+            {
+                throw new IllegalStateException("unable to sign: " + e.getMessage(), e);
+            }
+        }
+
+        public boolean verifySignature(byte[] message, byte[] signature)
+        {
+            signer.update(message, 0, message.length);
+            return signer.verifySignature(signature);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.bouncycastle.pqc.crypto.benchmark;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPairGenerator;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.pqc.crypto.MessageSigner;
+import org.bouncycastle.pqc.crypto.lms.HSSKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.lms.HSSKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.lms.HSSPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.lms.HSSSigner;
+import org.bouncycastle.pqc.crypto.lms.LMOtsParameters;
+import org.bouncycastle.pqc.crypto.lms.LMSKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.lms.LMSKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.lms.LMSParameters;
+import org.bouncycastle.pqc.crypto.lms.LMSPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.lms.LMSSigner;
+import org.bouncycastle.pqc.crypto.lms.LMSigParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTSigner;
+import org.bouncycastle.pqc.crypto.xmss.XMSSParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSSigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Key generation, signing and verification latency for the stateful hash-based signature schemes, LMS/HSS and
+ * XMSS/XMSS^MT.
+ * <p>
+ * Signing consumes the private key, so when a key is exhausted a new one is generated in line. For the single
+ * tree parameter sets this shows up in the upper percentiles of the sign results, the multi-tree parameter sets
+ * have enough capacity that it does not occur in a normal run.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StatefulSignerBenchmark
+{
+    @Param({ "lms/sha256_n32_h10_w4", "hss/sha256_n32_h10_h10_w4", "xmss/sha256_h10", "xmssmt/sha256_h20_d2" })
+    public String parameterSet;
+
+    private final SecureRandom random = new SecureRandom();
+    private final byte[] message = new byte[256];
+
+    private AsymmetricCipherKeyPairGenerator kpGen;
+    private MessageSigner signer;
+    private MessageSigner verifier;
+    private CipherParameters privateKey;
+    private byte[] signature;
+
+    @Setup
+    public void setup()
+    {
+        random.nextBytes(message);
+
+        String family = ParameterSets.getFamily(parameterSet);
+
+        if (parameterSet.equals("lms/sha256_n32_h10_w4"))
+        {
+            kpGen = new LMSKeyPairGenerator();
+            kpGen.init(new LMSKeyGenerationParameters(
+                new LMSParameters(LMSigParameters.lms_sha256_n32_h10, LMOtsParameters.sha256_n32_w4), random));
+            signer = new LMSSigner();
+            verifier = new LMSSigner();
+        }
+        else if (parameterSet.equals("hss/sha256_n32_h10_h10_w4"))
+        {
+            kpGen = new HSSKeyPairGenerator();
+            kpGen.init(new HSSKeyGenerationParameters(new LMSParameters[]{
+                new LMSParameters(LMSigParameters.lms_sha256_n32_h10, LMOtsParameters.sha256_n32_w4),
+                new LMSParameters(LMSigParameters.lms_sha256_n32_h10, LMOtsParameters.sha256_n32_w4) }, random));
+            signer = new HSSSigner();
+            verifier = new HSSSigner();
+        }
+        else if (parameterSet.equals("xmss/sha256_h10"))
+        {
+            kpGen = new XMSSKeyPairGenerator();
+            kpGen.init(new XMSSKeyGenerationParameters(new XMSSParameters(10, new SHA256Digest()), random));
+            signer = new XMSSSigner();
+            verifier = new XMSSSigner();
+        }
+        else if (parameterSet.equals("xmssmt/sha256_h20_d2"))
+        {
+            kpGen = new XMSSMTKeyPairGenerator();
+            kpGen.init(new XMSSMTKeyGenerationParameters(new XMSSMTParameters(20, 2, new SHA256Digest()), random));
+            signer = new XMSSMTSigner();
+            verifier = new XMSSMTSigner();
+        }
+        else
+        {
+            throw new IllegalArgumentException("unknown parameter set for " + family + ": " + parameterSet);
+        }
+
+        AsymmetricCipherKeyPair keyPair = kpGen.generateKeyPair();
+
+        privateKey = keyPair.getPrivate();
+        signer.init(true, privateKey);
+        verifier.init(false, keyPair.getPublic());
+
+        signature = signer.generateSignature(message);
+    }
+
+    @Benchmark
+    public AsymmetricCipherKeyPair keyGen()
+    {
+        return kpGen.generateKeyPair();
+    }
+
+    @Benchmark
+    public byte[] sign()
+    {
+        if (getUsagesRemaining() == 0)
+        {
+            privateKey = kpGen.generateKeyPair().getPrivate();
+            signer.init(true, privateKey);
+        }
+
+        return signer.generateSignature(message);
+    }
+
+    @Benchmark
+    public boolean verify()
+    {
+        return verifier.verifySignature(message, signature);
+    }
+
+    private long getUsagesRemaining()
+    {
+        if (signer instanceof XMSSSigner)
+        {
+            return ((XMSSSigner)signer).getUsagesRemaining();
+        }
+        if (signer instanceof XMSSMTSigner)
+        {
+            return ((XMSSMTSigner)signer).getUsagesRemaining();
+        }
+        if (privateKey instanceof HSSPrivateKeyParameters)
+        {
+            return ((HSSPrivateKeyParameters)privateKey).getUsagesRemaining();
+        }
+        return ((LMSPrivateKeyParameters)privateKey).getUsagesRemaining();
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * JMH benchmarks for the post-quantum KEMs and signature schemes, run per parameter set.
+ * <p>
+ * The benchmarks run in sample time mode so JMH reports per-operation latency percentiles (p50, p90, p99, ...).
+ * Results are written as JSON by the benchmark module's "jmh" task, allocation profiles are available via the
+ * JMH GC profiler, for example:
+ * <pre>
+ *     gradle :benchmark:jmh -PjmhArgs="-prof gc KEMBenchmark -p parameterSet=mlkem/ml_kem_768"
+ * </pre>
+ * Parameter sets are named as "family/field", where field is the name of the static parameters field in the
+ * family's parameters class, so any parameter set the library supports can be selected with "-p".
+ */
+package org.bouncycastle.pqc.crypto.benchmark;
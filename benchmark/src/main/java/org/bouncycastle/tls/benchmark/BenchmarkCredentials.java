@@ -0,0 +1,180 @@
+package org.bouncycastle.tls.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigInteger;
+import java.security.KeyFactory;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.SecureRandom;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Date;
+
+import org.bouncycastle.asn1.sec.SECObjectIdentifiers;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.cert.bc.BcX509v3CertificateBuilder;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.generators.ECKeyPairGenerator;
+import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.bouncycastle.crypto.params.ECKeyGenerationParameters;
+import org.bouncycastle.crypto.params.ECNamedDomainParameters;
+import org.bouncycastle.crypto.util.PrivateKeyInfoFactory;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.DefaultDigestAlgorithmIdentifierFinder;
+import org.bouncycastle.operator.DefaultSignatureAlgorithmIdentifierFinder;
+import org.bouncycastle.operator.bc.BcECContentSignerBuilder;
+import org.bouncycastle.tls.Certificate;
+import org.bouncycastle.tls.CertificateEntry;
+import org.bouncycastle.tls.HashAlgorithm;
+import org.bouncycastle.tls.SignatureAlgorithm;
+import org.bouncycastle.tls.SignatureAndHashAlgorithm;
+import org.bouncycastle.tls.TlsCredentialedSigner;
+import org.bouncycastle.tls.TlsUtils;
+import org.bouncycastle.tls.crypto.TlsCertificate;
+import org.bouncycastle.tls.crypto.TlsCrypto;
+import org.bouncycastle.tls.crypto.TlsCryptoParameters;
+import org.bouncycastle.tls.crypto.impl.bc.BcDefaultTlsCredentialedSigner;
+import org.bouncycastle.tls.crypto.impl.bc.BcTlsCrypto;
+import org.bouncycastle.tls.crypto.impl.jcajce.JcaDefaultTlsCredentialedSigner;
+import org.bouncycastle.tls.crypto.impl.jcajce.JcaTlsCrypto;
+import org.bouncycastle.tls.crypto.impl.jcajce.JcaTlsCryptoProvider;
+
+/**
+ * A self-signed ECDSA P-256 server identity generated once per JVM, so the benchmarks do not depend on the
+ * external test data.
+ */
+class BenchmarkCredentials
+{
+    static final Provider BC = new BouncyCastleProvider();
+
+    private static final char[] KEYSTORE_PASSWORD = "benchmark".toCharArray();
+
+    private static BenchmarkCredentials instance;
+
+    private final AsymmetricKeyParameter privateKey;
+    private final byte[] encodedPrivateKey;
+    private final byte[] encodedCertificate;
+
+    private BenchmarkCredentials()
+        throws Exception
+    {
+        SecureRandom random = new SecureRandom();
+
+        ECKeyPairGenerator kpGen = new ECKeyPairGenerator();
+        kpGen.init(new ECKeyGenerationParameters(ECNamedDomainParameters.lookup(SECObjectIdentifiers.secp256r1), random));
+        AsymmetricCipherKeyPair keyPair = kpGen.generateKeyPair();
+
+        X500Name name = new X500Name("CN=Bouncy Castle TLS Benchmark");
+        long now = System.currentTimeMillis();
+
+        BcX509v3CertificateBuilder certBuilder = new BcX509v3CertificateBuilder(name, BigInteger.valueOf(now),
+            new Date(now - 60000L), new Date(now + 24 * 60 * 60 * 1000L), name, keyPair.getPublic());
+
+        AlgorithmIdentifier sigAlgId = new DefaultSignatureAlgorithmIdentifierFinder().find("SHA256withECDSA");
+        AlgorithmIdentifier digAlgId = new DefaultDigestAlgorithmIdentifierFinder().find(sigAlgId);
+
+        this.privateKey = keyPair.getPrivate();
+        this.encodedPrivateKey = PrivateKeyInfoFactory.createPrivateKeyInfo(privateKey).getEncoded();
+        this.encodedCertificate = certBuilder.build(
+            new BcECContentSignerBuilder(sigAlgId, digAlgId).build(privateKey)).getEncoded();
+    }
+
+    static synchronized BenchmarkCredentials getInstance()
+        throws Exception
+    {
+        if (instance == null)
+        {
+            instance = new BenchmarkCredentials();
+        }
+        return instance;
+    }
+
+    static TlsCrypto createCrypto(String cryptoName)
+    {
+        if (cryptoName.equals("BC"))
+        {
+            return new BcTlsCrypto(new SecureRandom());
+        }
+        if (cryptoName.equals("JCA"))
+        {
+            return new JcaTlsCryptoProvider().setProvider(BC).create(new SecureRandom());
+        }
+        throw new IllegalArgumentException("unknown crypto: " + cryptoName);
+    }
+
+    TlsCredentialedSigner getSignerCredentials(TlsCryptoParameters cryptoParams, TlsCrypto crypto)
+        throws Exception
+    {
+        TlsCertificate tlsCertificate = crypto.createCertificate(encodedCertificate);
+        Certificate certificate;
+        if (TlsUtils.isTLSv13(cryptoParams.getServerVersion()))
+        {
+            certificate = new Certificate(TlsUtils.EMPTY_BYTES,
+                new CertificateEntry[]{ new CertificateEntry(tlsCertificate, null) });
+        }
+        else
+        {
+            certificate = new Certificate(new TlsCertificate[]{ tlsCertificate });
+        }
+
+        SignatureAndHashAlgorithm sigAndHash = SignatureAndHashAlgorithm.getInstance(HashAlgorithm.sha256,
+            SignatureAlgorithm.ecdsa);
+
+        if (crypto instanceof BcTlsCrypto)
+        {
+            return new BcDefaultTlsCredentialedSigner(cryptoParams, (BcTlsCrypto)crypto, privateKey, certificate,
+                sigAndHash);
+        }
+
+        JcaTlsCrypto jcaCrypto = (JcaTlsCrypto)crypto;
+        PrivateKey jcaPrivateKey = getJcaPrivateKey();
+
+        return new JcaDefaultTlsCredentialedSigner(cryptoParams, jcaCrypto, jcaPrivateKey, certificate, sigAndHash);
+    }
+
+    PrivateKey getJcaPrivateKey()
+        throws Exception
+    {
+        return KeyFactory.getInstance("EC", BC).generatePrivate(new PKCS8EncodedKeySpec(encodedPrivateKey));
+    }
+
+    X509Certificate getJcaCertificate()
+        throws Exception
+    {
+        CertificateFactory certFact = CertificateFactory.getInstance("X.509", BC);
+        return (X509Certificate)certFact.generateCertificate(new ByteArrayInputStream(encodedCertificate));
+    }
+
+    /**
+     * Return a key store holding the server key and certificate, protected by {@link #getKeyStorePassword()}.
+     */
+    KeyStore getKeyStore()
+        throws Exception
+    {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12", BC);
+        keyStore.load(null, null);
+        keyStore.setKeyEntry("server", getJcaPrivateKey(), KEYSTORE_PASSWORD,
+            new java.security.cert.Certificate[]{ getJcaCertificate() });
+        return keyStore;
+    }
+
+    /**
+     * Return a key store holding the server certificate as a trust anchor.
+     */
+    KeyStore getTrustStore()
+        throws Exception
+    {
+        KeyStore trustStore = KeyStore.getInstance("PKCS12", BC);
+        trustStore.load(null, null);
+        trustStore.setCertificateEntry("server", getJcaCertificate());
+        return trustStore;
+    }
+
+    char[] getKeyStorePassword()
+    {
+        return KEYSTORE_PASSWORD;
+    }
+}
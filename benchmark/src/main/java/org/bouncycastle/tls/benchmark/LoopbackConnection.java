@@ -0,0 +1,101 @@
+package org.bouncycastle.tls.benchmark;
+
+import java.io.IOException;
+
+import org.bouncycastle.tls.TlsClientProtocol;
+import org.bouncycastle.tls.TlsProtocol;
+import org.bouncycastle.tls.TlsServerProtocol;
+
+/**
+ * A client and server pair connected in memory using the non-blocking mode of {@link TlsClientProtocol} and
+ * {@link TlsServerProtocol}, so no threads or sockets take part in the measurements.
+ */
+class LoopbackConnection
+{
+    private final TlsClientProtocol clientProtocol = new TlsClientProtocol();
+    private final TlsServerProtocol serverProtocol = new TlsServerProtocol();
+
+    private byte[] transferBuf = new byte[16 * 1024 + 512];
+
+    LoopbackConnection(LoopbackTlsClient client, LoopbackTlsServer server)
+        throws IOException
+    {
+        clientProtocol.connect(client);
+        serverProtocol.accept(server);
+
+        boolean moved = true;
+        while (moved)
+        {
+            moved = pump(clientProtocol, serverProtocol) | pump(serverProtocol, clientProtocol);
+        }
+
+        if (clientProtocol.isHandshaking() || serverProtocol.isHandshaking())
+        {
+            throw new IllegalStateException("handshake did not complete");
+        }
+    }
+
+    /**
+     * Send length bytes of data from the client to the server, reading it back into readBuf on the server side.
+     */
+    void clientToServer(byte[] data, int length, byte[] readBuf)
+        throws IOException
+    {
+        transfer(clientProtocol, serverProtocol, data, length, readBuf);
+    }
+
+    /**
+     * Send length bytes of data from the server to the client, reading it back into readBuf on the client side.
+     */
+    void serverToClient(byte[] data, int length, byte[] readBuf)
+        throws IOException
+    {
+        transfer(serverProtocol, clientProtocol, data, length, readBuf);
+    }
+
+    void close()
+        throws IOException
+    {
+        clientProtocol.close();
+        pump(clientProtocol, serverProtocol);
+        serverProtocol.close();
+    }
+
+    private void transfer(TlsProtocol from, TlsProtocol to, byte[] data, int length, byte[] readBuf)
+        throws IOException
+    {
+        from.writeApplicationData(data, 0, length);
+        pump(from, to);
+
+        int total = 0;
+        while (total < length)
+        {
+            int count = to.readInput(readBuf, total, length - total);
+            if (count < 1)
+            {
+                throw new IllegalStateException("application data lost in transfer");
+            }
+            total += count;
+        }
+    }
+
+    private boolean pump(TlsProtocol from, TlsProtocol to)
+        throws IOException
+    {
+        int available = from.getAvailableOutputBytes();
+        if (available == 0)
+        {
+            return false;
+        }
+
+        if (transferBuf.length < available)
+        {
+            transferBuf = new byte[available];
+        }
+
+        int count = from.readOutput(transferBuf, 0, available);
+        to.offerInput(transferBuf, 0, count);
+
+        return true;
+    }
+}
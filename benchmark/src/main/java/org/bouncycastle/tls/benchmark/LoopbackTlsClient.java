@@ -0,0 +1,102 @@
+package org.bouncycastle.tls.benchmark;
+
+import java.io.IOException;
+import java.util.Vector;
+
+import org.bouncycastle.tls.AlertDescription;
+import org.bouncycastle.tls.DefaultTlsClient;
+import org.bouncycastle.tls.ProtocolVersion;
+import org.bouncycastle.tls.ServerOnlyTlsAuthentication;
+import org.bouncycastle.tls.TlsAuthentication;
+import org.bouncycastle.tls.TlsFatalAlert;
+import org.bouncycastle.tls.TlsServerCertificate;
+import org.bouncycastle.tls.TlsSession;
+import org.bouncycastle.tls.TlsUtils;
+import org.bouncycastle.tls.crypto.TlsCrypto;
+
+/**
+ * Client for the loopback benchmarks offering a single protocol version, cipher suite and named group.
+ * <p>
+ * NOTE: the server certificate is not validated, this client is only suitable for talking to
+ * {@link LoopbackTlsServer}.
+ */
+class LoopbackTlsClient
+    extends DefaultTlsClient
+{
+    private final ProtocolVersion protocolVersion;
+    private final int cipherSuite;
+    private final int namedGroup;
+    private final TlsSession sessionToResume;
+
+    private TlsSession session;
+
+    LoopbackTlsClient(TlsCrypto crypto, ProtocolVersion protocolVersion, int cipherSuite, int namedGroup,
+        TlsSession sessionToResume)
+    {
+        super(crypto);
+
+        this.protocolVersion = protocolVersion;
+        this.cipherSuite = cipherSuite;
+        this.namedGroup = namedGroup;
+        this.sessionToResume = sessionToResume;
+    }
+
+    protected ProtocolVersion[] getSupportedVersions()
+    {
+        return new ProtocolVersion[]{ protocolVersion };
+    }
+
+    protected int[] getSupportedCipherSuites()
+    {
+        return new int[]{ cipherSuite };
+    }
+
+    protected Vector getSupportedGroups(Vector namedGroupRoles)
+    {
+        Vector supportedGroups = new Vector();
+        TlsUtils.addIfSupported(supportedGroups, getCrypto(), namedGroup);
+        return supportedGroups;
+    }
+
+    public TlsSession getSessionToResume()
+    {
+        return sessionToResume;
+    }
+
+    public TlsAuthentication getAuthentication()
+        throws IOException
+    {
+        return new ServerOnlyTlsAuthentication()
+        {
+            public void notifyServerCertificate(TlsServerCertificate serverCertificate)
+                throws IOException
+            {
+                if (serverCertificate.getCertificate().isEmpty())
+                {
+                    throw new TlsFatalAlert(AlertDescription.bad_certificate);
+                }
+            }
+        };
+    }
+
+    public void notifyHandshakeComplete()
+        throws IOException
+    {
+        super.notifyHandshakeComplete();
+
+        this.session = context.getSession();
+    }
+
+    boolean isResumedSession()
+    {
+        return context.getSecurityParametersConnection().isResumedSession();
+    }
+
+    /**
+     * Return the session established by the last handshake, if it is resumable.
+     */
+    TlsSession getSession()
+    {
+        return (session != null && session.isResumable()) ? session : null;
+    }
+}
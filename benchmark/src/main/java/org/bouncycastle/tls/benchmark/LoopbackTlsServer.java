@@ -0,0 +1,119 @@
+package org.bouncycastle.tls.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Hashtable;
+
+import org.bouncycastle.tls.AlertDescription;
+import org.bouncycastle.tls.DefaultTlsServer;
+import org.bouncycastle.tls.ProtocolVersion;
+import org.bouncycastle.tls.TlsCredentialedSigner;
+import org.bouncycastle.tls.TlsCredentials;
+import org.bouncycastle.tls.TlsFatalAlert;
+import org.bouncycastle.tls.TlsSession;
+import org.bouncycastle.tls.TlsUtils;
+import org.bouncycastle.tls.crypto.TlsCrypto;
+import org.bouncycastle.tls.crypto.TlsCryptoParameters;
+
+/**
+ * Server for the loopback benchmarks, authenticating with the {@link BenchmarkCredentials} ECDSA identity and
+ * keeping a (TLS 1.2) session cache so resumed handshakes can be measured.
+ */
+class LoopbackTlsServer
+    extends DefaultTlsServer
+{
+    private final ProtocolVersion protocolVersion;
+    private final int cipherSuite;
+    private final int namedGroup;
+    private final Hashtable sessionCache;
+
+    LoopbackTlsServer(TlsCrypto crypto, ProtocolVersion protocolVersion, int cipherSuite, int namedGroup,
+        Hashtable sessionCache)
+    {
+        super(crypto);
+
+        this.protocolVersion = protocolVersion;
+        this.cipherSuite = cipherSuite;
+        this.namedGroup = namedGroup;
+        this.sessionCache = sessionCache;
+    }
+
+    protected ProtocolVersion[] getSupportedVersions()
+    {
+        return new ProtocolVersion[]{ protocolVersion };
+    }
+
+    protected int[] getSupportedCipherSuites()
+    {
+        return new int[]{ cipherSuite };
+    }
+
+    public int[] getSupportedGroups()
+    {
+        return new int[]{ namedGroup };
+    }
+
+    public TlsCredentials getCredentials()
+        throws IOException
+    {
+        if (TlsUtils.isTLSv13(context))
+        {
+            return getECDSASignerCredentials();
+        }
+
+        return super.getCredentials();
+    }
+
+    protected TlsCredentialedSigner getECDSASignerCredentials()
+        throws IOException
+    {
+        try
+        {
+            return BenchmarkCredentials.getInstance().getSignerCredentials(new TlsCryptoParameters(context),
+                getCrypto());
+        }
+        catch (IOException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new TlsFatalAlert(AlertDescription.internal_error, e);
+        }
+    }
+
+    public byte[] getNewSessionID()
+    {
+        if (sessionCache == null)
+        {
+            return null;
+        }
+
+        byte[] sessionID = new byte[32];
+        context.getCrypto().getSecureRandom().nextBytes(sessionID);
+        return sessionID;
+    }
+
+    public void notifyHandshakeComplete()
+        throws IOException
+    {
+        super.notifyHandshakeComplete();
+
+        // the session passed to notifySession is a placeholder, it only becomes resumable once the handshake completes.
+        TlsSession session = context.getSession();
+        if (sessionCache != null && session != null && session.isResumable())
+        {
+            sessionCache.put(ByteBuffer.wrap(session.getSessionID()), session);
+        }
+    }
+
+    public TlsSession getSessionToResume(byte[] sessionID)
+    {
+        if (sessionCache == null)
+        {
+            return null;
+        }
+
+        return (TlsSession)sessionCache.get(ByteBuffer.wrap(sessionID));
+    }
+}
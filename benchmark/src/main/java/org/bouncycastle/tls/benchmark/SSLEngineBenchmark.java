@@ -0,0 +1,99 @@
+package org.bouncycastle.tls.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+import org.bouncycastle.crypto.benchmark.ByteCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full handshakes and bulk transfer through the BCJSSE {@link SSLEngine} implementation, with client and server
+ * engines connected in memory. Full handshakes use client engines created without a peer host so the client
+ * session cache is bypassed.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SSLEngineBenchmark
+{
+    @Param({ "TLS_AES_128_GCM_SHA256/x25519", "TLS_AES_128_GCM_SHA256/MLKEM768", "TLS_CHACHA20_POLY1305_SHA256/x25519",
+        "TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256/x25519" })
+    public String configuration;
+
+    @Param({ "16384" })
+    public int size;
+
+    private SSLContext clientContext;
+    private SSLContext serverContext;
+    private String protocol;
+    private String cipherSuite;
+    private String namedGroup;
+    private SSLEngineLoopback connection;
+    private ByteBuffer data;
+
+    @Setup
+    public void setup()
+        throws Exception
+    {
+        clientContext = SSLEngineBenchmarkUtils.createClientContext();
+        serverContext = SSLEngineBenchmarkUtils.createServerContext();
+
+        cipherSuite = TlsBenchmarkUtils.getCipherSuiteName(configuration);
+        namedGroup = TlsBenchmarkUtils.getNamedGroupName(configuration);
+        protocol = TlsBenchmarkUtils.getJsseProtocol(
+            TlsBenchmarkUtils.getProtocolVersion(TlsBenchmarkUtils.getCipherSuite(cipherSuite)));
+
+        data = ByteBuffer.allocate(size);
+
+        connection = new SSLEngineLoopback(createClient(), createServer());
+        if (!cipherSuite.equals(connection.getClientSession().getCipherSuite()))
+        {
+            throw new IllegalStateException("unexpected cipher suite negotiated");
+        }
+    }
+
+    @Benchmark
+    public SSLEngineLoopback fullHandshake()
+        throws Exception
+    {
+        return new SSLEngineLoopback(createClient(), createServer());
+    }
+
+    @Benchmark
+    public int bulkTransfer(ByteCounter counter)
+        throws Exception
+    {
+        data.clear();
+        int received = connection.clientToServer(data);
+        counter.bytes += received;
+        return received;
+    }
+
+    private SSLEngine createClient()
+    {
+        return SSLEngineBenchmarkUtils.configure(clientContext.createSSLEngine(), true, protocol, cipherSuite,
+            namedGroup);
+    }
+
+    private SSLEngine createServer()
+    {
+        return SSLEngineBenchmarkUtils.configure(serverContext.createSSLEngine(), false, protocol, cipherSuite,
+            namedGroup);
+    }
+}
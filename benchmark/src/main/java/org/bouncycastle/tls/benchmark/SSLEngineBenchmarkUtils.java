@@ -0,0 +1,78 @@
+package org.bouncycastle.tls.benchmark;
+
+import java.security.SecureRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.bouncycastle.jsse.BCSSLEngine;
+import org.bouncycastle.jsse.BCSSLParameters;
+import org.bouncycastle.jsse.provider.BouncyCastleJsseProvider;
+
+/**
+ * BCJSSE set up for the {@link SSLEngine} benchmarks.
+ */
+class SSLEngineBenchmarkUtils
+{
+    // the provider logs every connection at INFO, keep a reference so the level isn't lost to GC.
+    private static final Logger JSSE_LOGGER = Logger.getLogger("org.bouncycastle.jsse");
+
+    static
+    {
+        JSSE_LOGGER.setLevel(Level.WARNING);
+    }
+
+    static SSLContext createClientContext()
+        throws Exception
+    {
+        BouncyCastleJsseProvider jsse = new BouncyCastleJsseProvider(BenchmarkCredentials.BC);
+
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance("PKIX", jsse);
+        tmf.init(BenchmarkCredentials.getInstance().getTrustStore());
+
+        SSLContext context = SSLContext.getInstance("TLS", jsse);
+        context.init(null, tmf.getTrustManagers(), new SecureRandom());
+        return context;
+    }
+
+    static SSLContext createServerContext()
+        throws Exception
+    {
+        BenchmarkCredentials credentials = BenchmarkCredentials.getInstance();
+        BouncyCastleJsseProvider jsse = new BouncyCastleJsseProvider(BenchmarkCredentials.BC);
+
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance("PKIX", jsse);
+        kmf.init(credentials.getKeyStore(), credentials.getKeyStorePassword());
+
+        SSLContext context = SSLContext.getInstance("TLS", jsse);
+        context.init(kmf.getKeyManagers(), null, new SecureRandom());
+        return context;
+    }
+
+    static SSLEngine configure(SSLEngine engine, boolean clientMode, String protocol, String cipherSuite,
+        String namedGroup)
+    {
+        engine.setUseClientMode(clientMode);
+        engine.setEnabledProtocols(new String[]{ protocol });
+        engine.setEnabledCipherSuites(new String[]{ cipherSuite });
+
+        /*
+         * The ECDSA signature schemes are only offered if their curve is enabled, so secp256r1 always follows the
+         * benchmarked group (the key share is only sent for the first one).
+         */
+        String[] namedGroups = "secp256r1".equals(namedGroup)
+            ? new String[]{ namedGroup }
+            : new String[]{ namedGroup, "secp256r1" };
+
+        BCSSLEngine bcEngine = (BCSSLEngine)engine;
+        BCSSLParameters parameters = bcEngine.getParameters();
+        parameters.setNamedGroups(namedGroups);
+        bcEngine.setParameters(parameters);
+
+        return engine;
+    }
+}
@@ -0,0 +1,129 @@
+package org.bouncycastle.tls.benchmark;
+
+import java.nio.ByteBuffer;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+
+/**
+ * A client and server {@link SSLEngine} pair exchanging records through in-memory buffers.
+ */
+class SSLEngineLoopback
+{
+    private static final int MAX_HANDSHAKE_ROUNDS = 100;
+
+    private final SSLEngine client;
+    private final SSLEngine server;
+
+    private final ByteBuffer clientToServer;
+    private final ByteBuffer serverToClient;
+    private final ByteBuffer clientApp;
+    private final ByteBuffer serverApp;
+    private final ByteBuffer empty = ByteBuffer.allocate(0);
+
+    SSLEngineLoopback(SSLEngine client, SSLEngine server)
+        throws SSLException
+    {
+        this.client = client;
+        this.server = server;
+
+        SSLSession session = client.getSession();
+        int packetSize = session.getPacketBufferSize();
+        int appSize = session.getApplicationBufferSize();
+
+        this.clientToServer = ByteBuffer.allocate(packetSize * 4);
+        this.serverToClient = ByteBuffer.allocate(packetSize * 4);
+        this.clientApp = ByteBuffer.allocate(appSize * 4);
+        this.serverApp = ByteBuffer.allocate(appSize * 4);
+
+        client.beginHandshake();
+        server.beginHandshake();
+
+        for (int round = 0; isHandshaking(client) || isHandshaking(server); ++round)
+        {
+            if (round == MAX_HANDSHAKE_ROUNDS)
+            {
+                throw new IllegalStateException("handshake did not complete");
+            }
+
+            step(client, empty, clientToServer);
+            step(server, empty, serverToClient);
+            receive(server, clientToServer, serverApp);
+            receive(client, serverToClient, clientApp);
+        }
+
+        clientApp.clear();
+        serverApp.clear();
+    }
+
+    SSLSession getClientSession()
+    {
+        return client.getSession();
+    }
+
+    /**
+     * Send data from the client to the server, returning the number of application bytes received.
+     */
+    int clientToServer(ByteBuffer data)
+        throws SSLException
+    {
+        int received = 0;
+        while (data.hasRemaining())
+        {
+            step(client, data, clientToServer);
+            received += receive(server, clientToServer, serverApp);
+            serverApp.clear();
+        }
+        return received;
+    }
+
+    private static boolean isHandshaking(SSLEngine engine)
+    {
+        SSLEngineResult.HandshakeStatus status = engine.getHandshakeStatus();
+        return status != SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING
+            && status != SSLEngineResult.HandshakeStatus.FINISHED;
+    }
+
+    private static void step(SSLEngine engine, ByteBuffer src, ByteBuffer net)
+        throws SSLException
+    {
+        SSLEngineResult result = engine.wrap(src, net);
+        runTasks(engine, result);
+    }
+
+    private static int receive(SSLEngine engine, ByteBuffer net, ByteBuffer app)
+        throws SSLException
+    {
+        int received = 0;
+
+        net.flip();
+        while (net.hasRemaining())
+        {
+            SSLEngineResult result = engine.unwrap(net, app);
+            runTasks(engine, result);
+            received += result.bytesProduced();
+
+            if (result.getStatus() != SSLEngineResult.Status.OK || result.bytesConsumed() == 0)
+            {
+                break;
+            }
+        }
+        net.compact();
+
+        return received;
+    }
+
+    private static void runTasks(SSLEngine engine, SSLEngineResult result)
+    {
+        if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK)
+        {
+            Runnable task;
+            while ((task = engine.getDelegatedTask()) != null)
+            {
+                task.run();
+            }
+        }
+    }
+}
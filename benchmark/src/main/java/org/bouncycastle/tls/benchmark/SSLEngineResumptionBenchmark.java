@@ -0,0 +1,67 @@
+package org.bouncycastle.tls.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+import org.bouncycastle.util.Arrays;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resumed handshakes/second through the BCJSSE {@link SSLEngine} implementation. The client engines are always
+ * created for the same peer so the cached session is offered (TLS 1.2 only, there is no server side TLS 1.3
+ * resumption support).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SSLEngineResumptionBenchmark
+{
+    private static final String PEER_HOST = "localhost";
+    private static final int PEER_PORT = 443;
+
+    @Param({ "TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256", "TLS_ECDHE_ECDSA_WITH_CHACHA20_POLY1305_SHA256" })
+    public String cipherSuite;
+
+    private SSLContext clientContext;
+    private SSLContext serverContext;
+
+    @Setup
+    public void setup()
+        throws Exception
+    {
+        clientContext = SSLEngineBenchmarkUtils.createClientContext();
+        serverContext = SSLEngineBenchmarkUtils.createServerContext();
+
+        byte[] sessionID = resumedHandshake().getClientSession().getId();
+        if (!Arrays.areEqual(sessionID, resumedHandshake().getClientSession().getId()))
+        {
+            throw new IllegalStateException("session was not resumed");
+        }
+    }
+
+    @Benchmark
+    public SSLEngineLoopback resumedHandshake()
+        throws Exception
+    {
+        return new SSLEngineLoopback(
+            SSLEngineBenchmarkUtils.configure(clientContext.createSSLEngine(PEER_HOST, PEER_PORT), true, "TLSv1.2",
+                cipherSuite, "x25519"),
+            SSLEngineBenchmarkUtils.configure(serverContext.createSSLEngine(), false, "TLSv1.2", cipherSuite,
+                "x25519"));
+    }
+}
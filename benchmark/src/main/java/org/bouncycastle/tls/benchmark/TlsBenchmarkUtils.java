@@ -0,0 +1,73 @@
+package org.bouncycastle.tls.benchmark;
+
+import org.bouncycastle.tls.CipherSuite;
+import org.bouncycastle.tls.NamedGroup;
+import org.bouncycastle.tls.ProtocolVersion;
+import org.bouncycastle.tls.TlsUtils;
+
+/**
+ * Map the benchmark parameter names to the TLS registry constants.
+ */
+class TlsBenchmarkUtils
+{
+    /**
+     * Return the cipher suite from a "cipherSuite/namedGroup" configuration.
+     */
+    static String getCipherSuiteName(String configuration)
+    {
+        int pos = configuration.indexOf('/');
+        return pos < 0 ? configuration : configuration.substring(0, pos);
+    }
+
+    /**
+     * Return the named group from a "cipherSuite/namedGroup" configuration.
+     */
+    static String getNamedGroupName(String configuration)
+    {
+        int pos = configuration.indexOf('/');
+        if (pos < 0)
+        {
+            throw new IllegalArgumentException("configuration must be of the form cipherSuite/namedGroup: " + configuration);
+        }
+        return configuration.substring(pos + 1);
+    }
+
+    static int getCipherSuite(String name)
+    {
+        return getConstant(CipherSuite.class, name);
+    }
+
+    static int getNamedGroup(String name)
+    {
+        return getConstant(NamedGroup.class, name);
+    }
+
+    /**
+     * Return the highest protocol version (TLS 1.3 or TLS 1.2) the cipher suite can be used with.
+     */
+    static ProtocolVersion getProtocolVersion(int cipherSuite)
+    {
+        if (TlsUtils.isValidVersionForCipherSuite(cipherSuite, ProtocolVersion.TLSv13))
+        {
+            return ProtocolVersion.TLSv13;
+        }
+        return ProtocolVersion.TLSv12;
+    }
+
+    static String getJsseProtocol(ProtocolVersion version)
+    {
+        return TlsUtils.isTLSv13(version) ? "TLSv1.3" : "TLSv1.2";
+    }
+
+    private static int getConstant(Class registry, String name)
+    {
+        try
+        {
+            return registry.getField(name).getInt(null);
+        }
+        catch (Exception e)
+        {
+            throw new IllegalArgumentException("unknown " + registry.getSimpleName() + ": " + name);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.bouncycastle.tls.benchmark;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.benchmark.ByteCounter;
+import org.bouncycastle.tls.NamedGroup;
+import org.bouncycastle.tls.ProtocolVersion;
+import org.bouncycastle.tls.crypto.TlsCrypto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Application data throughput over an established in-memory connection - record protection on the sending side
+ * and record decryption on the receiving side - for each cipher suite and crypto backend.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TlsBulkBenchmark
+{
+    @Param({ "BC", "JCA" })
+    public String crypto;
+
+    @Param({ "TLS_AES_128_GCM_SHA256", "TLS_AES_256_GCM_SHA384", "TLS_CHACHA20_POLY1305_SHA256",
+        "TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256", "TLS_ECDHE_ECDSA_WITH_AES_128_CBC_SHA256" })
+    public String cipherSuite;
+
+    @Param({ "1024", "16384", "1048576" })
+    public int size;
+
+    private LoopbackConnection connection;
+    private byte[] data;
+    private byte[] readBuf;
+
+    @Setup
+    public void setup()
+        throws Exception
+    {
+        int suite = TlsBenchmarkUtils.getCipherSuite(cipherSuite);
+        ProtocolVersion protocolVersion = TlsBenchmarkUtils.getProtocolVersion(suite);
+
+        connection = new LoopbackConnection(
+            new LoopbackTlsClient(BenchmarkCredentials.createCrypto(crypto), protocolVersion, suite,
+                NamedGroup.x25519, null),
+            new LoopbackTlsServer(BenchmarkCredentials.createCrypto(crypto), protocolVersion, suite,
+                NamedGroup.x25519, null));
+
+        data = new byte[size];
+        new SecureRandom().nextBytes(data);
+        readBuf = new byte[size];
+    }
+
+    @TearDown
+    public void tearDown()
+        throws Exception
+    {
+        connection.close();
+    }
+
+    @Benchmark
+    public byte[] clientToServer(ByteCounter counter)
+        throws Exception
+    {
+        connection.clientToServer(data, size, readBuf);
+        counter.bytes += size;
+        return readBuf;
+    }
+}
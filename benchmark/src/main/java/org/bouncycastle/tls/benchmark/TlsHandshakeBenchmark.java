@@ -0,0 +1,77 @@
+package org.bouncycastle.tls.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.tls.ProtocolVersion;
+import org.bouncycastle.tls.crypto.TlsCrypto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full handshakes/second between a {@link org.bouncycastle.tls.TlsClientProtocol} and
+ * {@link org.bouncycastle.tls.TlsServerProtocol} connected in memory, for each crypto backend and
+ * "cipherSuite/namedGroup" configuration. The protocol version is the highest one the cipher suite supports.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TlsHandshakeBenchmark
+{
+    @Param({ "BC", "JCA" })
+    public String crypto;
+
+    @Param({
+        "TLS_AES_128_GCM_SHA256/x25519", "TLS_AES_128_GCM_SHA256/secp256r1", "TLS_AES_128_GCM_SHA256/MLKEM768",
+        "TLS_AES_256_GCM_SHA384/x25519", "TLS_CHACHA20_POLY1305_SHA256/x25519",
+        "TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256/x25519", "TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256/secp256r1",
+        "TLS_ECDHE_ECDSA_WITH_CHACHA20_POLY1305_SHA256/x25519" })
+    public String configuration;
+
+    private TlsCrypto clientCrypto;
+    private TlsCrypto serverCrypto;
+    private ProtocolVersion protocolVersion;
+    private int cipherSuite;
+    private int namedGroup;
+
+    @Setup
+    public void setup()
+        throws Exception
+    {
+        clientCrypto = BenchmarkCredentials.createCrypto(crypto);
+        serverCrypto = BenchmarkCredentials.createCrypto(crypto);
+        cipherSuite = TlsBenchmarkUtils.getCipherSuite(TlsBenchmarkUtils.getCipherSuiteName(configuration));
+        namedGroup = TlsBenchmarkUtils.getNamedGroup(TlsBenchmarkUtils.getNamedGroupName(configuration));
+        protocolVersion = TlsBenchmarkUtils.getProtocolVersion(cipherSuite);
+
+        if (!clientCrypto.hasNamedGroup(namedGroup))
+        {
+            throw new IllegalStateException(configuration + " not supported by " + crypto + " crypto");
+        }
+
+        // credentials are created once per JVM, don't let that land in the first measurement.
+        BenchmarkCredentials.getInstance();
+
+        fullHandshake().close();
+    }
+
+    @Benchmark
+    public LoopbackConnection fullHandshake()
+        throws Exception
+    {
+        return new LoopbackConnection(
+            new LoopbackTlsClient(clientCrypto, protocolVersion, cipherSuite, namedGroup, null),
+            new LoopbackTlsServer(serverCrypto, protocolVersion, cipherSuite, namedGroup, null));
+    }
+}
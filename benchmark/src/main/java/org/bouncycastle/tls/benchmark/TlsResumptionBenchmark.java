@@ -0,0 +1,90 @@
+package org.bouncycastle.tls.benchmark;
+
+import java.util.Hashtable;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.tls.NamedGroup;
+import org.bouncycastle.tls.ProtocolVersion;
+import org.bouncycastle.tls.TlsSession;
+import org.bouncycastle.tls.crypto.TlsCrypto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resumed handshakes/second over an in-memory connection. Only TLS 1.2 session ID resumption is measured as
+ * {@link org.bouncycastle.tls.TlsServerProtocol} does not support TLS 1.3 resumption.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TlsResumptionBenchmark
+{
+    @Param({ "BC", "JCA" })
+    public String crypto;
+
+    @Param({ "TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256", "TLS_ECDHE_ECDSA_WITH_AES_256_GCM_SHA384",
+        "TLS_ECDHE_ECDSA_WITH_CHACHA20_POLY1305_SHA256" })
+    public String cipherSuite;
+
+    private final Hashtable sessionCache = new Hashtable();
+
+    private TlsCrypto clientCrypto;
+    private TlsCrypto serverCrypto;
+    private int suite;
+    private TlsSession session;
+
+    @Setup
+    public void setup()
+        throws Exception
+    {
+        clientCrypto = BenchmarkCredentials.createCrypto(crypto);
+        serverCrypto = BenchmarkCredentials.createCrypto(crypto);
+        suite = TlsBenchmarkUtils.getCipherSuite(cipherSuite);
+
+        LoopbackTlsClient client = createClient(null);
+        new LoopbackConnection(client, createServer()).close();
+
+        session = client.getSession();
+        if (session == null)
+        {
+            throw new IllegalStateException("no resumable session established");
+        }
+
+        client = createClient(session);
+        new LoopbackConnection(client, createServer()).close();
+
+        if (!client.isResumedSession())
+        {
+            throw new IllegalStateException("session was not resumed");
+        }
+    }
+
+    @Benchmark
+    public LoopbackConnection resumedHandshake()
+        throws Exception
+    {
+        return new LoopbackConnection(createClient(session), createServer());
+    }
+
+    private LoopbackTlsClient createClient(TlsSession sessionToResume)
+    {
+        return new LoopbackTlsClient(clientCrypto, ProtocolVersion.TLSv12, suite, NamedGroup.x25519, sessionToResume);
+    }
+
+    private LoopbackTlsServer createServer()
+    {
+        return new LoopbackTlsServer(serverCrypto, ProtocolVersion.TLSv12, suite, NamedGroup.x25519, sessionCache);
+    }
+}
@@ -0,0 +1,12 @@
+/**
+ * JMH benchmarks for the TLS API.
+ * <p>
+ * Client and server are connected in memory - records are passed directly between the non-blocking
+ * {@link org.bouncycastle.tls.TlsClientProtocol} and {@link org.bouncycastle.tls.TlsServerProtocol}, or between
+ * a pair of BCJSSE {@link javax.net.ssl.SSLEngine} instances - so the results are free of socket and scheduling
+ * noise. Handshakes are reported as handshakes/second, bulk transfer benchmarks also report a "bytes" auxiliary
+ * counter. The low-level benchmarks can be run against either the BC or the JCA {@code TlsCrypto}.
+ * <p>
+ * Session resumption is only benchmarked for TLS 1.2 as the TLS 1.3 server does not support resumption.
+ */
+package org.bouncycastle.tls.benchmark;
@@ -289,6 +289,16 @@ public String toString()
         return style.toString(this);
     }
 
+    /**
+     * Names are not pooled on this platform, so this simply returns the name.
+     *
+     * @return this name.
+     */
+    public X500Name intern()
+    {
+        return this;
+    }
+
     /**
      * Set the default style for X500Name construction.
      *
@@ -17,7 +17,8 @@
     {
         ASN1Primitive fromImplicitPrimitive(DEROctetString octetString)
         {
-            return createPrimitive(octetString.getOctets());
+            return createPrimitive(octetString.contentsBuffer(), octetString.contentsOffset(),
+                octetString.contentsLength());
         }
 
         ASN1Primitive fromImplicitConstructed(ASN1Sequence sequence)
@@ -144,6 +145,8 @@ static protected byte[] getBytes(int bitString)
     }
 
     final byte[] contents;
+    final int contentsOff;
+    final int contentsLen;
 
     ASN1BitString(byte data, int padBits)
     {
@@ -153,6 +156,8 @@ static protected byte[] getBytes(int bitString)
         }
 
         this.contents = new byte[]{ (byte)padBits, data };
+        this.contentsOff = 0;
+        this.contentsLen = 2;
     }
 
     /**
@@ -177,6 +182,8 @@ static protected byte[] getBytes(int bitString)
         }
 
         this.contents = Arrays.prepend(data, (byte)padBits);
+        this.contentsOff = 0;
+        this.contentsLen = contents.length;
     }
 
     ASN1BitString(byte[] contents, boolean check)
@@ -207,16 +214,34 @@ static protected byte[] getBytes(int bitString)
         }
 
         this.contents = contents;
+        this.contentsOff = 0;
+        this.contentsLen = contents.length;
+    }
+
+    /**
+     * Create a BIT STRING whose contents octets, starting with the pad bits octet, are a window on a larger array.
+     * The window is used in place, so the array must not be modified while this object is in use.
+     */
+    ASN1BitString(byte[] buf, int off, int len)
+    {
+        if (off < 0 || len < 1 || off > buf.length - len)
+        {
+            throw new IllegalArgumentException("slice out of range for buffer");
+        }
+
+        this.contents = buf;
+        this.contentsOff = off;
+        this.contentsLen = len;
     }
 
     public InputStream getBitStream() throws IOException
     {
-        return new ByteArrayInputStream(contents, 1, contents.length - 1);
+        return new ByteArrayInputStream(contents, contentsOff + 1, contentsLen - 1);
     }
 
     public InputStream getOctetStream() throws IOException
     {
-        int padBits = contents[0] & 0xFF;
+        int padBits = contents[contentsOff] & 0xFF;
         if (0 != padBits)
         {
             throw new IOException("expected octet-aligned bitstring, but found padBits: " + padBits);
@@ -266,15 +291,15 @@ public String getString()
     public int intValue()
     {
         int value = 0;
-        int end = Math.min(5, contents.length - 1);
+        int end = Math.min(5, contentsLen - 1);
         for (int i = 1; i < end; ++i)
         {
-            value |= (contents[i] & 0xFF) << (8 * (i - 1));
+            value |= (contents[contentsOff + i] & 0xFF) << (8 * (i - 1));
         }
         if (1 <= end && end < 5)
         {
-            int padBits = contents[0] & 0xFF;
-            byte der = (byte)(contents[end] & (0xFF << padBits));
+            int padBits = contents[contentsOff] & 0xFF;
+            byte der = (byte)(contents[contentsOff + end] & (0xFF << padBits));
             value |= (der & 0xFF) << (8 * (end - 1));
         }
         return value;
@@ -289,23 +314,23 @@ public int intValue()
      */
     public byte[] getOctets()
     {
-        if (contents[0] != 0)
+        if (contents[contentsOff] != 0)
         {
             throw new IllegalStateException("attempt to get non-octet aligned data from BIT STRING");
         }
 
-        return Arrays.copyOfRange(contents, 1, contents.length);
+        return Arrays.copyOfRange(contents, contentsOff + 1, contentsOff + contentsLen);
     }
 
     public byte[] getBytes()
     {
-        if (contents.length == 1)
+        if (contentsLen == 1)
         {
             return ASN1OctetString.EMPTY_OCTETS;
         }
 
-        int padBits = contents[0] & 0xFF;
-        byte[] rv = Arrays.copyOfRange(contents, 1, contents.length);
+        int padBits = contents[contentsOff] & 0xFF;
+        byte[] rv = Arrays.copyOfRange(contents, contentsOff + 1, contentsOff + contentsLen);
         // DER requires pad bits be zero
         rv[rv.length - 1] &= (byte)(0xFF << padBits);
         return rv;
@@ -313,7 +338,7 @@ public byte[] getBytes()
 
     public int getBytesLength()
     {
-        return contents.length - 1;
+        return contentsLen - 1;
     }
 
     public boolean isOctetAligned()
@@ -323,7 +348,7 @@ public boolean isOctetAligned()
 
     public int getPadBits()
     {
-        return contents[0] & 0xFF;
+        return contents[contentsOff] & 0xFF;
     }
 
     public String toString()
@@ -333,17 +358,17 @@ public String toString()
 
     public int hashCode()
     {
-        if (contents.length < 2)
+        if (contentsLen < 2)
         {
             return 1;
         }
 
-        int padBits = contents[0] & 0xFF;
-        int last = contents.length - 1;
+        int padBits = contents[contentsOff] & 0xFF;
+        int last = contentsLen - 1;
 
-        byte lastOctetDER = (byte)(contents[last] & (0xFF << padBits));
+        byte lastOctetDER = (byte)(contents[contentsOff + last] & (0xFF << padBits));
 
-        int hc = Arrays.hashCode(contents, 0, last);
+        int hc = Arrays.hashCode(contents, contentsOff, last);
         hc *= 257;
         hc ^= lastOctetDER;
         return hc;
@@ -358,9 +383,10 @@ boolean asn1Equals(ASN1Primitive other)
 
         ASN1BitString that = (ASN1BitString)other;
         byte[] thisContents = this.contents, thatContents = that.contents;
+        int thisOff = this.contentsOff, thatOff = that.contentsOff;
 
-        int length = thisContents.length;
-        if (thatContents.length != length)
+        int length = this.contentsLen;
+        if (that.contentsLen != length)
         {
             return false;
         }
@@ -372,15 +398,15 @@ boolean asn1Equals(ASN1Primitive other)
         int last = length - 1;
         for (int i = 0; i < last; ++i)
         {
-            if (thisContents[i] != thatContents[i])
+            if (thisContents[thisOff + i] != thatContents[thatOff + i])
             {
                 return false;
             }
         }
 
-        int padBits = thisContents[0] & 0xFF;
-        byte thisLastOctetDER = (byte)(thisContents[last] & (0xFF << padBits));
-        byte thatLastOctetDER = (byte)(thatContents[last] & (0xFF << padBits));
+        int padBits = thisContents[thisOff] & 0xFF;
+        byte thisLastOctetDER = (byte)(thisContents[thisOff + last] & (0xFF << padBits));
+        byte thatLastOctetDER = (byte)(thatContents[thatOff + last] & (0xFF << padBits));
 
         return thisLastOctetDER == thatLastOctetDER;
     }
@@ -392,37 +418,57 @@ public ASN1Primitive getLoadedObject()
 
     ASN1Primitive toDERObject()
     {
-        return new DERBitString(contents, false);
+        return new DERBitString(contents, contentsOff, contentsLen);
     }
 
     ASN1Primitive toDLObject()
     {
-        return new DLBitString(contents, false);
+        return new DLBitString(contents, contentsOff, contentsLen);
+    }
+
+    /**
+     * Return the contents octets, starting with the pad bits octet, in an array holding nothing else.
+     */
+    byte[] getContents()
+    {
+        if (contentsOff == 0 && contentsLen == contents.length)
+        {
+            return contents;
+        }
+
+        return Arrays.copyOfRange(contents, contentsOff, contentsOff + contentsLen);
     }
 
     static ASN1BitString createPrimitive(byte[] contents)
     {
-        int length = contents.length;
-        if (length < 1)
+        return createPrimitive(contents, 0, contents.length);
+    }
+
+    /**
+     * Create a BIT STRING from contents octets held in a window on a larger array, which is used in place.
+     */
+    static ASN1BitString createPrimitive(byte[] buf, int off, int len)
+    {
+        if (len < 1)
         {
             throw new IllegalArgumentException("truncated BIT STRING detected");
         }
 
-        int padBits = contents[0] & 0xFF;
+        int padBits = buf[off] & 0xFF;
         if (padBits > 0)
         {
-            if (padBits > 7 || length < 2)
+            if (padBits > 7 || len < 2)
             {
                 throw new IllegalArgumentException("invalid pad bits detected");
             }
 
-            byte finalOctet = contents[length - 1];
+            byte finalOctet = buf[off + len - 1];
             if (finalOctet != (byte)(finalOctet & (0xFF << padBits)))
             {
-                return new DLBitString(contents, false);
+                return new DLBitString(buf, off, len);
             }
         }
 
-        return new DERBitString(contents, false);
+        return new DERBitString(buf, off, len);
     }
 }
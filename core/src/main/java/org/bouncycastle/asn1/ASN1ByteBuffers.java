@@ -0,0 +1,88 @@
+package org.bouncycastle.asn1;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Utility methods for encoding ASN.1 objects directly into ByteBuffers, such as pooled or direct buffers.
+ */
+public final class ASN1ByteBuffers
+{
+    private ASN1ByteBuffers()
+    {
+    }
+
+    /**
+     * Encode an object into a buffer, starting at the buffer's position. The length of the encoding is calculated
+     * before anything is written and, if the buffer has room for it, the buffer's position is advanced past the
+     * encoding.
+     *
+     * @param obj the object to encode.
+     * @param encoding name of encoding to use.
+     * @param out the buffer to write the encoding into.
+     * @return the number of bytes written.
+     * @throws BufferOverflowException if there are fewer bytes remaining in out than the length of the encoding.
+     * @throws IOException on encoding error.
+     */
+    public static int encode(ASN1Encodable obj, String encoding, ByteBuffer out)
+        throws IOException
+    {
+        ASN1Primitive primitive = obj.toASN1Primitive().toEncodingObject(encoding);
+
+        int length = primitive.encodedLength(true);
+        if (length > out.remaining())
+        {
+            throw new BufferOverflowException();
+        }
+
+        if (out.hasArray())
+        {
+            int position = out.position();
+
+            ArrayOutputStream aOut = new ArrayOutputStream(out.array(), out.arrayOffset() + position, length, false);
+            primitive.encodeTo(aOut, encoding);
+            aOut.checkComplete();
+
+            out.position(position + length);
+        }
+        else
+        {
+            // limit the view written to, so a short length calculation cannot overwrite what follows the encoding
+            ByteBuffer view = out.duplicate();
+            view.limit(view.position() + length);
+
+            primitive.encodeTo(new ByteBufferOutputStream(view), encoding);
+            if (view.hasRemaining())
+            {
+                throw new IOException("encoding shorter than calculated length");
+            }
+
+            out.position(view.position());
+        }
+
+        return length;
+    }
+
+    private static class ByteBufferOutputStream
+        extends OutputStream
+    {
+        private final ByteBuffer buf;
+
+        ByteBufferOutputStream(ByteBuffer buf)
+        {
+            this.buf = buf;
+        }
+
+        public void write(int b)
+        {
+            buf.put((byte)b);
+        }
+
+        public void write(byte[] b, int off, int len)
+        {
+            buf.put(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package org.bouncycastle.asn1;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.bouncycastle.util.io.Streams;
+
+/**
+ * A pull parser for ASN.1 streams which reports the structure of an encoding as a series of events rather than
+ * building objects for it, so a document of any size can be processed in memory proportional to its depth.
+ * <p>
+ * Each call to {@link #next()} returns {@link #PRIMITIVE} or {@link #START_CONSTRUCTED} for the identifier and
+ * length of an element, {@link #END_CONSTRUCTED} when the contents of a constructed element are exhausted, and
+ * finally {@link #END_DOCUMENT}. The tag, length and depth of the element an event is for are available from the
+ * reader until the next event. The contents of a primitive element can be read through {@link #getContentStream()},
+ * and any element of interest can be loaded in full using {@link #readObject()}, as can be done for each entry of a
+ * large list. Anything not read is skipped by the next call to next(), and the contents of a constructed element are
+ * only reported as events if they have not been read or skipped.
+ * </p>
+ * <pre>
+ *     ASN1EventReader reader = new ASN1EventReader(in);
+ *
+ *     for (int event = reader.next(); event != ASN1EventReader.END_DOCUMENT; event = reader.next())
+ *     {
+ *         if (event == ASN1EventReader.START_CONSTRUCTED &amp;&amp; reader.getDepth() == 2)
+ *         {
+ *             process(reader.readObject());
+ *         }
+ *     }
+ * </pre>
+ */
+public class ASN1EventReader
+{
+    /**
+     * There are no more elements in the input.
+     */
+    public static final int END_DOCUMENT = 0;
+
+    /**
+     * The start of a primitive element.
+     */
+    public static final int PRIMITIVE = 1;
+
+    /**
+     * The start of a constructed element. The following events are for the elements it contains, unless it is read or
+     * skipped.
+     */
+    public static final int START_CONSTRUCTED = 2;
+
+    /**
+     * The end of the contents of a constructed element.
+     */
+    public static final int END_CONSTRUCTED = 3;
+
+    private final InputStream _in;
+    private final int _limit;
+    private final byte[][] tmpBuffers = new byte[11][];
+
+    private Element open;
+    private Element element;
+    private int event = -1;
+    private boolean contentsUsed;
+
+    public ASN1EventReader(InputStream in)
+    {
+        this(in, StreamUtil.findLimit(in));
+    }
+
+    public ASN1EventReader(byte[] encoding)
+    {
+        this(new ByteArrayInputStream(encoding), encoding.length);
+    }
+
+    public ASN1EventReader(InputStream in, int limit)
+    {
+        this._in = in;
+        this._limit = limit;
+    }
+
+    /**
+     * Move to the next event, skipping anything in the current element that has not been read.
+     *
+     * @return the type of the event.
+     * @throws IOException if the input is not a valid encoding.
+     */
+    public int next()
+        throws IOException
+    {
+        if (event == END_DOCUMENT)
+        {
+            return END_DOCUMENT;
+        }
+
+        if (event == START_CONSTRUCTED && !contentsUsed)
+        {
+            open = element;
+        }
+        else if (event == PRIMITIVE || event == START_CONSTRUCTED)
+        {
+            // anything not read, or left of contents that were only partly read
+            drain(element);
+        }
+
+        InputStream in = (null == open) ? _in : open.contents;
+
+        int tagHdr = in.read();
+        if (tagHdr < 0)
+        {
+            if (null == open)
+            {
+                element = null;
+                return event = END_DOCUMENT;
+            }
+
+            element = open;
+            open = open.parent;
+            return event = END_CONSTRUCTED;
+        }
+
+        element = readElement(in, tagHdr);
+        contentsUsed = false;
+        return event = element.isConstructed() ? START_CONSTRUCTED : PRIMITIVE;
+    }
+
+    /**
+     * Return the type of the current event.
+     *
+     * @return the type of the current event, or -1 if next() has not been called.
+     */
+    public int getEventType()
+    {
+        return event;
+    }
+
+    /**
+     * Return the depth of the current element, 0 for an element at the top level of the input.
+     *
+     * @return the number of constructed elements containing the current one.
+     */
+    public int getDepth()
+    {
+        return current().depth;
+    }
+
+    public int getTagClass()
+    {
+        return current().tagHdr & BERTags.PRIVATE;
+    }
+
+    public int getTagNo()
+    {
+        return current().tagNo;
+    }
+
+    public boolean hasTag(int tagClass, int tagNo)
+    {
+        Element current = current();
+
+        return (current.tagHdr & BERTags.PRIVATE) == tagClass && current.tagNo == tagNo;
+    }
+
+    public boolean isConstructed()
+    {
+        return current().isConstructed();
+    }
+
+    /**
+     * Return the length of the contents of the current element.
+     *
+     * @return the length of the contents in bytes, or -1 if the element uses the indefinite-length form.
+     */
+    public int getLength()
+    {
+        return current().length;
+    }
+
+    /**
+     * Return a stream for the contents octets of the current element, which must use the definite-length form. The
+     * contents are only available until the next call to next(), and a constructed element whose contents are
+     * read this way is not reported as events.
+     *
+     * @return a stream of exactly getLength() bytes.
+     * @throws IllegalStateException if there is no current element with definite-length contents to read.
+     */
+    public InputStream getContentStream()
+    {
+        Element current = start();
+        if (current.length < 0)
+        {
+            throw new IllegalStateException("indefinite-length contents can only be read as events");
+        }
+
+        contentsUsed = true;
+        return current.contents;
+    }
+
+    /**
+     * Load the current element, and everything it contains, as an object. The next event is the one following the
+     * element.
+     *
+     * @return the object the current element encodes.
+     * @throws IOException if the element is not a valid encoding.
+     */
+    public ASN1Primitive readObject()
+        throws IOException
+    {
+        Element current = start();
+
+        contentsUsed = true;
+
+        ASN1StreamParser sp = new ASN1StreamParser(current.contents, _limit, tmpBuffers);
+
+        int tagClass = current.tagHdr & BERTags.PRIVATE;
+        ASN1Encodable obj;
+        if (current.length < 0)
+        {
+            obj = (0 != tagClass)
+                ? sp.loadTaggedIL(tagClass, current.tagNo)
+                : sp.parseImplicitConstructedIL(current.tagNo);
+        }
+        else if (0 != tagClass)
+        {
+            obj = sp.loadTaggedDL(tagClass, current.tagNo, current.isConstructed());
+        }
+        else if (current.isConstructed())
+        {
+            obj = sp.parseImplicitConstructedDL(current.tagNo);
+        }
+        else
+        {
+            obj = sp.parseImplicitPrimitive(current.tagNo, (DefiniteLengthInputStream)current.contents);
+        }
+
+        if (obj instanceof InMemoryRepresentable)
+        {
+            return ((InMemoryRepresentable)obj).getLoadedObject();
+        }
+
+        return obj.toASN1Primitive();
+    }
+
+    /**
+     * Skip the contents of the current element, so the next event is the one following the element.
+     *
+     * @throws IOException if the contents are not a valid encoding.
+     */
+    public void skipContents()
+        throws IOException
+    {
+        Element current = start();
+
+        if (current.length < 0)
+        {
+            // the end of indefinite-length contents can only be found by parsing them
+            do
+            {
+                next();
+            }
+            while (event != END_CONSTRUCTED || element != current);
+
+            event = START_CONSTRUCTED;
+        }
+        else
+        {
+            Streams.drain(current.contents);
+        }
+
+        contentsUsed = true;
+    }
+
+    private Element current()
+    {
+        if (null == element)
+        {
+            throw new IllegalStateException("no current element");
+        }
+
+        return element;
+    }
+
+    private Element start()
+    {
+        if ((event != PRIMITIVE && event != START_CONSTRUCTED) || contentsUsed)
+        {
+            throw new IllegalStateException("no current element to read");
+        }
+
+        return element;
+    }
+
+    private void drain(Element element)
+        throws IOException
+    {
+        if (element.length >= 0)
+        {
+            Streams.drain(element.contents);
+        }
+    }
+
+    private Element readElement(InputStream in, int tagHdr)
+        throws IOException
+    {
+        //
+        // turn off looking for "00" while we resolve the tag
+        //
+        if (in instanceof IndefiniteLengthInputStream)
+        {
+            ((IndefiniteLengthInputStream)in).setEofOn00(false);
+        }
+
+        int tagNo = ASN1InputStream.readTagNumber(in, tagHdr);
+
+        int length = ASN1InputStream.readLength(in, _limit,
+            tagNo == BERTags.BIT_STRING || tagNo == BERTags.OCTET_STRING || tagNo == BERTags.SEQUENCE
+                || tagNo == BERTags.SET || tagNo == BERTags.EXTERNAL);
+
+        LimitedInputStream contents;
+        if (length < 0) // indefinite-length method
+        {
+            if (0 == (tagHdr & BERTags.CONSTRUCTED))
+            {
+                throw new IOException("indefinite-length primitive encoding encountered");
+            }
+
+            contents = new IndefiniteLengthInputStream(in, _limit);
+        }
+        else
+        {
+            contents = new DefiniteLengthInputStream(in, length, _limit);
+        }
+
+        return new Element(open, tagHdr, tagNo, length, contents);
+    }
+
+    private static final class Element
+    {
+        final Element parent;
+        final int depth;
+        final int tagHdr;
+        final int tagNo;
+        final int length;
+        final LimitedInputStream contents;
+
+        Element(Element parent, int tagHdr, int tagNo, int length, LimitedInputStream contents)
+        {
+            this.parent = parent;
+            this.depth = (null == parent) ? 0 : parent.depth + 1;
+            this.tagHdr = tagHdr;
+            this.tagNo = tagNo;
+            this.length = length;
+            this.contents = contents;
+        }
+
+        boolean isConstructed()
+        {
+            return 0 != (tagHdr & BERTags.CONSTRUCTED);
+        }
+    }
+}
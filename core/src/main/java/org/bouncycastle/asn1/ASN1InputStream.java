@@ -21,6 +21,7 @@
     private final int limit;
     private final boolean lazyEvaluate;
     private final byte[][] tmpBuffers;
+    private final SharedInput sharedInput;
 
     public ASN1InputStream(InputStream is)
     {
@@ -50,6 +51,33 @@ public ASN1InputStream(byte[] input, boolean lazyEvaluate)
         this(new ByteArrayInputStream(input), input.length, lazyEvaluate);
     }
 
+    /**
+     * Create an ASN1InputStream based on part of the input byte array, optionally sharing the array with the objects
+     * read. The length of DER objects in the stream is automatically limited to len.
+     * <p>
+     * If shareInput is true the contents of OCTET STRING and BIT STRING primitives, and of lazily evaluated
+     * sequences, are not copied but read in place from windows on the input array - an OCTET STRING only copies its
+     * contents if {@link ASN1OctetString#getOctets()} is called. The input array must then not be modified while any
+     * object read from it is in use. Objects inside indefinite-length encodings are always copied.
+     * </p>
+     *
+     * @param input array containing ASN.1 encoded data.
+     * @param off the offset into input of the encoded data.
+     * @param len the length of the encoded data.
+     * @param lazyEvaluate true if parsing inside constructed objects can be delayed.
+     * @param shareInput true if the objects read can reference the input array rather than copies of it.
+     */
+    public ASN1InputStream(byte[] input, int off, int len, boolean lazyEvaluate, boolean shareInput)
+    {
+        this(input, off, len, lazyEvaluate, shareInput ? new SharedInput(input, off, len) : null);
+    }
+
+    private ASN1InputStream(byte[] input, int off, int len, boolean lazyEvaluate, SharedInput sharedInput)
+    {
+        this(null != sharedInput ? sharedInput : new ByteArrayInputStream(input, off, len), len, lazyEvaluate,
+            new byte[11][], sharedInput);
+    }
+
     /**
      * Create an ASN1InputStream where no DER object will be longer than limit.
      * 
@@ -83,15 +111,17 @@ public ASN1InputStream(InputStream input, boolean lazyEvaluate)
      */
     public ASN1InputStream(InputStream input, int limit, boolean lazyEvaluate)
     {
-        this(input, limit, lazyEvaluate, new byte[11][]);
+        this(input, limit, lazyEvaluate, new byte[11][], null);
     }
 
-    private ASN1InputStream(InputStream input, int limit, boolean lazyEvaluate, byte[][] tmpBuffers)
+    private ASN1InputStream(InputStream input, int limit, boolean lazyEvaluate, byte[][] tmpBuffers,
+        SharedInput sharedInput)
     {
         super(input);
         this.limit = limit;
         this.lazyEvaluate = lazyEvaluate;
         this.tmpBuffers = tmpBuffers;
+        this.sharedInput = sharedInput;
     }
 
     int getLimit()
@@ -136,6 +166,10 @@ protected ASN1Primitive buildObject(
 
         if (0 == (tag & FLAGS))
         {
+            if (null != sharedInput && (tagNo == BIT_STRING || tagNo == OCTET_STRING))
+            {
+                return createSharedPrimitive(tagNo, defIn);
+            }
             return createPrimitiveDERObject(tagNo, defIn, tmpBuffers);
         }
 
@@ -167,6 +201,12 @@ protected ASN1Primitive buildObject(
             }
             else if (lazyEvaluate)
             {
+                if (null != sharedInput)
+                {
+                    int off = sharedInput.getPosition(), len = defIn.getRemaining();
+                    defIn.skipAll();
+                    return new LazyEncodedSequence(sharedInput.getBuffer(), off, len);
+                }
                 return new LazyEncodedSequence(defIn.toByteArray());
             }
             else
@@ -296,6 +336,14 @@ ASN1Primitive readTaggedObjectDL(int tagClass, int tagNo, boolean constructed, D
     {
         if (!constructed)
         {
+            if (null != sharedInput)
+            {
+                int off = sharedInput.getPosition(), len = defIn.getRemaining();
+                defIn.skipAll();
+                return ASN1TaggedObject.createPrimitive(tagClass, tagNo,
+                    ASN1OctetString.createPrimitive(sharedInput.getBuffer(), off, len));
+            }
+
             byte[] contentsOctets = defIn.toByteArray();
             return ASN1TaggedObject.createPrimitive(tagClass, tagNo, contentsOctets);
         }
@@ -329,7 +377,27 @@ ASN1EncodableVector readVector(DefiniteLengthInputStream defIn) throws IOExcepti
             return new ASN1EncodableVector(0);
         }
 
-        return new ASN1InputStream(defIn, remaining, lazyEvaluate, tmpBuffers).readVector();
+        return new ASN1InputStream(defIn, remaining, lazyEvaluate, tmpBuffers, sharedInput).readVector();
+    }
+
+    private ASN1Primitive createSharedPrimitive(int tagNo, DefiniteLengthInputStream defIn)
+        throws IOException
+    {
+        int off = sharedInput.getPosition(), len = defIn.getRemaining();
+        defIn.skipAll();
+
+        try
+        {
+            if (tagNo == BIT_STRING)
+            {
+                return ASN1BitString.createPrimitive(sharedInput.getBuffer(), off, len);
+            }
+            return ASN1OctetString.createPrimitive(sharedInput.getBuffer(), off, len);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new ASN1Exception(e.getMessage(), e);
+        }
     }
 
     static int readTagNumber(InputStream s, int tag) 
@@ -594,4 +662,27 @@ static ASN1Primitive createPrimitiveDERObject(
             throw new ASN1Exception(e.getMessage(), e);
         }
     }
+
+    /**
+     * The input array of a stream sharing it with the objects read, which tracks how much of it has been read. The
+     * streams between this and the parser do no buffering, so the position is that of the next octet to be parsed.
+     */
+    private static final class SharedInput
+        extends ByteArrayInputStream
+    {
+        SharedInput(byte[] buf, int off, int len)
+        {
+            super(buf, off, len);
+        }
+
+        byte[] getBuffer()
+        {
+            return buf;
+        }
+
+        int getPosition()
+        {
+            return pos;
+        }
+    }
 }
@@ -1,6 +1,5 @@
 package org.bouncycastle.asn1;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -30,9 +29,7 @@ public void encodeTo(OutputStream output, String encoding) throws IOException
      */
     public byte[] getEncoded() throws IOException
     {
-        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
-        toASN1Primitive().encodeTo(bOut);
-        return bOut.toByteArray();
+        return toASN1Primitive().getEncodedInternal(ASN1Encoding.BER);
     }
 
     /**
@@ -44,9 +41,41 @@ public byte[] getEncoded() throws IOException
      */
     public byte[] getEncoded(String encoding) throws IOException
     {
-        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
-        toASN1Primitive().encodeTo(bOut, encoding);
-        return bOut.toByteArray();
+        return toASN1Primitive().getEncodedInternal(encoding);
+    }
+
+    /**
+     * Return the length of the encoding of this object using the given encoding.
+     * <p>
+     * Objects whose {@link #toASN1Primitive()} creates a new primitive each time it is called will calculate the
+     * length again when encoded. To size a buffer for {@link #encodeTo(byte[], int, String)} with a single
+     * calculation of the lengths, call both methods on the result of toASN1Primitive().
+     * </p>
+     *
+     * @param encoding name of encoding to use.
+     * @return the length of the encoding in bytes.
+     * @throws IOException on encoding error.
+     */
+    public int getEncodedLength(String encoding) throws IOException
+    {
+        return toASN1Primitive().getEncodedLength(encoding);
+    }
+
+    /**
+     * Encode this object into a buffer supplied by the caller, such as one taken from a pool, without any
+     * intermediate copies. The lengths of the encoding and its components are calculated once, before anything
+     * is written.
+     *
+     * @param buf the buffer to write the encoding into.
+     * @param off the offset into buf to start writing at.
+     * @param encoding name of encoding to use.
+     * @return the number of bytes written.
+     * @throws IllegalArgumentException if buf is too short to hold the encoding starting at off.
+     * @throws IOException on encoding error.
+     */
+    public int encodeTo(byte[] buf, int off, String encoding) throws IOException
+    {
+        return toASN1Primitive().encodeTo(buf, off, encoding);
     }
 
     public int hashCode()
@@ -189,7 +189,7 @@ public ASN1OctetString(
      */
     public InputStream getOctetStream()
     {
-        return new ByteArrayInputStream(string);
+        return new ByteArrayInputStream(contentsBuffer(), contentsOffset(), contentsLength());
     }
 
     /**
@@ -214,12 +214,12 @@ public byte[] getOctets()
 
     public int getOctetsLength()
     {
-        return getOctets().length;
+        return contentsLength();
     }
 
     public int hashCode()
     {
-        return Arrays.hashCode(this.getOctets());
+        return Arrays.hashCode(contentsBuffer(), contentsOffset(), contentsLength());
     }
 
     boolean asn1Equals(
@@ -232,7 +232,10 @@ boolean asn1Equals(
 
         ASN1OctetString  other = (ASN1OctetString)o;
 
-        return Arrays.areEqual(string, other.string);
+        int thisOff = this.contentsOffset(), otherOff = other.contentsOffset();
+
+        return Arrays.areEqual(this.contentsBuffer(), thisOff, thisOff + this.contentsLength(),
+            other.contentsBuffer(), otherOff, otherOff + other.contentsLength());
     }
 
     public ASN1Primitive getLoadedObject()
@@ -242,21 +245,45 @@ public ASN1Primitive getLoadedObject()
 
     ASN1Primitive toDERObject()
     {
-        return new DEROctetString(string);
+        return new DEROctetString(getOctets());
     }
 
     ASN1Primitive toDLObject()
     {
-        return new DEROctetString(string);
+        return new DEROctetString(getOctets());
     }
 
     public String toString()
     {
-      return "#" + Strings.fromByteArray(Hex.encode(string));
+      return "#" + Strings.fromByteArray(Hex.encode(contentsBuffer(), contentsOffset(), contentsLength()));
+    }
+
+    /**
+     * Return the array holding the contents octets, which start at {@link #contentsOffset()}. Unlike
+     * {@link #getOctets()} this never causes the contents to be copied, and the array must not be modified.
+     */
+    byte[] contentsBuffer()
+    {
+        return string;
+    }
+
+    int contentsOffset()
+    {
+        return 0;
+    }
+
+    int contentsLength()
+    {
+        return string.length;
     }
 
     static ASN1OctetString createPrimitive(byte[] contents)
     {
         return new DEROctetString(contents);
     }
+
+    static DEROctetString createPrimitive(byte[] buf, int off, int len)
+    {
+        return new SlicedOctetString(buf, off, len);
+    }
 }
@@ -1,5 +1,6 @@
 package org.bouncycastle.asn1;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -27,6 +28,139 @@ public void encodeTo(OutputStream output, String encoding) throws IOException
         asn1Out.flushInternal();
     }
 
+    public int getEncodedLength(String encoding) throws IOException
+    {
+        return toEncodingObject(encoding).encodedLength(true);
+    }
+
+    public int encodeTo(byte[] buf, int off, String encoding) throws IOException
+    {
+        ASN1Primitive primitive = toEncodingObject(encoding);
+
+        int length = primitive.encodedLength(true);
+        if (off < 0 || length > buf.length - off)
+        {
+            throw new IllegalArgumentException("output buffer too short for encoding");
+        }
+
+        ArrayOutputStream aOut = new ArrayOutputStream(buf, off, length, false);
+        primitive.encodeTo(aOut, encoding);
+        aOut.checkComplete();
+
+        return length;
+    }
+
+    byte[] getEncodedInternal(String encoding) throws IOException
+    {
+        if (ASN1Encoding.DER.equals(encoding) || ASN1Encoding.DL.equals(encoding))
+        {
+            ASN1Primitive primitive = toEncodingObject(encoding);
+
+            // the prepared form keeps the lengths it calculates, so the encoding is written straight into an array
+            // of the calculated length, growing it only if a calculated length turns out to be short.
+            ArrayOutputStream aOut = new ArrayOutputStream(new byte[primitive.encodedLength(true)], 0, 0, true);
+            primitive.encodeTo(aOut, encoding);
+
+            return aOut.toByteArray();
+        }
+
+        // working out a BER length would walk the structure a second time, so it is written out in one pass,
+        // with only the definite-length parts converted first.
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        prepare().encodeTo(bOut, encoding);
+        return bOut.toByteArray();
+    }
+
+    /**
+     * Return the form of this object to write with the given encoding. Any conversions of the elements the encoding
+     * needs are made here, all the way down, so the length calculation and the encoding that follows work on the
+     * same objects and nothing is converted twice. The result is only for the encoding in hand.
+     */
+    ASN1Primitive toEncodingObject(String encoding)
+    {
+        if (ASN1Encoding.DER.equals(encoding))
+        {
+            return prepareDER();
+        }
+        if (ASN1Encoding.DL.equals(encoding))
+        {
+            return prepareDL();
+        }
+        return prepare();
+    }
+
+    /**
+     * Return this object ready for encoding, with the elements of any definite-length parts converted.
+     */
+    ASN1Primitive prepare()
+    {
+        return this;
+    }
+
+    /**
+     * Return the DER form of this object, with its elements already converted to DER.
+     */
+    ASN1Primitive prepareDER()
+    {
+        return toDERObject();
+    }
+
+    /**
+     * Return the DL form of this object, with its elements already converted to DL.
+     */
+    ASN1Primitive prepareDL()
+    {
+        return toDLObject();
+    }
+
+    /**
+     * Return the DER forms of the passed in elements, or the elements themselves if none of them need converting.
+     */
+    static ASN1Encodable[] prepareDERElements(ASN1Encodable[] elements)
+    {
+        ASN1Encodable[] prepared = elements;
+
+        for (int i = 0; i < elements.length; ++i)
+        {
+            ASN1Primitive derObject = elements[i].toASN1Primitive().prepareDER();
+            if (derObject != elements[i] && prepared == elements)
+            {
+                prepared = new ASN1Encodable[elements.length];
+                System.arraycopy(elements, 0, prepared, 0, i);
+            }
+            if (prepared != elements)
+            {
+                prepared[i] = derObject;
+            }
+        }
+
+        return prepared;
+    }
+
+    /**
+     * Return the DL forms of the passed in elements, or the elements themselves if none of them need converting.
+     */
+    static ASN1Encodable[] prepareDLElements(ASN1Encodable[] elements)
+    {
+        ASN1Encodable[] prepared = elements;
+
+        for (int i = 0; i < elements.length; ++i)
+        {
+            ASN1Primitive dlObject = elements[i].toASN1Primitive().prepareDL();
+            if (dlObject != elements[i] && prepared == elements)
+            {
+                prepared = new ASN1Encodable[elements.length];
+                System.arraycopy(elements, 0, prepared, 0, i);
+            }
+            if (prepared != elements)
+            {
+                prepared[i] = dlObject;
+            }
+        }
+
+        return prepared;
+    }
+
     /**
      * Create a base ASN.1 object from a byte stream.
      *
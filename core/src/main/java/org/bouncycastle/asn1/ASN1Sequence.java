@@ -361,6 +361,16 @@ ASN1Primitive toDLObject()
         return new DLSequence(elements, false);
     }
 
+    ASN1Primitive prepareDER()
+    {
+        return toDERObject().prepareDER();
+    }
+
+    ASN1Primitive prepareDL()
+    {
+        return toDLObject().prepareDL();
+    }
+
     abstract ASN1BitString toASN1BitString();
 
     abstract ASN1External toASN1External();
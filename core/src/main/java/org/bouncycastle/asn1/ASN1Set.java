@@ -378,6 +378,16 @@ ASN1Primitive toDLObject()
         return new DLSet(elements, sortedElements);
     }
 
+    ASN1Primitive prepareDER()
+    {
+        return toDERObject().prepareDER();
+    }
+
+    ASN1Primitive prepareDL()
+    {
+        return toDLObject().prepareDL();
+    }
+
     boolean asn1Equals(ASN1Primitive other)
     {
         if (!(other instanceof ASN1Set))
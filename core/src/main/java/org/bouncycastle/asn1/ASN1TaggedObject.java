@@ -440,6 +440,16 @@ ASN1Primitive toDLObject()
         return new DLTaggedObject(explicitness, tagClass, tagNo, obj);
     }
 
+    ASN1Primitive prepareDER()
+    {
+        return toDERObject().prepareDER();
+    }
+
+    ASN1Primitive prepareDL()
+    {
+        return toDLObject().prepareDL();
+    }
+
     public String toString()
     {
         return ASN1Util.getTagText(tagClass, tagNo) + obj;
@@ -464,9 +474,14 @@ static ASN1Primitive createConstructedIL(int tagClass, int tagNo, ASN1EncodableV
     }
 
     static ASN1Primitive createPrimitive(int tagClass, int tagNo, byte[] contentsOctets)
+    {
+        return createPrimitive(tagClass, tagNo, new DEROctetString(contentsOctets));
+    }
+
+    static ASN1Primitive createPrimitive(int tagClass, int tagNo, DEROctetString contents)
     {
         // Note: !CONSTRUCTED => IMPLICIT
-        return new DLTaggedObject(PARSED_IMPLICIT, tagClass, tagNo, new DEROctetString(contentsOctets));
+        return new DLTaggedObject(PARSED_IMPLICIT, tagClass, tagNo, contents);
     }
 
     private static ASN1TaggedObject checkedCast(ASN1Primitive primitive)
@@ -0,0 +1,91 @@
+package org.bouncycastle.asn1;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.bouncycastle.util.Arrays;
+
+/**
+ * Output stream writing an encoding directly into an array sized from the calculated length of the encoding.
+ */
+class ArrayOutputStream
+    extends OutputStream
+{
+    private final boolean growable;
+
+    private byte[] buf;
+    private int pos;
+    private int end;
+
+    /**
+     * Base constructor.
+     *
+     * @param buf the array to write into.
+     * @param off the offset into buf to start writing at.
+     * @param length the expected length of the output.
+     * @param growable true if buf should be replaced by a larger array if more than length bytes are written, false if
+     *                 that is an error.
+     */
+    ArrayOutputStream(byte[] buf, int off, int length, boolean growable)
+    {
+        this.growable = growable;
+        this.buf = buf;
+        this.pos = off;
+        this.end = growable ? buf.length : off + length;
+    }
+
+    public void write(int b)
+        throws IOException
+    {
+        if (pos == end)
+        {
+            ensureCapacity(1);
+        }
+
+        buf[pos++] = (byte)b;
+    }
+
+    public void write(byte[] b, int off, int len)
+        throws IOException
+    {
+        if (len > end - pos)
+        {
+            ensureCapacity(len);
+        }
+
+        System.arraycopy(b, off, buf, pos, len);
+        pos += len;
+    }
+
+    /**
+     * Check the output filled the expected length exactly.
+     */
+    void checkComplete()
+        throws IOException
+    {
+        if (pos != end)
+        {
+            throw new IOException("encoding shorter than calculated length");
+        }
+    }
+
+    /**
+     * Return the output of a growable stream, trimmed to the number of bytes written.
+     */
+    byte[] toByteArray()
+    {
+        return pos == buf.length ? buf : Arrays.copyOf(buf, pos);
+    }
+
+    private void ensureCapacity(int len)
+        throws IOException
+    {
+        if (!growable)
+        {
+            throw new IOException("encoding longer than calculated length");
+        }
+
+        buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + len));
+        end = buf.length;
+    }
+}
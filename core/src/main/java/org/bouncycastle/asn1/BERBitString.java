@@ -22,25 +22,25 @@ static byte[] flattenBitStrings(ASN1BitString[] bitStrings)
             // No bits
             return new byte[]{ 0 };
         case 1:
-            return bitStrings[0].contents;
+            return bitStrings[0].getContents();
         default:
         {
             int last = count - 1, totalLength = 0;
             for (int i = 0; i < last; ++i)
             {
-                byte[] elementContents = bitStrings[i].contents;
-                if (elementContents[0] != 0)
+                ASN1BitString element = bitStrings[i];
+                if (element.contents[element.contentsOff] != 0)
                 {
                     throw new IllegalArgumentException("only the last nested bitstring can have padding");
                 }
 
-                totalLength += elementContents.length - 1;
+                totalLength += element.contentsLen - 1;
             }
 
             // Last one can have padding
-            byte[] lastElementContents = bitStrings[last].contents;
-            byte padBits = lastElementContents[0];
-            totalLength += lastElementContents.length;
+            ASN1BitString lastElement = bitStrings[last];
+            byte padBits = lastElement.contents[lastElement.contentsOff];
+            totalLength += lastElement.contentsLen;
 
             byte[] contents = new byte[totalLength];
             contents[0] = padBits;
@@ -48,9 +48,9 @@ static byte[] flattenBitStrings(ASN1BitString[] bitStrings)
             int pos = 1;
             for (int i = 0; i < count; ++i)
             {
-                byte[] elementContents = bitStrings[i].contents;
-                int length = elementContents.length - 1;
-                System.arraycopy(elementContents, 1, contents, pos, length);
+                ASN1BitString element = bitStrings[i];
+                int length = element.contentsLen - 1;
+                System.arraycopy(element.contents, element.contentsOff + 1, contents, pos, length);
                 pos += length;
             }
 
@@ -35,21 +35,22 @@ static byte[] flattenOctetStrings(ASN1OctetString[] octetStrings)
         case 0:
             return EMPTY_OCTETS;
         case 1:
-            return octetStrings[0].string;
+            return octetStrings[0].getOctets();
         default:
         {
             int totalOctets = 0;
             for (int i = 0; i < count; ++i)
             {
-                totalOctets += octetStrings[i].string.length;
+                totalOctets += octetStrings[i].contentsLength();
             }
 
             byte[] string = new byte[totalOctets];
             for (int i = 0, pos = 0; i < count; ++i)
             {
-                byte[] octets = octetStrings[i].string;
-                System.arraycopy(octets, 0, string, pos, octets.length);
-                pos += octets.length;
+                ASN1OctetString octetString = octetStrings[i];
+                int len = octetString.contentsLength();
+                System.arraycopy(octetString.contentsBuffer(), octetString.contentsOffset(), string, pos, len);
+                pos += len;
             }
 
 //            assert pos == totalOctets;
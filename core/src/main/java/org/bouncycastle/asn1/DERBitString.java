@@ -45,6 +45,11 @@ public DERBitString(ASN1Encodable obj) throws IOException
         super(contents, check);
     }
 
+    DERBitString(byte[] buf, int off, int len)
+    {
+        super(buf, off, len);
+    }
+
     boolean encodeConstructed()
     {
         return false;
@@ -52,25 +57,24 @@ boolean encodeConstructed()
 
     int encodedLength(boolean withTag)
     {
-        return ASN1OutputStream.getLengthOfEncodingDL(withTag, contents.length);
+        return ASN1OutputStream.getLengthOfEncodingDL(withTag, contentsLen);
     }
 
     void encode(ASN1OutputStream out, boolean withTag) throws IOException
     {
-        int padBits = contents[0] & 0xFF;
-        int length = contents.length;
-        int last = length - 1;
+        int padBits = contents[contentsOff] & 0xFF;
+        int last = contentsLen - 1;
 
-        byte lastOctet = contents[last];
-        byte lastOctetDER = (byte)(contents[last] & (0xFF << padBits));
+        byte lastOctet = contents[contentsOff + last];
+        byte lastOctetDER = (byte)(lastOctet & (0xFF << padBits));
 
         if (lastOctet == lastOctetDER)
         {
-            out.writeEncodingDL(withTag, BERTags.BIT_STRING, contents);
+            out.writeEncodingDL(withTag, BERTags.BIT_STRING, contents, contentsOff, contentsLen);
         }
         else
         {
-            out.writeEncodingDL(withTag, BERTags.BIT_STRING, contents, 0, last, lastOctetDER);
+            out.writeEncodingDL(withTag, BERTags.BIT_STRING, contents, contentsOff, last, lastOctetDER);
         }
     }
 
@@ -38,12 +38,12 @@ boolean encodeConstructed()
 
     int encodedLength(boolean withTag)
     {
-        return ASN1OutputStream.getLengthOfEncodingDL(withTag, string.length);
+        return ASN1OutputStream.getLengthOfEncodingDL(withTag, contentsLength());
     }
 
     void encode(ASN1OutputStream out, boolean withTag) throws IOException
     {
-        out.writeEncodingDL(withTag, BERTags.OCTET_STRING, string);
+        out.writeEncodingDL(withTag, BERTags.OCTET_STRING, contentsBuffer(), contentsOffset(), contentsLength());
     }
 
     ASN1Primitive toDERObject()
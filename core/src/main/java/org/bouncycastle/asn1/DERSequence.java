@@ -168,4 +168,21 @@ ASN1Primitive toDLObject()
     {
         return this;
     }
+
+    ASN1Primitive prepare()
+    {
+        return prepareDER();
+    }
+
+    ASN1Primitive prepareDER()
+    {
+        ASN1Encodable[] derElements = prepareDERElements(elements);
+
+        return derElements == elements ? this : new DERSequence(derElements, false);
+    }
+
+    ASN1Primitive prepareDL()
+    {
+        return prepareDER();
+    }
 }
@@ -150,4 +150,27 @@ private static boolean checkSorted(boolean isSorted)
         }
         return isSorted;
     }
+
+    ASN1Primitive prepare()
+    {
+        return prepareDER();
+    }
+
+    ASN1Primitive prepareDER()
+    {
+        if (sortedElements == null)
+        {
+            return toDERObject().prepareDER();
+        }
+
+        // converting the elements leaves their DER encodings, and so their order, unchanged
+        ASN1Encodable[] derElements = prepareDERElements(elements);
+
+        return derElements == elements ? this : new DERSet(true, derElements);
+    }
+
+    ASN1Primitive prepareDL()
+    {
+        return prepareDER();
+    }
 }
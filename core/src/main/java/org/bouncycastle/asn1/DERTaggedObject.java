@@ -107,4 +107,21 @@ ASN1Primitive toDLObject()
     {
         return this;
     }
+
+    ASN1Primitive prepare()
+    {
+        return prepareDER();
+    }
+
+    ASN1Primitive prepareDER()
+    {
+        ASN1Primitive derObject = obj.toASN1Primitive().prepareDER();
+
+        return derObject == obj ? this : new DERTaggedObject(explicitness, tagClass, tagNo, derObject);
+    }
+
+    ASN1Primitive prepareDL()
+    {
+        return prepareDER();
+    }
 }
@@ -40,6 +40,11 @@ public DLBitString(ASN1Encodable obj) throws IOException
         super(contents, check);
     }
 
+    DLBitString(byte[] buf, int off, int len)
+    {
+        super(buf, off, len);
+    }
+
     boolean encodeConstructed()
     {
         return false;
@@ -47,12 +52,12 @@ boolean encodeConstructed()
 
     int encodedLength(boolean withTag)
     {
-        return ASN1OutputStream.getLengthOfEncodingDL(withTag, contents.length);
+        return ASN1OutputStream.getLengthOfEncodingDL(withTag, contentsLen);
     }
 
     void encode(ASN1OutputStream out, boolean withTag) throws IOException
     {
-        out.writeEncodingDL(withTag, BERTags.BIT_STRING, contents);
+        out.writeEncodingDL(withTag, BERTags.BIT_STRING, contents, contentsOff, contentsLen);
     }
 
     ASN1Primitive toDLObject()
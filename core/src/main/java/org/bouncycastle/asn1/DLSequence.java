@@ -154,4 +154,16 @@ ASN1Primitive toDLObject()
     {
         return this;
     }
+
+    ASN1Primitive prepare()
+    {
+        return prepareDL();
+    }
+
+    ASN1Primitive prepareDL()
+    {
+        ASN1Encodable[] dlElements = prepareDLElements(elements);
+
+        return dlElements == elements ? this : new DLSequence(dlElements, false);
+    }
 }
@@ -170,4 +170,16 @@ ASN1Primitive toDLObject()
     {
         return this;
     }
+
+    ASN1Primitive prepare()
+    {
+        return prepareDL();
+    }
+
+    ASN1Primitive prepareDL()
+    {
+        ASN1Encodable[] dlElements = prepareDLElements(elements);
+
+        return dlElements == elements ? this : new DLSet(false, dlElements);
+    }
 }
\ No newline at end of file
@@ -102,4 +102,16 @@ ASN1Primitive toDLObject()
     {
         return this;
     }
+
+    ASN1Primitive prepare()
+    {
+        return prepareDL();
+    }
+
+    ASN1Primitive prepareDL()
+    {
+        ASN1Primitive dlObject = obj.toASN1Primitive().prepareDL();
+
+        return dlObject == obj ? this : new DLTaggedObject(explicitness, tagClass, tagNo, dlObject);
+    }
 }
@@ -91,6 +91,53 @@ public int read(byte[] buf, int off, int len)
         return numRead;
     }
 
+    /**
+     * Skip the remaining contents, without copying them, for a caller that reads them from the underlying array.
+     */
+    void skipAll()
+        throws IOException
+    {
+        if (_remaining == 0)
+        {
+            return;
+        }
+
+        // make sure it's safe to do this!
+        int limit = getLimit();
+        if (_remaining >= limit)
+        {
+            throw new IOException("corrupted stream - out of bounds length found: " + _remaining + " >= " + limit);
+        }
+
+        while (_remaining > 0)
+        {
+            long skipped = _in.skip(_remaining);
+            if (skipped <= 0)
+            {
+                throw new EOFException("DEF length " + _originalLength + " object truncated by " + _remaining);
+            }
+            _remaining -= (int)skipped;
+        }
+        setParentEofDetect(true);
+    }
+
+    public long skip(long n)
+        throws IOException
+    {
+        if (_remaining == 0 || n <= 0)
+        {
+            return 0;
+        }
+
+        long skipped = _in.skip(Math.min(n, _remaining));
+        if (skipped > 0 && (_remaining -= (int)skipped) == 0)
+        {
+            setParentEofDetect(true);
+        }
+
+        return skipped;
+    }
+
     void readAllIntoByteArray(byte[] buf)
         throws IOException
     {
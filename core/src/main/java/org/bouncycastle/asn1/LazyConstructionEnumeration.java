@@ -12,7 +12,12 @@
 
     public LazyConstructionEnumeration(byte[] encoded)
     {
-        aIn = new ASN1InputStream(encoded, true);
+        this(encoded, 0, encoded.length, false);
+    }
+
+    LazyConstructionEnumeration(byte[] buf, int off, int len, boolean shareInput)
+    {
+        aIn = new ASN1InputStream(buf, off, len, true, shareInput);
         nextObj = readObject();
     }
 
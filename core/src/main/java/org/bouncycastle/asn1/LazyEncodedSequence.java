@@ -11,6 +11,9 @@
     extends ASN1Sequence
 {
     private byte[] encoded;
+    private final int encodedOff;
+    private final int encodedLen;
+    private final boolean shared;
 
     LazyEncodedSequence(byte[] encoded) throws IOException
     {
@@ -23,6 +26,24 @@
         }
 
         this.encoded = encoded;
+        this.encodedOff = 0;
+        this.encodedLen = encoded.length;
+        this.shared = false;
+    }
+
+    /**
+     * A sequence whose contents are a window on an input array shared with the stream that read it. The elements
+     * are read sharing the same array when the sequence is forced.
+     */
+    LazyEncodedSequence(byte[] buf, int off, int len) throws IOException
+    {
+        // NOTE: Initially, the actual 'elements' will be empty
+        super();
+
+        this.encoded = buf;
+        this.encodedOff = off;
+        this.encodedLen = len;
+        this.shared = true;
     }
 
     public ASN1Encodable getObjectAt(int index)
@@ -37,7 +58,7 @@ public Enumeration getObjects()
         byte[] encoded = getContents();
         if (null != encoded)
         {
-            return new LazyConstructionEnumeration(encoded);
+            return new LazyConstructionEnumeration(encoded, encodedOff, encodedLen, shared);
         }
 
         return super.getObjects();
@@ -84,7 +105,7 @@ int encodedLength(boolean withTag)
         byte[] encoded = getContents();
         if (null != encoded)
         {
-            return ASN1OutputStream.getLengthOfEncodingDL(withTag, encoded.length);
+            return ASN1OutputStream.getLengthOfEncodingDL(withTag, encodedLen);
         }
 
         return super.toDLObject().encodedLength(withTag);
@@ -95,7 +116,7 @@ void encode(ASN1OutputStream out, boolean withTag) throws IOException
         byte[] encoded = getContents();
         if (null != encoded)
         {
-            out.writeEncodingDL(withTag, BERTags.CONSTRUCTED | BERTags.SEQUENCE, encoded);
+            out.writeEncodingDL(withTag, BERTags.CONSTRUCTED | BERTags.SEQUENCE, encoded, encodedOff, encodedLen);
             return;
         }
 
@@ -136,11 +157,22 @@ ASN1Primitive toDLObject()
         return super.toDLObject();
     }
 
+    ASN1Primitive prepareDL()
+    {
+        // the contents are DL encoded already, so are written as they are
+        if (null != getContents())
+        {
+            return this;
+        }
+
+        return super.prepareDL();
+    }
+
     private synchronized void force()
     {
         if (null != encoded)
         {
-            ASN1InputStream aIn = new ASN1InputStream(encoded, true);
+            ASN1InputStream aIn = new ASN1InputStream(encoded, encodedOff, encodedLen, true, shared);
             try
             {
                 ASN1EncodableVector v = aIn.readVector();
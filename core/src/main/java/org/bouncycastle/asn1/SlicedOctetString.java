@@ -0,0 +1,58 @@
+package org.bouncycastle.asn1;
+
+import org.bouncycastle.util.Arrays;
+
+/**
+ * A DER OCTET STRING whose contents are a window on a larger array, normally the encoding it was parsed from. The
+ * contents are only copied into an array of their own if {@link #getOctets()} is called; encoding, comparison and
+ * {@link #getOctetStream()} all work on the window directly.
+ */
+class SlicedOctetString
+    extends DEROctetString
+{
+    private final byte[] buf;
+    private final int off;
+    private final int len;
+
+    private byte[] octets;
+
+    SlicedOctetString(byte[] buf, int off, int len)
+    {
+        // NOTE: the base 'string' is never used, all access is through contentsBuffer() or getOctets()
+        super(EMPTY_OCTETS);
+
+        if (off < 0 || len < 0 || off > buf.length - len)
+        {
+            throw new IllegalArgumentException("slice out of range for buffer");
+        }
+
+        this.buf = buf;
+        this.off = off;
+        this.len = len;
+    }
+
+    public synchronized byte[] getOctets()
+    {
+        if (null == octets)
+        {
+            octets = Arrays.copyOfRange(buf, off, off + len);
+        }
+
+        return octets;
+    }
+
+    byte[] contentsBuffer()
+    {
+        return buf;
+    }
+
+    int contentsOffset()
+    {
+        return off;
+    }
+
+    int contentsLength()
+    {
+        return len;
+    }
+}
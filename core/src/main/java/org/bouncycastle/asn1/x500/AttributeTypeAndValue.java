@@ -6,6 +6,7 @@
 import org.bouncycastle.asn1.ASN1Primitive;
 import org.bouncycastle.asn1.ASN1Sequence;
 import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.asn1.x500.style.IETFUtils;
 
 /**
  * Holding class for the AttributeTypeAndValue structures that make up an RDN.
@@ -13,8 +14,10 @@
 public class AttributeTypeAndValue
     extends ASN1Object
 {
-    private ASN1ObjectIdentifier type;
-    private ASN1Encodable       value;
+    private final ASN1ObjectIdentifier type;
+    private final ASN1Encodable       value;
+
+    private String canonicalValue;    // calculated on first use
 
     private AttributeTypeAndValue(ASN1Sequence seq)
     {
@@ -54,6 +57,23 @@ public ASN1Encodable getValue()
         return value;
     }
 
+    /**
+     * Return the canonical string form of the value used when comparing names, as given by
+     * {@link IETFUtils#canonicalString(ASN1Encodable)}. The form is only calculated once.
+     *
+     * @return the canonical form of the value.
+     */
+    public String getCanonicalValue()
+    {
+        String canonical = canonicalValue;
+        if (canonical == null)
+        {
+            canonical = IETFUtils.canonicalString(value);
+            canonicalValue = canonical;
+        }
+        return canonical;
+    }
+
     /**
      * <pre>
      * AttributeTypeAndValue ::= SEQUENCE {
@@ -16,6 +16,9 @@
 {
     private ASN1Set values;
 
+    // decoded on first use, so any cached state of the values is kept
+    private volatile AttributeTypeAndValue[] typesAndValues;
+
     private RDN(ASN1Set values)
     {
         // TODO Require minimum size of 1?
@@ -89,39 +92,30 @@ public AttributeTypeAndValue getFirst()
             return null;
         }
 
-        return AttributeTypeAndValue.getInstance(this.values.getObjectAt(0));
+        return getTypesAndValuesInternal()[0];
     }
 
     public AttributeTypeAndValue[] getTypesAndValues()
     {
-        AttributeTypeAndValue[] tmp = new AttributeTypeAndValue[values.size()];
-
-        for (int i = 0; i != tmp.length; i++)
-        {
-            tmp[i] = AttributeTypeAndValue.getInstance(values.getObjectAt(i));
-        }
-
-        return tmp;
+        return (AttributeTypeAndValue[])getTypesAndValuesInternal().clone();
     }
 
     int collectAttributeTypes(ASN1ObjectIdentifier[] oids, int oidsOff)
     {
-        int count = values.size();
-        for (int i = 0; i < count; ++i)
+        AttributeTypeAndValue[] attrs = getTypesAndValuesInternal();
+        for (int i = 0; i < attrs.length; ++i)
         {
-            AttributeTypeAndValue attr = AttributeTypeAndValue.getInstance(values.getObjectAt(i));
-            oids[oidsOff + i] = attr.getType();
+            oids[oidsOff + i] = attrs[i].getType();
         }
-        return count;
+        return attrs.length;
     }
 
     boolean containsAttributeType(ASN1ObjectIdentifier attributeType)
     {
-        int count = values.size();
-        for (int i = 0; i < count; ++i)
+        AttributeTypeAndValue[] attrs = getTypesAndValuesInternal();
+        for (int i = 0; i < attrs.length; ++i)
         {
-            AttributeTypeAndValue attr = AttributeTypeAndValue.getInstance(values.getObjectAt(i));
-            if (attr.getType().equals(attributeType))
+            if (attrs[i].getType().equals(attributeType))
             {
                 return true;
             }
@@ -129,6 +123,23 @@ boolean containsAttributeType(ASN1ObjectIdentifier attributeType)
         return false;
     }
 
+    private AttributeTypeAndValue[] getTypesAndValuesInternal()
+    {
+        AttributeTypeAndValue[] tmp = typesAndValues;
+        if (tmp == null)
+        {
+            tmp = new AttributeTypeAndValue[values.size()];
+
+            for (int i = 0; i != tmp.length; i++)
+            {
+                tmp[i] = AttributeTypeAndValue.getInstance(values.getObjectAt(i));
+            }
+
+            typesAndValues = tmp;
+        }
+        return tmp;
+    }
+
     /**
      * <pre>
      * RelativeDistinguishedName ::=
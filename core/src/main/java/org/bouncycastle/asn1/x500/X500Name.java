@@ -1,5 +1,8 @@
 package org.bouncycastle.asn1.x500;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.bouncycastle.asn1.ASN1Choice;
 import org.bouncycastle.asn1.ASN1Encodable;
 import org.bouncycastle.asn1.ASN1Object;
@@ -9,6 +12,7 @@
 import org.bouncycastle.asn1.ASN1TaggedObject;
 import org.bouncycastle.asn1.DERSequence;
 import org.bouncycastle.asn1.x500.style.BCStyle;
+import org.bouncycastle.util.Properties;
 
 /**
  * The X.500 Name object.
@@ -31,7 +35,16 @@
 {
     private static X500NameStyle    defaultStyle = BCStyle.INSTANCE;
 
-    private boolean                 isHashCodeCalculated;
+    /**
+     * The maximum number of names kept by {@link #intern()}, names not used since the last sweep being dropped first.
+     */
+    private static final int MAX_INTERNED = Properties.asInteger("org.bouncycastle.x500.max_interned_names", 1024);
+
+    private static final Map internPool = new HashMap();
+    private static InternKey[] internSlots;
+    private static int internHand;
+
+    private volatile boolean        isHashCodeCalculated;
     private int                     hashCodeValue;
 
     private X500NameStyle style;
@@ -244,9 +257,9 @@ public int hashCode()
             return hashCodeValue;
         }
 
-        isHashCodeCalculated = true;
-
+        // the value must be set before the flag is seen by another thread
         hashCodeValue = style.calculateHashCode(this);
+        isHashCodeCalculated = true;
 
         return hashCodeValue;
     }
@@ -275,6 +288,12 @@ public boolean equals(Object obj)
 
         try
         {
+            // names a style considers equal have the same hash code, and it is only calculated once
+            if (obj instanceof X500Name && ((X500Name)obj).style == style && obj.hashCode() != hashCode())
+            {
+                return false;
+            }
+
             return style.areEqual(this, getInstance(obj));
         }
         catch (Exception e)
@@ -288,6 +307,66 @@ public String toString()
         return style.toString(this);
     }
 
+    /**
+     * Return a pooled name with the same style and encoding as this one, adding this one to the pool if there is
+     * none. Sharing one instance of a name that is seen often, such as the issuer of many certificates, means its
+     * hash code and the canonical form of its values are only calculated once, and comparisons between the
+     * pooled instance and itself need no work at all.
+     * <p>
+     * Names are not interned by the parsers, as doing so costs a hash of the name for every certificate or CRL
+     * read. Callers comparing the same names over and over, such as the path validator with trust anchor and CRL
+     * issuer names, intern them here.
+     * </p>
+     * <p>
+     * The pool is bounded, holding at most 1024 names by default, which can be changed with the
+     * "org.bouncycastle.x500.max_interned_names" property. When it is full a name that has not been looked up
+     * recently is dropped to make room.
+     * </p>
+     *
+     * @return a reference to the name in the pool.
+     */
+    public X500Name intern()
+    {
+        if (MAX_INTERNED <= 0)
+        {
+            return this;
+        }
+
+        InternKey key = new InternKey(this);
+        synchronized (internPool)
+        {
+            InternKey pooled = (InternKey)internPool.get(key);
+            if (pooled != null)
+            {
+                pooled.used = true;
+                return pooled.name;
+            }
+
+            if (internSlots == null)
+            {
+                internSlots = new InternKey[MAX_INTERNED];
+            }
+
+            // second chance: a name used since the hand last passed it is kept for another sweep
+            InternKey evicted;
+            while ((evicted = internSlots[internHand]) != null && evicted.used)
+            {
+                evicted.used = false;
+                internHand = (internHand + 1) % MAX_INTERNED;
+            }
+            if (evicted != null)
+            {
+                internPool.remove(evicted);
+            }
+
+            internSlots[internHand] = key;
+            internHand = (internHand + 1) % MAX_INTERNED;
+            internPool.put(key, key);
+
+            return this;
+        }
+    }
+
     /**
      * Set the default style for X500Name construction.
      *
@@ -312,4 +391,41 @@ public static X500NameStyle getDefaultStyle()
     {
         return defaultStyle;
     }
+
+    private static final class InternKey
+    {
+        private final X500Name name;
+        private final X500NameStyle style;
+        private final DERSequence rdnSeq;
+        private final int hashCode;
+
+        private boolean used;
+
+        InternKey(X500Name name)
+        {
+            this.name = name;
+            this.style = name.style;
+            this.rdnSeq = name.rdnSeq;
+            // the hash code of the name itself is cached, and equal encodings give equal values for it
+            this.hashCode = System.identityHashCode(style) ^ name.hashCode();
+        }
+
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof InternKey))
+            {
+                return false;
+            }
+
+            InternKey other = (InternKey)o;
+
+            // the encodings must match exactly, not just be equal according to the style
+            return style == other.style && rdnSeq.equals(other.rdnSeq);
+        }
+    }
 }
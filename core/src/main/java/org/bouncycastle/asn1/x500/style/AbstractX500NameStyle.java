@@ -42,12 +42,6 @@ public static Hashtable copyHashTable(Hashtable paramsMap)
         return newTable;
     }
 
-    private int calcHashCode(ASN1Encodable enc)
-    {
-        String value = IETFUtils.canonicalString(enc);
-        return value.hashCode();
-    }
-
     public int calculateHashCode(X500Name name)
     {
         int hashCodeValue = 0;
@@ -63,13 +57,13 @@ public int calculateHashCode(X500Name name)
                 for (int j = 0; j != atv.length; j++)
                 {
                     hashCodeValue ^= atv[j].getType().hashCode();
-                    hashCodeValue ^= calcHashCode(atv[j].getValue());
+                    hashCodeValue ^= atv[j].getCanonicalValue().hashCode();
                 }
             }
             else
             {
                 hashCodeValue ^= rdns[i].getFirst().getType().hashCode();
-                hashCodeValue ^= calcHashCode(rdns[i].getFirst().getValue());
+                hashCodeValue ^= rdns[i].getFirst().getCanonicalValue().hashCode();
             }
         }
 
@@ -576,8 +576,8 @@ private static boolean atvAreEqual(AttributeTypeAndValue atv1, AttributeTypeAndV
             return false;
         }
 
-        String v1 = canonicalString(atv1.getValue());
-        String v2 = canonicalString(atv2.getValue());
+        String v1 = atv1.getCanonicalValue();
+        String v2 = atv2.getCanonicalValue();
 
         if (!v1.equals(v2))
         {
@@ -0,0 +1,271 @@
+package org.bouncycastle.asn1.x509;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.bouncycastle.asn1.ASN1BitString;
+import org.bouncycastle.asn1.ASN1EventReader;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.asn1.ASN1TaggedObject;
+import org.bouncycastle.asn1.BERTags;
+import org.bouncycastle.asn1.x500.X500Name;
+
+/**
+ * A reader for a {@link CertificateList} that loads its revoked certificates one entry at a time, so a CRL of any size
+ * can be processed in constant memory.
+ * <p>
+ * The fields of the TBSCertList before the revoked certificates are read when the reader is created. The CRL
+ * extensions, signature algorithm and signature follow the revoked certificates in the encoding, so they are only
+ * available once {@link #readEntry()} has returned null.
+ * </p>
+ */
+public class CertificateListReader
+{
+    private final ASN1EventReader reader;
+
+    private final ASN1Integer version;
+    private final AlgorithmIdentifier signature;
+    private final X500Name issuer;
+    private final Time thisUpdate;
+    private final Time nextUpdate;
+
+    private boolean inEntries;
+    private boolean finished;
+    private Extensions crlExtensions;
+    private AlgorithmIdentifier signatureAlgorithm;
+    private ASN1BitString signatureValue;
+
+    public CertificateListReader(InputStream in)
+        throws IOException
+    {
+        this(new ASN1EventReader(in));
+    }
+
+    public CertificateListReader(byte[] encoding)
+        throws IOException
+    {
+        this(new ASN1EventReader(encoding));
+    }
+
+    /**
+     * Create a reader for the CertificateList at the next event of an event reader.
+     *
+     * @param reader the event reader to read the CertificateList from.
+     * @throws IOException if a CertificateList cannot be read.
+     */
+    public CertificateListReader(ASN1EventReader reader)
+        throws IOException
+    {
+        this.reader = reader;
+
+        expectSequence(reader.next(), "CertificateList");
+        expectSequence(reader.next(), "TBSCertList");
+
+        int event = reader.next();
+        if (event == ASN1EventReader.PRIMITIVE && reader.hasTag(BERTags.UNIVERSAL, BERTags.INTEGER))
+        {
+            version = ASN1Integer.getInstance(reader.readObject());
+            event = reader.next();
+        }
+        else
+        {
+            version = null;  // version is optional
+        }
+
+        expectSequence(event, "signature");
+        signature = AlgorithmIdentifier.getInstance(reader.readObject());
+
+        expectSequence(reader.next(), "issuer");
+        issuer = X500Name.getInstance(reader.readObject());
+
+        if (reader.next() != ASN1EventReader.PRIMITIVE)
+        {
+            throw new IOException("thisUpdate not found in CertificateList");
+        }
+        thisUpdate = readTime();
+
+        event = reader.next();
+        if (event == ASN1EventReader.PRIMITIVE && (reader.hasTag(BERTags.UNIVERSAL, BERTags.UTC_TIME)
+            || reader.hasTag(BERTags.UNIVERSAL, BERTags.GENERALIZED_TIME)))
+        {
+            nextUpdate = readTime();
+            event = reader.next();
+        }
+        else
+        {
+            nextUpdate = null;
+        }
+
+        if (event == ASN1EventReader.START_CONSTRUCTED && reader.hasTag(BERTags.UNIVERSAL, BERTags.SEQUENCE))
+        {
+            // leave the reader at the start of the revokedCertificates, so the next event is the first entry
+            inEntries = true;
+        }
+        else
+        {
+            readTrailer(event);
+        }
+    }
+
+    public int getVersionNumber()
+    {
+        if (version == null)
+        {
+            return 1;
+        }
+        return version.intValueExact() + 1;
+    }
+
+    public ASN1Integer getVersion()
+    {
+        return version;
+    }
+
+    public AlgorithmIdentifier getSignature()
+    {
+        return signature;
+    }
+
+    public X500Name getIssuer()
+    {
+        return issuer;
+    }
+
+    public Time getThisUpdate()
+    {
+        return thisUpdate;
+    }
+
+    public Time getNextUpdate()
+    {
+        return nextUpdate;
+    }
+
+    /**
+     * Read the next entry of the revoked certificates.
+     *
+     * @return the next entry, or null if there are no more entries.
+     * @throws IOException if an entry cannot be read.
+     */
+    public TBSCertList.CRLEntry readEntry()
+        throws IOException
+    {
+        if (!inEntries)
+        {
+            return null;
+        }
+
+        int event = reader.next();
+        if (event == ASN1EventReader.END_CONSTRUCTED)
+        {
+            inEntries = false;
+            readTrailer(reader.next());
+            return null;
+        }
+
+        expectSequence(event, "revoked certificate entry");
+        try
+        {
+            return TBSCertList.CRLEntry.getInstance(reader.readObject());
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IOException("malformed revoked certificate entry: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Return the CRL extensions, available once all the entries have been read.
+     *
+     * @return the CRL extensions, or null if there are none.
+     */
+    public Extensions getExtensions()
+    {
+        checkFinished();
+
+        return crlExtensions;
+    }
+
+    /**
+     * Return the signature algorithm, available once all the entries have been read.
+     */
+    public AlgorithmIdentifier getSignatureAlgorithm()
+    {
+        checkFinished();
+
+        return signatureAlgorithm;
+    }
+
+    /**
+     * Return the signature, available once all the entries have been read.
+     */
+    public ASN1BitString getSignatureValue()
+    {
+        checkFinished();
+
+        return signatureValue;
+    }
+
+    private void readTrailer(int event)
+        throws IOException
+    {
+        if (event == ASN1EventReader.START_CONSTRUCTED && reader.hasTag(BERTags.CONTEXT_SPECIFIC, 0))
+        {
+            crlExtensions = Extensions.getInstance(
+                ASN1Sequence.getInstance((ASN1TaggedObject)reader.readObject(), true));
+            event = reader.next();
+        }
+
+        if (event != ASN1EventReader.END_CONSTRUCTED)
+        {
+            throw new IOException("unexpected object at the end of TBSCertList");
+        }
+
+        expectSequence(reader.next(), "signatureAlgorithm");
+        signatureAlgorithm = AlgorithmIdentifier.getInstance(reader.readObject());
+
+        if (reader.next() != ASN1EventReader.PRIMITIVE || !reader.hasTag(BERTags.UNIVERSAL, BERTags.BIT_STRING))
+        {
+            throw new IOException("signatureValue not found in CertificateList");
+        }
+        signatureValue = ASN1BitString.getInstance(reader.readObject());
+
+        if (reader.next() != ASN1EventReader.END_CONSTRUCTED)
+        {
+            throw new IOException("unexpected object at the end of CertificateList");
+        }
+
+        finished = true;
+    }
+
+    private Time readTime()
+        throws IOException
+    {
+        try
+        {
+            return Time.getInstance(reader.readObject());
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IOException("malformed time in TBSCertList: " + e.getMessage());
+        }
+    }
+
+    private void checkFinished()
+    {
+        if (!finished)
+        {
+            throw new IllegalStateException("revoked certificates not all read");
+        }
+    }
+
+    private void expectSequence(int event, String name)
+        throws IOException
+    {
+        if (event != ASN1EventReader.START_CONSTRUCTED || !reader.hasTag(BERTags.UNIVERSAL, BERTags.SEQUENCE))
+        {
+            throw new IOException(name + " not found in CertificateList");
+        }
+    }
+}
@@ -24,12 +24,14 @@
  *        critical          BOOLEAN DEFAULT FALSE,
  *        extnValue         OCTET STRING }
  * </pre>
+ * When created from an encoding the individual extensions are only decoded on first access.
  */
 public class Extensions
     extends ASN1Object
 {
     private Hashtable extensions = new Hashtable();
     private Vector ordering = new Vector();
+    private ASN1Sequence seq;     // undecoded extensions, null once decoded
 
     public static Extension getExtension(Extensions extensions, ASN1ObjectIdentifier oid)
     {
@@ -77,9 +79,21 @@ else if (obj != null)
     private Extensions(
         ASN1Sequence seq)
     {
+        this.seq = seq;
+    }
+
+    private synchronized void decode()
+    {
+        if (seq == null)
+        {
+            return;
+        }
+
         // it's tempting to check there's at least one entry in the sequence. Don't!
         // It turns out there's quite a few empty extension blocks out there...
 
+        Hashtable extensions = new Hashtable();
+        Vector ordering = new Vector();
         Enumeration e = seq.getObjects();
 
         while (e.hasMoreElements())
@@ -97,6 +111,10 @@ private Extensions(
             extensions.put(ext.getExtnId(), ext);
             ordering.addElement(ext.getExtnId());
         }
+
+        this.extensions = extensions;
+        this.ordering = ordering;
+        this.seq = null;
     }
 
     /**
@@ -138,6 +156,8 @@ public Extensions(
      */
     public Enumeration oids()
     {
+        decode();
+
         return ordering.elements();
     }
 
@@ -149,6 +169,8 @@ public Enumeration oids()
      */
     public Extension getExtension(ASN1ObjectIdentifier oid)
     {
+        decode();
+
         return (Extension)extensions.get(oid);
     }
 
@@ -187,6 +209,8 @@ public ASN1OctetString getExtensionValue(ASN1ObjectIdentifier oid)
      */
     public ASN1Primitive toASN1Primitive()
     {
+        decode();
+
         ASN1EncodableVector vec = new ASN1EncodableVector(ordering.size());
 
         Enumeration e = ordering.elements();
@@ -204,6 +228,9 @@ public ASN1Primitive toASN1Primitive()
     public boolean equivalent(
         Extensions other)
     {
+        decode();
+        other.decode();
+
         if (extensions.size() != other.extensions.size())
         {
             return false;
@@ -226,6 +253,8 @@ public boolean equivalent(
 
     public ASN1ObjectIdentifier[] getExtensionOIDs()
     {
+        decode();
+
         return toOidArray(ordering);
     }
 
@@ -241,6 +270,8 @@ public ASN1ObjectIdentifier[] getCriticalExtensionOIDs()
 
     public boolean hasAnyCriticalExtensions()
     {
+        decode();
+
         for (int i = 0; i != ordering.size(); i++)
         {
             Object oid = ordering.elementAt(i);
@@ -256,6 +287,8 @@ public boolean hasAnyCriticalExtensions()
 
     private ASN1ObjectIdentifier[] getExtensionOIDs(boolean isCritical)
     {
+        decode();
+
         Vector oidVec = new Vector();
 
         for (int i = 0; i != ordering.size(); i++)
@@ -1,15 +1,22 @@
 package org.bouncycastle.asn1.x509;
 
+import java.io.IOException;
+
 import org.bouncycastle.asn1.ASN1BitString;
+import org.bouncycastle.asn1.ASN1Encodable;
 import org.bouncycastle.asn1.ASN1EncodableVector;
+import org.bouncycastle.asn1.ASN1Encoding;
 import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
 import org.bouncycastle.asn1.ASN1Object;
 import org.bouncycastle.asn1.ASN1Primitive;
 import org.bouncycastle.asn1.ASN1Sequence;
 import org.bouncycastle.asn1.ASN1TaggedObject;
+import org.bouncycastle.asn1.BERTags;
 import org.bouncycastle.asn1.DERSequence;
 import org.bouncycastle.asn1.DERTaggedObject;
 import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.Properties;
 
 /**
@@ -31,6 +38,11 @@
  * <p>
  * Note: issuerUniqueID and subjectUniqueID are both deprecated by the IETF. This class
  * will parse them, but you really shouldn't be creating new ones.
+ * <p>
+ * When created from an encoding the subject, subjectPublicKeyInfo, unique IDs and extensions are only
+ * decoded on first access, as most uses of a certificate never look at some of them, and any error
+ * in them is reported then. The original encoding of the structure is kept either way. Use
+ * {@link #checkFields()} to reject a malformed one up front without decoding it.
  */
 public class TBSCertificate
     extends ASN1Object
@@ -48,6 +60,13 @@
     ASN1BitString           subjectUniqueId;
     Extensions              extensions;
 
+    // undecoded fields, set to null once decoded
+    private ASN1Encodable   subjectObj;
+    private ASN1Encodable   subjectPublicKeyInfoObj;
+    private ASN1TaggedObject issuerUniqueIdObj;
+    private ASN1TaggedObject subjectUniqueIdObj;
+    private ASN1TaggedObject extensionsObj;
+
     public static TBSCertificate getInstance(
         ASN1TaggedObject obj,
         boolean          explicit)
@@ -111,8 +130,8 @@ else if (!version.hasValue(2))
         signature = AlgorithmIdentifier.getInstance(seq.getObjectAt(seqStart + 2));
         issuer = X500Name.getInstance(seq.getObjectAt(seqStart + 3));
         validity = Validity.getInstance(seq.getObjectAt(seqStart + 4));
-        subject = X500Name.getInstance(seq.getObjectAt(seqStart + 5));
-        subjectPublicKeyInfo = SubjectPublicKeyInfo.getInstance(seq.getObjectAt(seqStart + 6));
+        subjectObj = seq.getObjectAt(seqStart + 5);
+        subjectPublicKeyInfoObj = seq.getObjectAt(seqStart + 6);
 
         int extras = seq.size() - (seqStart + 6) - 1;
         if (extras != 0 && isV1)
@@ -127,17 +146,17 @@ else if (!version.hasValue(2))
             switch (extra.getTagNo())
             {
             case 1:
-                issuerUniqueId = ASN1BitString.getInstance(extra, false);
+                issuerUniqueIdObj = extra;
                 break;
             case 2:
-                subjectUniqueId = ASN1BitString.getInstance(extra, false);
+                subjectUniqueIdObj = extra;
                 break;
             case 3:
                 if (isV2)
                 {
                     throw new IllegalArgumentException("version 2 certificate cannot contain extensions");
                 }
-                extensions = Extensions.getInstance(ASN1Sequence.getInstance(extra, true));
+                extensionsObj = extra;
                 break;
             default:
                 throw new IllegalArgumentException("Unknown tag encountered in structure: " + extra.getTagNo());
@@ -229,31 +248,148 @@ public Time getEndDate()
         return validity.getNotAfter();
     }
 
-    public X500Name getSubject()
+    public synchronized X500Name getSubject()
     {
+        if (subjectObj != null)
+        {
+            subject = X500Name.getInstance(subjectObj);
+            subjectObj = null;
+        }
         return subject;
     }
 
-    public SubjectPublicKeyInfo getSubjectPublicKeyInfo()
+    public synchronized SubjectPublicKeyInfo getSubjectPublicKeyInfo()
     {
+        if (subjectPublicKeyInfoObj != null)
+        {
+            subjectPublicKeyInfo = SubjectPublicKeyInfo.getInstance(subjectPublicKeyInfoObj);
+            subjectPublicKeyInfoObj = null;
+        }
         return subjectPublicKeyInfo;
     }
 
-    public ASN1BitString getIssuerUniqueId()
+    public synchronized ASN1BitString getIssuerUniqueId()
     {
+        if (issuerUniqueIdObj != null)
+        {
+            issuerUniqueId = ASN1BitString.getInstance(issuerUniqueIdObj, false);
+            issuerUniqueIdObj = null;
+        }
         return issuerUniqueId;
     }
 
-    public ASN1BitString getSubjectUniqueId()
+    public synchronized ASN1BitString getSubjectUniqueId()
     {
+        if (subjectUniqueIdObj != null)
+        {
+            subjectUniqueId = ASN1BitString.getInstance(subjectUniqueIdObj, false);
+            subjectUniqueIdObj = null;
+        }
         return subjectUniqueId;
     }
 
-    public Extensions getExtensions()
+    public synchronized Extensions getExtensions()
     {
+        if (extensionsObj != null)
+        {
+            extensions = Extensions.getInstance(ASN1Sequence.getInstance(extensionsObj, true));
+            extensionsObj = null;
+        }
         return extensions;
     }
 
+    /**
+     * Check the fields that are only decoded on first access are well formed, by walking the tags and lengths of
+     * their encodings. Nothing is decoded, so the fields stay undecoded until they are asked for.
+     *
+     * @throws IllegalArgumentException if one of the fields is malformed.
+     */
+    public synchronized void checkFields()
+    {
+        if (subjectObj != null)
+        {
+            FieldWalker rdns = FieldWalker.of(subjectObj, "subject").next(SEQUENCE);
+            while (rdns.hasNext())
+            {
+                FieldWalker rdn = rdns.next(SET);
+                while (rdn.hasNext())
+                {
+                    FieldWalker typeAndValue = rdn.next(SEQUENCE);
+                    typeAndValue.next(BERTags.OBJECT_IDENTIFIER);
+                    typeAndValue.skip();
+                    typeAndValue.checkEnd();
+                }
+            }
+            rdns.checkEnd();
+        }
+
+        if (subjectPublicKeyInfoObj != null)
+        {
+            FieldWalker spki = FieldWalker.of(subjectPublicKeyInfoObj, "subjectPublicKeyInfo").next(SEQUENCE);
+            checkAlgorithm(spki.next(SEQUENCE));
+            spki.next(BERTags.BIT_STRING).checkBitString();
+            spki.checkEnd();
+        }
+
+        if (issuerUniqueIdObj != null)
+        {
+            FieldWalker.of(issuerUniqueIdObj, "issuerUniqueID").next(BERTags.CONTEXT_SPECIFIC | 1).checkBitString();
+        }
+
+        if (subjectUniqueIdObj != null)
+        {
+            FieldWalker.of(subjectUniqueIdObj, "subjectUniqueID").next(BERTags.CONTEXT_SPECIFIC | 2)
+                .checkBitString();
+        }
+
+        if (extensionsObj != null)
+        {
+            FieldWalker exts = FieldWalker.of(extensionsObj, "extensions")
+                .next(BERTags.CONTEXT_SPECIFIC | BERTags.CONSTRUCTED | 3).next(SEQUENCE);
+            boolean checkRepeats = !Properties.isOverrideSet("org.bouncycastle.x509.ignore_repeated_extensions");
+            int[] oids = new int[8];
+            int count = 0;
+            while (exts.hasNext())
+            {
+                FieldWalker ext = exts.next(SEQUENCE);
+                FieldWalker oid = ext.next(BERTags.OBJECT_IDENTIFIER);
+                if (checkRepeats)
+                {
+                    for (int i = 0; i < count; i += 2)
+                    {
+                        if (Arrays.areEqual(oid.buf, oids[i], oids[i + 1], oid.buf, oid.pos, oid.end))
+                        {
+                            throw new IllegalArgumentException("repeated extension found: "
+                                + ASN1ObjectIdentifier.fromContents(Arrays.copyOfRange(oid.buf, oid.pos, oid.end)));
+                        }
+                    }
+                    if (count == oids.length)
+                    {
+                        oids = Arrays.copyOf(oids, count * 2);
+                    }
+                    oids[count++] = oid.pos;
+                    oids[count++] = oid.end;
+                }
+                if (ext.nextIs(BERTags.BOOLEAN))
+                {
+                    ext.next(BERTags.BOOLEAN);
+                }
+                ext.next(BERTags.OCTET_STRING);
+                ext.checkEnd();
+            }
+        }
+    }
+
+    private static void checkAlgorithm(FieldWalker algId)
+    {
+        algId.next(BERTags.OBJECT_IDENTIFIER);
+        if (algId.hasNext())
+        {
+            algId.skip();
+        }
+        algId.checkEnd();
+    }
+
     public ASN1Primitive toASN1Primitive()
     {
         if (seq != null)
@@ -283,21 +419,24 @@ public ASN1Primitive toASN1Primitive()
         v.add(signature);
         v.add(issuer);
         v.add(validity);
-        v.add(subject);
-        v.add(subjectPublicKeyInfo);
+        v.add(getSubject());
+        v.add(getSubjectPublicKeyInfo());
 
         // Note: implicit tag
+        ASN1BitString issuerUniqueId = getIssuerUniqueId();
         if (issuerUniqueId != null)
         {
             v.add(new DERTaggedObject(false, 1, issuerUniqueId));
         }
 
         // Note: implicit tag
+        ASN1BitString subjectUniqueId = getSubjectUniqueId();
         if (subjectUniqueId != null)
         {
             v.add(new DERTaggedObject(false, 2, subjectUniqueId));
         }
 
+        Extensions extensions = getExtensions();
         if (extensions != null)
         {
             v.add(new DERTaggedObject(true, 3, extensions));
@@ -305,4 +444,168 @@ public ASN1Primitive toASN1Primitive()
 
         return new DERSequence(v);
     }
+
+    private static final int SEQUENCE = BERTags.CONSTRUCTED | BERTags.SEQUENCE;
+    private static final int SET = BERTags.CONSTRUCTED | BERTags.SET;
+
+    /**
+     * Steps through the elements of a DL encoding, checking the identifier octets of the ones that matter.
+     */
+    private static final class FieldWalker
+    {
+        private final String field;
+        private final byte[] buf;
+        private final int end;
+        private int pos;
+
+        private FieldWalker(String field, byte[] buf, int pos, int end)
+        {
+            this.field = field;
+            this.buf = buf;
+            this.pos = pos;
+            this.end = end;
+        }
+
+        /**
+         * Return a walker over the encoding of a field, having checked the lengths of every element in it.
+         */
+        static FieldWalker of(ASN1Encodable obj, String field)
+        {
+            byte[] enc;
+            try
+            {
+                enc = obj.toASN1Primitive().getEncoded(ASN1Encoding.DL);
+            }
+            catch (IOException e)
+            {
+                throw new IllegalArgumentException("malformed " + field + ": " + e.getMessage());
+            }
+
+            FieldWalker walker = new FieldWalker(field, enc, 0, enc.length);
+            walker.checkLengths();
+            return walker;
+        }
+
+        boolean hasNext()
+        {
+            return pos < end;
+        }
+
+        boolean nextIs(int identifier)
+        {
+            return pos < end && (buf[pos] & 0xFF) == identifier;
+        }
+
+        /**
+         * Step over the next element, which must have the given identifier octet, returning a walker over its
+         * contents.
+         */
+        FieldWalker next(int identifier)
+        {
+            if (!nextIs(identifier))
+            {
+                throw malformed();
+            }
+
+            return skip();
+        }
+
+        FieldWalker skip()
+        {
+            if (pos >= end)
+            {
+                throw malformed();
+            }
+
+            int identifier = buf[pos++] & 0xFF;
+            if ((identifier & 0x1F) == 0x1F)
+            {
+                // high tag number form
+                int count = 0;
+                do
+                {
+                    if (pos >= end || ++count > 5)
+                    {
+                        throw malformed();
+                    }
+                }
+                while ((buf[pos++] & 0x80) != 0);
+            }
+
+            if (pos >= end)
+            {
+                throw malformed();
+            }
+
+            int length = buf[pos++] & 0xFF;
+            if (length > 0x7F)
+            {
+                // DL encodings never use the indefinite form
+                int size = length & 0x7F;
+                if (size == 0 || size > 4)
+                {
+                    throw malformed();
+                }
+
+                length = 0;
+                while (size-- > 0)
+                {
+                    if (pos >= end)
+                    {
+                        throw malformed();
+                    }
+                    length = (length << 8) | (buf[pos++] & 0xFF);
+                }
+            }
+
+            if (length < 0 || length > end - pos)
+            {
+                throw malformed();
+            }
+
+            FieldWalker contents = new FieldWalker(field, buf, pos, pos + length);
+            pos += length;
+            return contents;
+        }
+
+        /**
+         * Check these are the contents of a primitive BIT STRING.
+         */
+        void checkBitString()
+        {
+            int length = end - pos;
+            if (length < 1 || (buf[pos] & 0xFF) > 7 || (length == 1 && buf[pos] != 0))
+            {
+                throw malformed();
+            }
+        }
+
+        void checkEnd()
+        {
+            if (pos != end)
+            {
+                throw malformed();
+            }
+        }
+
+        private void checkLengths()
+        {
+            int start = pos;
+            while (hasNext())
+            {
+                int identifier = buf[pos] & 0xFF;
+                FieldWalker contents = skip();
+                if ((identifier & BERTags.CONSTRUCTED) != 0)
+                {
+                    contents.checkLengths();
+                }
+            }
+            pos = start;
+        }
+
+        private IllegalArgumentException malformed()
+        {
+            return new IllegalArgumentException("malformed " + field);
+        }
+    }
 }
@@ -0,0 +1,13 @@
+package org.bouncycastle.crypto;
+
+/**
+ * Factory for BlockCipher implementations, used where a fresh engine is needed for each of a number of threads.
+ */
+public interface BlockCipherFactory
+{
+    /**
+     * Return a new, uninitialised, BlockCipher instance.
+     * @return a BlockCipher
+     */
+    BlockCipher get();
+}
@@ -44,7 +44,7 @@ public DefaultBufferedBlockCipher(
         if (cipher instanceof MultiBlockCipher)
         {
             this.mbCipher = (MultiBlockCipher)cipher;
-            buf = new byte[mbCipher.getMultiBlockSize()];
+            buf = new byte[cipher.getBlockSize()];
         }
         else
         {
@@ -253,13 +253,13 @@ public int processBytes(
 
             if (mbCipher != null)
             {
-                int blockCount = len / mbCipher.getMultiBlockSize();
+                int blockCount = len / blockSize;
 
                 if (blockCount > 0)
                 {
                     resultLen += mbCipher.processBlocks(in, inOff, blockCount, out, outOff + resultLen);
 
-                    int processed = blockCount * mbCipher.getMultiBlockSize();
+                    int processed = blockCount * blockSize;
 
                     len -= processed;
                     inOff += processed;
@@ -19,7 +19,7 @@ public int processBlocks(byte[] in, int inOff, int blockCount, byte[] out, int o
         // TODO check if the underlying cipher supports the multiblock interface and call it directly?
 
         int resultLen = 0;
-        int blockSize = this.getMultiBlockSize();
+        int blockSize = this.getBlockSize();
         int len = blockCount * blockSize;
         if (in == out && segmentsOverlap(inOff, len, outOff, len))
         {
@@ -0,0 +1,48 @@
+package org.bouncycastle.crypto;
+
+/**
+ * Interface for digests which hash a number of independent messages of the same length in one call, such as the
+ * nodes of one level of a hash tree. Implementations interleave the work on several messages at a time, and take
+ * advantage of all the messages having the same padding.
+ * <p>
+ * The results are the same as hashing each message separately with the corresponding {@link Digest}.
+ * </p>
+ */
+public interface MultiBufferDigest
+{
+    /**
+     * Return the algorithm name.
+     *
+     * @return the algorithm name
+     */
+    String getAlgorithmName();
+
+    /**
+     * Return the size, in bytes, of the digest produced for each message.
+     *
+     * @return the size, in bytes, of each digest.
+     */
+    int getDigestSize();
+
+    /**
+     * Hash messages stored one after the other in a single array.
+     *
+     * @param in the array holding the messages.
+     * @param inOff the offset of the first message.
+     * @param messageLength the length of each message.
+     * @param messageCount the number of messages.
+     * @param out the array the digests are written to, one after the other.
+     * @param outOff the offset the first digest is written at.
+     */
+    void digest(byte[] in, int inOff, int messageLength, int messageCount, byte[] out, int outOff);
+
+    /**
+     * Hash messages held in separate arrays, each message starting at offset zero.
+     *
+     * @param messages the arrays holding the messages.
+     * @param messageLength the length of each message.
+     * @param out the array the digests are written to, one after the other.
+     * @param outOff the offset the first digest is written at.
+     */
+    void digest(byte[][] messages, int messageLength, byte[] out, int outOff);
+}
@@ -600,9 +600,19 @@ private void compressBlock(final byte[] pMessage,
      * Adjust the stack.
      */
     private void adjustStack()
+    {
+        adjustStack(theCounter);
+    }
+
+    /**
+     * Adjust the stack after completing a subtree.
+     *
+     * @param pCount the number of subtrees of the completed subtree's size now complete
+     */
+    private void adjustStack(final long pCount)
     {
         /* Loop to combine blocks */
-        long myCount = theCounter;
+        long myCount = pCount;
         while (myCount > 0)
         {
             /* Break loop if we are not combining */
@@ -628,6 +638,113 @@ private void adjustStack()
         theStack.push(Arrays.copyOf(theChaining, NUMWORDS));
     }
 
+    /**
+     * Return the number of bytes of message absorbed so far.
+     *
+     * @return the message length
+     */
+    long getMessageLength()
+    {
+        return theCounter * CHUNKLEN + theCurrBytes + thePos;
+    }
+
+    /**
+     * Prepare to add subtrees, the caller having absorbed a whole number of chunks and knowing that more message
+     * follows the subtrees, so the buffered block can be processed.
+     */
+    void startSubtrees()
+    {
+        /* Check that we are not outputting */
+        if (outputting)
+        {
+            throw new IllegalStateException(ERR_OUTPUTTING);
+        }
+
+        /* Process the buffered block */
+        if (thePos == BLOCKLEN)
+        {
+            compressBlock(theBuffer, 0);
+            thePos = 0;
+            Arrays.fill(theBuffer, (byte)0);
+        }
+    }
+
+    /**
+     * Calculate the chaining values of a run of complete subtrees, none of which is the root. Only the working state
+     * is used, so separate copies of a digest can do this for different parts of the same message concurrently.
+     *
+     * @param pMessage the message buffer
+     * @param pMsgPos  the position of the first subtree within the message buffer
+     * @param pCounter the chunk counter of the first chunk of the first subtree
+     * @param pChunks  the number of chunks in each subtree, a power of 2
+     * @param pCount   the number of subtrees
+     * @param pCVs     the array to write the chaining values to
+     * @param pCVPos   the position of the first chaining value within the array
+     */
+    void subtreeChainingValues(final byte[] pMessage,
+                               int pMsgPos,
+                               final long pCounter,
+                               final int pChunks,
+                               final int pCount,
+                               final int[] pCVs,
+                               int pCVPos)
+    {
+        final int[] myCVs = new int[pChunks * NUMWORDS];
+
+        /* Position at the first chunk */
+        theCounter = pCounter;
+        theCurrBytes = 0;
+
+        /* Loop through the subtrees */
+        for (int i = 0; i < pCount; i++)
+        {
+            /* Calculate the chaining values of the chunks */
+            for (int chunk = 0; chunk < pChunks; chunk++)
+            {
+                for (int block = 0; block < CHUNKLEN / BLOCKLEN; block++)
+                {
+                    initChunkBlock(BLOCKLEN, false);
+                    initM(pMessage, pMsgPos);
+                    compress();
+                    pMsgPos += BLOCKLEN;
+                }
+                System.arraycopy(theChaining, 0, myCVs, chunk * NUMWORDS, NUMWORDS);
+            }
+
+            /* Combine them a level at a time */
+            for (int myLevel = pChunks >> 1; myLevel > 0; myLevel >>= 1)
+            {
+                for (int j = 0; j < myLevel; j++)
+                {
+                    System.arraycopy(myCVs, j * 2 * NUMWORDS, theM, 0, NUMWORDS << 1);
+                    initParentBlock();
+                    compress();
+                    System.arraycopy(theChaining, 0, myCVs, j * NUMWORDS, NUMWORDS);
+                }
+            }
+
+            /* Store the subtree chaining value */
+            System.arraycopy(myCVs, 0, pCVs, pCVPos, NUMWORDS);
+            pCVPos += NUMWORDS;
+        }
+    }
+
+    /**
+     * Add the chaining value of the next subtree of the message, as calculated by subtreeChainingValues().
+     *
+     * @param pCVs    the array holding the chaining value
+     * @param pCVPos  the position of the chaining value within the array
+     * @param pChunks the number of chunks in the subtree, a power of 2 dividing the chunks absorbed so far
+     */
+    void addSubtree(final int[] pCVs,
+                    final int pCVPos,
+                    final int pChunks)
+    {
+        System.arraycopy(pCVs, pCVPos, theChaining, 0, NUMWORDS);
+        theCounter += pChunks;
+        adjustStack(theCounter / pChunks);
+    }
+
     /**
      * Compress final block.
      *
@@ -0,0 +1,253 @@
+package org.bouncycastle.crypto.digests;
+
+import java.util.concurrent.Executor;
+
+import org.bouncycastle.crypto.CryptoServicePurpose;
+
+/**
+ * Kangaroo, with the leaves hashed on an {@link Executor}, such as a ForkJoinPool.
+ * <p>
+ * Each leaf is handed to the executor as soon as it is complete, so update() does not wait for leaves to be hashed.
+ * At most maxInFlight leaves are outstanding at once - when the limit is reached update() waits for the oldest - so
+ * no more than maxInFlight 8KB leaves of message are held. The chaining values are absorbed into the final node in
+ * leaf order, so the output is identical to that of the corresponding {@link Kangaroo} digest.
+ * </p>
+ * <p>
+ * As with the other digests, an instance of these classes should only be used by one thread at a time.
+ * </p>
+ */
+public final class ConcurrentKangaroo
+{
+    /**
+     * KangarooTwelve.
+     */
+    public static class KangarooTwelve
+        extends Kangaroo.KangarooTwelve
+    {
+        private final Leaves leaves;
+
+        /**
+         * Constructor.
+         *
+         * @param executor    the executor to hash the leaves on
+         * @param maxInFlight the maximum number of leaves waiting to be hashed or absorbed
+         */
+        public KangarooTwelve(final Executor executor,
+                              final int maxInFlight)
+        {
+            super();
+            leaves = new Leaves(this, executor, maxInFlight);
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param pLength     the digest length
+         * @param purpose     the purpose
+         * @param executor    the executor to hash the leaves on
+         * @param maxInFlight the maximum number of leaves waiting to be hashed or absorbed
+         */
+        public KangarooTwelve(final int pLength,
+                              final CryptoServicePurpose purpose,
+                              final Executor executor,
+                              final int maxInFlight)
+        {
+            super(pLength, purpose);
+            leaves = new Leaves(this, executor, maxInFlight);
+        }
+
+        void absorbLeaf(final byte[] pIn,
+                        final int pInOffSet,
+                        final int pLen)
+        {
+            leaves.absorb(pIn, pInOffSet, pLen);
+        }
+
+        void completeLeaf()
+        {
+            leaves.complete();
+        }
+
+        void completeLeaves()
+        {
+            leaves.completeAll();
+        }
+
+        public void reset()
+        {
+            if (leaves != null)
+            {
+                leaves.reset();
+            }
+            super.reset();
+        }
+    }
+
+    /**
+     * MarsupilamiFourteen.
+     */
+    public static class MarsupilamiFourteen
+        extends Kangaroo.MarsupilamiFourteen
+    {
+        private final Leaves leaves;
+
+        /**
+         * Constructor.
+         *
+         * @param executor    the executor to hash the leaves on
+         * @param maxInFlight the maximum number of leaves waiting to be hashed or absorbed
+         */
+        public MarsupilamiFourteen(final Executor executor,
+                                   final int maxInFlight)
+        {
+            super();
+            leaves = new Leaves(this, executor, maxInFlight);
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param pLength     the digest length
+         * @param purpose     the purpose
+         * @param executor    the executor to hash the leaves on
+         * @param maxInFlight the maximum number of leaves waiting to be hashed or absorbed
+         */
+        public MarsupilamiFourteen(final int pLength,
+                                   final CryptoServicePurpose purpose,
+                                   final Executor executor,
+                                   final int maxInFlight)
+        {
+            super(pLength, purpose);
+            leaves = new Leaves(this, executor, maxInFlight);
+        }
+
+        void absorbLeaf(final byte[] pIn,
+                        final int pInOffSet,
+                        final int pLen)
+        {
+            leaves.absorb(pIn, pInOffSet, pLen);
+        }
+
+        void completeLeaf()
+        {
+            leaves.complete();
+        }
+
+        void completeLeaves()
+        {
+            leaves.completeAll();
+        }
+
+        public void reset()
+        {
+            if (leaves != null)
+            {
+                leaves.reset();
+            }
+            super.reset();
+        }
+    }
+
+    /**
+     * The leaves of a digest, gathered a leaf at a time and handed to the executor.
+     */
+    private static final class Leaves
+    {
+        /**
+         * The current leaf.
+         */
+        private final byte[] theLeaf = new byte[Kangaroo.KangarooBase.BLKSIZE];
+
+        /**
+         * The length of the current leaf.
+         */
+        private int theLeafLen;
+
+        /**
+         * The leaves being hashed.
+         */
+        private final ConcurrentLeaves theLeaves;
+
+        /**
+         * Constructor.
+         *
+         * @param pDigest      the digest
+         * @param pExecutor    the executor to hash the leaves on
+         * @param pMaxInFlight the maximum number of leaves waiting to be hashed or absorbed
+         */
+        Leaves(final Kangaroo.KangarooBase pDigest,
+               final Executor pExecutor,
+               final int pMaxInFlight)
+        {
+            ConcurrentLeaves.checkMaxInFlight(pMaxInFlight);
+
+            final ConcurrentLeaves.Hasher[] myHashers = new ConcurrentLeaves.Hasher[pMaxInFlight];
+            int myChainLen = 0;
+            for (int i = 0; i != myHashers.length; i++)
+            {
+                final Kangaroo.LeafHasher myHasher = pDigest.newLeafHasher();
+
+                myChainLen = myHasher.getChainLength();
+                myHashers[i] = new ConcurrentLeaves.Hasher()
+                {
+                    public void hash(final byte[] pLeaf,
+                                     final int pLen,
+                                     final byte[] pHash)
+                    {
+                        myHasher.hash(pLeaf, 0, pLen, pHash);
+                    }
+                };
+            }
+
+            theLeaves = new ConcurrentLeaves(pExecutor, myHashers, theLeaf.length, myChainLen,
+                new ConcurrentLeaves.Sink()
+                {
+                    public void add(final byte[] pHash)
+                    {
+                        pDigest.absorbChainingValue(pHash);
+                    }
+                });
+        }
+
+        /**
+         * Add data to the current leaf.
+         *
+         * @param pIn       the input buffer
+         * @param pInOffSet the starting offset in the input buffer
+         * @param pLen      the length of data to add
+         */
+        void absorb(final byte[] pIn,
+                    final int pInOffSet,
+                    final int pLen)
+        {
+            System.arraycopy(pIn, pInOffSet, theLeaf, theLeafLen, pLen);
+            theLeafLen += pLen;
+        }
+
+        /**
+         * Hand the current leaf to the executor.
+         */
+        void complete()
+        {
+            theLeaves.submit(theLeaf, 0, theLeafLen);
+            theLeafLen = 0;
+        }
+
+        /**
+         * Absorb the chaining values of all the outstanding leaves.
+         */
+        void completeAll()
+        {
+            theLeaves.completeAll();
+        }
+
+        /**
+         * Discard the current and any outstanding leaves.
+         */
+        void reset()
+        {
+            theLeaves.discard();
+            theLeafLen = 0;
+        }
+    }
+}
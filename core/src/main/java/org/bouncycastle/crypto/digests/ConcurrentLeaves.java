@@ -0,0 +1,143 @@
+package org.bouncycastle.crypto.digests;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import org.bouncycastle.crypto.util.ConcurrentRuns;
+
+/**
+ * Hashes the leaves of a tree hash on an {@link Executor}, handing the chaining values back in leaf order.
+ * <p>
+ * Each leaf is copied into one of a ring of slots, one per hasher, and submitted. When every slot is in use the
+ * oldest leaf is waited for before its slot is reused, so no more than one leaf per hasher is ever held, whatever
+ * the length of the message.
+ * </p>
+ */
+final class ConcurrentLeaves
+{
+    /**
+     * Calculates the chaining value of a leaf, only ever used by one thread at a time.
+     */
+    interface Hasher
+    {
+        void hash(byte[] leaf, int len, byte[] chainingValue);
+    }
+
+    /**
+     * Receives the chaining values, in leaf order, on the thread using the digest.
+     */
+    interface Sink
+    {
+        void add(byte[] chainingValue);
+    }
+
+    private final Executor executor;
+    private final Slot[] slots;
+    private final Sink sink;
+
+    private long submitted;
+    private long completed;
+
+    ConcurrentLeaves(Executor executor, Hasher[] hashers, int leafSize, int chainingValueSize, Sink sink)
+    {
+        this.executor = executor;
+        this.slots = new Slot[hashers.length];
+        this.sink = sink;
+
+        for (int i = 0; i != hashers.length; i++)
+        {
+            slots[i] = new Slot(hashers[i], new byte[leafSize], new byte[chainingValueSize]);
+        }
+    }
+
+    static void checkMaxInFlight(int maxInFlight)
+    {
+        if (maxInFlight < 1)
+        {
+            throw new IllegalArgumentException("maxInFlight must be at least 1");
+        }
+    }
+
+    void submit(byte[] in, int inOff, int len)
+    {
+        if (submitted - completed == slots.length)
+        {
+            completeOldest();
+        }
+
+        Slot slot = slots[(int)(submitted % slots.length)];
+
+        System.arraycopy(in, inOff, slot.leaf, 0, len);
+        slot.len = len;
+        slot.task = new FutureTask<Object>(slot, null);
+        submitted++;
+
+        ConcurrentRuns.execute(executor, slot.task);
+    }
+
+    /**
+     * Wait for every outstanding leaf, passing the chaining values to the sink.
+     */
+    void completeAll()
+    {
+        while (completed < submitted)
+        {
+            completeOldest();
+        }
+    }
+
+    /**
+     * Wait for every outstanding leaf, discarding the chaining values.
+     */
+    void discard()
+    {
+        while (completed < submitted)
+        {
+            Slot slot = slots[(int)(completed++ % slots.length)];
+
+            ConcurrentRuns.await(slot.task);
+            slot.task = null;
+        }
+    }
+
+    private void completeOldest()
+    {
+        Slot slot = slots[(int)(completed++ % slots.length)];
+
+        Throwable failure = ConcurrentRuns.await(slot.task);
+        slot.task = null;
+
+        if (failure != null)
+        {
+            // the leaves after a failed one are no use, but the slots can't be reused until they're done
+            discard();
+
+            ConcurrentRuns.rethrow(failure);
+        }
+
+        sink.add(slot.chainingValue);
+    }
+
+    private static final class Slot
+        implements Runnable
+    {
+        private final Hasher hasher;
+        private final byte[] leaf;
+        private final byte[] chainingValue;
+
+        private int len;
+        private FutureTask task;
+
+        Slot(Hasher hasher, byte[] leaf, byte[] chainingValue)
+        {
+            this.hasher = hasher;
+            this.leaf = leaf;
+            this.chainingValue = chainingValue;
+        }
+
+        public void run()
+        {
+            hasher.hash(leaf, len, chainingValue);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.bouncycastle.crypto.digests;
+
+import java.util.concurrent.Executor;
+
+/**
+ * ParallelHash, with the blocks hashed on an {@link Executor}, such as a ForkJoinPool.
+ * <p>
+ * Each block is copied and handed to the executor as soon as it is complete, so update() does not wait for blocks
+ * to be hashed. At most maxInFlight blocks are outstanding at once - when the limit is reached update() waits for
+ * the oldest - so no more than maxInFlight * B bytes of message are held. The chaining values are added to the
+ * outer hash in block order, so the output is identical to that of {@link ParallelHash}.
+ * </p>
+ * <p>
+ * As with the other digests, an instance of this class should only be used by one thread at a time.
+ * </p>
+ */
+public class ConcurrentParallelHash
+    extends ParallelHash
+{
+    private final int bitLength;
+    private final int B;
+    private final Executor executor;
+    private final int maxInFlight;
+    private final ConcurrentLeaves blocks;
+
+    /**
+     * Base constructor.
+     *
+     * @param bitLength security strength (bits) of the underlying SHAKE function, 128 or 256.
+     * @param S the customization string - available for local use.
+     * @param B the blocksize (in bytes) for hashing.
+     * @param executor the executor to hash the blocks on.
+     * @param maxInFlight the maximum number of blocks waiting to be hashed or added to the outer hash.
+     */
+    public ConcurrentParallelHash(int bitLength, byte[] S, int B, Executor executor, int maxInFlight)
+    {
+        this(bitLength, S, B, bitLength * 2, executor, maxInFlight);
+    }
+
+    /**
+     * Base constructor.
+     *
+     * @param bitLength security strength (bits) of the underlying SHAKE function, 128 or 256.
+     * @param S the customization string - available for local use.
+     * @param B the blocksize (in bytes) for hashing.
+     * @param outputSize the output size in bits.
+     * @param executor the executor to hash the blocks on.
+     * @param maxInFlight the maximum number of blocks waiting to be hashed or added to the outer hash.
+     */
+    public ConcurrentParallelHash(int bitLength, byte[] S, int B, int outputSize, Executor executor, int maxInFlight)
+    {
+        super(bitLength, S, B, outputSize);
+
+        this.bitLength = bitLength;
+        this.B = B;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.blocks = createBlocks();
+    }
+
+    /**
+     * Copy constructor, the copy sharing the source's executor. Any outstanding blocks of the source are completed
+     * first.
+     *
+     * @param source the digest to copy.
+     */
+    public ConcurrentParallelHash(ConcurrentParallelHash source)
+    {
+        super(completed(source));
+
+        this.bitLength = source.bitLength;
+        this.B = source.B;
+        this.executor = source.executor;
+        this.maxInFlight = source.maxInFlight;
+        this.blocks = createBlocks();
+    }
+
+    public void reset()
+    {
+        // called from the ParallelHash constructor, before there are any blocks
+        if (blocks != null)
+        {
+            blocks.discard();
+        }
+
+        super.reset();
+    }
+
+    void compress(byte[] buf, int offSet, int len)
+    {
+        blocks.submit(buf, offSet, len);
+    }
+
+    void completeBlocks()
+    {
+        blocks.completeAll();
+    }
+
+    private ConcurrentLeaves createBlocks()
+    {
+        ConcurrentLeaves.checkMaxInFlight(maxInFlight);
+
+        ConcurrentLeaves.Hasher[] hashers = new ConcurrentLeaves.Hasher[maxInFlight];
+        for (int i = 0; i != hashers.length; i++)
+        {
+            final CSHAKEDigest compressor = new CSHAKEDigest(bitLength, new byte[0], new byte[0]);
+
+            hashers[i] = new ConcurrentLeaves.Hasher()
+            {
+                public void hash(byte[] leaf, int len, byte[] chainingValue)
+                {
+                    compressor.update(leaf, 0, len);
+                    compressor.doFinal(chainingValue, 0, chainingValue.length);
+                }
+            };
+        }
+
+        return new ConcurrentLeaves(executor, hashers, B, bitLength / 4, new ConcurrentLeaves.Sink()
+        {
+            public void add(byte[] chainingValue)
+            {
+                addChainingValue(chainingValue);
+            }
+        });
+    }
+
+    private static ParallelHash completed(ConcurrentParallelHash source)
+    {
+        source.blocks.completeAll();
+
+        return source;
+    }
+}
@@ -158,7 +158,7 @@ public KangarooParameters build()
         /**
          * Block Size.
          */
-        private static final int BLKSIZE = 8192;
+        static final int BLKSIZE = 8192;
 
         /**
          * Single marker.
@@ -195,6 +195,16 @@ public KangarooParameters build()
          */
         private final KangarooSponge theLeaf;
 
+        /**
+         * The strength.
+         */
+        private final int theStrength;
+
+        /**
+         * The rounds.
+         */
+        private final int theRounds;
+
         /**
          * The chain length.
          */
@@ -237,6 +247,8 @@ public KangarooParameters build()
             /* Create underlying digests */
             theTree = new KangarooSponge(pStrength, pRounds);
             theLeaf = new KangarooSponge(pStrength, pRounds);
+            theStrength = pStrength;
+            theRounds = pRounds;
             theChainLen = pStrength >> 2;
 
             /* Build personalisation */
@@ -363,25 +375,22 @@ private void processData(final byte[] pIn,
                 throw new IllegalStateException("attempt to absorb while squeezing");
             }
 
-            /* Determine current sponge */
-            final KangarooSponge mySponge = theCurrNode == 0 ? theTree : theLeaf;
-
             /* Determine space in current block */
             final int mySpace = BLKSIZE - theProcessed;
 
-            /* If all data can be processed by the current sponge*/
+            /* If all data can be processed by the current node */
             if (mySpace >= pLen)
             {
                 /* Absorb and return */
-                mySponge.absorb(pIn, pInOffSet, pLen);
+                absorbNode(pIn, pInOffSet, pLen);
                 theProcessed += pLen;
                 return;
             }
 
-            /* Absorb as much as possible into current sponge */
+            /* Absorb as much as possible into current node */
             if (mySpace > 0)
             {
-                mySponge.absorb(pIn, pInOffSet, mySpace);
+                absorbNode(pIn, pInOffSet, mySpace);
                 theProcessed += mySpace;
             }
 
@@ -397,12 +406,91 @@ private void processData(final byte[] pIn,
 
                 /* Process next block */
                 final int myDataLen = Math.min(pLen - myProcessed, BLKSIZE);
-                theLeaf.absorb(pIn, pInOffSet + myProcessed, myDataLen);
+                absorbLeaf(pIn, pInOffSet + myProcessed, myDataLen);
                 theProcessed += myDataLen;
                 myProcessed += myDataLen;
             }
         }
 
+        /**
+         * Absorb data into the current node.
+         *
+         * @param pIn       the input buffer
+         * @param pInOffSet the starting offset in the input buffer
+         * @param pLen      the length of data to absorb
+         */
+        private void absorbNode(final byte[] pIn,
+                                final int pInOffSet,
+                                final int pLen)
+        {
+            if (theCurrNode == 0)
+            {
+                theTree.absorb(pIn, pInOffSet, pLen);
+            }
+            else
+            {
+                absorbLeaf(pIn, pInOffSet, pLen);
+            }
+        }
+
+        /**
+         * Absorb data into the current leaf.
+         *
+         * @param pIn       the input buffer
+         * @param pInOffSet the starting offset in the input buffer
+         * @param pLen      the length of data to absorb
+         */
+        void absorbLeaf(final byte[] pIn,
+                        final int pInOffSet,
+                        final int pLen)
+        {
+            theLeaf.absorb(pIn, pInOffSet, pLen);
+        }
+
+        /**
+         * Complete the current leaf, absorbing its chaining value into the tree.
+         */
+        void completeLeaf()
+        {
+            /* Absorb intermediate node marker */
+            theLeaf.absorb(INTERMEDIATE, 0, INTERMEDIATE.length);
+
+            /* Complete the node */
+            final byte[] myHash = new byte[theChainLen];
+            theLeaf.squeeze(myHash, 0, theChainLen);
+            absorbChainingValue(myHash);
+
+            /* Re-init the leaf */
+            theLeaf.initSponge();
+        }
+
+        /**
+         * Complete any leaves whose chaining values are still to be absorbed, called before the tree is finished.
+         */
+        void completeLeaves()
+        {
+        }
+
+        /**
+         * Absorb the chaining value of the next leaf into the tree.
+         *
+         * @param pHash the chaining value
+         */
+        void absorbChainingValue(final byte[] pHash)
+        {
+            theTree.absorb(pHash, 0, theChainLen);
+        }
+
+        /**
+         * Create a leaf hasher matching this digest.
+         *
+         * @return the leaf hasher
+         */
+        LeafHasher newLeafHasher()
+        {
+            return new LeafHasher(new KangarooSponge(theStrength, theRounds), theChainLen);
+        }
+
         public void reset()
         {
             theTree.initSponge();
@@ -429,16 +517,7 @@ private void switchLeaf(final boolean pMoreToCome)
             }
             else
             {
-                /* Absorb intermediate node marker */
-                theLeaf.absorb(INTERMEDIATE, 0, INTERMEDIATE.length);
-
-                /* Complete the node */
-                final byte[] myHash = new byte[theChainLen];
-                theLeaf.squeeze(myHash, 0, theChainLen);
-                theTree.absorb(myHash, 0, theChainLen);
-
-                /* Re-init the leaf */
-                theLeaf.initSponge();
+                completeLeaf();
             }
 
             /* Switch to next node */
@@ -485,8 +564,9 @@ private void switchSingle()
          */
         private void switchFinal()
         {
-            /* Complete the current leaf */
+            /* Complete the current leaf, and any outstanding */
             switchLeaf(false);
+            completeLeaves();
 
             /* Absorb length */
             final byte[] myLength = lengthEncode(theCurrNode);
@@ -534,6 +614,64 @@ private static byte[] lengthEncode(final long strLen)
         }
     }
 
+    /**
+     * Leaf hasher, calculating the chaining values of complete leaves independently of any digest.
+     */
+    static class LeafHasher
+    {
+        /**
+         * The sponge.
+         */
+        private final KangarooSponge theSponge;
+
+        /**
+         * The chain length.
+         */
+        private final int theChainLen;
+
+        /**
+         * Constructor.
+         *
+         * @param pSponge   the sponge
+         * @param pChainLen the chain length
+         */
+        LeafHasher(final KangarooSponge pSponge,
+                   final int pChainLen)
+        {
+            theSponge = pSponge;
+            theChainLen = pChainLen;
+        }
+
+        /**
+         * Return the chain length.
+         *
+         * @return the chain length
+         */
+        int getChainLength()
+        {
+            return theChainLen;
+        }
+
+        /**
+         * Calculate the chaining value of a leaf.
+         *
+         * @param pLeaf  the leaf buffer
+         * @param pOff   the starting offset in the leaf buffer
+         * @param pLen   the length of the leaf
+         * @param pHash  the buffer to receive the chaining value
+         */
+        void hash(final byte[] pLeaf,
+                  final int pOff,
+                  final int pLen,
+                  final byte[] pHash)
+        {
+            theSponge.initSponge();
+            theSponge.absorb(pLeaf, pOff, pLen);
+            theSponge.absorb(KangarooBase.INTERMEDIATE, 0, KangarooBase.INTERMEDIATE.length);
+            theSponge.squeeze(pHash, 0, theChainLen);
+        }
+    }
+
     /**
      * The Kangaroo Sponge.
      */
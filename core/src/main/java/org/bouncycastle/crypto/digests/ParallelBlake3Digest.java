@@ -0,0 +1,306 @@
+package org.bouncycastle.crypto.digests;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Executor;
+
+import org.bouncycastle.crypto.CryptoServicePurpose;
+import org.bouncycastle.crypto.util.ConcurrentRuns;
+import org.bouncycastle.util.Memoable;
+
+/**
+ * BLAKE3, spreading large updates over an {@link Executor}.
+ * <p>
+ * The bulk of a large update is cut into complete subtrees of 64 chunks, and each worker calculates the chaining
+ * values of a contiguous run of them, which are then merged into the chunk tree in order, so the output is
+ * identical to that of a {@link Blake3Digest} given the same message. The calling thread takes the first run itself,
+ * and updates shorter than two subtrees are not split at all.
+ * </p>
+ * <p>
+ * Each worker has its own copy of the digest's working state. As with the other digests, an instance of this class
+ * should only be used by one thread at a time.
+ * </p>
+ */
+public class ParallelBlake3Digest
+    extends Blake3Digest
+{
+    private static final int CHUNKLEN = 1024;
+    private static final int SUBTREE_CHUNKS = 64;
+    private static final int SUBTREE_LEN = SUBTREE_CHUNKS * CHUNKLEN;
+
+    // the most subtrees hashed before their chaining values are merged, bounding the space needed to hold them
+    private static final int MAX_BATCH = 4096;
+
+    private final Executor executor;
+    private final Blake3Digest[] workers;
+    private final byte[][] buffers;
+
+    /**
+     * Constructor for a 256 bit digest.
+     *
+     * @param executor the executor to run the workers on.
+     * @param parallelism the maximum number of runs of subtrees an update will be split into.
+     */
+    public ParallelBlake3Digest(Executor executor, int parallelism)
+    {
+        this(256, executor, parallelism);
+    }
+
+    /**
+     * Base constructor.
+     *
+     * @param digestSize the default digest size (in bits).
+     * @param executor the executor to run the workers on.
+     * @param parallelism the maximum number of runs of subtrees an update will be split into.
+     */
+    public ParallelBlake3Digest(int digestSize, Executor executor, int parallelism)
+    {
+        super(digestSize, CryptoServicePurpose.ANY);
+
+        ConcurrentRuns.checkParallelism(parallelism);
+
+        this.executor = executor;
+        this.workers = new Blake3Digest[parallelism];
+        this.buffers = new byte[parallelism][];
+    }
+
+    /**
+     * Copy constructor, the copy sharing the source's executor.
+     *
+     * @param source the source digest.
+     */
+    public ParallelBlake3Digest(ParallelBlake3Digest source)
+    {
+        super(source);
+
+        this.executor = source.executor;
+        this.workers = new Blake3Digest[source.workers.length];
+        this.buffers = new byte[source.workers.length][];
+    }
+
+    public void update(byte[] in, int inOff, int len)
+    {
+        int head = (int)Math.min(len, headLength());
+        long subtrees = subtreeCount(len - head);
+
+        if (subtrees == 0)
+        {
+            super.update(in, inOff, len);
+            return;
+        }
+
+        super.update(in, inOff, head);
+
+        final byte[] input = in;
+        final int start = inOff + head;
+
+        try
+        {
+            updateSubtrees(subtrees, new Source()
+            {
+                public void hash(int worker, long counter, long subtree, int count, int[] cvs, int cvOff)
+                {
+                    workers[worker].subtreeChainingValues(input, start + (int)(subtree * SUBTREE_LEN), counter,
+                        SUBTREE_CHUNKS, count, cvs, cvOff);
+                }
+            });
+        }
+        catch (IOException e)
+        {
+            // only file regions can throw this
+            throw new IllegalStateException(e.toString());
+        }
+
+        int done = head + (int)(subtrees * SUBTREE_LEN);
+        super.update(in, inOff + done, len - done);
+    }
+
+    /**
+     * Update the digest with the whole of a file channel. Only positional reads are used, so the position of the
+     * channel is left unchanged.
+     *
+     * @param in the channel to read the message from.
+     * @throws IOException on an I/O error.
+     */
+    public void update(FileChannel in)
+        throws IOException
+    {
+        update(in, 0, in.size());
+    }
+
+    /**
+     * Update the digest with a region of a file channel. Only positional reads are used, so the position of the
+     * channel is left unchanged.
+     *
+     * @param in the channel to read the message from.
+     * @param position the position of the first byte of the region.
+     * @param length the length of the region.
+     * @throws IOException if the channel ends before length bytes are read, or on an I/O error.
+     */
+    public void update(final FileChannel in, final long position, long length)
+        throws IOException
+    {
+        if (length < 0)
+        {
+            throw new IllegalArgumentException("length cannot be negative");
+        }
+
+        long head = Math.min(length, headLength());
+        long subtrees = subtreeCount(length - head);
+
+        updateSerial(in, position, head);
+
+        if (subtrees != 0)
+        {
+            final long start = position + head;
+
+            updateSubtrees(subtrees, new Source()
+            {
+                public void hash(int worker, long counter, long subtree, int count, int[] cvs, int cvOff)
+                    throws IOException
+                {
+                    byte[] buf = getBuffer(worker);
+
+                    for (int i = 0; i < count; i++)
+                    {
+                        readFully(in, start + (subtree + i) * SUBTREE_LEN, buf, SUBTREE_LEN);
+                        workers[worker].subtreeChainingValues(buf, 0, counter + i * SUBTREE_CHUNKS,
+                            SUBTREE_CHUNKS, 1, cvs, cvOff + i * 8);
+                    }
+                }
+            });
+        }
+
+        long done = head + subtrees * SUBTREE_LEN;
+        updateSerial(in, position + done, length - done);
+    }
+
+    public Memoable copy()
+    {
+        return new ParallelBlake3Digest(this);
+    }
+
+    private long headLength()
+    {
+        return (SUBTREE_LEN - getMessageLength() % SUBTREE_LEN) % SUBTREE_LEN;
+    }
+
+    private long subtreeCount(long length)
+    {
+        // at least one byte is always left for the ordinary path, as the last chunk may turn out to be the root
+        long subtrees = (length - 1) / SUBTREE_LEN;
+
+        return (workers.length == 1 || subtrees < 2) ? 0 : subtrees;
+    }
+
+    private void updateSerial(FileChannel in, long position, long length)
+        throws IOException
+    {
+        byte[] buf = getBuffer(0);
+
+        while (length > 0)
+        {
+            int n = (int)Math.min(buf.length, length);
+
+            readFully(in, position, buf, n);
+            super.update(buf, 0, n);
+
+            position += n;
+            length -= n;
+        }
+    }
+
+    private void updateSubtrees(long subtrees, Source source)
+        throws IOException
+    {
+        startSubtrees();
+
+        long counter = getMessageLength() / CHUNKLEN;
+        int[] cvs = new int[(int)Math.min(MAX_BATCH, subtrees) * 8];
+
+        for (long first = 0; first < subtrees; first += MAX_BATCH)
+        {
+            int batch = (int)Math.min(MAX_BATCH, subtrees - first);
+
+            hashSubtrees(counter + first * SUBTREE_CHUNKS, first, batch, cvs, source);
+
+            for (int i = 0; i < batch; i++)
+            {
+                addSubtree(cvs, i * 8, SUBTREE_CHUNKS);
+            }
+        }
+    }
+
+    private void hashSubtrees(final long counter, final long first, int batch, final int[] cvs, final Source source)
+        throws IOException
+    {
+        final int count = Math.min(workers.length, batch);
+        final int[] bounds = new int[count + 1];
+
+        for (int i = 0; i < count; i++)
+        {
+            bounds[i] = (int)((long)batch * i / count);
+
+            if (workers[i] == null)
+            {
+                workers[i] = new Blake3Digest(this);
+            }
+            else
+            {
+                workers[i].reset(this);
+            }
+        }
+        bounds[count] = batch;
+
+        ConcurrentRuns.runWithIO(executor, count, new ConcurrentRuns.Run()
+        {
+            public void run(int worker)
+                throws IOException
+            {
+                hashRun(worker, counter, first, bounds, cvs, source);
+            }
+        });
+    }
+
+    private void hashRun(int worker, long counter, long first, int[] bounds, int[] cvs, Source source)
+        throws IOException
+    {
+        int from = bounds[worker];
+
+        source.hash(worker, counter + (long)from * SUBTREE_CHUNKS, first + from, bounds[worker + 1] - from, cvs,
+            from * 8);
+    }
+
+    private byte[] getBuffer(int worker)
+    {
+        if (buffers[worker] == null)
+        {
+            buffers[worker] = new byte[SUBTREE_LEN];
+        }
+        return buffers[worker];
+    }
+
+    private static void readFully(FileChannel in, long position, byte[] buf, int len)
+        throws IOException
+    {
+        ByteBuffer dst = ByteBuffer.wrap(buf, 0, len);
+        while (dst.hasRemaining())
+        {
+            if (in.read(dst, position + dst.position()) < 0)
+            {
+                throw new EOFException("unexpected end of input channel");
+            }
+        }
+    }
+
+    private interface Source
+    {
+        /**
+         * Calculate the chaining values of count subtrees, starting with the given subtree of the bulk of the update.
+         */
+        void hash(int worker, long counter, long subtree, int count, int[] cvs, int cvOff)
+            throws IOException;
+    }
+}
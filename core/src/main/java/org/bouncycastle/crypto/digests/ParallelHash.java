@@ -158,12 +158,30 @@ private void compress()
         bufOff = 0;
     }
 
-    private void compress(byte[] buf, int offSet, int len)
+    /**
+     * Hash a block, adding its chaining value to the outer hash.
+     */
+    void compress(byte[] buf, int offSet, int len)
     {
         compressor.update(buf, offSet, len);
         compressor.doFinal(compressorBuffer, 0, compressorBuffer.length);
 
-        cshake.update(compressorBuffer, 0, compressorBuffer.length);
+        addChainingValue(compressorBuffer);
+    }
+
+    /**
+     * Complete any blocks whose chaining values are still to be added, called before the outer hash is finished.
+     */
+    void completeBlocks()
+    {
+    }
+
+    /**
+     * Add the chaining value of the next block to the outer hash.
+     */
+    void addChainingValue(byte[] chainingValue)
+    {
+        cshake.update(chainingValue, 0, chainingValue.length);
 
         nCount++;
     }
@@ -174,6 +192,8 @@ private void wrapUp(int outputSize)
         {
             compress();
         }
+        completeBlocks();
+
         byte[] nOut = XofUtils.rightEncode(nCount);
         byte[] encOut = XofUtils.rightEncode(outputSize * 8);
 
@@ -0,0 +1,384 @@
+package org.bouncycastle.crypto.digests;
+
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.MultiBufferDigest;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Pack;
+
+/**
+ * Multi-buffer implementation of SHA-512, for hashing many messages of the same length.
+ * <p>
+ * Messages are hashed two at a time with the compression functions interleaved, giving the processor two
+ * independent dependency chains to work on. The padding at the end of each message only depends on the length, so
+ * where padding needs a block of its own that block's message schedule is worked out once and reused for every
+ * message - for 128 byte messages, the usual size of a hash tree node, this saves the schedule expansion for half
+ * the blocks.
+ * </p>
+ */
+public class SHA512MultiBufferDigest
+    implements MultiBufferDigest
+{
+    private static final int DIGEST_LENGTH = 64;
+    private static final int BLOCK_SIZE = 128;
+
+    private final long[] state = new long[16];
+    private final long[] w0 = new long[80];
+    private final long[] w1 = new long[80];
+    private final byte[] block = new byte[BLOCK_SIZE];
+
+    // the expanded schedule for the padding only block, if there is one, for messages of padLength bytes
+    private int padLength = -1;
+    private long[] padSchedule;
+
+    public String getAlgorithmName()
+    {
+        return "SHA-512";
+    }
+
+    public int getDigestSize()
+    {
+        return DIGEST_LENGTH;
+    }
+
+    public void digest(byte[] in, int inOff, int messageLength, int messageCount, byte[] out, int outOff)
+    {
+        if (messageLength < 0 || messageCount < 0)
+        {
+            throw new IllegalArgumentException("messageLength and messageCount cannot be negative");
+        }
+        if (inOff < 0 || (long)inOff + (long)messageLength * messageCount > in.length)
+        {
+            throw new DataLengthException("input buffer too short");
+        }
+        if (outOff < 0 || (long)outOff + (long)DIGEST_LENGTH * messageCount > out.length)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        setPadding(messageLength);
+
+        int i = 0;
+        for (; i < messageCount - 1; i += 2)
+        {
+            hash(in, inOff, in, inOff + messageLength, messageLength, out, outOff);
+            inOff += 2 * messageLength;
+            outOff += 2 * DIGEST_LENGTH;
+        }
+
+        if (i < messageCount)
+        {
+            hash(in, inOff, messageLength, out, outOff);
+        }
+    }
+
+    public void digest(byte[][] messages, int messageLength, byte[] out, int outOff)
+    {
+        if (messageLength < 0)
+        {
+            throw new IllegalArgumentException("messageLength cannot be negative");
+        }
+        for (int i = 0; i < messages.length; i++)
+        {
+            if (messages[i].length < messageLength)
+            {
+                throw new DataLengthException("input buffer too short");
+            }
+        }
+        if (outOff < 0 || (long)outOff + (long)DIGEST_LENGTH * messages.length > out.length)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        setPadding(messageLength);
+
+        int i = 0;
+        for (; i < messages.length - 1; i += 2)
+        {
+            hash(messages[i], 0, messages[i + 1], 0, messageLength, out, outOff);
+            outOff += 2 * DIGEST_LENGTH;
+        }
+
+        if (i < messages.length)
+        {
+            hash(messages[i], 0, messageLength, out, outOff);
+        }
+    }
+
+    private void hash(byte[] inA, int offA, byte[] inB, int offB, int len, byte[] out, int outOff)
+    {
+        initState(0);
+        initState(8);
+
+        int end = offA + len - len % BLOCK_SIZE;
+        while (offA < end)
+        {
+            schedule(inA, offA, w0);
+            schedule(inB, offB, w1);
+            compress(state, w0, w1);
+
+            offA += BLOCK_SIZE;
+            offB += BLOCK_SIZE;
+        }
+
+        int partial = len % BLOCK_SIZE;
+        if (partial != 0)
+        {
+            lastBlock(inA, offA, partial, len, w0);
+            lastBlock(inB, offB, partial, len, w1);
+            compress(state, w0, w1);
+        }
+        if (padSchedule != null)
+        {
+            compress(state, padSchedule, padSchedule);
+        }
+
+        Pack.longToBigEndian(state, 0, 16, out, outOff);
+    }
+
+    private void hash(byte[] in, int inOff, int len, byte[] out, int outOff)
+    {
+        initState(0);
+
+        int end = inOff + len - len % BLOCK_SIZE;
+        while (inOff < end)
+        {
+            schedule(in, inOff, w0);
+            compress(state, w0);
+
+            inOff += BLOCK_SIZE;
+        }
+
+        int partial = len % BLOCK_SIZE;
+        if (partial != 0)
+        {
+            lastBlock(in, inOff, partial, len, w0);
+            compress(state, w0);
+        }
+        if (padSchedule != null)
+        {
+            compress(state, padSchedule);
+        }
+
+        Pack.longToBigEndian(state, 0, 8, out, outOff);
+    }
+
+    /**
+     * Work out the padding only block for the message length, which follows a whole number of message blocks, or
+     * a last partial block too long to hold the length.
+     */
+    private void setPadding(int len)
+    {
+        if (len == padLength)
+        {
+            return;
+        }
+
+        int partial = len % BLOCK_SIZE;
+        if (partial == 0 || partial >= BLOCK_SIZE - 16)
+        {
+            Arrays.fill(block, (byte)0);
+            if (partial == 0)
+            {
+                block[0] = (byte)0x80;
+            }
+            Pack.longToBigEndian((long)len << 3, block, BLOCK_SIZE - 8);
+
+            padSchedule = new long[80];
+            schedule(block, 0, padSchedule);
+        }
+        else
+        {
+            padSchedule = null;
+        }
+
+        padLength = len;
+    }
+
+    /**
+     * Schedule the block holding the end of the message, the start of the padding and, if there's room, the length.
+     */
+    private void lastBlock(byte[] in, int inOff, int partial, int len, long[] w)
+    {
+        System.arraycopy(in, inOff, block, 0, partial);
+        block[partial] = (byte)0x80;
+        Arrays.fill(block, partial + 1, BLOCK_SIZE, (byte)0);
+        if (partial < BLOCK_SIZE - 16)
+        {
+            Pack.longToBigEndian((long)len << 3, block, BLOCK_SIZE - 8);
+        }
+
+        schedule(block, 0, w);
+    }
+
+    private void initState(int off)
+    {
+        state[off + 0] = 0x6a09e667f3bcc908L;
+        state[off + 1] = 0xbb67ae8584caa73bL;
+        state[off + 2] = 0x3c6ef372fe94f82bL;
+        state[off + 3] = 0xa54ff53a5f1d36f1L;
+        state[off + 4] = 0x510e527fade682d1L;
+        state[off + 5] = 0x9b05688c2b3e6c1fL;
+        state[off + 6] = 0x1f83d9abfb41bd6bL;
+        state[off + 7] = 0x5be0cd19137e2179L;
+    }
+
+    private static void schedule(byte[] in, int inOff, long[] w)
+    {
+        Pack.bigEndianToLong(in, inOff, w, 0, 16);
+
+        for (int t = 16; t < 80; t++)
+        {
+            w[t] = Theta1(w[t - 2]) + w[t - 7] + Theta0(w[t - 15]) + w[t - 16];
+        }
+    }
+
+    private static void compress(long[] s, long[] w)
+    {
+        long a = s[0], b = s[1], c = s[2], d = s[3];
+        long e = s[4], f = s[5], g = s[6], h = s[7];
+
+        for (int t = 0; t < 80; t += 8)
+        {
+            h += Sum1(e) + Ch(e, f, g) + K[t] + w[t];
+            d += h;
+            h += Sum0(a) + Maj(a, b, c);
+
+            g += Sum1(d) + Ch(d, e, f) + K[t + 1] + w[t + 1];
+            c += g;
+            g += Sum0(h) + Maj(h, a, b);
+
+            f += Sum1(c) + Ch(c, d, e) + K[t + 2] + w[t + 2];
+            b += f;
+            f += Sum0(g) + Maj(g, h, a);
+
+            e += Sum1(b) + Ch(b, c, d) + K[t + 3] + w[t + 3];
+            a += e;
+            e += Sum0(f) + Maj(f, g, h);
+
+            d += Sum1(a) + Ch(a, b, c) + K[t + 4] + w[t + 4];
+            h += d;
+            d += Sum0(e) + Maj(e, f, g);
+
+            c += Sum1(h) + Ch(h, a, b) + K[t + 5] + w[t + 5];
+            g += c;
+            c += Sum0(d) + Maj(d, e, f);
+
+            b += Sum1(g) + Ch(g, h, a) + K[t + 6] + w[t + 6];
+            f += b;
+            b += Sum0(c) + Maj(c, d, e);
+
+            a += Sum1(f) + Ch(f, g, h) + K[t + 7] + w[t + 7];
+            e += a;
+            a += Sum0(b) + Maj(b, c, d);
+        }
+
+        s[0] += a; s[1] += b; s[2] += c; s[3] += d;
+        s[4] += e; s[5] += f; s[6] += g; s[7] += h;
+    }
+
+    private static void compress(long[] s, long[] w0, long[] w1)
+    {
+        long a0 = s[0], b0 = s[1], c0 = s[2], d0 = s[3];
+        long e0 = s[4], f0 = s[5], g0 = s[6], h0 = s[7];
+        long a1 = s[8], b1 = s[9], c1 = s[10], d1 = s[11];
+        long e1 = s[12], f1 = s[13], g1 = s[14], h1 = s[15];
+
+        for (int t = 0; t < 80; t += 8)
+        {
+            h0 += Sum1(e0) + Ch(e0, f0, g0) + K[t] + w0[t];
+            d0 += h0;
+            h0 += Sum0(a0) + Maj(a0, b0, c0);
+            h1 += Sum1(e1) + Ch(e1, f1, g1) + K[t] + w1[t];
+            d1 += h1;
+            h1 += Sum0(a1) + Maj(a1, b1, c1);
+
+            g0 += Sum1(d0) + Ch(d0, e0, f0) + K[t + 1] + w0[t + 1];
+            c0 += g0;
+            g0 += Sum0(h0) + Maj(h0, a0, b0);
+            g1 += Sum1(d1) + Ch(d1, e1, f1) + K[t + 1] + w1[t + 1];
+            c1 += g1;
+            g1 += Sum0(h1) + Maj(h1, a1, b1);
+
+            f0 += Sum1(c0) + Ch(c0, d0, e0) + K[t + 2] + w0[t + 2];
+            b0 += f0;
+            f0 += Sum0(g0) + Maj(g0, h0, a0);
+            f1 += Sum1(c1) + Ch(c1, d1, e1) + K[t + 2] + w1[t + 2];
+            b1 += f1;
+            f1 += Sum0(g1) + Maj(g1, h1, a1);
+
+            e0 += Sum1(b0) + Ch(b0, c0, d0) + K[t + 3] + w0[t + 3];
+            a0 += e0;
+            e0 += Sum0(f0) + Maj(f0, g0, h0);
+            e1 += Sum1(b1) + Ch(b1, c1, d1) + K[t + 3] + w1[t + 3];
+            a1 += e1;
+            e1 += Sum0(f1) + Maj(f1, g1, h1);
+
+            d0 += Sum1(a0) + Ch(a0, b0, c0) + K[t + 4] + w0[t + 4];
+            h0 += d0;
+            d0 += Sum0(e0) + Maj(e0, f0, g0);
+            d1 += Sum1(a1) + Ch(a1, b1, c1) + K[t + 4] + w1[t + 4];
+            h1 += d1;
+            d1 += Sum0(e1) + Maj(e1, f1, g1);
+
+            c0 += Sum1(h0) + Ch(h0, a0, b0) + K[t + 5] + w0[t + 5];
+            g0 += c0;
+            c0 += Sum0(d0) + Maj(d0, e0, f0);
+            c1 += Sum1(h1) + Ch(h1, a1, b1) + K[t + 5] + w1[t + 5];
+            g1 += c1;
+            c1 += Sum0(d1) + Maj(d1, e1, f1);
+
+            b0 += Sum1(g0) + Ch(g0, h0, a0) + K[t + 6] + w0[t + 6];
+            f0 += b0;
+            b0 += Sum0(c0) + Maj(c0, d0, e0);
+            b1 += Sum1(g1) + Ch(g1, h1, a1) + K[t + 6] + w1[t + 6];
+            f1 += b1;
+            b1 += Sum0(c1) + Maj(c1, d1, e1);
+
+            a0 += Sum1(f0) + Ch(f0, g0, h0) + K[t + 7] + w0[t + 7];
+            e0 += a0;
+            a0 += Sum0(b0) + Maj(b0, c0, d0);
+            a1 += Sum1(f1) + Ch(f1, g1, h1) + K[t + 7] + w1[t + 7];
+            e1 += a1;
+            a1 += Sum0(b1) + Maj(b1, c1, d1);
+        }
+
+        s[0] += a0; s[1] += b0; s[2] += c0; s[3] += d0;
+        s[4] += e0; s[5] += f0; s[6] += g0; s[7] += h0;
+        s[8] += a1; s[9] += b1; s[10] += c1; s[11] += d1;
+        s[12] += e1; s[13] += f1; s[14] += g1; s[15] += h1;
+    }
+
+    /* SHA-512 functions */
+    private static long Ch(long x, long y, long z)
+    {
+        return (x & y) ^ ((~x) & z);
+    }
+
+    private static long Maj(long x, long y, long z)
+    {
+        return (x & y) | (z & (x ^ y));
+    }
+
+    private static long Sum0(long x)
+    {
+        return ((x << 36) | (x >>> 28)) ^ ((x << 30) | (x >>> 34)) ^ ((x << 25) | (x >>> 39));
+    }
+
+    private static long Sum1(long x)
+    {
+        return ((x << 50) | (x >>> 14)) ^ ((x << 46) | (x >>> 18)) ^ ((x << 23) | (x >>> 41));
+    }
+
+    private static long Theta0(long x)
+    {
+        return ((x << 63) | (x >>> 1)) ^ ((x << 56) | (x >>> 8)) ^ (x >>> 7);
+    }
+
+    private static long Theta1(long x)
+    {
+        return ((x << 45) | (x >>> 19)) ^ ((x << 3) | (x >>> 61)) ^ (x >>> 6);
+    }
+
+    private static final long[] K = LongDigest.K;
+}
@@ -0,0 +1,187 @@
+package org.bouncycastle.crypto.digests;
+
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Pack;
+
+/**
+ * Four SHAKE instances of the same strength run in lock step, for callers such as the ML-KEM and ML-DSA matrix
+ * expansions, which need a number of independent XOF streams over inputs of the same length. Each lane produces
+ * exactly the output of a {@link SHAKEDigest} of the same strength given that lane's input.
+ * <p>
+ * Input is absorbed directly into the lane states, either shared by all the lanes or separately for each lane, and
+ * output is squeezed directly from the lane states a whole block at a time. Once squeezing has begun no more input
+ * can be absorbed until the instance is reset.
+ * </p>
+ */
+public class SHAKEX4
+{
+    private final long[] s0 = new long[25];
+    private final long[] s1 = new long[25];
+    private final long[] s2 = new long[25];
+    private final long[] s3 = new long[25];
+    private final int rate;
+
+    private int position;
+    private boolean squeezing;
+
+    /**
+     * Base constructor.
+     *
+     * @param bitStrength the security strength in bits of the XOF, 128 or 256.
+     */
+    public SHAKEX4(int bitStrength)
+    {
+        switch (bitStrength)
+        {
+        case 128:
+        case 256:
+            break;
+        default:
+            throw new IllegalArgumentException("'bitStrength' " + bitStrength + " not supported for SHAKE");
+        }
+
+        this.rate = (1600 - (bitStrength << 1)) >>> 3;
+    }
+
+    public String getAlgorithmName()
+    {
+        return "SHAKE" + ((1600 - (rate << 3)) >>> 1) + "x4";
+    }
+
+    /**
+     * Return the size of the blocks returned by squeezeBlocks().
+     *
+     * @return the rate of the XOF in bytes.
+     */
+    public int getBlockSize()
+    {
+        return rate;
+    }
+
+    /**
+     * Absorb the same input into all four lanes.
+     *
+     * @param in the input.
+     * @param inOff offset into in.
+     * @param len the number of bytes to absorb.
+     */
+    public void absorb(byte[] in, int inOff, int len)
+    {
+        absorb(in, in, in, in, inOff, len);
+    }
+
+    /**
+     * Absorb a separate input into each lane, the inputs all being of the same length and at the same offset.
+     *
+     * @param in0 the input for lane 0.
+     * @param in1 the input for lane 1.
+     * @param in2 the input for lane 2.
+     * @param in3 the input for lane 3.
+     * @param inOff offset into each input.
+     * @param len the number of bytes to absorb from each input.
+     */
+    public void absorb(byte[] in0, byte[] in1, byte[] in2, byte[] in3, int inOff, int len)
+    {
+        if (squeezing)
+        {
+            throw new IllegalStateException("attempt to absorb while squeezing");
+        }
+
+        int end = inOff + len;
+        while (inOff < end)
+        {
+            if ((position & 7) == 0 && end - inOff >= 8)
+            {
+                int lane = position >>> 3;
+                s0[lane] ^= Pack.littleEndianToLong(in0, inOff);
+                s1[lane] ^= Pack.littleEndianToLong(in1, inOff);
+                s2[lane] ^= Pack.littleEndianToLong(in2, inOff);
+                s3[lane] ^= Pack.littleEndianToLong(in3, inOff);
+                inOff += 8;
+                position += 8;
+            }
+            else
+            {
+                int lane = position >>> 3, shift = (position & 7) << 3;
+                s0[lane] ^= (in0[inOff] & 0xFFL) << shift;
+                s1[lane] ^= (in1[inOff] & 0xFFL) << shift;
+                s2[lane] ^= (in2[inOff] & 0xFFL) << shift;
+                s3[lane] ^= (in3[inOff] & 0xFFL) << shift;
+                inOff += 1;
+                position += 1;
+            }
+
+            if (position == rate)
+            {
+                permute();
+                position = 0;
+            }
+        }
+    }
+
+    /**
+     * Squeeze whole blocks of output from each lane, padding the input first if this is the first call since the
+     * last reset.
+     *
+     * @param out0 the output for lane 0.
+     * @param out1 the output for lane 1.
+     * @param out2 the output for lane 2.
+     * @param out3 the output for lane 3.
+     * @param outOff offset into each output.
+     * @param blockCount the number of blocks of getBlockSize() bytes to write to each output.
+     */
+    public void squeezeBlocks(byte[] out0, byte[] out1, byte[] out2, byte[] out3, int outOff, int blockCount)
+    {
+        if (!squeezing)
+        {
+            // SHAKE domain separation and pad10*1, the last byte of the rate always being the top of a lane
+            int lane = position >>> 3;
+            long pad = 0x1FL << ((position & 7) << 3);
+            s0[lane] ^= pad;
+            s1[lane] ^= pad;
+            s2[lane] ^= pad;
+            s3[lane] ^= pad;
+
+            lane = (rate - 1) >>> 3;
+            s0[lane] ^= 1L << 63;
+            s1[lane] ^= 1L << 63;
+            s2[lane] ^= 1L << 63;
+            s3[lane] ^= 1L << 63;
+
+            squeezing = true;
+        }
+
+        int laneCount = rate >>> 3;
+        for (int i = 0; i < blockCount; ++i)
+        {
+            permute();
+
+            Pack.longToLittleEndian(s0, 0, laneCount, out0, outOff);
+            Pack.longToLittleEndian(s1, 0, laneCount, out1, outOff);
+            Pack.longToLittleEndian(s2, 0, laneCount, out2, outOff);
+            Pack.longToLittleEndian(s3, 0, laneCount, out3, outOff);
+            outOff += rate;
+        }
+    }
+
+    /**
+     * Return all four lanes to their initial state.
+     */
+    public void reset()
+    {
+        Arrays.fill(s0, 0L);
+        Arrays.fill(s1, 0L);
+        Arrays.fill(s2, 0L);
+        Arrays.fill(s3, 0L);
+        position = 0;
+        squeezing = false;
+    }
+
+    private void permute()
+    {
+        KeccakDigest.KeccakPermutation(s0);
+        KeccakDigest.KeccakPermutation(s1);
+        KeccakDigest.KeccakPermutation(s2);
+        KeccakDigest.KeccakPermutation(s3);
+    }
+}
@@ -8,6 +8,7 @@
 import org.bouncycastle.crypto.OutputLengthException;
 import org.bouncycastle.crypto.constraints.DefaultServiceProperties;
 import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.PreparedKeyParameter;
 import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.Pack;
 
@@ -454,7 +455,15 @@ public void init(
     {
         if (params instanceof KeyParameter)
         {
-            WorkingKey = generateWorkingKey(((KeyParameter)params).getKey(), forEncryption);
+            if (params instanceof PreparedKeyParameter)
+            {
+                WorkingKey = getPreparedWorkingKey((PreparedKeyParameter)params, forEncryption);
+                ROUNDS = WorkingKey.length - 1;
+            }
+            else
+            {
+                WorkingKey = generateWorkingKey(((KeyParameter)params).getKey(), forEncryption);
+            }
             this.forEncryption = forEncryption;
             if (forEncryption)
             {
@@ -478,6 +487,22 @@ public String getAlgorithmName()
         return "AES";
     }
 
+    /**
+     * Round keys are only ever read once generated, so the ones for a prepared key can be shared.
+     */
+    private int[][] getPreparedWorkingKey(PreparedKeyParameter key, boolean forEncryption)
+    {
+        String id = forEncryption ? "AES/E" : "AES/D";
+
+        int[][] workingKey = (int[][])key.getPrepared(id);
+        if (workingKey == null)
+        {
+            workingKey = (int[][])key.putPrepared(id, generateWorkingKey(key.getKey(), forEncryption));
+        }
+
+        return workingKey;
+    }
+
     public int getBlockSize()
     {
         return BLOCK_SIZE;
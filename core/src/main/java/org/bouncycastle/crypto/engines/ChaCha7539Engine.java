@@ -112,6 +112,18 @@ protected void setKey(byte[] keyBytes, byte[] ivBytes)
         Pack.littleEndianToInt(ivBytes, 0, engineState, 13, 3);
     }
 
+    protected void processBlocks(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+    {
+        for (int i = 0; i < blockCount; ++i)
+        {
+            ChaChaEngine.chachaXor(rounds, engineState, in, inOff, out, outOff);
+            advanceCounter();
+
+            inOff += 64;
+            outOff += 64;
+        }
+    }
+
     protected void generateKeyStream(byte[] output)
     {
         ChaChaEngine.chachaCore(rounds, engineState, x);
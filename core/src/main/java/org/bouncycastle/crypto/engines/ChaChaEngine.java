@@ -136,6 +136,18 @@ protected void setKey(byte[] keyBytes, byte[] ivBytes)
         Pack.littleEndianToInt(ivBytes, 0, engineState, 14, 2);
     }
 
+    protected void processBlocks(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+    {
+        for (int i = 0; i < blockCount; ++i)
+        {
+            chachaXor(rounds, engineState, in, inOff, out, outOff);
+            advanceCounter();
+
+            inOff += 64;
+            outOff += 64;
+        }
+    }
+
     protected void generateKeyStream(byte[] output)
     {
         chachaCore(rounds, engineState, x);
@@ -233,4 +245,92 @@ public static void chachaCore(int rounds, int[] input, int[] x)
         x[14] = x14 + input[14];
         x[15] = x15 + input[15];
     }
+
+    /**
+     * ChaCha function, with the resulting key stream block applied directly to 64 bytes of input.
+     *
+     * @param rounds the number of rounds.
+     * @param input the engine state.
+     * @param in the input data.
+     * @param inOff offset of the block in in.
+     * @param out the output buffer.
+     * @param outOff offset of the block in out.
+     */
+    static void chachaXor(int rounds, int[] input, byte[] in, int inOff, byte[] out, int outOff)
+    {
+        int x00 = input[ 0];
+        int x01 = input[ 1];
+        int x02 = input[ 2];
+        int x03 = input[ 3];
+        int x04 = input[ 4];
+        int x05 = input[ 5];
+        int x06 = input[ 6];
+        int x07 = input[ 7];
+        int x08 = input[ 8];
+        int x09 = input[ 9];
+        int x10 = input[10];
+        int x11 = input[11];
+        int x12 = input[12];
+        int x13 = input[13];
+        int x14 = input[14];
+        int x15 = input[15];
+
+        /*
+         * The four quarter rounds of each half are interleaved step by step to expose the independent
+         * operations to the CPU.
+         */
+        for (int i = rounds; i > 0; i -= 2)
+        {
+            x00 += x04; x12 = Integers.rotateLeft(x12 ^ x00, 16);
+            x01 += x05; x13 = Integers.rotateLeft(x13 ^ x01, 16);
+            x02 += x06; x14 = Integers.rotateLeft(x14 ^ x02, 16);
+            x03 += x07; x15 = Integers.rotateLeft(x15 ^ x03, 16);
+            x08 += x12; x04 = Integers.rotateLeft(x04 ^ x08, 12);
+            x09 += x13; x05 = Integers.rotateLeft(x05 ^ x09, 12);
+            x10 += x14; x06 = Integers.rotateLeft(x06 ^ x10, 12);
+            x11 += x15; x07 = Integers.rotateLeft(x07 ^ x11, 12);
+            x00 += x04; x12 = Integers.rotateLeft(x12 ^ x00, 8);
+            x01 += x05; x13 = Integers.rotateLeft(x13 ^ x01, 8);
+            x02 += x06; x14 = Integers.rotateLeft(x14 ^ x02, 8);
+            x03 += x07; x15 = Integers.rotateLeft(x15 ^ x03, 8);
+            x08 += x12; x04 = Integers.rotateLeft(x04 ^ x08, 7);
+            x09 += x13; x05 = Integers.rotateLeft(x05 ^ x09, 7);
+            x10 += x14; x06 = Integers.rotateLeft(x06 ^ x10, 7);
+            x11 += x15; x07 = Integers.rotateLeft(x07 ^ x11, 7);
+
+            x00 += x05; x15 = Integers.rotateLeft(x15 ^ x00, 16);
+            x01 += x06; x12 = Integers.rotateLeft(x12 ^ x01, 16);
+            x02 += x07; x13 = Integers.rotateLeft(x13 ^ x02, 16);
+            x03 += x04; x14 = Integers.rotateLeft(x14 ^ x03, 16);
+            x10 += x15; x05 = Integers.rotateLeft(x05 ^ x10, 12);
+            x11 += x12; x06 = Integers.rotateLeft(x06 ^ x11, 12);
+            x08 += x13; x07 = Integers.rotateLeft(x07 ^ x08, 12);
+            x09 += x14; x04 = Integers.rotateLeft(x04 ^ x09, 12);
+            x00 += x05; x15 = Integers.rotateLeft(x15 ^ x00, 8);
+            x01 += x06; x12 = Integers.rotateLeft(x12 ^ x01, 8);
+            x02 += x07; x13 = Integers.rotateLeft(x13 ^ x02, 8);
+            x03 += x04; x14 = Integers.rotateLeft(x14 ^ x03, 8);
+            x10 += x15; x05 = Integers.rotateLeft(x05 ^ x10, 7);
+            x11 += x12; x06 = Integers.rotateLeft(x06 ^ x11, 7);
+            x08 += x13; x07 = Integers.rotateLeft(x07 ^ x08, 7);
+            x09 += x14; x04 = Integers.rotateLeft(x04 ^ x09, 7);
+        }
+
+        Pack.intToLittleEndian((x00 + input[ 0]) ^ Pack.littleEndianToInt(in, inOff), out, outOff);
+        Pack.intToLittleEndian((x01 + input[ 1]) ^ Pack.littleEndianToInt(in, inOff +  4), out, outOff +  4);
+        Pack.intToLittleEndian((x02 + input[ 2]) ^ Pack.littleEndianToInt(in, inOff +  8), out, outOff +  8);
+        Pack.intToLittleEndian((x03 + input[ 3]) ^ Pack.littleEndianToInt(in, inOff + 12), out, outOff + 12);
+        Pack.intToLittleEndian((x04 + input[ 4]) ^ Pack.littleEndianToInt(in, inOff + 16), out, outOff + 16);
+        Pack.intToLittleEndian((x05 + input[ 5]) ^ Pack.littleEndianToInt(in, inOff + 20), out, outOff + 20);
+        Pack.intToLittleEndian((x06 + input[ 6]) ^ Pack.littleEndianToInt(in, inOff + 24), out, outOff + 24);
+        Pack.intToLittleEndian((x07 + input[ 7]) ^ Pack.littleEndianToInt(in, inOff + 28), out, outOff + 28);
+        Pack.intToLittleEndian((x08 + input[ 8]) ^ Pack.littleEndianToInt(in, inOff + 32), out, outOff + 32);
+        Pack.intToLittleEndian((x09 + input[ 9]) ^ Pack.littleEndianToInt(in, inOff + 36), out, outOff + 36);
+        Pack.intToLittleEndian((x10 + input[10]) ^ Pack.littleEndianToInt(in, inOff + 40), out, outOff + 40);
+        Pack.intToLittleEndian((x11 + input[11]) ^ Pack.littleEndianToInt(in, inOff + 44), out, outOff + 44);
+        Pack.intToLittleEndian((x12 + input[12]) ^ Pack.littleEndianToInt(in, inOff + 48), out, outOff + 48);
+        Pack.intToLittleEndian((x13 + input[13]) ^ Pack.littleEndianToInt(in, inOff + 52), out, outOff + 52);
+        Pack.intToLittleEndian((x14 + input[14]) ^ Pack.littleEndianToInt(in, inOff + 56), out, outOff + 56);
+        Pack.intToLittleEndian((x15 + input[15]) ^ Pack.littleEndianToInt(in, inOff + 60), out, outOff + 60);
+    }
 }
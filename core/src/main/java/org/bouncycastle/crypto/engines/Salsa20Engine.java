@@ -276,7 +276,8 @@ public int processBytes(
             throw new MaxBytesExceededException("2^70 byte limit per IV would be exceeded; Change IV");
         }
 
-        for (int i = 0; i < len; i++)
+        int i = 0;
+        while (index != 0 && i < len)
         {
             out[i + outOff] = (byte)(keyStream[index] ^ in[i + inOff]);
             index = (index + 1) & 63;
@@ -286,11 +287,65 @@ public int processBytes(
                 advanceCounter();
                 generateKeyStream(keyStream);
             }
+            ++i;
+        }
+
+        if (len - i >= 64)
+        {
+            // the key stream for the current block is already available
+            for (int j = 0; j < 64; ++j)
+            {
+                out[i + outOff + j] = (byte)(keyStream[j] ^ in[i + inOff + j]);
+            }
+            advanceCounter();
+            i += 64;
+
+            int blockCount = (len - i) >>> 6;
+            if (blockCount > 0)
+            {
+                processBlocks(in, inOff + i, blockCount, out, outOff + i);
+                i += blockCount << 6;
+            }
+
+            generateKeyStream(keyStream);
+        }
+
+        for (; i < len; i++)
+        {
+            out[i + outOff] = (byte)(keyStream[index] ^ in[i + inOff]);
+            index = (index + 1) & 63;
         }
 
         return len;
     }
 
+    /**
+     * Apply the key stream for blockCount whole blocks, starting with the block for the current counter, and
+     * advance the counter past them. Subclasses may override this to generate the key stream for several
+     * blocks at a time; the key stream buffer is regenerated by the caller afterwards.
+     *
+     * @param in the input data.
+     * @param inOff offset into in of the first block.
+     * @param blockCount the number of 64 byte blocks to process.
+     * @param out the output buffer.
+     * @param outOff offset into out for the first block.
+     */
+    protected void processBlocks(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+    {
+        for (int i = 0; i < blockCount; ++i)
+        {
+            generateKeyStream(keyStream);
+            for (int j = 0; j < 64; ++j)
+            {
+                out[outOff + j] = (byte)(keyStream[j] ^ in[inOff + j]);
+            }
+            advanceCounter();
+
+            inOff += 64;
+            outOff += 64;
+        }
+    }
+
     public long skip(long numberOfBytes)
     {
         if (numberOfBytes >= 0)
@@ -89,11 +89,15 @@ else if (parameters.getIterations() < MIN_ITERATIONS)
         // Ensure that all segments have equal length
         memoryBlocks = parameters.getLanes() * laneLength;
 
-        this.memory = new Block[memoryBlocks];
-
-        for (int i = 0; i < memory.length; i++)
+        // the memory is cleared after each use, so can be kept for parameters needing the same amount
+        if (memory == null || memory.length != memoryBlocks)
         {
-            memory[i] = new Block();
+            this.memory = new Block[memoryBlocks];
+
+            for (int i = 0; i < memory.length; i++)
+            {
+                memory[i] = new Block();
+            }
         }
     }
 
@@ -147,7 +151,7 @@ private void reset()
         }
     }
 
-    private void fillMemoryBlocks()
+    void fillMemoryBlocks()
     {
         FillBlock filler = new FillBlock();
         Position position = new Position();
@@ -169,7 +173,7 @@ private void fillMemoryBlocks()
         }
     }
 
-    private void fillSegment(FillBlock filler, Position position)
+    void fillSegment(FillBlock filler, Position position)
     {
         Block addressBlock = null, inputBlock = null;
 
@@ -544,7 +548,7 @@ private long intToLong(int x)
         return (long)(x & M32L);
     }
 
-    private static class FillBlock
+    static class FillBlock
     {
         Block R = new Block();
         Block Z = new Block();
@@ -552,6 +556,14 @@ private long intToLong(int x)
         Block addressBlock = new Block();
         Block inputBlock = new Block();
 
+        void clear()
+        {
+            R.clear();
+            Z.clear();
+            addressBlock.clear();
+            inputBlock.clear();
+        }
+
         private void applyBlake()
         {
             /* Apply Blake2 on columns of 64-bit words: (0,1,...,15) , then
@@ -682,7 +694,7 @@ public Block clear()
         }
     }
 
-    private static class Position
+    static class Position
     {
         int pass;
         int lane;
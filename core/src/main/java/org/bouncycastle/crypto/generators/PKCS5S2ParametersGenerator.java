@@ -71,7 +71,7 @@ private void F(
         }
     }
 
-    private byte[] generateDerivedKey(
+    byte[] generateDerivedKey(
         int dkLen)
     {
         int     hLen = hMac.getMacSize();
@@ -0,0 +1,108 @@
+package org.bouncycastle.crypto.generators;
+
+import java.util.concurrent.Executor;
+
+import org.bouncycastle.crypto.params.Argon2Parameters;
+import org.bouncycastle.crypto.util.ConcurrentRuns;
+
+/**
+ * Argon2 PBKDF, with the lanes of each slice filled on an {@link Executor}.
+ * <p>
+ * Within a slice each lane only refers to blocks of its own lane or of slices already finished, so the lanes are
+ * shared out between at most parallelism workers, the calling thread taking the first share itself, and every worker
+ * is waited for before the next slice is started. The output is identical to that of {@link Argon2BytesGenerator}.
+ * Each worker keeps its working blocks between calls, and the memory is kept between calls to init() with parameters
+ * needing the same amount of it, so repeated use with different salts allocates nothing new.
+ * </p>
+ * <p>
+ * An instance of this class should only be used by one thread at a time.
+ * </p>
+ */
+public class ParallelArgon2BytesGenerator
+    extends Argon2BytesGenerator
+{
+    private static final int ARGON2_SYNC_POINTS = 4;
+
+    private final Executor executor;
+    private final FillBlock[] fillers;
+    private final Position[] positions;
+
+    private int lanes;
+    private int iterations;
+
+    /**
+     * Base constructor.
+     *
+     * @param executor the executor to run the workers on.
+     * @param parallelism the maximum number of lanes to fill at once.
+     */
+    public ParallelArgon2BytesGenerator(Executor executor, int parallelism)
+    {
+        ConcurrentRuns.checkParallelism(parallelism);
+
+        this.executor = executor;
+        this.fillers = new FillBlock[parallelism];
+        this.positions = new Position[parallelism];
+    }
+
+    public void init(Argon2Parameters parameters)
+    {
+        super.init(parameters);
+
+        this.lanes = parameters.getLanes();
+        this.iterations = parameters.getIterations();
+    }
+
+    void fillMemoryBlocks()
+    {
+        final int count = Math.min(fillers.length, lanes);
+
+        for (int i = 0; i < count; i++)
+        {
+            if (fillers[i] == null)
+            {
+                fillers[i] = new FillBlock();
+                positions[i] = new Position();
+            }
+        }
+
+        try
+        {
+            for (int pass = 0; pass < iterations; ++pass)
+            {
+                for (int slice = 0; slice < ARGON2_SYNC_POINTS; ++slice)
+                {
+                    fillSlice(count, pass, slice);
+                }
+            }
+        }
+        finally
+        {
+            for (int i = 0; i < count; i++)
+            {
+                fillers[i].clear();
+            }
+        }
+    }
+
+    private void fillSlice(final int count, final int pass, final int slice)
+    {
+        ConcurrentRuns.run(executor, count, new ConcurrentRuns.Run()
+        {
+            public void run(int worker)
+            {
+                Position position = positions[worker];
+
+                position.pass = pass;
+                position.slice = slice;
+
+                for (int lane = worker; lane < lanes; lane += count)
+                {
+                    position.lane = lane;
+
+                    fillSegment(fillers[worker], position);
+                }
+            }
+        });
+    }
+}
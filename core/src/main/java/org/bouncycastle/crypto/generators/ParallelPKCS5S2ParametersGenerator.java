@@ -0,0 +1,221 @@
+package org.bouncycastle.crypto.generators;
+
+import java.util.concurrent.Executor;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.ExtendedDigest;
+import org.bouncycastle.crypto.util.ConcurrentRuns;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Memoable;
+
+/**
+ * Generator for PBE derived keys and ivs as defined by PKCS 5 V2.0 Scheme 2, with the blocks of a derived key longer
+ * than the digest calculated on an {@link Executor}.
+ * <p>
+ * Each block of the derived key is independent, so the blocks are shared out between at most parallelism workers,
+ * the calling thread taking the first share itself. The workers restart copies of the digest from the ipad and opad
+ * states computed once for the password. Keys of a single block are calculated on the calling thread as usual.
+ * </p>
+ * <p>
+ * An instance of this class should only be used by one thread at a time.
+ * </p>
+ */
+public class ParallelPKCS5S2ParametersGenerator
+    extends PKCS5S2ParametersGenerator
+{
+    private final Digest digest;
+    private final Executor executor;
+    private final int parallelism;
+
+    /**
+     * Base constructor.
+     *
+     * @param digest the digest to use in the HMAC, which must be {@link Memoable}.
+     * @param executor the executor to run the workers on.
+     * @param parallelism the maximum number of blocks to calculate at once.
+     */
+    public ParallelPKCS5S2ParametersGenerator(Digest digest, Executor executor, int parallelism)
+    {
+        super(digest);
+
+        if (!(digest instanceof Memoable && digest instanceof ExtendedDigest))
+        {
+            throw new IllegalArgumentException("digest must be an ExtendedDigest implementing Memoable");
+        }
+        ConcurrentRuns.checkParallelism(parallelism);
+
+        this.digest = digest;
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    byte[] generateDerivedKey(int dkLen)
+    {
+        int hLen = digest.getDigestSize();
+        final int blockCount = (dkLen + hLen - 1) / hLen;
+        final int count = Math.min(parallelism, blockCount);
+
+        if (count < 2)
+        {
+            return super.generateDerivedKey(dkLen);
+        }
+
+        final byte[] out = new byte[blockCount * hLen];
+        final PRF[] prfs = new PRF[count];
+
+        prfs[0] = new PRF(digest, password);
+        for (int i = 1; i < count; i++)
+        {
+            prfs[i] = new PRF(prfs[0]);
+        }
+
+        try
+        {
+            ConcurrentRuns.run(executor, count, new ConcurrentRuns.Run()
+            {
+                public void run(int worker)
+                {
+                    PRF prf = prfs[worker];
+
+                    for (int i = worker; i < blockCount; i += count)
+                    {
+                        prf.F(salt, iterationCount, i + 1, out, i * prf.getSize());
+                    }
+                }
+            });
+        }
+        finally
+        {
+            for (int i = 0; i < count; i++)
+            {
+                prfs[i].clear();
+            }
+        }
+
+        return out;
+    }
+
+    /**
+     * HMAC over a Memoable digest, as the PBKDF2 pseudo-random function. Each MAC starts from a copy of the ipad
+     * state and finishes from a copy of the opad state, so no memory is allocated per iteration. The pad states are
+     * only ever read once created, so may be shared by instances on different threads.
+     */
+    private static final class PRF
+    {
+        private final Digest digest;
+        private final Memoable ipadState;
+        private final Memoable opadState;
+        private final byte[] iBuf = new byte[4];
+        private final byte[] state;
+
+        PRF(Digest digest, byte[] password)
+        {
+            int blockLength = ((ExtendedDigest)digest).getByteLength();
+            byte[] pad = new byte[blockLength];
+
+            digest.reset();
+
+            if (password.length > blockLength)
+            {
+                digest.update(password, 0, password.length);
+                digest.doFinal(pad, 0);
+            }
+            else
+            {
+                System.arraycopy(password, 0, pad, 0, password.length);
+            }
+
+            xorPad(pad, (byte)0x36);
+            digest.update(pad, 0, blockLength);
+            this.ipadState = ((Memoable)digest).copy();
+
+            xorPad(pad, (byte)(0x36 ^ 0x5C));
+            digest.reset();
+            digest.update(pad, 0, blockLength);
+            this.opadState = ((Memoable)digest).copy();
+
+            Arrays.fill(pad, (byte)0);
+
+            this.digest = digest;
+            this.state = new byte[digest.getDigestSize()];
+        }
+
+        /**
+         * A PRF for another thread, sharing the pad states of the original.
+         */
+        PRF(PRF original)
+        {
+            this.digest = (Digest)original.ipadState.copy();
+            this.ipadState = original.ipadState;
+            this.opadState = original.opadState;
+            this.state = new byte[original.state.length];
+        }
+
+        int getSize()
+        {
+            return state.length;
+        }
+
+        /**
+         * Calculate block i of the derived key.
+         */
+        void F(byte[] S, int c, int i, byte[] out, int outOff)
+        {
+            if (c == 0)
+            {
+                throw new IllegalArgumentException("iteration count must be at least 1.");
+            }
+
+            Memoable memo = (Memoable)digest;
+
+            iBuf[0] = (byte)(i >>> 24);
+            iBuf[1] = (byte)(i >>> 16);
+            iBuf[2] = (byte)(i >>> 8);
+            iBuf[3] = (byte)i;
+
+            memo.reset(ipadState);
+            if (S != null)
+            {
+                digest.update(S, 0, S.length);
+            }
+            digest.update(iBuf, 0, iBuf.length);
+            mac();
+
+            System.arraycopy(state, 0, out, outOff, state.length);
+
+            for (int count = 1; count < c; count++)
+            {
+                memo.reset(ipadState);
+                digest.update(state, 0, state.length);
+                mac();
+
+                for (int j = 0; j != state.length; j++)
+                {
+                    out[outOff + j] ^= state[j];
+                }
+            }
+        }
+
+        void clear()
+        {
+            Arrays.fill(state, (byte)0);
+            digest.reset();
+        }
+
+        private void mac()
+        {
+            digest.doFinal(state, 0);
+            ((Memoable)digest).reset(opadState);
+            digest.update(state, 0, state.length);
+            digest.doFinal(state, 0);
+        }
+
+        private static void xorPad(byte[] pad, byte n)
+        {
+            for (int i = 0; i < pad.length; ++i)
+            {
+                pad[i] ^= n;
+            }
+        }
+    }
+}
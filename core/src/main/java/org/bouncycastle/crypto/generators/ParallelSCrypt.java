@@ -0,0 +1,103 @@
+package org.bouncycastle.crypto.generators;
+
+import java.util.concurrent.Executor;
+
+import org.bouncycastle.crypto.util.ConcurrentRuns;
+
+/**
+ * The scrypt key derivation function, with the p independent SMix (ROMix) instances run on an {@link Executor}.
+ * <p>
+ * The p blocks are shared out between at most parallelism workers, the calling thread taking the first share
+ * itself, so the output is identical to that of {@link SCrypt#generate(byte[], byte[], int, int, int, int)}. Each
+ * worker keeps its SMix memory between calls using the same N and r, rather than allocating it afresh each time; the
+ * memory is cleared after every call, but note this means up to parallelism * 128 * N * r bytes are held by an
+ * instance of this class.
+ * </p>
+ * <p>
+ * An instance of this class should only be used by one thread at a time.
+ * </p>
+ */
+public class ParallelSCrypt
+{
+    private final Executor executor;
+    private final SCrypt.Workspace[] workspaces;
+
+    /**
+     * Base constructor.
+     *
+     * @param executor the executor to run the workers on.
+     * @param parallelism the maximum number of SMix instances to run at once.
+     */
+    public ParallelSCrypt(Executor executor, int parallelism)
+    {
+        ConcurrentRuns.checkParallelism(parallelism);
+
+        this.executor = executor;
+        this.workspaces = new SCrypt.Workspace[parallelism];
+    }
+
+    /**
+     * Generate a key using the scrypt key derivation function.
+     *
+     * @param P     the bytes of the pass phrase.
+     * @param S     the salt to use for this invocation.
+     * @param N     CPU/Memory cost parameter. Must be larger than 1, a power of 2 and less than
+     *              <code>2^(128 * r / 8)</code>.
+     * @param r     the block size, must be &gt;= 1.
+     * @param p     Parallelization parameter. Must be a positive integer less than or equal to
+     *              <code>Integer.MAX_VALUE / (128 * r * 8)</code>.
+     * @param dkLen the length of the key to generate.
+     * @return the generated key.
+     */
+    public byte[] generate(byte[] P, byte[] S, int N, int r, int p, int dkLen)
+    {
+        SCrypt.checkParameters(P, S, N, r, p, dkLen);
+
+        return SCrypt.MFcrypt(P, S, N, r, p, dkLen, new SCrypt.Mixer()
+        {
+            public void mix(int[] B, int N, int r, int p)
+            {
+                mixBlocks(B, N, r, p);
+            }
+        });
+    }
+
+    private void mixBlocks(final int[] B, int N, final int r, final int p)
+    {
+        final int count = Math.min(workspaces.length, p);
+
+        for (int i = 0; i < count; i++)
+        {
+            if (workspaces[i] == null || !workspaces[i].isFor(N, r))
+            {
+                // drop any memory for other parameters before allocating more
+                workspaces[i] = null;
+                workspaces[i] = new SCrypt.Workspace(N, r);
+            }
+        }
+
+        try
+        {
+            ConcurrentRuns.run(executor, count, new ConcurrentRuns.Run()
+            {
+                public void run(int worker)
+                {
+                    SCrypt.Workspace workspace = workspaces[worker];
+
+                    int MFLenWords = r * 32;
+                    for (int i = worker; i < p; i += count)
+                    {
+                        workspace.SMix(B, i * MFLenWords);
+                    }
+                }
+            });
+        }
+        finally
+        {
+            for (int i = 0; i < count; i++)
+            {
+                workspaces[i].clear();
+            }
+        }
+    }
+}
@@ -16,6 +16,34 @@
  */
 public class SCrypt
 {
+    /**
+     * Runs SMix over each of the p blocks of B.
+     */
+    interface Mixer
+    {
+        void mix(int[] B, int N, int r, int p);
+    }
+
+    private static final Mixer SERIAL = new Mixer()
+    {
+        public void mix(int[] B, int N, int r, int p)
+        {
+            Workspace workspace = new Workspace(N, r);
+            try
+            {
+                int MFLenWords = r * 32;
+                for (int BOff = 0; BOff < B.length; BOff += MFLenWords)
+                {
+                    workspace.SMix(B, BOff);
+                }
+            }
+            finally
+            {
+                workspace.clear();
+            }
+        }
+    };
+
     private SCrypt()
     {
          // not used.
@@ -35,6 +63,13 @@ private SCrypt()
      * @return the generated key.
      */
     public static byte[] generate(byte[] P, byte[] S, int N, int r, int p, int dkLen)
+    {
+        checkParameters(P, S, N, r, p, dkLen);
+
+        return MFcrypt(P, S, N, r, p, dkLen, SERIAL);
+    }
+
+    static void checkParameters(byte[] P, byte[] S, int N, int r, int p, int dkLen)
     {
         if (P == null)
         {
@@ -67,10 +102,9 @@ public static byte[] generate(byte[] P, byte[] S, int N, int r, int p, int dkLen
         {
             throw new IllegalArgumentException("Generated key length dkLen must be >= 1.");
         }
-        return MFcrypt(P, S, N, r, p, dkLen);
     }
 
-    private static byte[] MFcrypt(byte[] P, byte[] S, int N, int r, int p, int dkLen)
+    static byte[] MFcrypt(byte[] P, byte[] S, int N, int r, int p, int dkLen, Mixer mixer)
     {
         int MFLenBytes = r * 128;
         byte[] bytes = SingleIterationPBKDF2(P, S, p * MFLenBytes);
@@ -84,23 +118,7 @@ private static byte[] MFcrypt(byte[] P, byte[] S, int N, int r, int p, int dkLen
 
             Pack.littleEndianToInt(bytes, 0, B);
 
-            /*
-             * Chunk memory allocations; We choose 'd' so that there will be 2**d chunks, each not
-             * larger than 32KiB, except that the minimum chunk size is 2 * r * 32.
-             */
-            int d = 0, total = N * r;
-            while ((N - d) > 2 && total > (1 << 10))
-            {
-                ++d;
-                total >>>= 1;
-            }
-
-            int MFLenWords = MFLenBytes >>> 2;
-            for (int BOff = 0; BOff < BLen; BOff += MFLenWords)
-            {
-                // TODO These can be done in parallel threads
-                SMix(B, BOff, N, d, r);
-            }
+            mixer.mix(B, N, r, p);
 
             Pack.intToLittleEndian(B, bytes, 0);
 
@@ -121,29 +139,72 @@ private static byte[] SingleIterationPBKDF2(byte[] P, byte[] S, int dkLen)
         return key.getKey();
     }
 
-    private static void SMix(int[] B, int BOff, int N, int d, int r)
+    /**
+     * The working memory for SMix, which can be used for any number of blocks with the same N and r.
+     */
+    static final class Workspace
     {
-        int powN = Integers.numberOfTrailingZeros(N);
-        int blocksPerChunk = N >>> d;
-        int chunkCount = 1 << d, chunkMask = blocksPerChunk - 1, chunkPow = powN - d;
+        private final int N;
+        private final int r;
+        private final int chunkPow;
+        private final int chunkMask;
+
+        private final int[] blockX1 = new int[16];
+        private final int[] blockX2 = new int[16];
+        private final int[] blockY;
+        private final int[] X;
+        private final int[][] VV;
 
-        int BCount = r * 32;
+        Workspace(int N, int r)
+        {
+            this.N = N;
+            this.r = r;
 
-        int[] blockX1 = new int[16];
-        int[] blockX2 = new int[16];
-        int[] blockY = new int[BCount];
+            /*
+             * Chunk memory allocations; We choose 'd' so that there will be 2**d chunks, each not
+             * larger than 32KiB, except that the minimum chunk size is 2 * r * 32.
+             */
+            int d = 0, total = N * r;
+            while ((N - d) > 2 && total > (1 << 10))
+            {
+                ++d;
+                total >>>= 1;
+            }
 
-        int[] X = new int[BCount];
-        int[][] VV = new int[chunkCount][];
+            int powN = Integers.numberOfTrailingZeros(N);
+            int blocksPerChunk = N >>> d;
+            int chunkCount = 1 << d;
 
-        try
+            this.chunkPow = powN - d;
+            this.chunkMask = blocksPerChunk - 1;
+
+            int BCount = r * 32;
+
+            this.blockY = new int[BCount];
+            this.X = new int[BCount];
+            this.VV = new int[chunkCount][];
+
+            for (int c = 0; c < chunkCount; ++c)
+            {
+                VV[c] = new int[blocksPerChunk * BCount];
+            }
+        }
+
+        boolean isFor(int N, int r)
         {
+            return this.N == N && this.r == r;
+        }
+
+        void SMix(int[] B, int BOff)
+        {
+            int BCount = X.length;
+            int blocksPerChunk = chunkMask + 1;
+
             System.arraycopy(B, BOff, X, 0, BCount);
 
-            for (int c = 0; c < chunkCount; ++c)
+            for (int c = 0; c < VV.length; ++c)
             {
-                int[] V = new int[blocksPerChunk * BCount];
-                VV[c] = V;
+                int[] V = VV[c];
 
                 int off = 0;
                 for (int i = 0; i < blocksPerChunk; i += 2)
@@ -170,7 +231,8 @@ private static void SMix(int[] B, int BOff, int N, int d, int r)
 
             System.arraycopy(X, 0, B, BOff, BCount);
         }
-        finally
+
+        void clear()
         {
             ClearAll(VV);
             ClearAll(new int[][]{X, blockX1, blockX2, blockY});
@@ -272,6 +272,12 @@ public int read(
     {
         if (bufOff >= maxBuf)
         {
+            // a stream cipher can process a large read in place, rather than a buffer at a time
+            if (streamCipher != null && !finalized && len >= inBuf.length)
+            {
+                return readInPlace(b, off, len);
+            }
+
             if (nextChunk() < 0)
             {
                 return -1;
@@ -284,6 +290,30 @@ public int read(
         return toSupply;
     }
 
+    private int readInPlace(
+        byte[] b,
+        int off,
+        int len)
+        throws IOException
+    {
+        int read = in.read(b, off, len);
+        if (read < 0)
+        {
+            finaliseCipher();
+            return -1;
+        }
+
+        try
+        {
+            streamCipher.processBytes(b, off, read, b, off);
+        }
+        catch (Exception e)
+        {
+            throw new CipherIOException("Error processing stream ", e);
+        }
+        return read;
+    }
+
     public long skip(
         long n)
         throws IOException
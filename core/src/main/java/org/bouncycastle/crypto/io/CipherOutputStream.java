@@ -21,11 +21,14 @@
 public class CipherOutputStream
     extends FilterOutputStream
 {
+    private static final int DEFAULT_BUF_SIZE = 64 * 1024;
+
     private BufferedBlockCipher bufferedBlockCipher;
     private StreamCipher streamCipher;
     private AEADBlockCipher aeadBlockCipher;
 
     private final byte[] oneByte = new byte[1];
+    private final int bufSize;
     private byte[] buf;
 
     /**
@@ -36,8 +39,7 @@ public CipherOutputStream(
         OutputStream os,
         BufferedBlockCipher cipher)
     {
-        super(os);
-        this.bufferedBlockCipher = cipher;
+        this(os, cipher, DEFAULT_BUF_SIZE);
     }
 
     /**
@@ -48,17 +50,55 @@ public CipherOutputStream(
         OutputStream os,
         StreamCipher cipher)
     {
-        super(os);
-        this.streamCipher = cipher;
+        this(os, cipher, DEFAULT_BUF_SIZE);
     }
 
     /**
      * Constructs a CipherOutputStream from an OutputStream and a AEADBlockCipher.
      */
     public CipherOutputStream(OutputStream os, AEADBlockCipher cipher)
+    {
+        this(os, cipher, DEFAULT_BUF_SIZE);
+    }
+
+    /**
+     * Constructs a CipherOutputStream from an OutputStream, a BufferedBlockCipher, and the maximum amount of data
+     * to pass to the cipher at once. Larger writes are processed a piece at a time, so the internal buffer
+     * never grows beyond the output for bufSize bytes of input.
+     */
+    public CipherOutputStream(
+        OutputStream os,
+        BufferedBlockCipher cipher,
+        int bufSize)
+    {
+        super(os);
+        this.bufferedBlockCipher = cipher;
+        this.bufSize = checkBufSize(bufSize);
+    }
+
+    /**
+     * Constructs a CipherOutputStream from an OutputStream, a StreamCipher, and the maximum amount of data to pass
+     * to the cipher at once.
+     */
+    public CipherOutputStream(
+        OutputStream os,
+        StreamCipher cipher,
+        int bufSize)
+    {
+        super(os);
+        this.streamCipher = cipher;
+        this.bufSize = checkBufSize(bufSize);
+    }
+
+    /**
+     * Constructs a CipherOutputStream from an OutputStream, an AEADBlockCipher, and the maximum amount of data to
+     * pass to the cipher at once.
+     */
+    public CipherOutputStream(OutputStream os, AEADBlockCipher cipher, int bufSize)
     {
         super(os);
         this.aeadBlockCipher = cipher;
+        this.bufSize = checkBufSize(bufSize);
     }
 
     /**
@@ -117,6 +157,22 @@ public void write(
         int off,
         int len)
         throws IOException
+    {
+        while (len > bufSize)
+        {
+            process(b, off, bufSize);
+            off += bufSize;
+            len -= bufSize;
+        }
+
+        process(b, off, len);
+    }
+
+    private void process(
+        byte[] b,
+        int off,
+        int len)
+        throws IOException
     {
         ensureCapacity(len, false);
 
@@ -146,6 +202,15 @@ else if (aeadBlockCipher != null)
         }
     }
 
+    private static int checkBufSize(int bufSize)
+    {
+        if (bufSize < 1)
+        {
+            throw new IllegalArgumentException("bufSize must be at least 1");
+        }
+        return bufSize;
+    }
+
     /**
      * Ensure the ciphertext buffer has space sufficient to accept an upcoming output.
      *
@@ -0,0 +1,326 @@
+package org.bouncycastle.crypto.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.util.ByteBuffers;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * A ReadableByteChannel which reads data from an underlying channel and returns it processed by a cipher. The cipher
+ * must be fully initialized before being used by a CipherReadableByteChannel.
+ * <p>
+ * With a stream cipher the data is read straight into the caller's buffer and processed in place. Otherwise up to
+ * bufSize bytes at a time are read into an input buffer and processed into an output buffer, both kept for the life of
+ * the channel. When the underlying channel reaches end of stream the cipher is finalised, so a failed tag check on an
+ * AEAD cipher is reported by the read that reaches the end of the data.
+ * </p>
+ */
+public class CipherReadableByteChannel
+    implements ReadableByteChannel
+{
+    private static final int DEFAULT_BUF_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel in;
+    private final int bufSize;
+
+    private BufferedBlockCipher bufferedBlockCipher;
+    private StreamCipher streamCipher;
+    private AEADCipher aeadCipher;
+
+    private ByteBuffer inBuf;
+    private ByteBuffer buf;
+    private boolean finalized;
+    private boolean open = true;
+
+    /**
+     * Constructs a CipherReadableByteChannel from a ReadableByteChannel and a BufferedBlockCipher.
+     */
+    public CipherReadableByteChannel(ReadableByteChannel in, BufferedBlockCipher cipher)
+    {
+        this(in, cipher, DEFAULT_BUF_SIZE);
+    }
+
+    /**
+     * Constructs a CipherReadableByteChannel from a ReadableByteChannel and a StreamCipher. The data is always
+     * processed in the caller's buffer, so there is no buffer size to choose.
+     */
+    public CipherReadableByteChannel(ReadableByteChannel in, StreamCipher cipher)
+    {
+        this.in = in;
+        this.streamCipher = cipher;
+        this.bufSize = DEFAULT_BUF_SIZE;
+    }
+
+    /**
+     * Constructs a CipherReadableByteChannel from a ReadableByteChannel and an AEADCipher.
+     */
+    public CipherReadableByteChannel(ReadableByteChannel in, AEADCipher cipher)
+    {
+        this(in, cipher, DEFAULT_BUF_SIZE);
+    }
+
+    /**
+     * Constructs a CipherReadableByteChannel from a ReadableByteChannel, a BufferedBlockCipher, and the size of
+     * the input buffer.
+     */
+    public CipherReadableByteChannel(ReadableByteChannel in, BufferedBlockCipher cipher, int bufSize)
+    {
+        this.in = in;
+        this.bufferedBlockCipher = cipher;
+        this.bufSize = checkBufSize(bufSize);
+    }
+
+    /**
+     * Constructs a CipherReadableByteChannel from a ReadableByteChannel, an AEADCipher, and the size of the input
+     * buffer.
+     */
+    public CipherReadableByteChannel(ReadableByteChannel in, AEADCipher cipher, int bufSize)
+    {
+        this.in = in;
+        this.aeadCipher = cipher;
+        this.bufSize = checkBufSize(bufSize);
+    }
+
+    /**
+     * Read data from the underlying channel, process it with the cipher, and transfer as much of the output as
+     * will fit into dst.
+     *
+     * @param dst the buffer to read into.
+     * @return the number of bytes transferred, possibly zero, or -1 at the end of the data.
+     * @throws IOException if an I/O error occurs.
+     * @throws InvalidCipherTextIOException if the data read was invalid ciphertext
+     *             (e.g. the cipher is an AEAD cipher and the ciphertext tag check fails).
+     */
+    public int read(ByteBuffer dst)
+        throws IOException
+    {
+        if (!open)
+        {
+            throw new ClosedChannelException();
+        }
+        if (!dst.hasRemaining())
+        {
+            return 0;
+        }
+
+        if (buf != null && buf.hasRemaining())
+        {
+            return transfer(dst);
+        }
+
+        if (streamCipher != null)
+        {
+            return readInPlace(dst);
+        }
+
+        // keep reading until the cipher produces output, the end of the data, or the channel has nothing for us
+        while (!finalized)
+        {
+            if (inBuf == null)
+            {
+                inBuf = ByteBuffer.allocate(bufSize);
+            }
+
+            inBuf.clear();
+            int read = in.read(inBuf);
+            if (read < 0)
+            {
+                finaliseCipher();
+                break;
+            }
+            if (read == 0)
+            {
+                return 0;
+            }
+
+            inBuf.flip();
+            try
+            {
+                if (bufferedBlockCipher != null)
+                {
+                    ensureCapacity(bufferedBlockCipher.getUpdateOutputSize(read));
+                    ByteBuffers.processBytes(bufferedBlockCipher, inBuf, buf);
+                }
+                else
+                {
+                    ensureCapacity(aeadCipher.getUpdateOutputSize(read));
+                    ByteBuffers.processBytes(aeadCipher, inBuf, buf);
+                }
+            }
+            catch (Exception e)
+            {
+                throw new CipherIOException("Error processing channel ", e);
+            }
+            buf.flip();
+
+            if (buf.hasRemaining())
+            {
+                return transfer(dst);
+            }
+        }
+
+        if (buf != null && buf.hasRemaining())
+        {
+            return transfer(dst);
+        }
+        return -1;
+    }
+
+    public boolean isOpen()
+    {
+        return open;
+    }
+
+    /**
+     * Closes the underlying channel and finalises the processing of the data by the cipher.
+     *
+     * @throws IOException if there was an error closing the underlying channel.
+     * @throws InvalidCipherTextIOException if the data read was invalid ciphertext
+     *             (e.g. the cipher is an AEAD cipher and the ciphertext tag check fails).
+     */
+    public void close()
+        throws IOException
+    {
+        if (!open)
+        {
+            return;
+        }
+        open = false;
+
+        try
+        {
+            in.close();
+        }
+        finally
+        {
+            try
+            {
+                if (!finalized)
+                {
+                    // Reset the cipher, discarding any data buffered in it
+                    // Errors in cipher finalisation trump I/O error closing input
+                    finaliseCipher();
+                }
+            }
+            finally
+            {
+                if (buf != null)
+                {
+                    Arrays.fill(buf.array(), (byte)0);
+                    buf = null;
+                }
+                if (inBuf != null)
+                {
+                    Arrays.fill(inBuf.array(), (byte)0);
+                    inBuf = null;
+                }
+            }
+        }
+    }
+
+    private int readInPlace(ByteBuffer dst)
+        throws IOException
+    {
+        if (finalized)
+        {
+            return -1;
+        }
+
+        int pos = dst.position();
+        int read = in.read(dst);
+        if (read < 0)
+        {
+            finaliseCipher();
+            return -1;
+        }
+
+        ByteBuffer data = dst.duplicate();
+        data.position(pos).limit(pos + read);
+        ByteBuffer out = dst.duplicate();
+        out.position(pos);
+
+        try
+        {
+            ByteBuffers.processBytes(streamCipher, data, out);
+        }
+        catch (Exception e)
+        {
+            throw new CipherIOException("Error processing channel ", e);
+        }
+        return read;
+    }
+
+    private void finaliseCipher()
+        throws IOException
+    {
+        finalized = true;
+        try
+        {
+            if (bufferedBlockCipher != null)
+            {
+                ensureCapacity(bufferedBlockCipher.getOutputSize(0));
+                ByteBuffers.doFinal(bufferedBlockCipher, buf);
+                buf.flip();
+            }
+            else if (aeadCipher != null)
+            {
+                ensureCapacity(aeadCipher.getOutputSize(0));
+                ByteBuffers.doFinal(aeadCipher, buf);
+                buf.flip();
+            }
+        }
+        catch (final InvalidCipherTextException e)
+        {
+            throw new InvalidCipherTextIOException("Error finalising cipher", e);
+        }
+        catch (Exception e)
+        {
+            throw new IOException("Error finalising cipher " + e);
+        }
+    }
+
+    private int transfer(ByteBuffer dst)
+    {
+        int len = Math.min(dst.remaining(), buf.remaining());
+        int limit = buf.limit();
+
+        buf.limit(buf.position() + len);
+        dst.put(buf);
+        buf.limit(limit);
+
+        return len;
+    }
+
+    /**
+     * Prepare the output buffer, which must be empty, to accept len bytes.
+     */
+    private void ensureCapacity(int len)
+    {
+        if (buf == null || buf.capacity() < len)
+        {
+            if (buf != null)
+            {
+                Arrays.fill(buf.array(), (byte)0);
+            }
+            buf = ByteBuffer.allocate(Math.max(len, bufferedBlockCipher != null
+                ? bufferedBlockCipher.getUpdateOutputSize(bufSize) : aeadCipher.getUpdateOutputSize(bufSize)));
+        }
+        buf.clear();
+    }
+
+    private static int checkBufSize(int bufSize)
+    {
+        if (bufSize < 1)
+        {
+            throw new IllegalArgumentException("bufSize must be at least 1");
+        }
+        return bufSize;
+    }
+}
@@ -0,0 +1,266 @@
+package org.bouncycastle.crypto.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.util.ByteBuffers;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * A WritableByteChannel which processes the data written to it with a cipher, and writes the output of the cipher
+ * to an underlying channel. The cipher must be fully initialized before being used by a CipherWritableByteChannel.
+ * <p>
+ * The data written is passed to the cipher straight from the caller's buffer, up to bufSize bytes at a time, and the
+ * output collected in a single buffer kept for the life of the channel. Closing the channel finalises the cipher,
+ * writes any remaining output and closes the underlying channel. The underlying channel should be in blocking mode.
+ * </p>
+ */
+public class CipherWritableByteChannel
+    implements WritableByteChannel
+{
+    private static final int DEFAULT_BUF_SIZE = 64 * 1024;
+
+    private final WritableByteChannel out;
+    private final int bufSize;
+
+    private BufferedBlockCipher bufferedBlockCipher;
+    private StreamCipher streamCipher;
+    private AEADCipher aeadCipher;
+
+    private ByteBuffer buf;
+    private boolean open = true;
+
+    /**
+     * Constructs a CipherWritableByteChannel from a WritableByteChannel and a BufferedBlockCipher.
+     */
+    public CipherWritableByteChannel(WritableByteChannel out, BufferedBlockCipher cipher)
+    {
+        this(out, cipher, DEFAULT_BUF_SIZE);
+    }
+
+    /**
+     * Constructs a CipherWritableByteChannel from a WritableByteChannel and a StreamCipher.
+     */
+    public CipherWritableByteChannel(WritableByteChannel out, StreamCipher cipher)
+    {
+        this(out, cipher, DEFAULT_BUF_SIZE);
+    }
+
+    /**
+     * Constructs a CipherWritableByteChannel from a WritableByteChannel and an AEADCipher.
+     */
+    public CipherWritableByteChannel(WritableByteChannel out, AEADCipher cipher)
+    {
+        this(out, cipher, DEFAULT_BUF_SIZE);
+    }
+
+    /**
+     * Constructs a CipherWritableByteChannel from a WritableByteChannel, a BufferedBlockCipher, and the maximum
+     * amount of data to pass to the cipher at once.
+     */
+    public CipherWritableByteChannel(WritableByteChannel out, BufferedBlockCipher cipher, int bufSize)
+    {
+        this.out = out;
+        this.bufferedBlockCipher = cipher;
+        this.bufSize = checkBufSize(bufSize);
+        this.buf = ByteBuffer.allocate(cipher.getUpdateOutputSize(bufSize));
+    }
+
+    /**
+     * Constructs a CipherWritableByteChannel from a WritableByteChannel, a StreamCipher, and the maximum amount of
+     * data to pass to the cipher at once.
+     */
+    public CipherWritableByteChannel(WritableByteChannel out, StreamCipher cipher, int bufSize)
+    {
+        this.out = out;
+        this.streamCipher = cipher;
+        this.bufSize = checkBufSize(bufSize);
+        this.buf = ByteBuffer.allocate(bufSize);
+    }
+
+    /**
+     * Constructs a CipherWritableByteChannel from a WritableByteChannel, an AEADCipher, and the maximum amount of
+     * data to pass to the cipher at once.
+     */
+    public CipherWritableByteChannel(WritableByteChannel out, AEADCipher cipher, int bufSize)
+    {
+        this.out = out;
+        this.aeadCipher = cipher;
+        this.bufSize = checkBufSize(bufSize);
+        this.buf = ByteBuffer.allocate(cipher.getUpdateOutputSize(bufSize));
+    }
+
+    /**
+     * Process the remaining bytes of src with the cipher, and write the output to the underlying channel.
+     *
+     * @param src the data to write.
+     * @return the number of bytes consumed from src - all of those remaining.
+     * @throws IOException if an I/O error occurs, or the cipher rejects the data.
+     */
+    public int write(ByteBuffer src)
+        throws IOException
+    {
+        if (!open)
+        {
+            throw new ClosedChannelException();
+        }
+
+        int total = src.remaining();
+        int limit = src.limit();
+
+        try
+        {
+            while (src.hasRemaining())
+            {
+                int len = Math.min(bufSize, src.remaining());
+                src.limit(src.position() + len);
+
+                try
+                {
+                    if (bufferedBlockCipher != null)
+                    {
+                        ensureCapacity(bufferedBlockCipher.getUpdateOutputSize(len));
+                        ByteBuffers.processBytes(bufferedBlockCipher, src, buf);
+                    }
+                    else if (aeadCipher != null)
+                    {
+                        ensureCapacity(aeadCipher.getUpdateOutputSize(len));
+                        ByteBuffers.processBytes(aeadCipher, src, buf);
+                    }
+                    else
+                    {
+                        ByteBuffers.processBytes(streamCipher, src, buf);
+                    }
+                }
+                catch (Exception e)
+                {
+                    throw new CipherIOException("Error processing channel ", e);
+                }
+                finally
+                {
+                    src.limit(limit);
+                }
+
+                drain();
+            }
+        }
+        finally
+        {
+            src.limit(limit);
+        }
+
+        return total;
+    }
+
+    public boolean isOpen()
+    {
+        return open;
+    }
+
+    /**
+     * Finalise the cipher, write any remaining output, and close the underlying channel.
+     *
+     * @throws IOException if an I/O error occurs.
+     * @throws InvalidCipherTextIOException if the data written was invalid ciphertext
+     *             (e.g. the cipher is an AEAD cipher and the ciphertext tag check fails).
+     */
+    public void close()
+        throws IOException
+    {
+        if (!open)
+        {
+            return;
+        }
+        open = false;
+
+        IOException error = null;
+        try
+        {
+            if (bufferedBlockCipher != null)
+            {
+                ensureCapacity(bufferedBlockCipher.getOutputSize(0));
+                ByteBuffers.doFinal(bufferedBlockCipher, buf);
+            }
+            else if (aeadCipher != null)
+            {
+                ensureCapacity(aeadCipher.getOutputSize(0));
+                ByteBuffers.doFinal(aeadCipher, buf);
+            }
+            else
+            {
+                streamCipher.reset();
+            }
+
+            drain();
+        }
+        catch (final InvalidCipherTextException e)
+        {
+            error = new InvalidCipherTextIOException("Error finalising cipher data", e);
+        }
+        catch (IOException e)
+        {
+            error = e;
+        }
+        catch (Exception e)
+        {
+            error = new CipherIOException("Error closing channel: ", e);
+        }
+
+        try
+        {
+            out.close();
+        }
+        catch (IOException e)
+        {
+            // Invalid ciphertext takes precedence over close error
+            if (error == null)
+            {
+                error = e;
+            }
+        }
+        finally
+        {
+            Arrays.fill(buf.array(), (byte)0);
+        }
+
+        if (error != null)
+        {
+            throw error;
+        }
+    }
+
+    private void ensureCapacity(int len)
+    {
+        if (buf.capacity() < len)
+        {
+            Arrays.fill(buf.array(), (byte)0);
+            buf = ByteBuffer.allocate(len);
+        }
+    }
+
+    private void drain()
+        throws IOException
+    {
+        buf.flip();
+        while (buf.hasRemaining())
+        {
+            out.write(buf);
+        }
+        buf.clear();
+    }
+
+    private static int checkBufSize(int bufSize)
+    {
+        if (bufSize < 1)
+        {
+            throw new IllegalArgumentException("bufSize must be at least 1");
+        }
+        return bufSize;
+    }
+}
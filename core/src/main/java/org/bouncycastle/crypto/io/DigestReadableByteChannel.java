@@ -0,0 +1,56 @@
+package org.bouncycastle.crypto.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.util.ByteBuffers;
+
+/**
+ * A ReadableByteChannel which passes the data read from an underlying channel to a digest as it is returned.
+ */
+public class DigestReadableByteChannel
+    implements ReadableByteChannel
+{
+    protected ReadableByteChannel in;
+    protected Digest digest;
+
+    public DigestReadableByteChannel(
+        ReadableByteChannel in,
+        Digest digest)
+    {
+        this.in = in;
+        this.digest = digest;
+    }
+
+    public int read(ByteBuffer dst)
+        throws IOException
+    {
+        int pos = dst.position();
+        int n = in.read(dst);
+        if (n > 0)
+        {
+            ByteBuffer data = dst.duplicate();
+            data.position(pos).limit(pos + n);
+            ByteBuffers.update(digest, data);
+        }
+        return n;
+    }
+
+    public boolean isOpen()
+    {
+        return in.isOpen();
+    }
+
+    public void close()
+        throws IOException
+    {
+        in.close();
+    }
+
+    public Digest getDigest()
+    {
+        return digest;
+    }
+}
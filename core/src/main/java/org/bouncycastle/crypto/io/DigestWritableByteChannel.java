@@ -0,0 +1,58 @@
+package org.bouncycastle.crypto.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.util.ByteBuffers;
+
+/**
+ * A WritableByteChannel which passes the data written to it to a digest.
+ */
+public class DigestWritableByteChannel
+    implements WritableByteChannel
+{
+    protected Digest digest;
+
+    private boolean open = true;
+
+    public DigestWritableByteChannel(
+        Digest digest)
+    {
+        this.digest = digest;
+    }
+
+    public int write(ByteBuffer src)
+        throws IOException
+    {
+        if (!open)
+        {
+            throw new ClosedChannelException();
+        }
+
+        int n = src.remaining();
+        ByteBuffers.update(digest, src);
+        return n;
+    }
+
+    public boolean isOpen()
+    {
+        return open;
+    }
+
+    public void close()
+    {
+        open = false;
+    }
+
+    public byte[] getDigest()
+    {
+        byte[] res = new byte[digest.getDigestSize()];
+
+        digest.doFinal(res, 0);
+
+        return res;
+    }
+}
@@ -0,0 +1,58 @@
+package org.bouncycastle.crypto.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.util.ByteBuffers;
+
+/**
+ * A WritableByteChannel which passes the data written to it to a MAC.
+ */
+public class MacWritableByteChannel
+    implements WritableByteChannel
+{
+    protected Mac mac;
+
+    private boolean open = true;
+
+    public MacWritableByteChannel(
+        Mac mac)
+    {
+        this.mac = mac;
+    }
+
+    public int write(ByteBuffer src)
+        throws IOException
+    {
+        if (!open)
+        {
+            throw new ClosedChannelException();
+        }
+
+        int n = src.remaining();
+        ByteBuffers.update(mac, src);
+        return n;
+    }
+
+    public boolean isOpen()
+    {
+        return open;
+    }
+
+    public void close()
+    {
+        open = false;
+    }
+
+    public byte[] getMac()
+    {
+        byte[] res = new byte[mac.getMacSize()];
+
+        mac.doFinal(res, 0);
+
+        return res;
+    }
+}
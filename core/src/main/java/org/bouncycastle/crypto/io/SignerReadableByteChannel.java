@@ -0,0 +1,56 @@
+package org.bouncycastle.crypto.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import org.bouncycastle.crypto.Signer;
+import org.bouncycastle.crypto.util.ByteBuffers;
+
+/**
+ * A ReadableByteChannel which passes the data read from an underlying channel to a signer as it is returned.
+ */
+public class SignerReadableByteChannel
+    implements ReadableByteChannel
+{
+    protected ReadableByteChannel in;
+    protected Signer signer;
+
+    public SignerReadableByteChannel(
+        ReadableByteChannel in,
+        Signer signer)
+    {
+        this.in = in;
+        this.signer = signer;
+    }
+
+    public int read(ByteBuffer dst)
+        throws IOException
+    {
+        int pos = dst.position();
+        int n = in.read(dst);
+        if (n > 0)
+        {
+            ByteBuffer data = dst.duplicate();
+            data.position(pos).limit(pos + n);
+            ByteBuffers.update(signer, data);
+        }
+        return n;
+    }
+
+    public boolean isOpen()
+    {
+        return in.isOpen();
+    }
+
+    public void close()
+        throws IOException
+    {
+        in.close();
+    }
+
+    public Signer getSigner()
+    {
+        return signer;
+    }
+}
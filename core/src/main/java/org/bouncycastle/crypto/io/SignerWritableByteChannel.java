@@ -0,0 +1,54 @@
+package org.bouncycastle.crypto.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+import org.bouncycastle.crypto.Signer;
+import org.bouncycastle.crypto.util.ByteBuffers;
+
+/**
+ * A WritableByteChannel which passes the data written to it to a signer.
+ */
+public class SignerWritableByteChannel
+    implements WritableByteChannel
+{
+    protected Signer signer;
+
+    private boolean open = true;
+
+    public SignerWritableByteChannel(
+        Signer signer)
+    {
+        this.signer = signer;
+    }
+
+    public int write(ByteBuffer src)
+        throws IOException
+    {
+        if (!open)
+        {
+            throw new ClosedChannelException();
+        }
+
+        int n = src.remaining();
+        ByteBuffers.update(signer, src);
+        return n;
+    }
+
+    public boolean isOpen()
+    {
+        return open;
+    }
+
+    public void close()
+    {
+        open = false;
+    }
+
+    public Signer getSigner()
+    {
+        return signer;
+    }
+}
@@ -7,6 +7,7 @@
 import org.bouncycastle.crypto.ExtendedDigest;
 import org.bouncycastle.crypto.Mac;
 import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.PreparedKeyParameter;
 import org.bouncycastle.util.Integers;
 import org.bouncycastle.util.Memoable;
 
@@ -14,6 +15,9 @@
  * HMAC implementation based on RFC2104
  *
  * H(K XOR opad, H(K XOR ipad, text))
+ * <p>
+ * If the key is a {@link PreparedKeyParameter} and the digest is {@link Memoable}, the ipad and opad digest
+ * states are computed once for the key and then shared by every HMac instance using the same kind of digest.
  */
 public class HMac
     implements Mac
@@ -109,6 +113,12 @@ public Digest getUnderlyingDigest()
     public void init(
         CipherParameters params)
     {
+        if (params instanceof PreparedKeyParameter && digest instanceof Memoable)
+        {
+            initPrepared((PreparedKeyParameter)params);
+            return;
+        }
+
         digest.reset();
 
         byte[] key = ((KeyParameter)params).getKey();
@@ -151,6 +161,27 @@ public void init(
         }
     }
 
+    /**
+     * The pad states are only ever read once created, as reset(Memoable) copies from them.
+     */
+    private void initPrepared(PreparedKeyParameter key)
+    {
+        String id = "HMAC/" + digest.getClass().getName() + "/" + digest.getAlgorithmName() + "/" + digestSize;
+
+        Memoable[] states = (Memoable[])key.getPrepared(id);
+        if (states == null)
+        {
+            init(new KeyParameter(key.getKey()));
+
+            states = (Memoable[])key.putPrepared(id, new Memoable[]{ ipadState, opadState });
+        }
+
+        ipadState = states[0];
+        opadState = states[1];
+
+        ((Memoable)digest).reset(ipadState);
+    }
+
     public int getMacSize()
     {
         return digestSize;
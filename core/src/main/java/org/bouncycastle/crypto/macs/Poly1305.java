@@ -181,67 +181,76 @@ public void update(final byte in)
         update(singleByte, 0, 1);
     }
 
-    public void update(final byte[] in, final int inOff, final int len)
+    public void update(final byte[] in, int inOff, int len)
         throws DataLengthException,
         IllegalStateException
     {
-        int copied = 0;
-        while (len > copied)
+        if (currentBlockOffset > 0)
         {
-            if (currentBlockOffset == BLOCK_SIZE)
+            int toCopy = Math.min(len, BLOCK_SIZE - currentBlockOffset);
+            System.arraycopy(in, inOff, currentBlock, currentBlockOffset, toCopy);
+            inOff += toCopy;
+            len -= toCopy;
+            currentBlockOffset += toCopy;
+
+            if (currentBlockOffset < BLOCK_SIZE)
             {
-                processBlock();
-                currentBlockOffset = 0;
+                return;
             }
 
-            int toCopy = Math.min((len - copied), BLOCK_SIZE - currentBlockOffset);
-            System.arraycopy(in, copied + inOff, currentBlock, currentBlockOffset, toCopy);
-            copied += toCopy;
-            currentBlockOffset += toCopy;
+            processBlocks(currentBlock, 0, 1, 1 << 24);
+            currentBlockOffset = 0;
         }
 
-    }
-
-    private void processBlock()
-    {
-        if (currentBlockOffset < BLOCK_SIZE)
+        // whole blocks are processed directly from the input
+        int blockCount = len / BLOCK_SIZE;
+        if (blockCount > 0)
         {
-            currentBlock[currentBlockOffset] = 1;
-            for (int i = currentBlockOffset + 1; i < BLOCK_SIZE; i++)
-            {
-                currentBlock[i] = 0;
-            }
+            processBlocks(in, inOff, blockCount, 1 << 24);
+            inOff += blockCount * BLOCK_SIZE;
+            len -= blockCount * BLOCK_SIZE;
         }
 
-        final long t0 = 0xffffffffL & Pack.littleEndianToInt(currentBlock, 0);
-        final long t1 = 0xffffffffL & Pack.littleEndianToInt(currentBlock, 4);
-        final long t2 = 0xffffffffL & Pack.littleEndianToInt(currentBlock, 8);
-        final long t3 = 0xffffffffL & Pack.littleEndianToInt(currentBlock, 12);
+        System.arraycopy(in, inOff, currentBlock, 0, len);
+        currentBlockOffset = len;
+    }
 
-        h0 += t0 & 0x3ffffff;
-        h1 += (((t1 << 32) | t0) >>> 26) & 0x3ffffff;
-        h2 += (((t2 << 32) | t1) >>> 20) & 0x3ffffff;
-        h3 += (((t3 << 32) | t2) >>> 14) & 0x3ffffff;
-        h4 += (t3 >>> 8);
+    private void processBlocks(byte[] in, int inOff, int blockCount, int hibit)
+    {
+        final int r0 = this.r0, r1 = this.r1, r2 = this.r2, r3 = this.r3, r4 = this.r4;
+        final int s1 = this.s1, s2 = this.s2, s3 = this.s3, s4 = this.s4;
+        int h0 = this.h0, h1 = this.h1, h2 = this.h2, h3 = this.h3, h4 = this.h4;
 
-        if (currentBlockOffset == BLOCK_SIZE)
+        for (int i = 0; i < blockCount; ++i)
         {
-            h4 += (1 << 24);
+            final long t0 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 0);
+            final long t1 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 4);
+            final long t2 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 8);
+            final long t3 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 12);
+            inOff += BLOCK_SIZE;
+
+            h0 += t0 & 0x3ffffff;
+            h1 += (((t1 << 32) | t0) >>> 26) & 0x3ffffff;
+            h2 += (((t2 << 32) | t1) >>> 20) & 0x3ffffff;
+            h3 += (((t3 << 32) | t2) >>> 14) & 0x3ffffff;
+            h4 += (t3 >>> 8) | hibit;
+
+            long tp0 = mul32x32_64(h0,r0) + mul32x32_64(h1,s4) + mul32x32_64(h2,s3) + mul32x32_64(h3,s2) + mul32x32_64(h4,s1);
+            long tp1 = mul32x32_64(h0,r1) + mul32x32_64(h1,r0) + mul32x32_64(h2,s4) + mul32x32_64(h3,s3) + mul32x32_64(h4,s2);
+            long tp2 = mul32x32_64(h0,r2) + mul32x32_64(h1,r1) + mul32x32_64(h2,r0) + mul32x32_64(h3,s4) + mul32x32_64(h4,s3);
+            long tp3 = mul32x32_64(h0,r3) + mul32x32_64(h1,r2) + mul32x32_64(h2,r1) + mul32x32_64(h3,r0) + mul32x32_64(h4,s4);
+            long tp4 = mul32x32_64(h0,r4) + mul32x32_64(h1,r3) + mul32x32_64(h2,r2) + mul32x32_64(h3,r1) + mul32x32_64(h4,r0);
+
+            h0 = (int)tp0 & 0x3ffffff; tp1 += (tp0 >>> 26);
+            h1 = (int)tp1 & 0x3ffffff; tp2 += (tp1 >>> 26);
+            h2 = (int)tp2 & 0x3ffffff; tp3 += (tp2 >>> 26);
+            h3 = (int)tp3 & 0x3ffffff; tp4 += (tp3 >>> 26);
+            h4 = (int)tp4 & 0x3ffffff;
+            h0 += (int)(tp4 >>> 26) * 5;
+            h1 += (h0 >>> 26); h0 &= 0x3ffffff;
         }
 
-        long tp0 = mul32x32_64(h0,r0) + mul32x32_64(h1,s4) + mul32x32_64(h2,s3) + mul32x32_64(h3,s2) + mul32x32_64(h4,s1);
-        long tp1 = mul32x32_64(h0,r1) + mul32x32_64(h1,r0) + mul32x32_64(h2,s4) + mul32x32_64(h3,s3) + mul32x32_64(h4,s2);
-        long tp2 = mul32x32_64(h0,r2) + mul32x32_64(h1,r1) + mul32x32_64(h2,r0) + mul32x32_64(h3,s4) + mul32x32_64(h4,s3);
-        long tp3 = mul32x32_64(h0,r3) + mul32x32_64(h1,r2) + mul32x32_64(h2,r1) + mul32x32_64(h3,r0) + mul32x32_64(h4,s4);
-        long tp4 = mul32x32_64(h0,r4) + mul32x32_64(h1,r3) + mul32x32_64(h2,r2) + mul32x32_64(h3,r1) + mul32x32_64(h4,r0);
-
-        h0 = (int)tp0 & 0x3ffffff; tp1 += (tp0 >>> 26);
-        h1 = (int)tp1 & 0x3ffffff; tp2 += (tp1 >>> 26);
-        h2 = (int)tp2 & 0x3ffffff; tp3 += (tp2 >>> 26);
-        h3 = (int)tp3 & 0x3ffffff; tp4 += (tp3 >>> 26);
-        h4 = (int)tp4 & 0x3ffffff;
-        h0 += (int)(tp4 >>> 26) * 5;
-        h1 += (h0 >>> 26); h0 &= 0x3ffffff;
+        this.h0 = h0; this.h1 = h1; this.h2 = h2; this.h3 = h3; this.h4 = h4;
     }
 
     public int doFinal(final byte[] out, final int outOff)
@@ -256,7 +265,12 @@ public int doFinal(final byte[] out, final int outOff)
         if (currentBlockOffset > 0)
         {
             // Process padded final block
-            processBlock();
+            currentBlock[currentBlockOffset] = 1;
+            for (int i = currentBlockOffset + 1; i < BLOCK_SIZE; i++)
+            {
+                currentBlock[i] = 0;
+            }
+            processBlocks(currentBlock, 0, 1, 0);
         }
 
         h1 += (h0 >>> 26); h0 &= 0x3ffffff;
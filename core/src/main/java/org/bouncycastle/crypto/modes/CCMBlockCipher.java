@@ -281,7 +281,7 @@ public int processPacket(byte[] in, int inOff, int inLen, byte[] output, int out
         iv[0] = (byte)((q - 1) & 0x7);
         System.arraycopy(nonce, 0, iv, 1, nonce.length);
 
-        BlockCipher ctrCipher = SICBlockCipher.newInstance(cipher);
+        CTRModeCipher ctrCipher = SICBlockCipher.newInstance(cipher);
         ctrCipher.init(forEncryption, new ParametersWithIV(keyParam, iv));
 
         int outputLen;
@@ -302,12 +302,11 @@ public int processPacket(byte[] in, int inOff, int inLen, byte[] output, int out
 
             ctrCipher.processBlock(macBlock, 0, encMac, 0);   // S0
 
-            while (inIndex < (inOff + inLen - blockSize))                 // S1...
-            {
-                ctrCipher.processBlock(in, inIndex, output, outIndex);
-                outIndex += blockSize;
-                inIndex += blockSize;
-            }
+            // S1... for all but the last block, which may be partial
+            int blocksLen = ((inLen - 1) / blockSize) * blockSize;
+            ctrCipher.processBytes(in, inIndex, blocksLen, output, outIndex);
+            outIndex += blocksLen;
+            inIndex += blocksLen;
 
             byte[] block = new byte[blockSize];
 
@@ -340,12 +339,10 @@ public int processPacket(byte[] in, int inOff, int inLen, byte[] output, int out
                 macBlock[i] = 0;
             }
 
-            while (inIndex < (inOff + outputLen - blockSize))
-            {
-                ctrCipher.processBlock(in, inIndex, output, outIndex);
-                outIndex += blockSize;
-                inIndex += blockSize;
-            }
+            int blocksLen = ((outputLen - 1) / blockSize) * blockSize;
+            ctrCipher.processBytes(in, inIndex, blocksLen, output, outIndex);
+            outIndex += blocksLen;
+            inIndex += blocksLen;
 
             byte[] block = new byte[blockSize];
 
@@ -322,18 +322,38 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff) t
         {
         case State.DEC_DATA:
         {
-            for (int i = 0; i < len; ++i)
+            /*
+             * The last MAC_SIZE bytes seen may be the tag, so data is only released once at least that much
+             * more input has arrived after it.
+             */
+            while (bufPos > 0 && bufPos + len >= buf.length)
             {
-                buf[bufPos] = in[inOff + i];
-                if (++bufPos == buf.length)
-                {
-                    poly1305.update(buf, 0, BUF_SIZE);
-                    processData(buf, 0, BUF_SIZE, out, outOff + resultLen);
-                    System.arraycopy(buf, BUF_SIZE, buf, 0, MAC_SIZE);
-                    this.bufPos = MAC_SIZE;
-                    resultLen += BUF_SIZE;
-                }
+                int take = Math.max(0, BUF_SIZE - bufPos);
+                System.arraycopy(in, inOff, buf, bufPos, take);
+                inOff += take;
+                len -= take;
+
+                poly1305.update(buf, 0, BUF_SIZE);
+                processData(buf, 0, BUF_SIZE, out, outOff + resultLen);
+                resultLen += BUF_SIZE;
+
+                this.bufPos = bufPos + take - BUF_SIZE;
+                System.arraycopy(buf, BUF_SIZE, buf, 0, bufPos);
             }
+
+            if (bufPos == 0 && len >= buf.length)
+            {
+                int bulkLen = ((len - MAC_SIZE) / BUF_SIZE) * BUF_SIZE;
+
+                poly1305.update(in, inOff, bulkLen);
+                processData(in, inOff, bulkLen, out, outOff + resultLen);
+                inOff += bulkLen;
+                len -= bulkLen;
+                resultLen += bulkLen;
+            }
+
+            System.arraycopy(in, inOff, buf, bufPos, len);
+            this.bufPos += len;
             break;
         }
         case State.ENC_DATA:
@@ -355,13 +375,15 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff) t
                 }
             }
 
-            while (len >= BUF_SIZE)
+            if (len >= BUF_SIZE)
             {
-                processData(in, inOff, BUF_SIZE, out, outOff + resultLen);
-                poly1305.update(out, outOff + resultLen, BUF_SIZE);
-                inOff += BUF_SIZE;
-                len -= BUF_SIZE;
-                resultLen += BUF_SIZE;
+                int bulkLen = len - (len % BUF_SIZE);
+
+                processData(in, inOff, bulkLen, out, outOff + resultLen);
+                poly1305.update(out, outOff + resultLen, bulkLen);
+                inOff += bulkLen;
+                len -= bulkLen;
+                resultLen += bulkLen;
             }
 
             if (len > 0)
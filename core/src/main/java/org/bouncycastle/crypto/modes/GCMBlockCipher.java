@@ -4,30 +4,50 @@
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DataLengthException;
 import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.MultiBlockCipher;
 import org.bouncycastle.crypto.OutputLengthException;
 import org.bouncycastle.crypto.modes.gcm.BasicGCMExponentiator;
+import org.bouncycastle.crypto.modes.gcm.BasicGCMMultiplier;
 import org.bouncycastle.crypto.modes.gcm.GCMExponentiator;
+import org.bouncycastle.crypto.modes.gcm.GCMMultiBlockMultiplier;
 import org.bouncycastle.crypto.modes.gcm.GCMMultiplier;
 import org.bouncycastle.crypto.modes.gcm.GCMUtil;
+import org.bouncycastle.crypto.modes.gcm.Tables16kGCMMultiplier;
 import org.bouncycastle.crypto.modes.gcm.Tables4kGCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.Tables64kGCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.Tables8kGCMMultiplier;
 import org.bouncycastle.crypto.params.AEADParameters;
 import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bouncycastle.crypto.params.PreparedKeyParameter;
 import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Bytes;
 import org.bouncycastle.util.Pack;
 
 /**
  * Implements the Galois/Counter mode (GCM) detailed in
  * NIST Special Publication 800-38D.
+ * <p>
+ * Runs of whole blocks are processed in bulk: the counter blocks for a run are encrypted with a single call to
+ * {@link MultiBlockCipher#processBlocks} where the underlying cipher supports it, and if the multiplier is a
+ * {@link GCMMultiBlockMultiplier} the GHASH for the run is folded in several blocks at a time. The default
+ * multiplier is {@link Tables4kGCMMultiplier}; for bulk data pass a {@link Tables16kGCMMultiplier} to
+ * {@link #newInstance(BlockCipher, GCMMultiplier)}, which is faster at the cost of four times the table memory.
+ * The provider's GCM ciphers and the lightweight TLS crypto already do this.
+ * <p>
+ * If the key is a {@link PreparedKeyParameter} the hash key H, and the tables of any of the provided multipliers,
+ * are computed once for the key and then shared by every GCM instance using it.
  */
 public class GCMBlockCipher
     implements GCMModeCipher
 {
     private static final int BLOCK_SIZE = 16;
+    private static final int BULK_BLOCKS = 16;
 
     // not final due to a compiler bug
     private BlockCipher   cipher;
     private GCMMultiplier multiplier;
+    private GCMMultiplier ownMultiplier;
     private GCMExponentiator exp;
 
     // These fields are set by init and not modified by processing
@@ -53,6 +73,10 @@
     private long        atLength;
     private long        atLengthPre;
 
+    // Working space for bulk processing
+    private final byte[] ctrBlocks = new byte[BULK_BLOCKS * BLOCK_SIZE];
+    private final byte[] keyStream = new byte[BULK_BLOCKS * BLOCK_SIZE];
+
     /**
      * Return a new GCM mode cipher based on the passed in base cipher
      *
@@ -107,6 +131,7 @@ public GCMBlockCipher(BlockCipher c, GCMMultiplier m)
 
         this.cipher = c;
         this.multiplier = m;
+        this.ownMultiplier = m;
     }
 
     public BlockCipher getUnderlyingCipher()
@@ -114,6 +139,69 @@ public BlockCipher getUnderlyingCipher()
         return cipher;
     }
 
+    /**
+     * Pick up H, and the multiplier if it is one of ours, from the key - our own multipliers only read their
+     * tables once initialised, so can be shared.
+     */
+    private void initPrepared(PreparedKeyParameter key)
+    {
+        String hId = "GCM/H/" + cipher.getAlgorithmName();
+
+        byte[] h = (byte[])key.getPrepared(hId);
+        if (h == null)
+        {
+            h = new byte[BLOCK_SIZE];
+            cipher.processBlock(h, 0, h, 0);
+            h = (byte[])key.putPrepared(hId, h);
+        }
+        this.H = h;
+
+        String mId = "GCM/" + cipher.getAlgorithmName() + "/" + ownMultiplier.getClass().getName();
+
+        GCMMultiplier m = (GCMMultiplier)key.getPrepared(mId);
+        if (m == null)
+        {
+            m = newSharedMultiplier(ownMultiplier);
+            if (m == null)
+            {
+                multiplier = ownMultiplier;
+                multiplier.init(H);
+                return;
+            }
+            m.init(H);
+            m = (GCMMultiplier)key.putPrepared(mId, m);
+        }
+        multiplier = m;
+    }
+
+    private static GCMMultiplier newSharedMultiplier(GCMMultiplier m)
+    {
+        Class mClass = m.getClass();
+
+        if (mClass == Tables16kGCMMultiplier.class)
+        {
+            return new Tables16kGCMMultiplier();
+        }
+        if (mClass == Tables4kGCMMultiplier.class)
+        {
+            return new Tables4kGCMMultiplier();
+        }
+        if (mClass == Tables8kGCMMultiplier.class)
+        {
+            return new Tables8kGCMMultiplier();
+        }
+        if (mClass == Tables64kGCMMultiplier.class)
+        {
+            return new Tables64kGCMMultiplier();
+        }
+        if (mClass == BasicGCMMultiplier.class)
+        {
+            return new BasicGCMMultiplier();
+        }
+
+        return null;
+    }
+
     public String getAlgorithmName()
     {
         return cipher.getAlgorithmName() + "/GCM";
@@ -200,11 +288,19 @@ else if (params instanceof ParametersWithIV)
         {
             cipher.init(true, keyParam);
 
-            this.H = new byte[BLOCK_SIZE];
-            cipher.processBlock(H, 0, H, 0);
+            if (keyParam instanceof PreparedKeyParameter)
+            {
+                initPrepared((PreparedKeyParameter)keyParam);
+            }
+            else
+            {
+                this.H = new byte[BLOCK_SIZE];
+                cipher.processBlock(H, 0, H, 0);
 
-            // GCMMultiplier tables don't change unless the key changes (and are expensive to init)
-            multiplier.init(H);
+                // GCMMultiplier tables don't change unless the key changes (and are expensive to init)
+                multiplier = ownMultiplier;
+                multiplier.init(H);
+            }
             exp = null;
         }
         else if (this.H == null)
@@ -316,16 +412,16 @@ public void processAADBytes(byte[] in, int inOff, int len)
             //atBlockPos = 0;
         }
 
-        int inLimit = inOff + len - BLOCK_SIZE;
-
-        while (inOff <= inLimit)
+        int blocks = len / BLOCK_SIZE;
+        if (blocks > 0)
         {
-            gHASHBlock(S_at, in, inOff);
-            atLength += BLOCK_SIZE;
-            inOff += BLOCK_SIZE;
+            gHASHBlocks(S_at, in, inOff, blocks);
+            atLength += blocks * BLOCK_SIZE;
+            inOff += blocks * BLOCK_SIZE;
+            len -= blocks * BLOCK_SIZE;
         }
 
-        atBlockPos = BLOCK_SIZE + inLimit - inOff;
+        atBlockPos = len;
         System.arraycopy(in, inOff, atBlock, 0, atBlockPos);
     }
 
@@ -411,16 +507,16 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
                 //bufOff = 0;
             }
 
-            int inLimit = inOff + len - BLOCK_SIZE;
-
-            while (inOff <= inLimit)
+            int blocks = len / BLOCK_SIZE;
+            if (blocks > 0)
             {
-                encryptBlock(in, inOff, out, outOff + resultLen);
-                inOff += BLOCK_SIZE;
-                resultLen += BLOCK_SIZE;
+                encryptBlocks(in, inOff, blocks, out, outOff + resultLen);
+                inOff += blocks * BLOCK_SIZE;
+                len -= blocks * BLOCK_SIZE;
+                resultLen += blocks * BLOCK_SIZE;
             }
 
-            bufOff = BLOCK_SIZE + inLimit - inOff;
+            bufOff = len;
             System.arraycopy(in, inOff, bufBlock, 0, bufOff);
         }
         else
@@ -457,11 +553,12 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
             resultLen += BLOCK_SIZE;
             //bufOff = 0;
 
-            while (inOff <= inLimit)
+            if (inOff <= inLimit)
             {
-                decryptBlock(in, inOff, out, outOff + resultLen);
-                inOff += BLOCK_SIZE;
-                resultLen += BLOCK_SIZE;
+                int blocks = (inLimit - inOff) / BLOCK_SIZE + 1;
+                decryptBlocks(in, inOff, blocks, out, outOff + resultLen);
+                inOff += blocks * BLOCK_SIZE;
+                resultLen += blocks * BLOCK_SIZE;
             }
 
             bufOff = bufBlock.length + inLimit - inOff;
@@ -619,6 +716,7 @@ private void reset(
         {
             Arrays.fill(bufBlock, (byte)0);
         }
+        Arrays.fill(keyStream, (byte)0);
 
         if (clearMac)
         {
@@ -679,6 +777,62 @@ private void encryptBlock(byte[] buf, int bufOff, byte[] out, int outOff)
         totalLength += BLOCK_SIZE;
     }
 
+    private void decryptBlocks(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+    {
+        if ((out.length - outOff) < blockCount * BLOCK_SIZE)
+        {
+            throw new OutputLengthException("Output buffer too short");
+        }
+        if (totalLength == 0)
+        {
+            initCipher();
+        }
+
+        while (blockCount > 0)
+        {
+            int count = Math.min(blockCount, BULK_BLOCKS);
+            int len = count * BLOCK_SIZE;
+
+            getNextCTRBlocks(count);
+
+            gHASHBlocks(S, in, inOff, count);
+            Bytes.xor(len, keyStream, 0, in, inOff, out, outOff);
+
+            totalLength += len;
+            inOff += len;
+            outOff += len;
+            blockCount -= count;
+        }
+    }
+
+    private void encryptBlocks(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+    {
+        if ((out.length - outOff) < blockCount * BLOCK_SIZE)
+        {
+            throw new OutputLengthException("Output buffer too short");
+        }
+        if (totalLength == 0)
+        {
+            initCipher();
+        }
+
+        while (blockCount > 0)
+        {
+            int count = Math.min(blockCount, BULK_BLOCKS);
+            int len = count * BLOCK_SIZE;
+
+            getNextCTRBlocks(count);
+
+            Bytes.xor(len, keyStream, 0, in, inOff, out, outOff);
+            gHASHBlocks(S, out, outOff, count);
+
+            totalLength += len;
+            inOff += len;
+            outOff += len;
+            blockCount -= count;
+        }
+    }
+
     private void processPartial(byte[] buf, int off, int len, byte[] out, int outOff)
     {
         byte[] ctrBlock = new byte[BLOCK_SIZE];
@@ -720,6 +874,21 @@ private void gHASHBlock(byte[] Y, byte[] b, int off)
         multiplier.multiplyH(Y);
     }
 
+    private void gHASHBlocks(byte[] Y, byte[] b, int off, int blockCount)
+    {
+        if (multiplier instanceof GCMMultiBlockMultiplier)
+        {
+            ((GCMMultiBlockMultiplier)multiplier).multiplyBlocksH(Y, b, off, blockCount);
+            return;
+        }
+
+        for (int i = 0; i < blockCount; ++i)
+        {
+            gHASHBlock(Y, b, off);
+            off += BLOCK_SIZE;
+        }
+    }
+
     private void gHASHPartial(byte[] Y, byte[] b, int off, int len)
     {
         GCMUtil.xor(Y, b, off, len);
@@ -743,6 +912,41 @@ private void getNextCTRBlock(byte[] block)
         cipher.processBlock(counter, 0, block, 0);
     }
 
+    /*
+     * Fill the first count blocks of keyStream with the encryption of the next count counter blocks.
+     */
+    private void getNextCTRBlocks(int count)
+    {
+        if ((blocksRemaining & 0xFFFFFFFFL) < count)
+        {
+            throw new IllegalStateException("Attempt to process too many blocks");
+        }
+        blocksRemaining -= count;
+
+        for (int pos = 0; pos < count * BLOCK_SIZE; pos += BLOCK_SIZE)
+        {
+            int c = 1;
+            c += counter[15] & 0xFF; counter[15] = (byte)c; c >>>= 8;
+            c += counter[14] & 0xFF; counter[14] = (byte)c; c >>>= 8;
+            c += counter[13] & 0xFF; counter[13] = (byte)c; c >>>= 8;
+            c += counter[12] & 0xFF; counter[12] = (byte)c;
+
+            System.arraycopy(counter, 0, ctrBlocks, pos, BLOCK_SIZE);
+        }
+
+        if (cipher instanceof MultiBlockCipher)
+        {
+            ((MultiBlockCipher)cipher).processBlocks(ctrBlocks, 0, count, keyStream, 0);
+        }
+        else
+        {
+            for (int pos = 0; pos < count * BLOCK_SIZE; pos += BLOCK_SIZE)
+            {
+                cipher.processBlock(ctrBlocks, pos, keyStream, pos);
+            }
+        }
+    }
+
     private void checkStatus()
     {
         if (!initialised)
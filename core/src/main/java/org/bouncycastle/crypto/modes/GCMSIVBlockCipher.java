@@ -6,6 +6,7 @@
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DataLengthException;
 import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.MultiBlockCipher;
 import org.bouncycastle.crypto.OutputLengthException;
 import org.bouncycastle.crypto.engines.AESEngine;
 import org.bouncycastle.crypto.modes.gcm.GCMMultiplier;
@@ -29,6 +30,8 @@
  * which would use multiple arrays to store the data. In addition, a new <b>doOutput</b> method would be required (similar
  * to that in <b>XOF</b> digests), which would allow the data to be output over multiple calls. Alternatively an extended
  * form of <b>ByteArrayInputStream</b> could be used to deliver the data.</p>
+ * <p>For messages that can be read more than once, such as those in a file, {@link GCMSIVChannelCipher} supports the
+ * full limit with a fixed amount of memory, by making two passes over the data.</p>
  */
 public class GCMSIVBlockCipher
          implements AEADBlockCipher
@@ -38,6 +41,11 @@
       */
      private static final int BUFLEN = 16;
 
+     /**
+      * The length of key stream generated at a time.
+      */
+     private static final int MASKLEN = 16 * BUFLEN;
+
      /**
       * The halfBuffer length.
       */
@@ -519,7 +527,7 @@ private int encryptPlain(final byte[] pCounter,
          final byte[] mySrc = thePlain.getBuffer();
          final byte[] myCounter = Arrays.clone(pCounter);
          myCounter[BUFLEN - 1] |= MASK;
-         final byte[] myMask = new byte[BUFLEN];
+         final byte[] myMask = new byte[MASKLEN];
          int myRemaining = thePlain.size();
          int myOff = 0;
 
@@ -527,10 +535,10 @@ private int encryptPlain(final byte[] pCounter,
          while (myRemaining > 0)
          {
              /* Generate the next mask */
-             theCipher.processBlock(myCounter, 0, myMask, 0);
+             final int myLen = Math.min(MASKLEN, myRemaining);
+             generateMask(myCounter, myMask, myLen);
 
              /* Xor data into mask */
-             final int myLen = Math.min(BUFLEN, myRemaining);
              xorBlock(myMask, mySrc, myOff, myLen);
 
              /* Copy encrypted data to output */
@@ -539,7 +547,6 @@ private int encryptPlain(final byte[] pCounter,
              /* Adjust counters */
              myRemaining -= myLen;
              myOff += myLen;
-             incrementCounter(myCounter);
          }
 
          /* Return the amount of data processed */
@@ -566,17 +573,17 @@ private void decryptPlain() throws InvalidCipherTextException
          final byte[] myExpected = Arrays.copyOfRange(mySrc, myRemaining, myRemaining + BUFLEN);
          final byte[] myCounter = Arrays.clone(myExpected);
          myCounter[BUFLEN - 1] |= MASK;
-         final byte[] myMask = new byte[BUFLEN];
+         final byte[] myMask = new byte[MASKLEN];
          int myOff = 0;
 
          /* While we have data to process */
          while (myRemaining > 0)
          {
              /* Generate the next mask */
-             theCipher.processBlock(myCounter, 0, myMask, 0);
+             final int myLen = Math.min(MASKLEN, myRemaining);
+             generateMask(myCounter, myMask, myLen);
 
              /* Xor data into mask */
-             final int myLen = Math.min(BUFLEN, myRemaining);
              xorBlock(myMask, mySrc, myOff, myLen);
 
              /* Write data to plain dataStream */
@@ -586,7 +593,6 @@ private void decryptPlain() throws InvalidCipherTextException
              /* Adjust counters */
              myRemaining -= myLen;
              myOff += myLen;
-             incrementCounter(myCounter);
          }
 
          /* Derive and check the tag */
@@ -600,6 +606,138 @@ private void decryptPlain() throws InvalidCipherTextException
          System.arraycopy(myTag, 0, macBlock, 0, macBlock.length);
      }
 
+     /**
+      * hash data that is being handled outside the cache.
+      * @param pData the plain text
+      * @param pOffset the offset in the data
+      * @param pLen the length of data
+      */
+     void hashData(final byte[] pData,
+                   final int pOffset,
+                   final int pLen)
+     {
+         /* Check that we have initialised */
+         checkStatus(0);
+
+         /* Process the data */
+         theDataHasher.updateHash(pData, pOffset, pLen);
+     }
+
+     /**
+      * complete the hash of data handled outside the cache.
+      * @return the calculated tag
+      */
+     byte[] completeTag()
+     {
+         /* Check that we have initialised */
+         checkStatus(0);
+
+         /* Derive the tag */
+         return calculateTag();
+     }
+
+     /**
+      * mark the start of the data hash, completing the AEAD section if necessary.
+      * @return the hash state to pass to {@link #restartDataHash(byte[])}
+      */
+     byte[] markDataHash()
+     {
+         /* Check that we have initialised */
+         checkStatus(0);
+
+         return Arrays.clone(theGHash);
+     }
+
+     /**
+      * restart the hash of data handled outside the cache from a mark.
+      * @param pMark the hash state from {@link #markDataHash()}
+      */
+     void restartDataHash(final byte[] pMark)
+     {
+         theDataHasher.reset();
+         System.arraycopy(pMark, 0, theGHash, 0, BUFLEN);
+     }
+
+     /**
+      * xor the key stream into data handled outside the cache.
+      * @param pCounter the counter, advanced for each block used
+      * @param pData the data
+      * @param pOffset the offset in the data
+      * @param pLen the length of data
+      */
+     void applyKeyStream(final byte[] pCounter,
+                         final byte[] pData,
+                         final int pOffset,
+                         final int pLen)
+     {
+         final byte[] myMask = new byte[MASKLEN];
+         int myRemaining = pLen;
+         int myOff = pOffset;
+
+         /* While we have data to process */
+         while (myRemaining > 0)
+         {
+             /* Generate the next mask */
+             final int myLen = Math.min(MASKLEN, myRemaining);
+             generateMask(pCounter, myMask, myLen);
+
+             /* Xor mask into data */
+             for (int i = 0; i < myLen; i++)
+             {
+                 pData[myOff + i] ^= myMask[i];
+             }
+
+             /* Adjust counters */
+             myRemaining -= myLen;
+             myOff += myLen;
+         }
+     }
+
+     /**
+      * generate the key stream for the next blocks of data, encrypting the counter blocks with a single call to
+      * processBlocks() where the cipher supports it.
+      * @param pCounter the counter, advanced for each block generated
+      * @param pMask the buffer for the key stream
+      * @param pLen the length of data the key stream is for (<= MASKLEN)
+      */
+     private void generateMask(final byte[] pCounter,
+                               final byte[] pMask,
+                               final int pLen)
+     {
+         /* Lay out the counter blocks */
+         final int myBlocks = (pLen + BUFLEN - 1) / BUFLEN;
+         for (int i = 0; i < myBlocks; i++)
+         {
+             System.arraycopy(pCounter, 0, pMask, i * BUFLEN, BUFLEN);
+             incrementCounter(pCounter);
+         }
+
+         /* Encrypt them in place */
+         if (theCipher instanceof MultiBlockCipher)
+         {
+             ((MultiBlockCipher)theCipher).processBlocks(pMask, 0, myBlocks, pMask, 0);
+         }
+         else
+         {
+             for (int i = 0; i < myBlocks; i++)
+             {
+                 theCipher.processBlock(pMask, i * BUFLEN, pMask, i * BUFLEN);
+             }
+         }
+     }
+
+     /**
+      * derive the initial counter from a tag.
+      * @param pTag the tag
+      * @return the counter
+      */
+     static byte[] initialCounter(final byte[] pTag)
+     {
+         final byte[] myCounter = Arrays.clone(pTag);
+         myCounter[BUFLEN - 1] |= MASK;
+         return myCounter;
+     }
+
      /**
       * calculate tag.
       * @return the calculated tag
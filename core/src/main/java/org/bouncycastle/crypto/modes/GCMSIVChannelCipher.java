@@ -0,0 +1,276 @@
+package org.bouncycastle.crypto.modes;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * GCM-SIV Mode over a seekable channel, using a fixed amount of memory whatever the size of the message.
+ * <p>
+ * Where {@link GCMSIVBlockCipher} caches the whole message, this class makes two passes over the input channel
+ * instead. On encryption the first pass calculates the POLYVAL based tag and the second encrypts the plain text under
+ * the counter derived from it, writing the cipher text followed by the tag. On decryption the first pass decrypts the
+ * cipher text only to check the tag, so no plain text is written to the output channel until it has been
+ * authenticated, and the second pass decrypts it again to write it out.
+ * </p>
+ * <p>
+ * The input channel must not change between the two passes. On decryption the second pass hashes the plain text
+ * again as it is written and checks it gives the same tag, so a change is detected, but only once the plain text
+ * from the changed input has been written. In that case the output is truncated back to where it started if it is a
+ * {@link SeekableByteChannel}, and an InvalidCipherTextException is thrown; anything written to any other kind of
+ * output channel must be discarded by the caller. On encryption a change results in a tag that does not match the
+ * cipher text, so the message will fail to decrypt.
+ * </p>
+ * <p>
+ * The full limit of 2<sup>36</sup> bytes of plain text from RFC 8452 is supported. Associated data is still
+ * accumulated by the underlying GCMSIVBlockCipher.
+ * </p>
+ */
+public class GCMSIVChannelCipher
+{
+    private static final int BUFLEN = 16;
+
+    /**
+     * The maximum plain text length from RFC 8452.
+     */
+    private static final long MAX_DATALEN = 1L << 36;
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final GCMSIVBlockCipher cipher;
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private final byte[] macBlock = new byte[BUFLEN];
+
+    private boolean forEncryption;
+
+    /**
+     * Base constructor, using AES.
+     */
+    public GCMSIVChannelCipher()
+    {
+        this(new GCMSIVBlockCipher());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param cipher the GCM-SIV cipher to use for key derivation, hashing and the key stream.
+     */
+    public GCMSIVChannelCipher(GCMSIVBlockCipher cipher)
+    {
+        this.cipher = cipher;
+    }
+
+    public GCMSIVBlockCipher getUnderlyingCipher()
+    {
+        return cipher;
+    }
+
+    public String getAlgorithmName()
+    {
+        return cipher.getAlgorithmName();
+    }
+
+    /**
+     * Initialise the cipher, as for {@link GCMSIVBlockCipher#init(boolean, CipherParameters)}.
+     *
+     * @param forEncryption true if we are setting up for encryption, false otherwise.
+     * @param params the AEAD parameters, or a key and nonce.
+     * @throws IllegalArgumentException if the parameters are inappropriate.
+     */
+    public void init(boolean forEncryption, CipherParameters params)
+        throws IllegalArgumentException
+    {
+        this.forEncryption = forEncryption;
+
+        cipher.init(forEncryption, params);
+    }
+
+    public void processAADByte(byte in)
+    {
+        cipher.processAADByte(in);
+    }
+
+    public void processAADBytes(byte[] in, int inOff, int len)
+    {
+        cipher.processAADBytes(in, inOff, len);
+    }
+
+    /**
+     * Process the input channel from its current position to its end, writing the result to the output channel.
+     * On encryption the output is the cipher text followed by the tag, on decryption the input is expected to be in
+     * the same form and the output is the plain text. The cipher is reset afterwards, ready for another message
+     * with the same associated data as it was initialised with.
+     *
+     * @param in the channel to read the input from.
+     * @param out the channel to write the output to.
+     * @return the number of bytes written to out.
+     * @throws IOException on an error reading or writing the channels.
+     * @throws InvalidCipherTextException if the input is too short, or the tag does not match, on decryption, or
+     * if the input changed between the two passes over it.
+     */
+    public long doFinal(SeekableByteChannel in, WritableByteChannel out)
+        throws IOException, InvalidCipherTextException
+    {
+        try
+        {
+            return forEncryption ? encrypt(in, out) : decrypt(in, out);
+        }
+        finally
+        {
+            Arrays.fill(chunk, (byte)0);
+            cipher.reset();
+        }
+    }
+
+    public byte[] getMac()
+    {
+        return Arrays.clone(macBlock);
+    }
+
+    public void reset()
+    {
+        cipher.reset();
+    }
+
+    private long encrypt(SeekableByteChannel in, WritableByteChannel out)
+        throws IOException
+    {
+        final long start = in.position();
+        final long length = in.size() - start;
+
+        if (length > MAX_DATALEN)
+        {
+            throw new IllegalStateException("byte count exceeded");
+        }
+
+        /* First pass - derive the tag */
+        for (long remaining = length; remaining > 0;)
+        {
+            int len = read(in, remaining);
+            cipher.hashData(chunk, 0, len);
+            remaining -= len;
+        }
+
+        final byte[] tag = cipher.completeTag();
+
+        /* Second pass - encrypt */
+        in.position(start);
+        applyKeyStream(tag, in, length, out, false);
+
+        write(out, tag, BUFLEN);
+        System.arraycopy(tag, 0, macBlock, 0, BUFLEN);
+
+        return length + BUFLEN;
+    }
+
+    private long decrypt(SeekableByteChannel in, WritableByteChannel out)
+        throws IOException, InvalidCipherTextException
+    {
+        final long start = in.position();
+        final long length = in.size() - start - BUFLEN;
+
+        if (length < 0)
+        {
+            throw new InvalidCipherTextException("Data too short");
+        }
+        if (length > MAX_DATALEN)
+        {
+            throw new IllegalStateException("byte count exceeded");
+        }
+
+        in.position(start + length);
+        read(in, BUFLEN);
+        final byte[] expected = Arrays.copyOfRange(chunk, 0, BUFLEN);
+
+        /* First pass - decrypt and hash, without releasing anything */
+        final byte[] mark = cipher.markDataHash();
+        in.position(start);
+        final byte[] counter = GCMSIVBlockCipher.initialCounter(expected);
+        for (long remaining = length; remaining > 0;)
+        {
+            int len = read(in, remaining);
+            cipher.applyKeyStream(counter, chunk, 0, len);
+            cipher.hashData(chunk, 0, len);
+            remaining -= len;
+        }
+
+        final byte[] tag = cipher.completeTag();
+        if (!Arrays.constantTimeAreEqual(tag, expected))
+        {
+            throw new InvalidCipherTextException("mac check failed");
+        }
+
+        /* Second pass - decrypt again for output, checking the input has not changed */
+        final long outStart = (out instanceof SeekableByteChannel) ? ((SeekableByteChannel)out).position() : -1;
+        cipher.restartDataHash(mark);
+        in.position(start);
+        applyKeyStream(tag, in, length, out, true);
+
+        if (!Arrays.constantTimeAreEqual(tag, cipher.completeTag()))
+        {
+            if (outStart >= 0)
+            {
+                ((SeekableByteChannel)out).truncate(outStart);
+            }
+            throw new InvalidCipherTextException("input changed during decryption");
+        }
+        in.position(start + length + BUFLEN);
+
+        System.arraycopy(tag, 0, macBlock, 0, BUFLEN);
+
+        return length;
+    }
+
+    private void applyKeyStream(byte[] tag, SeekableByteChannel in, long length, WritableByteChannel out,
+                                boolean hashOutput)
+        throws IOException
+    {
+        final byte[] counter = GCMSIVBlockCipher.initialCounter(tag);
+
+        for (long remaining = length; remaining > 0;)
+        {
+            int len = read(in, remaining);
+            cipher.applyKeyStream(counter, chunk, 0, len);
+            if (hashOutput)
+            {
+                cipher.hashData(chunk, 0, len);
+            }
+            write(out, chunk, len);
+            remaining -= len;
+        }
+    }
+
+    private int read(SeekableByteChannel in, long remaining)
+        throws IOException
+    {
+        ByteBuffer buf = ByteBuffer.wrap(chunk, 0, (int)Math.min(CHUNK_SIZE, remaining));
+
+        while (buf.hasRemaining())
+        {
+            if (in.read(buf) < 0)
+            {
+                throw new EOFException("unexpected end of input channel");
+            }
+        }
+
+        return buf.position();
+    }
+
+    private static void write(WritableByteChannel out, byte[] data, int len)
+        throws IOException
+    {
+        ByteBuffer buf = ByteBuffer.wrap(data, 0, len);
+
+        while (buf.hasRemaining())
+        {
+            out.write(buf);
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package org.bouncycastle.crypto.modes;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Executor;
+
+import org.bouncycastle.crypto.BlockCipherFactory;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.StreamBlockCipher;
+import org.bouncycastle.crypto.util.ConcurrentRuns;
+
+/**
+ * Implements the Segmented Integer Counter (SIC) mode, spreading large requests over an {@link Executor}.
+ * <p>
+ * A large request is cut into block aligned ranges of the key stream, one per worker. Each worker has its own
+ * {@link SICBlockCipher}, which is positioned at the start of its range with {@link SICBlockCipher#seekTo(long)}, so
+ * the output is identical to a single SICBlockCipher processing the same data in order. The calling thread takes
+ * the first range itself, and requests shorter than two segments are not split at all.
+ * </p>
+ * <p>
+ * The underlying engines are not thread safe, so the factory is asked for one engine per worker, plus one for
+ * the calling thread. As with the other modes, an instance of this class should only be used by one thread at a time.
+ * </p>
+ * <p>
+ * A range the executor has not started by the time the calling thread has finished its own is processed by the
+ * calling thread, so an instance can safely be used from a thread of the executor it runs its workers on, even a
+ * bounded one with every thread busy.
+ * </p>
+ */
+public class ParallelSICBlockCipher
+    extends StreamBlockCipher
+    implements CTRModeCipher
+{
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024;
+
+    private final SICBlockCipher cipher;
+    private final SICBlockCipher[] workers;
+    private final byte[][] buffers;
+    private final Executor executor;
+    private final int blockSize;
+    private final int segmentSize;
+
+    /**
+     * Base constructor, using a default segment size of 64KB.
+     *
+     * @param factory the source of engines for the calling thread and each of the workers.
+     * @param executor the executor to run the workers on.
+     * @param parallelism the maximum number of ranges a request will be split into.
+     */
+    public ParallelSICBlockCipher(BlockCipherFactory factory, Executor executor, int parallelism)
+    {
+        this(factory, executor, parallelism, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Base constructor.
+     *
+     * @param factory the source of engines for the calling thread and each of the workers.
+     * @param executor the executor to run the workers on.
+     * @param parallelism the maximum number of ranges a request will be split into.
+     * @param segmentSize the smallest range, in bytes, worth handing to a worker - a multiple of the block size.
+     */
+    public ParallelSICBlockCipher(BlockCipherFactory factory, Executor executor, int parallelism, int segmentSize)
+    {
+        super(factory.get());
+
+        this.cipher = new SICBlockCipher(getUnderlyingCipher());
+        this.blockSize = cipher.getBlockSize();
+
+        ConcurrentRuns.checkParallelism(parallelism);
+        if (segmentSize < blockSize || segmentSize % blockSize != 0)
+        {
+            throw new IllegalArgumentException("segmentSize must be a positive multiple of the block size");
+        }
+
+        this.executor = executor;
+        this.segmentSize = segmentSize;
+        this.workers = new SICBlockCipher[parallelism];
+        this.buffers = new byte[parallelism][];
+
+        for (int i = 0; i != parallelism; i++)
+        {
+            workers[i] = new SICBlockCipher(factory.get());
+        }
+    }
+
+    public void init(
+        boolean             forEncryption, //ignored by this CTR mode
+        CipherParameters    params)
+        throws IllegalArgumentException
+    {
+        cipher.init(forEncryption, params);
+
+        for (int i = 0; i != workers.length; i++)
+        {
+            workers[i].init(forEncryption, params);
+        }
+    }
+
+    public String getAlgorithmName()
+    {
+        return cipher.getAlgorithmName();
+    }
+
+    public int getBlockSize()
+    {
+        return blockSize;
+    }
+
+    public int getMultiBlockSize()
+    {
+        return segmentSize;
+    }
+
+    public int processBlock(byte[] in, int inOff, byte[] out, int outOff)
+        throws DataLengthException, IllegalStateException
+    {
+        return cipher.processBlock(in, inOff, out, outOff);
+    }
+
+    public int processBlocks(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+        throws DataLengthException, IllegalStateException
+    {
+        return processBytes(in, inOff, blockCount * blockSize, out, outOff);
+    }
+
+    public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
+        throws DataLengthException
+    {
+        if (inOff + len > in.length)
+        {
+            throw new DataLengthException("input buffer too small");
+        }
+        if (outOff + len > out.length)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        if (workers.length == 1 || len < 2 * segmentSize)
+        {
+            return cipher.processBytes(in, inOff, len, out, outOff);
+        }
+
+        // ranges are processed concurrently, so a shifted in place request has to work from a copy
+        if (in == out && inOff != outOff && segmentsOverlap(inOff, len, outOff, len))
+        {
+            byte[] tmp = new byte[len];
+            System.arraycopy(in, inOff, tmp, 0, len);
+            in = tmp;
+            inOff = 0;
+        }
+
+        final byte[] input = in, output = out;
+        final int inStart = inOff, outStart = outOff;
+
+        processMemoryRanges(len, new Range()
+        {
+            public void process(int worker, long offset, long length)
+            {
+                workers[worker].processBytes(input, inStart + (int)offset, (int)length, output, outStart + (int)offset);
+            }
+        });
+
+        return len;
+    }
+
+    /**
+     * Process the remaining bytes in the input buffer, writing the result to the output buffer. On return the
+     * position of the input buffer will be its limit and the output buffer's position will have advanced by the
+     * same amount. The two buffers must either be the same region of memory or not overlap at all.
+     *
+     * @param in the buffer containing the input.
+     * @param out the buffer to write the result to.
+     * @return the number of bytes processed.
+     * @throws DataLengthException if the output buffer is too small.
+     */
+    public int processBytes(ByteBuffer in, ByteBuffer out)
+        throws DataLengthException
+    {
+        int len = in.remaining();
+        if (out.remaining() < len)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        final int inPos = in.position(), outPos = out.position();
+
+        if (in.hasArray() && out.hasArray())
+        {
+            processBytes(in.array(), in.arrayOffset() + inPos, len, out.array(), out.arrayOffset() + outPos);
+        }
+        else
+        {
+            final ByteBuffer input = in, output = out;
+
+            processMemoryRanges(len, new Range()
+            {
+                public void process(int worker, long offset, long length)
+                {
+                    ByteBuffer src = input.duplicate();
+                    ByteBuffer dst = output.duplicate();
+                    byte[] buf = getBuffer(worker);
+
+                    src.position(inPos + (int)offset);
+                    dst.position(outPos + (int)offset);
+
+                    while (length > 0)
+                    {
+                        int n = (int)Math.min(buf.length, length);
+
+                        src.get(buf, 0, n);
+                        workers[worker].processBytes(buf, 0, n, buf, 0);
+                        dst.put(buf, 0, n);
+
+                        length -= n;
+                    }
+                }
+            });
+        }
+
+        in.position(inPos + len);
+        out.position(outPos + len);
+
+        return len;
+    }
+
+    /**
+     * Process a region of one file channel, writing the result to another (or the same) file channel. Only
+     * positional reads and writes are used, so the positions of the channels are left unchanged. If the same
+     * channel is used for input and output, the regions must either be the same or not overlap at all.
+     *
+     * @param in the channel to read the input from.
+     * @param inPosition the position of the first byte of input in the in channel.
+     * @param length the number of bytes to process.
+     * @param out the channel to write the result to.
+     * @param outPosition the position in the out channel the first byte of the result is written to.
+     * @return the number of bytes processed.
+     * @throws IOException if the in channel ends before length bytes are read, or on an I/O error.
+     */
+    public long processBytes(final FileChannel in, final long inPosition, long length, final FileChannel out,
+        final long outPosition)
+        throws IOException
+    {
+        if (length < 0)
+        {
+            throw new IllegalArgumentException("length cannot be negative");
+        }
+
+        processRanges(length, new Range()
+        {
+            public void process(int worker, long offset, long length)
+                throws IOException
+            {
+                byte[] buf = getBuffer(worker);
+
+                while (length > 0)
+                {
+                    int n = (int)Math.min(buf.length, length);
+
+                    ByteBuffer src = ByteBuffer.wrap(buf, 0, n);
+                    while (src.hasRemaining())
+                    {
+                        if (in.read(src, inPosition + offset + src.position()) < 0)
+                        {
+                            throw new EOFException("unexpected end of input channel");
+                        }
+                    }
+
+                    workers[worker].processBytes(buf, 0, n, buf, 0);
+
+                    ByteBuffer dst = ByteBuffer.wrap(buf, 0, n);
+                    while (dst.hasRemaining())
+                    {
+                        out.write(dst, outPosition + offset + dst.position());
+                    }
+
+                    offset += n;
+                    length -= n;
+                }
+            }
+        });
+
+        return length;
+    }
+
+    protected byte calculateByte(byte in)
+        throws DataLengthException, IllegalStateException
+    {
+        return cipher.returnByte(in);
+    }
+
+    public void reset()
+    {
+        cipher.reset();
+    }
+
+    public long skip(long numberOfBytes)
+    {
+        return cipher.skip(numberOfBytes);
+    }
+
+    public long seekTo(long position)
+    {
+        return cipher.seekTo(position);
+    }
+
+    public long getPosition()
+    {
+        return cipher.getPosition();
+    }
+
+    private byte[] getBuffer(int worker)
+    {
+        if (buffers[worker] == null)
+        {
+            buffers[worker] = new byte[segmentSize];
+        }
+        return buffers[worker];
+    }
+
+    private void processMemoryRanges(long length, Range range)
+    {
+        try
+        {
+            processRanges(length, range);
+        }
+        catch (IOException e)
+        {
+            // only file regions can throw this
+            throw new IllegalStateException(e.toString());
+        }
+    }
+
+    private void processRanges(long length, final Range range)
+        throws IOException
+    {
+        final long start = cipher.getPosition();
+        final int count = (int)Math.max(1, Math.min(workers.length, length / segmentSize));
+        final long[] bounds = new long[count + 1];
+
+        // every range other than the first starts on a block boundary of the key stream
+        for (int i = 1; i < count; i++)
+        {
+            long pos = start + (length / count) * i;
+            bounds[i] = pos - (pos % blockSize) - start;
+        }
+        bounds[count] = length;
+
+        ConcurrentRuns.runWithIO(executor, count, new ConcurrentRuns.Run()
+        {
+            public void run(int worker)
+                throws IOException
+            {
+                processRange(worker, start, bounds, range);
+            }
+        });
+
+        cipher.skip(length);
+    }
+
+    private void processRange(int worker, long start, long[] bounds, Range range)
+        throws IOException
+    {
+        long offset = bounds[worker];
+
+        workers[worker].seekTo(start + offset);
+        range.process(worker, offset, bounds[worker + 1] - offset);
+    }
+
+    private interface Range
+    {
+        void process(int worker, long offset, long length)
+            throws IOException;
+    }
+}
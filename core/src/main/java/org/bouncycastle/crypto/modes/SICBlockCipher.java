@@ -3,22 +3,31 @@
 import org.bouncycastle.crypto.BlockCipher;
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.MultiBlockCipher;
 import org.bouncycastle.crypto.OutputLengthException;
 import org.bouncycastle.crypto.StreamBlockCipher;
 import org.bouncycastle.crypto.params.ParametersWithIV;
 import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Bytes;
 import org.bouncycastle.util.Pack;
 
 /**
  * Implements the Segmented Integer Counter (SIC) mode on top of a simple
  * block cipher. This mode is also known as CTR mode.
+ * <p>
+ * Where the block cipher is a {@link MultiBlockCipher}, runs of whole blocks passed to processBytes() or
+ * processBlocks() have their key stream generated with a single call to {@link MultiBlockCipher#processBlocks}.
+ * </p>
  */
 public class SICBlockCipher
     extends StreamBlockCipher
     implements CTRModeCipher
 {
+    private static final int BULK_BLOCKS = 16;
+
     private final BlockCipher     cipher;
     private final int             blockSize;
+    private final byte[]          keyStream;
 
     private byte[]          IV;
     private byte[]          counter;
@@ -51,6 +60,7 @@ public SICBlockCipher(BlockCipher c)
         this.counter = new byte[blockSize];
         this.counterOut = new byte[blockSize];
         this.byteCount = 0;
+        this.keyStream = (c instanceof MultiBlockCipher) ? new byte[BULK_BLOCKS * blockSize] : null;
     }
 
     public void init(
@@ -138,8 +148,19 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
             throw new OutputLengthException("output buffer too short");
         }
 
-        for (int i = 0; i < len; ++i)
+        int i = 0;
+        while (i < len)
         {
+            if (byteCount == 0 && keyStream != null && len - i >= blockSize)
+            {
+                int count = processBulk(in, inOff + i, (len - i) / blockSize, out, outOff + i);
+                if (count > 0)
+                {
+                    i += count * blockSize;
+                    continue;
+                }
+            }
+
             byte next;
 
             if (byteCount == 0)
@@ -158,12 +179,54 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
                     incrementCounter();
                 }
             }
-            out[outOff + i] = next;
+            out[outOff + i++] = next;
         }
 
         return len;
     }
 
+    public int processBlocks(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+        throws DataLengthException, IllegalStateException
+    {
+        int len = blockCount * blockSize;
+
+        // processBytes() reads each byte before writing it, so only overlap in the forward direction matters.
+        if (in == out && inOff < outOff && segmentsOverlap(inOff, len, outOff, len))
+        {
+            in = new byte[len];
+            System.arraycopy(out, inOff, in, 0, len);
+            inOff = 0;
+        }
+
+        return processBytes(in, inOff, len, out, outOff);
+    }
+
+    /*
+     * Process up to blockCount whole blocks, starting on a block boundary, with the key stream for the next counter
+     * values generated by a single call to processBlocks(). Stops short at the end of the counter range, leaving
+     * the error to the byte at a time path. Returns the number of blocks processed.
+     */
+    private int processBulk(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+    {
+        int count = 0;
+        int limit = Math.min(blockCount, BULK_BLOCKS);
+
+        while (count < limit && lastIncrementValid())
+        {
+            System.arraycopy(counter, 0, keyStream, count * blockSize, blockSize);
+            incrementCounter();
+            ++count;
+        }
+
+        if (count > 0)
+        {
+            ((MultiBlockCipher)cipher).processBlocks(keyStream, 0, count, keyStream, 0);
+            Bytes.xor(count * blockSize, keyStream, 0, in, inOff, out, outOff);
+        }
+
+        return count;
+    }
+
     protected byte calculateByte(byte in)
           throws DataLengthException, IllegalStateException
     {
@@ -204,16 +267,18 @@ private void checkCounter()
 
     private void checkLastIncrement()
     {
-        // if the IV is the same as the blocksize we assume the user knows what they are doing
-        if (IV.length < blockSize)
+        if (!lastIncrementValid())
         {
-            if (counter[IV.length - 1] != IV[IV.length - 1])
-            {
-                throw new IllegalStateException("Counter in CTR/SIC mode out of range.");
-            }
+            throw new IllegalStateException("Counter in CTR/SIC mode out of range.");
         }
     }
 
+    private boolean lastIncrementValid()
+    {
+        // if the IV is the same as the blocksize we assume the user knows what they are doing
+        return IV.length == blockSize || counter[IV.length - 1] == IV[IV.length - 1];
+    }
+
     private void incrementCounter()
     {
         int i = counter.length;
@@ -0,0 +1,488 @@
+package org.bouncycastle.crypto.modes;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.params.AEADLengthParameters;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * Implements the Counter with Cipher Block Chaining mode (CCM) detailed in NIST Special Publication 800-38C, for
+ * messages whose lengths are known in advance.
+ * <p>
+ * CCM needs the lengths of the associated text and the plain text before it can start, which is why
+ * {@link CCMBlockCipher} holds on to the whole message until doFinal(). This class takes the lengths from the
+ * {@link AEADLengthParameters} passed to init() instead, so it can compute the MAC and run the counter mode as the
+ * data arrives, in constant memory, with output being produced as soon as the input is seen.
+ * </p>
+ * <p>
+ * <b>Note</b>: on decryption plain text is returned before the tag has been checked, as with any streaming AEAD
+ * mode. Anything output must be discarded if doFinal() throws an InvalidCipherTextException.
+ * </p>
+ */
+public class StreamingCCMBlockCipher
+    implements CCMModeCipher
+{
+    private static final int BLOCK_SIZE = 16;
+
+    private final BlockCipher cipher;
+
+    private boolean forEncryption;
+    private byte[] nonce;
+    private byte[] initialAssociatedText;
+    private int macSize;
+    private CipherParameters keyParam;
+    private long associatedTextLength;
+    private long dataLength;
+    private byte[] macBlock;
+
+    private final byte[] mac = new byte[BLOCK_SIZE];
+    private final byte[] counter = new byte[BLOCK_SIZE];
+    private final byte[] keyStream = new byte[BLOCK_SIZE];
+    private final byte[] tag = new byte[BLOCK_SIZE];
+    private int macPos;
+    private long associatedTextCount;
+    private long dataCount;
+    private int tagCount;
+    private boolean dataStarted;
+
+    /**
+     * Return a new streaming CCM mode cipher based on the passed in base cipher
+     *
+     * @param cipher the base cipher for the CCM mode.
+     */
+    public static CCMModeCipher newInstance(BlockCipher cipher)
+    {
+        return new StreamingCCMBlockCipher(cipher);
+    }
+
+    /**
+     * Basic constructor.
+     *
+     * @param c the block cipher to be used.
+     */
+    public StreamingCCMBlockCipher(BlockCipher c)
+    {
+        if (c.getBlockSize() != BLOCK_SIZE)
+        {
+            throw new IllegalArgumentException("cipher required with a block size of " + BLOCK_SIZE + ".");
+        }
+
+        this.cipher = c;
+    }
+
+    public BlockCipher getUnderlyingCipher()
+    {
+        return cipher;
+    }
+
+    /**
+     * Initialise the cipher.
+     *
+     * @param forEncryption true if we are setting up for encryption, false otherwise.
+     * @param params an AEADLengthParameters giving the key, nonce, tag size and message lengths. The key may be
+     * null to reuse the key from the previous call.
+     * @throws IllegalArgumentException if the parameters are inappropriate.
+     */
+    public void init(boolean forEncryption, CipherParameters params)
+        throws IllegalArgumentException
+    {
+        if (!(params instanceof AEADLengthParameters))
+        {
+            throw new IllegalArgumentException("streaming CCM requires AEADLengthParameters: "
+                + (params == null ? "null" : params.getClass().getName()));
+        }
+
+        AEADLengthParameters param = (AEADLengthParameters)params;
+
+        byte[] newNonce = param.getNonce();
+        if (newNonce == null || newNonce.length < 7 || newNonce.length > 13)
+        {
+            throw new IllegalArgumentException("nonce must have length from 7 to 13 octets");
+        }
+
+        int macSizeBits = param.getMacSize();
+        if (macSizeBits < 32 || macSizeBits > 128 || 0 != (macSizeBits & 15))
+        {
+            throw new IllegalArgumentException("tag length in octets must be one of {4,6,8,10,12,14,16}");
+        }
+
+        int q = 15 - newNonce.length;
+        if (q < 8 && (param.getDataLength() >>> (8 * q)) != 0)
+        {
+            throw new IllegalArgumentException("CCM data length too large for choice of nonce");
+        }
+
+        if (param.getKey() != null)
+        {
+            keyParam = param.getKey();
+        }
+        else if (keyParam == null)
+        {
+            throw new IllegalArgumentException("key must be specified in initial init");
+        }
+
+        this.forEncryption = forEncryption;
+        this.nonce = newNonce;
+        this.initialAssociatedText = param.getAssociatedText();
+        this.macSize = macSizeBits >>> 3;
+        this.associatedTextLength = param.getAssociatedTextLength();
+        this.dataLength = param.getDataLength();
+        this.macBlock = null;
+
+        // CBC-MAC and counter mode both only use the forward cipher
+        cipher.init(true, keyParam);
+
+        reset();
+    }
+
+    public String getAlgorithmName()
+    {
+        return cipher.getAlgorithmName() + "/CCM";
+    }
+
+    public void processAADByte(byte in)
+    {
+        processAADBytes(new byte[]{ in }, 0, 1);
+    }
+
+    public void processAADBytes(byte[] in, int inOff, int len)
+    {
+        checkInitialised();
+
+        if (dataStarted)
+        {
+            throw new IllegalStateException("AAD data cannot be added after encryption/decryption processing has begun.");
+        }
+        if (len > associatedTextLength - associatedTextCount)
+        {
+            throw new DataLengthException("associated text exceeds the length given at init");
+        }
+
+        updateMac(in, inOff, len);
+        associatedTextCount += len;
+    }
+
+    public int processByte(byte in, byte[] out, int outOff)
+        throws DataLengthException, IllegalStateException
+    {
+        return processBytes(new byte[]{ in }, 0, 1, out, outOff);
+    }
+
+    public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
+        throws DataLengthException, IllegalStateException
+    {
+        if (in.length < (inOff + len))
+        {
+            throw new DataLengthException("Input buffer too short");
+        }
+
+        startData();
+
+        int dataLen = (int)Math.min(len, dataLength - dataCount);
+        int tagLen = len - dataLen;
+
+        // on decryption the tag follows the data
+        if (tagLen > 0 && (forEncryption || tagLen > macSize - tagCount))
+        {
+            throw new DataLengthException("CCM data exceeds the length given at init");
+        }
+        if (dataLen > 0 && out.length < (outOff + dataLen))
+        {
+            throw new OutputLengthException("Output buffer too short.");
+        }
+
+        if (tagLen > 0)
+        {
+            System.arraycopy(in, inOff + dataLen, tag, tagCount, tagLen);
+            tagCount += tagLen;
+        }
+        if (dataLen > 0)
+        {
+            processData(in, inOff, dataLen, out, outOff);
+        }
+
+        return dataLen;
+    }
+
+    public int doFinal(byte[] out, int outOff)
+        throws IllegalStateException, InvalidCipherTextException
+    {
+        startData();
+
+        if (forEncryption && out.length < (outOff + macSize))
+        {
+            throw new OutputLengthException("Output buffer too short.");
+        }
+
+        try
+        {
+            if (dataCount != dataLength || (!forEncryption && tagCount != macSize))
+            {
+                if (forEncryption)
+                {
+                    throw new IllegalStateException("CCM data shorter than the length given at init");
+                }
+                throw new InvalidCipherTextException("data too short");
+            }
+
+            if (macPos != 0)
+            {
+                cipher.processBlock(mac, 0, mac, 0);
+                macPos = 0;
+            }
+
+            // S0 - the counter block with a count of zero encrypts the tag
+            byte[] s0 = new byte[BLOCK_SIZE];
+            s0[0] = counter[0];
+            System.arraycopy(nonce, 0, s0, 1, nonce.length);
+            cipher.processBlock(s0, 0, s0, 0);
+
+            macBlock = new byte[BLOCK_SIZE];
+            for (int i = 0; i < macSize; i++)
+            {
+                macBlock[i] = (byte)(mac[i] ^ s0[i]);
+            }
+
+            if (forEncryption)
+            {
+                System.arraycopy(macBlock, 0, out, outOff, macSize);
+
+                return macSize;
+            }
+
+            if (!Arrays.constantTimeAreEqual(macSize, macBlock, 0, tag, 0))
+            {
+                throw new InvalidCipherTextException("mac check in CCM failed");
+            }
+
+            return 0;
+        }
+        finally
+        {
+            reset();
+        }
+    }
+
+    /**
+     * Reset the cipher to the state it was in after init(), ready to process a new message of the same lengths.
+     */
+    public void reset()
+    {
+        Arrays.fill(mac, (byte)0);
+        Arrays.fill(keyStream, (byte)0);
+        Arrays.fill(tag, (byte)0);
+        macPos = 0;
+        associatedTextCount = 0;
+        dataCount = 0;
+        tagCount = 0;
+        dataStarted = false;
+
+        if (nonce == null)
+        {
+            return;
+        }
+
+        int q = 15 - nonce.length;
+
+        // B0: flags, nonce and the data length
+        mac[0] = (byte)(((associatedTextLength > 0) ? 0x40 : 0) | (((macSize - 2) / 2) << 3) | (q - 1));
+        System.arraycopy(nonce, 0, mac, 1, nonce.length);
+        long len = dataLength;
+        for (int i = BLOCK_SIZE - 1; len != 0; i--)
+        {
+            mac[i] = (byte)len;
+            len >>>= 8;
+        }
+        cipher.processBlock(mac, 0, mac, 0);
+
+        if (associatedTextLength > 0)
+        {
+            byte[] encoding;
+            if (associatedTextLength < ((1 << 16) - (1 << 8)))
+            {
+                encoding = new byte[]{ (byte)(associatedTextLength >> 8), (byte)associatedTextLength };
+            }
+            else if (associatedTextLength <= 0xffffffffL)
+            {
+                encoding = new byte[]{ (byte)0xff, (byte)0xfe, (byte)(associatedTextLength >> 24),
+                    (byte)(associatedTextLength >> 16), (byte)(associatedTextLength >> 8), (byte)associatedTextLength };
+            }
+            else
+            {
+                encoding = new byte[10];
+                encoding[0] = (byte)0xff;
+                encoding[1] = (byte)0xff;
+                len = associatedTextLength;
+                for (int i = 9; i >= 2; i--)
+                {
+                    encoding[i] = (byte)len;
+                    len >>>= 8;
+                }
+            }
+            updateMac(encoding, 0, encoding.length);
+        }
+
+        // A0, the data uses counters from 1 on
+        Arrays.fill(counter, (byte)0);
+        counter[0] = (byte)(q - 1);
+        System.arraycopy(nonce, 0, counter, 1, nonce.length);
+
+        if (initialAssociatedText != null)
+        {
+            processAADBytes(initialAssociatedText, 0, initialAssociatedText.length);
+        }
+    }
+
+    /**
+     * Returns a byte array containing the mac calculated as part of the
+     * last encrypt or decrypt operation.
+     *
+     * @return the last mac calculated.
+     */
+    public byte[] getMac()
+    {
+        if (macBlock == null)
+        {
+            return new byte[macSize];
+        }
+
+        return Arrays.copyOfRange(macBlock, 0, macSize);
+    }
+
+    public int getUpdateOutputSize(int len)
+    {
+        return (int)Math.max(0, Math.min(len, dataLength - dataCount));
+    }
+
+    public int getOutputSize(int len)
+    {
+        if (forEncryption)
+        {
+            return len + macSize;
+        }
+
+        return getUpdateOutputSize(len);
+    }
+
+    private void checkInitialised()
+    {
+        if (nonce == null)
+        {
+            throw new IllegalStateException("CCM cipher unitialized.");
+        }
+    }
+
+    /**
+     * Move from associated text to data, padding out the associated text for the MAC.
+     */
+    private void startData()
+    {
+        checkInitialised();
+
+        if (dataStarted)
+        {
+            return;
+        }
+        if (associatedTextCount != associatedTextLength)
+        {
+            throw new IllegalStateException("associated text shorter than the length given at init");
+        }
+
+        if (macPos != 0)
+        {
+            cipher.processBlock(mac, 0, mac, 0);
+            macPos = 0;
+        }
+        dataStarted = true;
+    }
+
+    private void updateMac(byte[] in, int inOff, int len)
+    {
+        while (len > 0)
+        {
+            if (macPos == 0 && len >= BLOCK_SIZE)
+            {
+                for (int i = 0; i < BLOCK_SIZE; i++)
+                {
+                    mac[i] ^= in[inOff + i];
+                }
+                cipher.processBlock(mac, 0, mac, 0);
+
+                inOff += BLOCK_SIZE;
+                len -= BLOCK_SIZE;
+                continue;
+            }
+
+            mac[macPos++] ^= in[inOff++];
+            len--;
+
+            if (macPos == BLOCK_SIZE)
+            {
+                cipher.processBlock(mac, 0, mac, 0);
+                macPos = 0;
+            }
+        }
+    }
+
+    /**
+     * MAC the plain text and apply the key stream - the MAC position and the key stream position are the same,
+     * as the data starts on a block boundary.
+     */
+    private void processData(byte[] in, int inOff, int len, byte[] out, int outOff)
+    {
+        dataCount += len;
+
+        while (len > 0)
+        {
+            if (macPos == 0)
+            {
+                incrementCounter();
+                cipher.processBlock(counter, 0, keyStream, 0);
+
+                if (len >= BLOCK_SIZE)
+                {
+                    for (int i = 0; i < BLOCK_SIZE; i++)
+                    {
+                        byte c = in[inOff + i];
+                        byte p = forEncryption ? c : (byte)(c ^ keyStream[i]);
+                        mac[i] ^= p;
+                        out[outOff + i] = forEncryption ? (byte)(c ^ keyStream[i]) : p;
+                    }
+                    cipher.processBlock(mac, 0, mac, 0);
+
+                    inOff += BLOCK_SIZE;
+                    outOff += BLOCK_SIZE;
+                    len -= BLOCK_SIZE;
+                    continue;
+                }
+            }
+
+            byte c = in[inOff++];
+            byte k = keyStream[macPos];
+            byte p = forEncryption ? c : (byte)(c ^ k);
+            mac[macPos++] ^= p;
+            out[outOff++] = (byte)(c ^ k);
+            len--;
+
+            if (macPos == BLOCK_SIZE)
+            {
+                cipher.processBlock(mac, 0, mac, 0);
+                macPos = 0;
+            }
+        }
+    }
+
+    private void incrementCounter()
+    {
+        for (int i = BLOCK_SIZE - 1; i > nonce.length; i--)
+        {
+            if (++counter[i] != 0)
+            {
+                break;
+            }
+        }
+    }
+}
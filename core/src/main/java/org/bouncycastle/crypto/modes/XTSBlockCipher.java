@@ -0,0 +1,312 @@
+package org.bouncycastle.crypto.modes;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.MultiBlockCipher;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Pack;
+
+/**
+ * Implementation of the XTS mode from IEEE 1619 (XTS-AES), as also given in NIST SP 800-38E.
+ * <p>
+ * Data is processed a data unit, or sector, at a time, each sector being addressed by its sector number, so any
+ * sector can be encrypted or decrypted without reference to the others. Sectors that are not a multiple of the block
+ * size are handled with ciphertext stealing. The key passed to init() is the data key followed by the tweak key, with
+ * each half being a key for the underlying cipher.
+ * </p>
+ * <p>
+ * Apart from its keys an instance holds no state between calls, so independent sectors can be processed in parallel
+ * by giving each thread its own instance.
+ * </p>
+ */
+public class XTSBlockCipher
+{
+    private static final int BLOCK_SIZE = 16;
+
+    /**
+     * IEEE 1619 limits a data unit to 2^20 blocks.
+     */
+    private static final int MAX_DATA_UNIT = (1 << 20) * BLOCK_SIZE;
+
+    /**
+     * Number of blocks tweaked and passed to the cipher in one call.
+     */
+    private static final int BATCH_BLOCKS = 64;
+
+    private final BlockCipher cipher;
+    private final BlockCipher tweakCipher;
+    private final MultiBlockCipher mbCipher;
+    private final byte[] tweaks = new byte[BATCH_BLOCKS * BLOCK_SIZE];
+    private final byte[] x = new byte[BLOCK_SIZE];
+    private final byte[] y = new byte[BLOCK_SIZE];
+
+    private boolean forEncryption;
+    private boolean initialised;
+
+    /**
+     * Create an XTS-AES cipher.
+     */
+    public XTSBlockCipher()
+    {
+        this(AESEngine.newInstance(), AESEngine.newInstance());
+    }
+
+    /**
+     * Create an XTS cipher from two instances of a 128 bit block cipher.
+     *
+     * @param cipher the cipher used with the data key.
+     * @param tweakCipher the cipher used with the tweak key.
+     */
+    public XTSBlockCipher(BlockCipher cipher, BlockCipher tweakCipher)
+    {
+        if (cipher.getBlockSize() != BLOCK_SIZE || tweakCipher.getBlockSize() != BLOCK_SIZE)
+        {
+            throw new IllegalArgumentException("XTS requires a cipher with a block size of " + BLOCK_SIZE + " bytes");
+        }
+
+        this.cipher = cipher;
+        this.tweakCipher = tweakCipher;
+        this.mbCipher = (cipher instanceof MultiBlockCipher) ? (MultiBlockCipher)cipher : null;
+    }
+
+    /**
+     * Initialise the cipher.
+     *
+     * @param forEncryption true if we are setting up for encryption, false otherwise.
+     * @param params a KeyParameter holding the data key followed by the tweak key.
+     * @throws IllegalArgumentException if the parameters are inappropriate.
+     */
+    public void init(boolean forEncryption, CipherParameters params)
+        throws IllegalArgumentException
+    {
+        if (!(params instanceof KeyParameter))
+        {
+            throw new IllegalArgumentException("invalid parameters passed to XTS");
+        }
+
+        byte[] key = ((KeyParameter)params).getKey();
+        int half = key.length / 2;
+
+        if (key.length == 0 || key.length % 2 != 0)
+        {
+            throw new IllegalArgumentException("XTS key must be made up of two keys of the same length");
+        }
+        if (Arrays.areEqual(key, 0, half, key, half, key.length))
+        {
+            throw new IllegalArgumentException("XTS data and tweak keys must be different");
+        }
+
+        cipher.init(forEncryption, new KeyParameter(key, 0, half));
+        tweakCipher.init(true, new KeyParameter(key, half, half));
+
+        this.forEncryption = forEncryption;
+        this.initialised = true;
+    }
+
+    public String getAlgorithmName()
+    {
+        return cipher.getAlgorithmName() + "/XTS";
+    }
+
+    public int getBlockSize()
+    {
+        return BLOCK_SIZE;
+    }
+
+    /**
+     * Process a single sector.
+     *
+     * @param sectorNumber the sector number, treated as an unsigned value.
+     * @param in the array containing the input.
+     * @param inOff the offset of the sector in the input array.
+     * @param len the length of the sector, at least one block.
+     * @param out the array the result is written to - may be the same as in.
+     * @param outOff the offset the result is written at.
+     * @return the number of bytes processed.
+     * @throws DataLengthException if the sector length is out of range or the input is too short.
+     */
+    public int processSector(long sectorNumber, byte[] in, int inOff, int len, byte[] out, int outOff)
+        throws DataLengthException
+    {
+        return processSectors(sectorNumber, len, in, inOff, 1, out, outOff);
+    }
+
+    /**
+     * Process a run of consecutively numbered sectors of the same size.
+     *
+     * @param firstSectorNumber the number of the first sector, treated as an unsigned value.
+     * @param sectorSize the length of each sector, at least one block.
+     * @param in the array containing the input.
+     * @param inOff the offset of the first sector in the input array.
+     * @param sectorCount the number of sectors to process.
+     * @param out the array the result is written to - may be the same as in.
+     * @param outOff the offset the result is written at.
+     * @return the number of bytes processed.
+     * @throws DataLengthException if the sector size is out of range or the input is too short.
+     */
+    public int processSectors(long firstSectorNumber, int sectorSize, byte[] in, int inOff, int sectorCount,
+        byte[] out, int outOff)
+        throws DataLengthException
+    {
+        if (!initialised)
+        {
+            throw new IllegalStateException("XTS cipher not initialised");
+        }
+        if (sectorSize < BLOCK_SIZE || sectorSize > MAX_DATA_UNIT)
+        {
+            throw new DataLengthException("XTS sector size must be between " + BLOCK_SIZE + " and " + MAX_DATA_UNIT
+                + " bytes");
+        }
+        if (sectorCount < 0)
+        {
+            throw new IllegalArgumentException("sectorCount cannot be negative");
+        }
+
+        long total = (long)sectorSize * sectorCount;
+        if (inOff < 0 || inOff + total > in.length)
+        {
+            throw new DataLengthException("input buffer too short");
+        }
+        if (outOff < 0 || outOff + total > out.length)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        int len = (int)total;
+        if (in == out && inOff != outOff && inOff < outOff + len && outOff < inOff + len)
+        {
+            in = Arrays.copyOfRange(in, inOff, inOff + len);
+            inOff = 0;
+        }
+
+        for (int i = 0; i < sectorCount; i++)
+        {
+            processDataUnit(firstSectorNumber + i, in, inOff, sectorSize, out, outOff);
+
+            inOff += sectorSize;
+            outOff += sectorSize;
+        }
+
+        return len;
+    }
+
+    public void reset()
+    {
+        cipher.reset();
+        tweakCipher.reset();
+    }
+
+    private void processDataUnit(long sectorNumber, byte[] in, int inOff, int len, byte[] out, int outOff)
+    {
+        // T = E(K2, i), with i as a 128 bit little-endian value
+        Pack.longToLittleEndian(sectorNumber, x, 0);
+        Pack.longToLittleEndian(0L, x, 8);
+        tweakCipher.processBlock(x, 0, x, 0);
+
+        long t0 = Pack.littleEndianToLong(x, 0);
+        long t1 = Pack.littleEndianToLong(x, 8);
+
+        int partial = len % BLOCK_SIZE;
+        int remaining = len / BLOCK_SIZE - (partial == 0 ? 0 : 1);
+        int pos = 0;
+
+        while (remaining > 0)
+        {
+            int count = Math.min(remaining, BATCH_BLOCKS);
+            int batchLen = count * BLOCK_SIZE;
+
+            for (int off = 0; off < batchLen; off += BLOCK_SIZE)
+            {
+                Pack.longToLittleEndian(t0, tweaks, off);
+                Pack.longToLittleEndian(t1, tweaks, off + 8);
+
+                // multiply by alpha
+                long c = t1 >> 63;
+                t1 = (t1 << 1) | (t0 >>> 63);
+                t0 = (t0 << 1) ^ (c & 0x87L);
+            }
+
+            xor(in, inOff + pos, tweaks, out, outOff + pos, batchLen);
+            processBlocks(out, outOff + pos, count);
+            xor(out, outOff + pos, tweaks, out, outOff + pos, batchLen);
+
+            pos += batchLen;
+            remaining -= count;
+        }
+
+        if (partial != 0)
+        {
+            long c = t1 >> 63;
+            long u1 = (t1 << 1) | (t0 >>> 63);
+            long u0 = (t0 << 1) ^ (c & 0x87L);
+
+            // ciphertext stealing - decryption uses the last two tweaks in the opposite order
+            if (forEncryption)
+            {
+                stealCipherText(in, inOff + pos, partial, out, outOff + pos, t0, t1, u0, u1);
+            }
+            else
+            {
+                stealCipherText(in, inOff + pos, partial, out, outOff + pos, u0, u1, t0, t1);
+            }
+        }
+    }
+
+    /**
+     * Process the last full block and the partial block after it, where the partial block takes the head of the
+     * processed full block, and the full block is made from the partial block plus the stolen tail.
+     */
+    private void stealCipherText(byte[] in, int inOff, int partial, byte[] out, int outOff,
+        long f0, long f1, long s0, long s1)
+    {
+        System.arraycopy(in, inOff, x, 0, BLOCK_SIZE);
+        processBlock(x, f0, f1);
+
+        System.arraycopy(in, inOff + BLOCK_SIZE, y, 0, partial);
+        System.arraycopy(x, partial, y, partial, BLOCK_SIZE - partial);
+        System.arraycopy(x, 0, out, outOff + BLOCK_SIZE, partial);
+
+        processBlock(y, s0, s1);
+        System.arraycopy(y, 0, out, outOff, BLOCK_SIZE);
+
+        Arrays.fill(x, (byte)0);
+        Arrays.fill(y, (byte)0);
+    }
+
+    private void processBlock(byte[] block, long t0, long t1)
+    {
+        Pack.longToLittleEndian(t0, tweaks, 0);
+        Pack.longToLittleEndian(t1, tweaks, 8);
+
+        xor(block, 0, tweaks, block, 0, BLOCK_SIZE);
+        cipher.processBlock(block, 0, block, 0);
+        xor(block, 0, tweaks, block, 0, BLOCK_SIZE);
+    }
+
+    private void processBlocks(byte[] buf, int off, int count)
+    {
+        if (mbCipher != null)
+        {
+            mbCipher.processBlocks(buf, off, count, buf, off);
+            return;
+        }
+
+        for (int i = 0; i < count; i++)
+        {
+            cipher.processBlock(buf, off, buf, off);
+            off += BLOCK_SIZE;
+        }
+    }
+
+    private static void xor(byte[] a, int aOff, byte[] tweaks, byte[] out, int outOff, int len)
+    {
+        for (int i = 0; i < len; i++)
+        {
+            out[outOff + i] = (byte)(a[aOff + i] ^ tweaks[i]);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.bouncycastle.crypto.modes.gcm;
+
+/**
+ * A GCM multiplier capable of folding several blocks into a GHASH value at a time.
+ */
+public interface GCMMultiBlockMultiplier
+    extends GCMMultiplier
+{
+    /**
+     * Fold blockCount consecutive blocks from in into the GHASH value x. The result is the same as
+     * calling {@link #multiplyH(byte[])} on x after adding each block into it in turn.
+     *
+     * @param x the 16 byte GHASH value, updated in place.
+     * @param in the array containing the blocks.
+     * @param inOff offset of the first block in in.
+     * @param blockCount the number of 16 byte blocks to process.
+     */
+    void multiplyBlocksH(byte[] x, byte[] in, int inOff, int blockCount);
+}
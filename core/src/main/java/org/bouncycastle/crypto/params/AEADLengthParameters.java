@@ -0,0 +1,76 @@
+package org.bouncycastle.crypto.params;
+
+/**
+ * AEAD parameters which also give the lengths of the message to be processed, for modes such as CCM which need
+ * them before they can process anything. Modes which don't need the lengths treat these as ordinary
+ * AEADParameters.
+ */
+public class AEADLengthParameters
+    extends AEADParameters
+{
+    private final long associatedTextLength;
+    private final long dataLength;
+
+    /**
+     * Base constructor.
+     *
+     * @param key key to be used by underlying cipher
+     * @param macSize macSize in bits
+     * @param nonce nonce to be used
+     * @param associatedTextLength the total length of the associated text.
+     * @param dataLength the length of the plain text.
+     */
+    public AEADLengthParameters(KeyParameter key, int macSize, byte[] nonce, long associatedTextLength,
+        long dataLength)
+    {
+        this(key, macSize, nonce, null, associatedTextLength, dataLength);
+    }
+
+    /**
+     * Base constructor.
+     *
+     * @param key key to be used by underlying cipher
+     * @param macSize macSize in bits
+     * @param nonce nonce to be used
+     * @param associatedText initial associated text, if any
+     * @param associatedTextLength the total length of the associated text, including any initial associated text.
+     * @param dataLength the length of the plain text.
+     */
+    public AEADLengthParameters(KeyParameter key, int macSize, byte[] nonce, byte[] associatedText,
+        long associatedTextLength, long dataLength)
+    {
+        super(key, macSize, nonce, associatedText);
+
+        if (associatedTextLength < 0 || dataLength < 0)
+        {
+            throw new IllegalArgumentException("lengths cannot be negative");
+        }
+        if (associatedText != null && associatedText.length > associatedTextLength)
+        {
+            throw new IllegalArgumentException("initial associated text longer than associatedTextLength");
+        }
+
+        this.associatedTextLength = associatedTextLength;
+        this.dataLength = dataLength;
+    }
+
+    /**
+     * Return the total length of the associated text.
+     *
+     * @return the associated text length in bytes.
+     */
+    public long getAssociatedTextLength()
+    {
+        return associatedTextLength;
+    }
+
+    /**
+     * Return the length of the plain text - on decryption this excludes the tag.
+     *
+     * @return the plain text length in bytes.
+     */
+    public long getDataLength()
+    {
+        return dataLength;
+    }
+}
@@ -0,0 +1,73 @@
+package org.bouncycastle.crypto.params;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A key parameter which also carries the values engines derive from the key, such as AES round keys, GCM
+ * multiplication tables, or the HMAC ipad/opad digest states.
+ * <p>
+ * The first engine initialised with the key computes what it needs and stores it here, engines initialised
+ * later, in this or any other thread, pick the stored value up instead of repeating the key schedule. Stored
+ * values are never modified once stored, so they can be shared freely. An engine that does not recognise
+ * this class just sees an ordinary KeyParameter.
+ * </p>
+ * <p>
+ * Note: as the prepared values are derived from the key they should be treated with the same care as the key
+ * itself.
+ * </p>
+ */
+public class PreparedKeyParameter
+    extends KeyParameter
+{
+    private volatile Map prepared = new HashMap();
+
+    public PreparedKeyParameter(
+        byte[]  key)
+    {
+        super(key);
+    }
+
+    public PreparedKeyParameter(
+        byte[]  key,
+        int     keyOff,
+        int     keyLen)
+    {
+        super(key, keyOff, keyLen);
+    }
+
+    /**
+     * Return a previously stored value derived from this key.
+     *
+     * @param id the identifier the value was stored under.
+     * @return the value, or null if none has been stored yet.
+     */
+    public Object getPrepared(Object id)
+    {
+        return prepared.get(id);
+    }
+
+    /**
+     * Store a value derived from this key, unless another thread got there first. The value must not be
+     * modified after it has been passed in.
+     *
+     * @param id an identifier for the value, which should name the engine and any configuration it depends on.
+     * @param value the derived value.
+     * @return the value now stored under id, which should be used in place of the one passed in.
+     */
+    public synchronized Object putPrepared(Object id, Object value)
+    {
+        Object existing = prepared.get(id);
+        if (existing != null)
+        {
+            return existing;
+        }
+
+        // copy on write, so readers never need to lock
+        Map update = new HashMap(prepared);
+        update.put(id, value);
+        prepared = update;
+
+        return value;
+    }
+}
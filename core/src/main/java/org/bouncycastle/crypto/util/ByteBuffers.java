@@ -0,0 +1,539 @@
+package org.bouncycastle.crypto.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.Signer;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * Utility methods for feeding ByteBuffers to digests, MACs, signers and ciphers.
+ * <p>
+ * Buffers backed by an accessible array are processed in place, with no copying. Other buffers, such as direct
+ * and memory mapped buffers, are copied, as the digests, MACs, signers and ciphers only take arrays - the data is
+ * moved through a scratch array a chunk at a time, so no garbage proportional to the amount of data is created. The
+ * scratch array is allocated for each call, at most 4KB of input at a time, unless the caller passes in their own.
+ * The part of the scratch array used is cleared before each method returns.
+ * </p>
+ * <p>
+ * As with the JCE, input is consumed from the input buffer's position to its limit, output is written from the output
+ * buffer's position, and both positions are advanced past the bytes read and written. An input and output buffer can
+ * share content, but they cannot be the same object - use {@link ByteBuffer#duplicate()} to process a buffer in place.
+ * </p>
+ */
+public final class ByteBuffers
+{
+    private static final int CHUNK_SIZE = 4096;
+
+    private ByteBuffers()
+    {
+    }
+
+    /**
+     * Update a digest with the remaining bytes in a buffer.
+     *
+     * @param digest the digest to update.
+     * @param in the buffer containing the input.
+     */
+    public static void update(Digest digest, ByteBuffer in)
+    {
+        update(digest, in, newScratch(in));
+    }
+
+    /**
+     * Update a digest with the remaining bytes in a buffer. Input not backed by an accessible array is copied
+     * through buf a chunk at a time.
+     *
+     * @param digest the digest to update.
+     * @param in the buffer containing the input.
+     * @param buf the scratch array to copy the input through, cleared before returning.
+     */
+    public static void update(Digest digest, ByteBuffer in, byte[] buf)
+    {
+        if (in.hasArray())
+        {
+            int len = in.remaining();
+            digest.update(in.array(), in.arrayOffset() + in.position(), len);
+            in.position(in.position() + len);
+            return;
+        }
+
+        checkScratch(in, buf);
+
+        int total = in.remaining();
+        try
+        {
+            while (in.hasRemaining())
+            {
+                int len = Math.min(buf.length, in.remaining());
+                in.get(buf, 0, len);
+                digest.update(buf, 0, len);
+            }
+        }
+        finally
+        {
+            Arrays.fill(buf, 0, Math.min(buf.length, total), (byte)0);
+        }
+    }
+
+    /**
+     * Complete a digest calculation, writing the result to a buffer.
+     *
+     * @param digest the digest to complete.
+     * @param out the buffer to write the digest to.
+     * @return the number of bytes written.
+     */
+    public static int doFinal(Digest digest, ByteBuffer out)
+    {
+        int len = digest.getDigestSize();
+        checkOutput(out, len);
+
+        if (out.hasArray())
+        {
+            digest.doFinal(out.array(), out.arrayOffset() + out.position());
+            out.position(out.position() + len);
+            return len;
+        }
+
+        byte[] buf = new byte[len];
+        digest.doFinal(buf, 0);
+        out.put(buf);
+        Arrays.fill(buf, (byte)0);
+        return len;
+    }
+
+    /**
+     * Update a MAC with the remaining bytes in a buffer.
+     *
+     * @param mac the MAC to update.
+     * @param in the buffer containing the input.
+     */
+    public static void update(Mac mac, ByteBuffer in)
+    {
+        update(mac, in, newScratch(in));
+    }
+
+    /**
+     * Update a MAC with the remaining bytes in a buffer. Input not backed by an accessible array is copied
+     * through buf a chunk at a time.
+     *
+     * @param mac the MAC to update.
+     * @param in the buffer containing the input.
+     * @param buf the scratch array to copy the input through, cleared before returning.
+     */
+    public static void update(Mac mac, ByteBuffer in, byte[] buf)
+    {
+        if (in.hasArray())
+        {
+            int len = in.remaining();
+            mac.update(in.array(), in.arrayOffset() + in.position(), len);
+            in.position(in.position() + len);
+            return;
+        }
+
+        checkScratch(in, buf);
+
+        int total = in.remaining();
+        try
+        {
+            while (in.hasRemaining())
+            {
+                int len = Math.min(buf.length, in.remaining());
+                in.get(buf, 0, len);
+                mac.update(buf, 0, len);
+            }
+        }
+        finally
+        {
+            Arrays.fill(buf, 0, Math.min(buf.length, total), (byte)0);
+        }
+    }
+
+    /**
+     * Complete a MAC calculation, writing the result to a buffer.
+     *
+     * @param mac the MAC to complete.
+     * @param out the buffer to write the MAC to.
+     * @return the number of bytes written.
+     */
+    public static int doFinal(Mac mac, ByteBuffer out)
+    {
+        int len = mac.getMacSize();
+        checkOutput(out, len);
+
+        if (out.hasArray())
+        {
+            mac.doFinal(out.array(), out.arrayOffset() + out.position());
+            out.position(out.position() + len);
+            return len;
+        }
+
+        byte[] buf = new byte[len];
+        mac.doFinal(buf, 0);
+        out.put(buf);
+        Arrays.fill(buf, (byte)0);
+        return len;
+    }
+
+    /**
+     * Update a signer with the remaining bytes in a buffer.
+     *
+     * @param signer the signer to update.
+     * @param in the buffer containing the input.
+     */
+    public static void update(Signer signer, ByteBuffer in)
+    {
+        update(signer, in, newScratch(in));
+    }
+
+    /**
+     * Update a signer with the remaining bytes in a buffer. Input not backed by an accessible array is copied
+     * through buf a chunk at a time.
+     *
+     * @param signer the signer to update.
+     * @param in the buffer containing the input.
+     * @param buf the scratch array to copy the input through, cleared before returning.
+     */
+    public static void update(Signer signer, ByteBuffer in, byte[] buf)
+    {
+        if (in.hasArray())
+        {
+            int len = in.remaining();
+            signer.update(in.array(), in.arrayOffset() + in.position(), len);
+            in.position(in.position() + len);
+            return;
+        }
+
+        checkScratch(in, buf);
+
+        int total = in.remaining();
+        try
+        {
+            while (in.hasRemaining())
+            {
+                int len = Math.min(buf.length, in.remaining());
+                in.get(buf, 0, len);
+                signer.update(buf, 0, len);
+            }
+        }
+        finally
+        {
+            Arrays.fill(buf, 0, Math.min(buf.length, total), (byte)0);
+        }
+    }
+
+    /**
+     * Process the remaining bytes in a buffer with a stream cipher.
+     *
+     * @param cipher the stream cipher to use.
+     * @param in the buffer containing the input.
+     * @param out the buffer to write the output to.
+     * @return the number of bytes written.
+     * @throws DataLengthException if the output buffer is too small.
+     */
+    public static int processBytes(StreamCipher cipher, ByteBuffer in, ByteBuffer out)
+        throws DataLengthException
+    {
+        checkBuffers(in, out);
+
+        int total = in.remaining();
+        checkOutput(out, total);
+
+        if (in.hasArray() && out.hasArray())
+        {
+            cipher.processBytes(in.array(), in.arrayOffset() + in.position(), total, out.array(),
+                out.arrayOffset() + out.position());
+            in.position(in.position() + total);
+            out.position(out.position() + total);
+            return total;
+        }
+
+        byte[] buf = new byte[Math.min(CHUNK_SIZE, total)];
+        try
+        {
+            while (in.hasRemaining())
+            {
+                int len = Math.min(buf.length, in.remaining());
+                in.get(buf, 0, len);
+                cipher.processBytes(buf, 0, len, buf, 0);
+                out.put(buf, 0, len);
+            }
+        }
+        finally
+        {
+            Arrays.fill(buf, (byte)0);
+        }
+
+        return total;
+    }
+
+    /**
+     * Process the remaining bytes in a buffer with a buffered block cipher.
+     *
+     * @param cipher the buffered block cipher to use.
+     * @param in the buffer containing the input.
+     * @param out the buffer to write the output to.
+     * @return the number of bytes written.
+     * @throws DataLengthException if the output buffer is too small.
+     */
+    public static int processBytes(BufferedBlockCipher cipher, ByteBuffer in, ByteBuffer out)
+        throws DataLengthException
+    {
+        checkBuffers(in, out);
+        checkOutput(out, cipher.getUpdateOutputSize(in.remaining()));
+
+        if (in.hasArray() && out.hasArray())
+        {
+            int len = in.remaining();
+            int resultLen = cipher.processBytes(in.array(), in.arrayOffset() + in.position(), len, out.array(),
+                out.arrayOffset() + out.position());
+            in.position(in.position() + len);
+            out.position(out.position() + resultLen);
+            return resultLen;
+        }
+
+        byte[] buf = new byte[Math.min(CHUNK_SIZE, in.remaining())];
+        byte[] outBuf = new byte[cipher.getUpdateOutputSize(buf.length)];
+        try
+        {
+            int resultLen = 0;
+            while (in.hasRemaining())
+            {
+                int len = Math.min(buf.length, in.remaining());
+                outBuf = ensureOutput(outBuf, cipher.getUpdateOutputSize(len));
+                in.get(buf, 0, len);
+                int outLen = cipher.processBytes(buf, 0, len, outBuf, 0);
+                out.put(outBuf, 0, outLen);
+                resultLen += outLen;
+            }
+            return resultLen;
+        }
+        finally
+        {
+            Arrays.fill(buf, (byte)0);
+            Arrays.fill(outBuf, (byte)0);
+        }
+    }
+
+    /**
+     * Complete processing with a buffered block cipher, writing any remaining output to a buffer.
+     *
+     * @param cipher the buffered block cipher to use.
+     * @param out the buffer to write the output to.
+     * @return the number of bytes written.
+     * @throws DataLengthException if the output buffer is too small, or the input was not block aligned when it
+     * needed to be.
+     * @throws InvalidCipherTextException if padding is expected and not found.
+     */
+    public static int doFinal(BufferedBlockCipher cipher, ByteBuffer out)
+        throws DataLengthException, InvalidCipherTextException
+    {
+        checkOutput(out, cipher.getOutputSize(0));
+
+        if (out.hasArray())
+        {
+            int resultLen = cipher.doFinal(out.array(), out.arrayOffset() + out.position());
+            out.position(out.position() + resultLen);
+            return resultLen;
+        }
+
+        byte[] outBuf = new byte[cipher.getOutputSize(0)];
+        try
+        {
+            int resultLen = cipher.doFinal(outBuf, 0);
+            out.put(outBuf, 0, resultLen);
+            return resultLen;
+        }
+        finally
+        {
+            Arrays.fill(outBuf, (byte)0);
+        }
+    }
+
+    /**
+     * Add the remaining bytes in a buffer to the associated data of an AEAD cipher.
+     *
+     * @param cipher the AEAD cipher to use.
+     * @param in the buffer containing the associated data.
+     */
+    public static void processAADBytes(AEADCipher cipher, ByteBuffer in)
+    {
+        processAADBytes(cipher, in, newScratch(in));
+    }
+
+    /**
+     * Add the remaining bytes in a buffer to the associated data of an AEAD cipher. Associated data not backed by an
+     * accessible array is copied through buf a chunk at a time.
+     *
+     * @param cipher the AEAD cipher to use.
+     * @param in the buffer containing the associated data.
+     * @param buf the scratch array to copy the input through, cleared before returning.
+     */
+    public static void processAADBytes(AEADCipher cipher, ByteBuffer in, byte[] buf)
+    {
+        if (in.hasArray())
+        {
+            int len = in.remaining();
+            cipher.processAADBytes(in.array(), in.arrayOffset() + in.position(), len);
+            in.position(in.position() + len);
+            return;
+        }
+
+        checkScratch(in, buf);
+
+        int total = in.remaining();
+        try
+        {
+            while (in.hasRemaining())
+            {
+                int len = Math.min(buf.length, in.remaining());
+                in.get(buf, 0, len);
+                cipher.processAADBytes(buf, 0, len);
+            }
+        }
+        finally
+        {
+            Arrays.fill(buf, 0, Math.min(buf.length, total), (byte)0);
+        }
+    }
+
+    /**
+     * Process the remaining bytes in a buffer with an AEAD cipher.
+     *
+     * @param cipher the AEAD cipher to use.
+     * @param in the buffer containing the input.
+     * @param out the buffer to write the output to.
+     * @return the number of bytes written.
+     * @throws DataLengthException if the output buffer is too small.
+     */
+    public static int processBytes(AEADCipher cipher, ByteBuffer in, ByteBuffer out)
+        throws DataLengthException
+    {
+        checkBuffers(in, out);
+        checkOutput(out, cipher.getUpdateOutputSize(in.remaining()));
+
+        if (in.hasArray() && out.hasArray())
+        {
+            int len = in.remaining();
+            int resultLen = cipher.processBytes(in.array(), in.arrayOffset() + in.position(), len, out.array(),
+                out.arrayOffset() + out.position());
+            in.position(in.position() + len);
+            out.position(out.position() + resultLen);
+            return resultLen;
+        }
+
+        byte[] buf = new byte[Math.min(CHUNK_SIZE, in.remaining())];
+        byte[] outBuf = new byte[cipher.getUpdateOutputSize(buf.length)];
+        try
+        {
+            int resultLen = 0;
+            while (in.hasRemaining())
+            {
+                int len = Math.min(buf.length, in.remaining());
+                outBuf = ensureOutput(outBuf, cipher.getUpdateOutputSize(len));
+                in.get(buf, 0, len);
+                int outLen = cipher.processBytes(buf, 0, len, outBuf, 0);
+                out.put(outBuf, 0, outLen);
+                resultLen += outLen;
+            }
+            return resultLen;
+        }
+        finally
+        {
+            Arrays.fill(buf, (byte)0);
+            Arrays.fill(outBuf, (byte)0);
+        }
+    }
+
+    /**
+     * Complete processing with an AEAD cipher, writing the remaining output, and the tag when encrypting, to a buffer.
+     *
+     * @param cipher the AEAD cipher to use.
+     * @param out the buffer to write the output to.
+     * @return the number of bytes written.
+     * @throws DataLengthException if the output buffer is too small.
+     * @throws InvalidCipherTextException if the tag does not match on decryption.
+     */
+    public static int doFinal(AEADCipher cipher, ByteBuffer out)
+        throws DataLengthException, InvalidCipherTextException
+    {
+        checkOutput(out, cipher.getOutputSize(0));
+
+        if (out.hasArray())
+        {
+            int resultLen = cipher.doFinal(out.array(), out.arrayOffset() + out.position());
+            out.position(out.position() + resultLen);
+            return resultLen;
+        }
+
+        byte[] outBuf = new byte[cipher.getOutputSize(0)];
+        try
+        {
+            int resultLen = cipher.doFinal(outBuf, 0);
+            out.put(outBuf, 0, resultLen);
+            return resultLen;
+        }
+        finally
+        {
+            Arrays.fill(outBuf, (byte)0);
+        }
+    }
+
+    private static void checkBuffers(ByteBuffer in, ByteBuffer out)
+    {
+        if (in == out)
+        {
+            throw new IllegalArgumentException("input and output buffers must not be the same object");
+        }
+    }
+
+    private static void checkOutput(ByteBuffer out, int len)
+    {
+        if (out.isReadOnly())
+        {
+            throw new ReadOnlyBufferException();
+        }
+        if (out.remaining() < len)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+    }
+
+    /**
+     * Return an array with room for outLen bytes of output - outBuf if it is big enough, otherwise a new one, outBuf
+     * being cleared.
+     */
+    private static byte[] ensureOutput(byte[] outBuf, int outLen)
+    {
+        if (outLen <= outBuf.length)
+        {
+            return outBuf;
+        }
+        Arrays.fill(outBuf, (byte)0);
+        return new byte[outLen];
+    }
+
+    private static void checkScratch(ByteBuffer in, byte[] buf)
+    {
+        if (buf.length == 0 && in.hasRemaining())
+        {
+            throw new IllegalArgumentException("scratch buffer must not be empty");
+        }
+    }
+
+    /**
+     * Return a scratch array for copying the input through - not needed if the input is backed by an array.
+     */
+    private static byte[] newScratch(ByteBuffer in)
+    {
+        return new byte[in.hasArray() ? 0 : Math.min(CHUNK_SIZE, in.remaining())];
+    }
+}
@@ -0,0 +1,212 @@
+package org.bouncycastle.crypto.util;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Utility methods for spreading work over an {@link Executor} and waiting for it, as used by the parallel digests,
+ * modes and generators.
+ * <p>
+ * Work the executor rejects is run on the calling thread. Work the executor has accepted but not started by the time
+ * it is waited for is also run on the calling thread, so a caller running on a thread of a bounded executor cannot
+ * deadlock waiting for work queued behind it. While waiting, interrupts are remembered and restored before returning
+ * rather than abandoning work that may still be using shared state. A failure is rethrown as it was thrown by the
+ * work, and work cancelled through the executor is treated as having failed with a {@link CancellationException}.
+ * </p>
+ */
+public final class ConcurrentRuns
+{
+    /**
+     * The work for a single worker.
+     */
+    public interface Run
+    {
+        void run(int worker)
+            throws IOException;
+    }
+
+    private ConcurrentRuns()
+    {
+    }
+
+    /**
+     * Check a parallelism parameter is usable.
+     *
+     * @param parallelism the maximum number of workers.
+     * @throws IllegalArgumentException if parallelism is less than 1.
+     */
+    public static void checkParallelism(int parallelism)
+    {
+        if (parallelism < 1)
+        {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+    }
+
+    /**
+     * Run the work for count workers, the calling thread taking worker 0, and wait for all of them to finish. Work
+     * that only touches memory is expected, an IOException is reported as an IllegalStateException.
+     *
+     * @param executor the executor to run workers 1 to count - 1 on.
+     * @param count the number of workers.
+     * @param run the work for each worker.
+     */
+    public static void run(Executor executor, int count, Run run)
+    {
+        try
+        {
+            runWithIO(executor, count, run);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException(e.toString());
+        }
+    }
+
+    /**
+     * Run the work for count workers, the calling thread taking worker 0, and wait for all of them to finish, even
+     * after one has failed, before rethrowing the first failure.
+     *
+     * @param executor the executor to run workers 1 to count - 1 on.
+     * @param count the number of workers.
+     * @param run the work for each worker.
+     * @throws IOException if the work for a worker throws one.
+     */
+    public static void runWithIO(Executor executor, int count, final Run run)
+        throws IOException
+    {
+        FutureTask[] tasks = new FutureTask[count];
+        for (int i = 1; i < count; i++)
+        {
+            final int worker = i;
+
+            tasks[i] = new FutureTask<Object>(new Callable<Object>()
+            {
+                public Object call()
+                    throws IOException
+                {
+                    run.run(worker);
+                    return null;
+                }
+            });
+
+            execute(executor, tasks[i]);
+        }
+
+        Throwable failure = null;
+        try
+        {
+            run.run(0);
+        }
+        catch (Throwable t)
+        {
+            failure = t;
+        }
+
+        for (int i = 1; i < count; i++)
+        {
+            Throwable t = await(tasks[i]);
+            if (failure == null)
+            {
+                failure = t;
+            }
+        }
+
+        if (failure instanceof IOException)
+        {
+            throw (IOException)failure;
+        }
+        rethrow(failure);
+    }
+
+    /**
+     * Hand a task to an executor, running it on the calling thread if the executor rejects it.
+     *
+     * @param executor the executor to run the task on.
+     * @param task the task.
+     */
+    public static void execute(Executor executor, FutureTask task)
+    {
+        try
+        {
+            executor.execute(task);
+        }
+        catch (RejectedExecutionException e)
+        {
+            task.run();
+        }
+    }
+
+    /**
+     * Wait for a task to finish, running it on the calling thread if no other thread has started it.
+     *
+     * @param task the task to wait for.
+     * @return null if the task completed normally, otherwise what it threw, or a CancellationException if it was
+     * cancelled.
+     */
+    public static Throwable await(FutureTask task)
+    {
+        // a no-op if the task has already been started, finished or cancelled
+        task.run();
+
+        Throwable failure = null;
+        boolean interrupted = false;
+
+        for (;;)
+        {
+            try
+            {
+                task.get();
+                break;
+            }
+            catch (InterruptedException e)
+            {
+                interrupted = true;
+            }
+            catch (ExecutionException e)
+            {
+                failure = e.getCause();
+                break;
+            }
+            catch (CancellationException e)
+            {
+                failure = e;
+                break;
+            }
+        }
+
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        return failure;
+    }
+
+    /**
+     * Rethrow a failure returned by {@link #await(FutureTask)}, doing nothing if there was none.
+     *
+     * @param failure the failure, possibly null.
+     */
+    public static void rethrow(Throwable failure)
+    {
+        if (failure == null)
+        {
+            return;
+        }
+        if (failure instanceof RuntimeException)
+        {
+            throw (RuntimeException)failure;
+        }
+        if (failure instanceof Error)
+        {
+            throw (Error)failure;
+        }
+        throw new IllegalStateException(failure.toString());
+    }
+}
@@ -0,0 +1,387 @@
+package org.bouncycastle.crypto.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.Signer;
+
+/**
+ * Utility methods for feeding the contents of files to digests, MACs and signers by memory mapping them.
+ * <p>
+ * A file is mapped a window of up to windowSize bytes at a time, so the data is read by the page cache rather than
+ * by a read call for every few kilobytes. The digests, MACs and signers only take arrays, so each window is still
+ * copied to them, 64KB at a time through one array allocated for each call. A window stays mapped until its buffer is
+ * garbage collected, so windows should be large - the default is 16MB.
+ * </p>
+ * <p>
+ * The batch methods process a list of files in order and, given an {@link Executor}, have the pages of the next window,
+ * possibly the first window of the next file, loaded on the executor while the current window is processed, so the
+ * I/O for one window overlaps the hashing of another. A file being processed should not be modified or truncated, as
+ * access to a mapping of a truncated file may fail in an unspecified way.
+ * </p>
+ */
+public final class MappedFiles
+{
+    private static final int DEFAULT_WINDOW_SIZE = 16 * 1024 * 1024;
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private MappedFiles()
+    {
+    }
+
+    /**
+     * Update a digest with the contents of a file.
+     *
+     * @param digest the digest to update.
+     * @param file the file containing the input.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static void update(Digest digest, File file)
+        throws IOException
+    {
+        update(new Sink[]{ sink(digest) }, new File[]{ file }, null, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Update a MAC with the contents of a file.
+     *
+     * @param mac the MAC to update.
+     * @param file the file containing the input.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static void update(Mac mac, File file)
+        throws IOException
+    {
+        update(new Sink[]{ sink(mac) }, new File[]{ file }, null, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Update a signer with the contents of a file.
+     *
+     * @param signer the signer to update.
+     * @param file the file containing the input.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static void update(Signer signer, File file)
+        throws IOException
+    {
+        update(new Sink[]{ sink(signer) }, new File[]{ file }, null, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Update a digest with length bytes of a file channel, starting at position. The channel's own position is not
+     * used or changed.
+     *
+     * @param digest the digest to update.
+     * @param channel the channel for the file containing the input.
+     * @param position the offset into the file of the first byte of input.
+     * @param length the number of bytes of input.
+     * @param windowSize the maximum number of bytes to map at a time.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static void update(Digest digest, FileChannel channel, long position, long length, int windowSize)
+        throws IOException
+    {
+        update(sink(digest), channel, position, length, windowSize);
+    }
+
+    /**
+     * Update a MAC with length bytes of a file channel, starting at position. The channel's own position is not
+     * used or changed.
+     *
+     * @param mac the MAC to update.
+     * @param channel the channel for the file containing the input.
+     * @param position the offset into the file of the first byte of input.
+     * @param length the number of bytes of input.
+     * @param windowSize the maximum number of bytes to map at a time.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static void update(Mac mac, FileChannel channel, long position, long length, int windowSize)
+        throws IOException
+    {
+        update(sink(mac), channel, position, length, windowSize);
+    }
+
+    /**
+     * Update a signer with length bytes of a file channel, starting at position. The channel's own position is not
+     * used or changed.
+     *
+     * @param signer the signer to update.
+     * @param channel the channel for the file containing the input.
+     * @param position the offset into the file of the first byte of input.
+     * @param length the number of bytes of input.
+     * @param windowSize the maximum number of bytes to map at a time.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static void update(Signer signer, FileChannel channel, long position, long length, int windowSize)
+        throws IOException
+    {
+        update(sink(signer), channel, position, length, windowSize);
+    }
+
+    /**
+     * Update each digest in a batch with the contents of the file at the same index.
+     *
+     * @param digests the digests to update.
+     * @param files the files containing the input, one for each digest.
+     * @param executor the executor to load the next window on, or null to load each window as it is processed.
+     * @throws IOException if a file cannot be mapped.
+     */
+    public static void update(Digest[] digests, File[] files, Executor executor)
+        throws IOException
+    {
+        Sink[] sinks = new Sink[digests.length];
+        for (int i = 0; i != sinks.length; i++)
+        {
+            sinks[i] = sink(digests[i]);
+        }
+        update(sinks, files, executor, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Update each MAC in a batch with the contents of the file at the same index.
+     *
+     * @param macs the MACs to update.
+     * @param files the files containing the input, one for each MAC.
+     * @param executor the executor to load the next window on, or null to load each window as it is processed.
+     * @throws IOException if a file cannot be mapped.
+     */
+    public static void update(Mac[] macs, File[] files, Executor executor)
+        throws IOException
+    {
+        Sink[] sinks = new Sink[macs.length];
+        for (int i = 0; i != sinks.length; i++)
+        {
+            sinks[i] = sink(macs[i]);
+        }
+        update(sinks, files, executor, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Update each signer in a batch with the contents of the file at the same index.
+     *
+     * @param signers the signers to update.
+     * @param files the files containing the input, one for each signer.
+     * @param executor the executor to load the next window on, or null to load each window as it is processed.
+     * @throws IOException if a file cannot be mapped.
+     */
+    public static void update(Signer[] signers, File[] files, Executor executor)
+        throws IOException
+    {
+        Sink[] sinks = new Sink[signers.length];
+        for (int i = 0; i != sinks.length; i++)
+        {
+            sinks[i] = sink(signers[i]);
+        }
+        update(sinks, files, executor, DEFAULT_WINDOW_SIZE);
+    }
+
+    private static void update(Sink[] sinks, File[] files, Executor executor, int windowSize)
+        throws IOException
+    {
+        if (sinks.length != files.length)
+        {
+            throw new IllegalArgumentException("there must be one file for each input");
+        }
+
+        Windows windows = new Windows(files, windowSize);
+        byte[] buf = new byte[CHUNK_SIZE];
+        try
+        {
+            Window next = windows.next();
+            while (next != null)
+            {
+                Window current = next;
+
+                next = windows.next();
+                if (next != null && executor != null)
+                {
+                    prefetch(executor, next.buffer);
+                }
+
+                // hash through a duplicate so the buffer being loaded is never touched by two threads
+                sinks[current.index].update(current.buffer.duplicate(), buf);
+            }
+        }
+        finally
+        {
+            windows.close();
+        }
+    }
+
+    private static void update(Sink sink, FileChannel channel, long position, long length, int windowSize)
+        throws IOException
+    {
+        if (position < 0 || length < 0)
+        {
+            throw new IllegalArgumentException("position and length must not be negative");
+        }
+        checkWindowSize(windowSize);
+
+        byte[] buf = new byte[(int)Math.min(CHUNK_SIZE, Math.min(windowSize, length))];
+        long end = position + length;
+        while (position < end)
+        {
+            long size = Math.min(windowSize, end - position);
+
+            sink.update(channel.map(FileChannel.MapMode.READ_ONLY, position, size), buf);
+            position += size;
+        }
+    }
+
+    private static void prefetch(Executor executor, final MappedByteBuffer buffer)
+    {
+        try
+        {
+            executor.execute(new Runnable()
+            {
+                public void run()
+                {
+                    buffer.load();
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            // the window will simply be read as it is processed
+        }
+    }
+
+    private static void checkWindowSize(int windowSize)
+    {
+        if (windowSize < 1)
+        {
+            throw new IllegalArgumentException("windowSize must be at least 1");
+        }
+    }
+
+    private static Sink sink(final Digest digest)
+    {
+        return new Sink()
+        {
+            void update(ByteBuffer in, byte[] buf)
+            {
+                ByteBuffers.update(digest, in, buf);
+            }
+        };
+    }
+
+    private static Sink sink(final Mac mac)
+    {
+        return new Sink()
+        {
+            void update(ByteBuffer in, byte[] buf)
+            {
+                ByteBuffers.update(mac, in, buf);
+            }
+        };
+    }
+
+    private static Sink sink(final Signer signer)
+    {
+        return new Sink()
+        {
+            void update(ByteBuffer in, byte[] buf)
+            {
+                ByteBuffers.update(signer, in, buf);
+            }
+        };
+    }
+
+    /**
+     * Something to feed the contents of a window to.
+     */
+    private static abstract class Sink
+    {
+        abstract void update(ByteBuffer in, byte[] buf);
+    }
+
+    private static final class Window
+    {
+        final int index;
+        final MappedByteBuffer buffer;
+
+        Window(int index, MappedByteBuffer buffer)
+        {
+            this.index = index;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * The windows over a list of files, in order. A mapping does not depend on the channel it was created from, so
+     * each file is opened when its first window is needed and closed as soon as its last window is mapped.
+     */
+    private static final class Windows
+    {
+        private final File[] files;
+        private final int windowSize;
+
+        private int index = -1;
+        private FileInputStream in;
+        private FileChannel channel;
+        private long position;
+        private long size;
+
+        Windows(File[] files, int windowSize)
+        {
+            this.files = files;
+            this.windowSize = windowSize;
+        }
+
+        /**
+         * Return the next window, or null if all the files have been mapped.
+         */
+        Window next()
+            throws IOException
+        {
+            while (channel == null || position >= size)
+            {
+                close();
+
+                if (++index >= files.length)
+                {
+                    return null;
+                }
+
+                in = new FileInputStream(files[index]);
+                channel = in.getChannel();
+                position = 0;
+                size = channel.size();
+            }
+
+            long len = Math.min(windowSize, size - position);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, len);
+
+            position += len;
+            if (position >= size)
+            {
+                close();
+            }
+
+            return new Window(index, buffer);
+        }
+
+        void close()
+            throws IOException
+        {
+            if (in != null)
+            {
+                FileInputStream toClose = in;
+
+                in = null;
+                channel = null;
+                toClose.close();
+            }
+        }
+    }
+}
@@ -73,6 +73,54 @@ public void uniformBlocks(byte[] seed, short nonce)
 
     }
 
+    /**
+     * Fill polys[0..lanes-1] as uniformBlocks() would, using nonces[l] for polys[l], with the XOF lanes run together.
+     */
+    static void uniformBlocks4(Poly[] polys, int lanes, byte[] seed, short[] nonces)
+    {
+        Symmetric symmetric = polys[0].symmetric;
+        int i, l, ctr, off,
+            buflen = polys[0].polyUniformNBlocks * symmetric.stream128BlockBytes;
+        byte[][] bufs = new byte[4][buflen + 2];
+        int[] ctrs = new int[4];
+
+        symmetric.stream128init4(seed, nonces);
+
+        symmetric.stream128squeezeBlocks4(bufs, 0, buflen);
+
+        ctr = DilithiumN;
+        for (l = 0; l < lanes; l++)
+        {
+            ctrs[l] = rejectUniform(polys[l], 0, DilithiumN, bufs[l], buflen);
+            ctr = Math.min(ctr, ctrs[l]);
+        }
+
+        // the lanes are squeezed together, so if any lane is short they all get another block
+        while (ctr < DilithiumN)
+        {
+            off = buflen % 3;
+            for (l = 0; l < lanes; l++)
+            {
+                for (i = 0; i < off; ++i)
+                {
+                    bufs[l][i] = bufs[l][buflen - off + i];
+                }
+            }
+            symmetric.stream128squeezeBlocks4(bufs, off, symmetric.stream128BlockBytes);
+            buflen = symmetric.stream128BlockBytes + off;
+
+            ctr = DilithiumN;
+            for (l = 0; l < lanes; l++)
+            {
+                if (ctrs[l] < DilithiumN)
+                {
+                    ctrs[l] += rejectUniform(polys[l], ctrs[l], DilithiumN - ctrs[l], bufs[l], buflen);
+                }
+                ctr = Math.min(ctr, ctrs[l]);
+            }
+        }
+    }
+
     private static int rejectUniform(Poly outputPoly, int coeffOff, int len, byte[] inpBuf, int buflen)
     {
         int ctr, pos;
@@ -3,6 +3,7 @@
 class PolyVecMatrix
 {
     private final PolyVecL[] matrix;
+    private final int dilithiumL;
 
     /**
      * PolyVecL Matrix of size K
@@ -13,6 +14,8 @@
     {
         int K = engine.getDilithiumK();
 
+        this.dilithiumL = engine.getDilithiumL();
+
         this.matrix = new PolyVecL[K];
         for (int i = 0; i < K; i++)
         {
@@ -30,9 +33,21 @@ public void pointwiseMontgomery(PolyVecK t, PolyVecL v)
 
     public void expandMatrix(byte[] rho)
     {
-        for (int i = 0; i < matrix.length; ++i)
+        int entries = matrix.length * dilithiumL;
+        Poly[] polys = new Poly[4];
+        short[] nonces = new short[4];
+
+        // the entries are sampled four at a time, one per XOF lane
+        for (int e = 0; e < entries; e += 4)
         {
-            matrix[i].uniformBlocks(rho, i << 8);
+            int lanes = Math.min(4, entries - e);
+            for (int l = 0; l < lanes; ++l)
+            {
+                int i = (e + l) / dilithiumL, j = (e + l) % dilithiumL;
+                polys[l] = matrix[i].getVectorIndex(j);
+                nonces[l] = (short)((i << 8) + j);
+            }
+            Poly.uniformBlocks4(polys, lanes, rho, nonces);
         }
     }
 
@@ -1,6 +1,7 @@
 package org.bouncycastle.pqc.crypto.mldsa;
 
 import org.bouncycastle.crypto.digests.SHAKEDigest;
+import org.bouncycastle.crypto.digests.SHAKEX4;
 
 abstract class Symmetric
 {
@@ -22,17 +23,30 @@
 
     abstract void stream256squeezeBlocks(byte[] output, int offset, int size);
 
+    /**
+     * Initialise four stream128 lanes together, lane l using nonces[l].
+     */
+    abstract void stream128init4(byte[] seed, short[] nonces);
+
+    /**
+     * Squeeze size bytes, a whole number of blocks, from each of the four stream128 lanes into output[l].
+     */
+    abstract void stream128squeezeBlocks4(byte[][] output, int offset, int size);
+
     static class ShakeSymmetric
         extends Symmetric
     {
         private final SHAKEDigest digest128;
         private final SHAKEDigest digest256;
+        private final SHAKEX4 digest128x4;
+        private final byte[][] nonces4 = new byte[4][2];
 
         ShakeSymmetric()
         {
             super(168, 136);
             digest128 = new SHAKEDigest(128);
             digest256 = new SHAKEDigest(256);
+            digest128x4 = new SHAKEX4(128);
         }
 
         private void streamInit(SHAKEDigest digest, byte[] seed, short nonce)
@@ -65,6 +79,27 @@ void stream256init(byte[] seed, short nonce)
             streamInit(digest256, seed, nonce);
         }
 
+        @Override
+        void stream128init4(byte[] seed, short[] nonces)
+        {
+            for (int l = 0; l < 4; l++)
+            {
+                nonces4[l][0] = (byte)nonces[l];
+                nonces4[l][1] = (byte)(nonces[l] >> 8);
+            }
+
+            digest128x4.reset();
+            digest128x4.absorb(seed, 0, seed.length);
+            digest128x4.absorb(nonces4[0], nonces4[1], nonces4[2], nonces4[3], 0, 2);
+        }
+
+        @Override
+        void stream128squeezeBlocks4(byte[][] output, int offset, int size)
+        {
+            digest128x4.squeezeBlocks(output[0], output[1], output[2], output[3], offset,
+                size / digest128x4.getBlockSize());
+        }
+
         @Override
         void stream128squeezeBlocks(byte[] output, int offset, int size)
         {
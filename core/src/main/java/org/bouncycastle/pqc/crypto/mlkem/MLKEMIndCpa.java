@@ -314,40 +314,63 @@ public void unpackSecretKey(PolyVec secretKeyPolyVec, byte[] secretKey)
 
     public void generateMatrix(PolyVec[] aMatrix, byte[] seed, boolean transposed)
     {
-        int i, j, k, ctr, off;
-        byte[] buf = new byte[KyberGenerateMatrixNBlocks * symmetric.xofBlockBytes + 2];
-        for (i = 0; i < kyberK; i++)
+        int i, j, k, l, ctr, off;
+        int buflen = KyberGenerateMatrixNBlocks * symmetric.xofBlockBytes;
+        int entries = kyberK * kyberK;
+        byte[][] bufs = new byte[4][buflen + 2];
+        byte[] x = new byte[4], y = new byte[4];
+        Poly[] polys = new Poly[4];
+        int[] ctrs = new int[4];
+
+        // the entries are sampled four at a time, one per XOF lane, spare lanes in the last group being ignored
+        for (int e = 0; e < entries; e += 4)
         {
-            for (j = 0; j < kyberK; j++)
+            int lanes = Math.min(4, entries - e);
+            for (l = 0; l < lanes; l++)
             {
-                if (transposed)
-                {
-                    symmetric.xofAbsorb(seed, (byte) i, (byte) j);
-                }
-                else
-                {
-                    symmetric.xofAbsorb(seed, (byte) j, (byte) i);
-                }
-                symmetric.xofSqueezeBlocks(buf, 0, symmetric.xofBlockBytes * KyberGenerateMatrixNBlocks);
+                i = (e + l) / kyberK;
+                j = (e + l) % kyberK;
+                polys[l] = aMatrix[i].getVectorIndex(j);
+                x[l] = (byte)(transposed ? i : j);
+                y[l] = (byte)(transposed ? j : i);
+            }
 
-                int buflen = KyberGenerateMatrixNBlocks * symmetric.xofBlockBytes;
-                ctr = rejectionSampling(aMatrix[i].getVectorIndex(j), 0, MLKEMEngine.KyberN, buf, buflen);
+            symmetric.xofAbsorb4(seed, x, y);
+            symmetric.xofSqueezeBlocks4(bufs, 0, buflen);
+
+            ctr = MLKEMEngine.KyberN;
+            for (l = 0; l < lanes; l++)
+            {
+                ctrs[l] = rejectionSampling(polys[l], 0, MLKEMEngine.KyberN, bufs[l], buflen);
+                ctr = Math.min(ctr, ctrs[l]);
+            }
 
-                while (ctr < MLKEMEngine.KyberN)
+            // the lanes are squeezed together, so if any lane is short they all get another block
+            int len = buflen;
+            while (ctr < MLKEMEngine.KyberN)
+            {
+                off = len % 3;
+                for (l = 0; l < lanes; l++)
                 {
-                    off = buflen % 3;
                     for (k = 0; k < off; k++)
                     {
-                        buf[k] = buf[buflen - off + k];
+                        bufs[l][k] = bufs[l][len - off + k];
+                    }
+                }
+                symmetric.xofSqueezeBlocks4(bufs, off, symmetric.xofBlockBytes);
+                len = off + symmetric.xofBlockBytes;
+
+                ctr = MLKEMEngine.KyberN;
+                for (l = 0; l < lanes; l++)
+                {
+                    if (ctrs[l] < MLKEMEngine.KyberN)
+                    {
+                        ctrs[l] += rejectionSampling(polys[l], ctrs[l], MLKEMEngine.KyberN - ctrs[l], bufs[l], len);
                     }
-                    symmetric.xofSqueezeBlocks(buf, off, symmetric.xofBlockBytes * 2);
-                    buflen = off + symmetric.xofBlockBytes;
-                    // Error in code Section Unsure
-                    ctr += rejectionSampling(aMatrix[i].getVectorIndex(j), ctr, MLKEMEngine.KyberN - ctr, buf, buflen);
+                    ctr = Math.min(ctr, ctrs[l]);
                 }
             }
         }
-
     }
 
     private static int rejectionSampling(Poly outputBuffer, int coeffOff, int len, byte[] inpBuf, int inpBufLen)
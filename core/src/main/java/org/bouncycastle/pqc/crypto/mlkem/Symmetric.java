@@ -2,6 +2,7 @@
 
 import org.bouncycastle.crypto.digests.SHA3Digest;
 import org.bouncycastle.crypto.digests.SHAKEDigest;
+import org.bouncycastle.crypto.digests.SHAKEX4;
 
 abstract class Symmetric
 {
@@ -16,6 +17,16 @@
 
     abstract void xofSqueezeBlocks(byte[] out, int outOffset, int outLen);
 
+    /**
+     * Absorb seed || x[l] || y[l] into each of four XOF lanes.
+     */
+    abstract void xofAbsorb4(byte[] seed, byte[] x, byte[] y);
+
+    /**
+     * Squeeze outLen bytes, a whole number of blocks, from each of the four XOF lanes into out[l].
+     */
+    abstract void xofSqueezeBlocks4(byte[][] out, int outOffset, int outLen);
+
     abstract void prf(byte[] out, byte[] key, byte nonce);
 
     abstract void kdf(byte[] out, byte[] in);
@@ -30,6 +41,8 @@
         extends Symmetric
     {
         private final SHAKEDigest xof;
+        private final SHAKEX4 xof4;
+        private final byte[][] xof4Suffix = new byte[4][2];
         private final SHA3Digest sha3Digest512;
         private final SHA3Digest sha3Digest256;
         private final SHAKEDigest shakeDigest;
@@ -38,6 +51,7 @@
         {
             super(168);
             this.xof = new SHAKEDigest(128);
+            this.xof4 = new SHAKEX4(128);
             this.shakeDigest = new SHAKEDigest(256);
             this.sha3Digest256 = new SHA3Digest(256);
             this.sha3Digest512 = new SHA3Digest(512);
@@ -74,6 +88,26 @@ void xofSqueezeBlocks(byte[] out, int outOffset, int outLen)
             xof.doOutput(out, outOffset, outLen);
         }
 
+        @Override
+        void xofAbsorb4(byte[] seed, byte[] x, byte[] y)
+        {
+            for (int l = 0; l < 4; l++)
+            {
+                xof4Suffix[l][0] = x[l];
+                xof4Suffix[l][1] = y[l];
+            }
+
+            xof4.reset();
+            xof4.absorb(seed, 0, seed.length);
+            xof4.absorb(xof4Suffix[0], xof4Suffix[1], xof4Suffix[2], xof4Suffix[3], 0, 2);
+        }
+
+        @Override
+        void xofSqueezeBlocks4(byte[][] out, int outOffset, int outLen)
+        {
+            xof4.squeezeBlocks(out[0], out[1], out[2], out[3], outOffset, outLen / xof4.getBlockSize());
+        }
+
         @Override
         void prf(byte[] out, byte[] seed, byte nonce)
         {
@@ -0,0 +1,240 @@
+package org.bouncycastle.asn1.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import org.bouncycastle.asn1.ASN1ByteBuffers;
+import org.bouncycastle.asn1.ASN1EncodableVector;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.ASN1Object;
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.BEROctetString;
+import org.bouncycastle.asn1.BERSequence;
+import org.bouncycastle.asn1.BERSet;
+import org.bouncycastle.asn1.BERTaggedObject;
+import org.bouncycastle.asn1.DERBitString;
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.asn1.DERSet;
+import org.bouncycastle.asn1.DERTaggedObject;
+import org.bouncycastle.asn1.DLSequence;
+import org.bouncycastle.asn1.DLSet;
+import org.bouncycastle.asn1.DLTaggedObject;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check encoding into exactly sized arrays and caller supplied buffers gives the same result as encoding to a stream,
+ * and that a structure is only converted to its primitive form once when it is encoded.
+ */
+public class DirectEncodingTest
+    extends SimpleTest
+{
+    private static final String[] ENCODINGS = { ASN1Encoding.BER, ASN1Encoding.DER, ASN1Encoding.DL };
+
+    public String getName()
+    {
+        return "DirectEncoding";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        ASN1Object[] objects = {
+            new Nested(0, 1),
+            new Nested(0, 20),
+            new DERSequence(new Nested(0, 10)),
+            new DLSequence(new ASN1Object[]{ new Nested(0, 5), new DLSet(new Nested(1, 3)) }),
+            new DERSet(new ASN1Object[]{ new Nested(2, 2), new ASN1Integer(7), new DEROctetString(new byte[200]) }),
+            new DERTaggedObject(true, 3, new Nested(0, 4)),
+            new DLTaggedObject(false, 4, new Nested(0, 4)),
+            createBER(),
+            new DERBitString(new byte[300], 3),
+            new DEROctetString(new byte[0])
+        };
+
+        for (int i = 0; i != objects.length; i++)
+        {
+            for (int j = 0; j != ENCODINGS.length; j++)
+            {
+                encodingTest(i, objects[i], ENCODINGS[j]);
+            }
+        }
+
+        conversionTest();
+        bufferTest();
+    }
+
+    private ASN1Primitive createBER()
+    {
+        ASN1EncodableVector v = new ASN1EncodableVector();
+        v.add(new BEROctetString(new byte[2500], 1000));
+        v.add(new BERTaggedObject(true, 5, new Nested(0, 3)));
+        v.add(new BERTaggedObject(false, 6, new BERSet(new ASN1Integer(1))));
+        v.add(new DERSequence(new Nested(0, 2)));
+
+        return new BERSequence(v);
+    }
+
+    private void encodingTest(int index, ASN1Object obj, String encoding)
+        throws IOException
+    {
+        String label = index + "/" + encoding;
+
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        obj.encodeTo(bOut, encoding);
+        byte[] expected = bOut.toByteArray();
+
+        isTrue("getEncoded differs: " + label, Arrays.areEqual(expected, obj.getEncoded(encoding)));
+        isEquals("length differs: " + label, expected.length, obj.getEncodedLength(encoding));
+
+        byte[] buf = new byte[expected.length + 10];
+        Arrays.fill(buf, (byte)0xA5);
+        isEquals("encodeTo length differs: " + label, expected.length, obj.encodeTo(buf, 3, encoding));
+        isTrue("encodeTo differs: " + label, Arrays.areEqual(expected, Arrays.copyOfRange(buf, 3, 3 + expected.length)));
+        isTrue("encodeTo wrote outside encoding: " + label, buf[2] == (byte)0xA5 && buf[3 + expected.length] == (byte)0xA5);
+
+        byte[] exact = new byte[expected.length];
+        obj.encodeTo(exact, 0, encoding);
+        isTrue("exact encodeTo differs: " + label, Arrays.areEqual(expected, exact));
+
+        ByteBuffer[] buffers = { ByteBuffer.allocate(expected.length + 10), ByteBuffer.allocateDirect(expected.length + 10) };
+        for (int b = 0; b != buffers.length; b++)
+        {
+            ByteBuffer out = buffers[b];
+            out.position(5);
+
+            isEquals("buffer length differs: " + label, expected.length, ASN1ByteBuffers.encode(obj, encoding, out));
+            isEquals("buffer position wrong: " + label, 5 + expected.length, out.position());
+
+            byte[] written = new byte[expected.length];
+            out.position(5);
+            out.get(written);
+            isTrue("buffer encoding differs: " + label + "/" + b, Arrays.areEqual(expected, written));
+        }
+
+        isTrue("DER encoding not canonical: " + label, !encoding.equals(ASN1Encoding.DER)
+            || Arrays.areEqual(expected, ASN1Primitive.fromByteArray(expected).getEncoded(ASN1Encoding.DER)));
+    }
+
+    private void conversionTest()
+        throws IOException
+    {
+        Nested[] chain = new Nested[30];
+        for (int i = chain.length - 1; i >= 0; i--)
+        {
+            chain[i] = new Nested(0, i == chain.length - 1 ? null : chain[i + 1]);
+        }
+
+        for (int j = 0; j != ENCODINGS.length; j++)
+        {
+            for (int i = 0; i != chain.length; i++)
+            {
+                chain[i].conversions = 0;
+            }
+
+            chain[0].getEncoded(ENCODINGS[j]);
+
+            for (int i = 0; i != chain.length; i++)
+            {
+                isEquals("conversions at depth " + i + ": " + ENCODINGS[j], 1, chain[i].conversions);
+            }
+        }
+
+        // a structure that has already been encoded encodes the same way again
+        DERSequence seq = new DERSequence(chain[0]);
+        byte[] first = seq.getEncoded();
+        isTrue("second encoding differs", Arrays.areEqual(first, seq.getEncoded()));
+        isEquals("length not cached", first.length, seq.getEncodedLength(ASN1Encoding.DER));
+        isTrue("third encoding differs", Arrays.areEqual(first, seq.getEncoded(ASN1Encoding.DER)));
+    }
+
+    private void bufferTest()
+        throws IOException
+    {
+        ASN1Object obj = new Nested(0, 5);
+        int length = obj.getEncodedLength(ASN1Encoding.DER);
+
+        try
+        {
+            obj.encodeTo(new byte[length], 1, ASN1Encoding.DER);
+            fail("no exception on short array");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("output buffer too short for encoding", e.getMessage());
+        }
+
+        try
+        {
+            obj.encodeTo(new byte[length], -1, ASN1Encoding.DER);
+            fail("no exception on negative offset");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        ByteBuffer[] buffers = { ByteBuffer.allocate(length - 1), ByteBuffer.allocateDirect(length + 4) };
+        buffers[1].limit(length - 1);
+        for (int b = 0; b != buffers.length; b++)
+        {
+            try
+            {
+                ASN1ByteBuffers.encode(obj, ASN1Encoding.DER, buffers[b]);
+                fail("no exception on short buffer: " + b);
+            }
+            catch (BufferOverflowException e)
+            {
+                isEquals("position changed on overflow: " + b, 0, buffers[b].position());
+            }
+        }
+    }
+
+    /**
+     * A wrapper creating a new primitive each time it is converted, in the manner of most ASN1Object classes.
+     */
+    private static class Nested
+        extends ASN1Object
+    {
+        private final int value;
+        private final ASN1Object next;
+
+        int conversions;
+
+        Nested(int value, int depth)
+        {
+            this(value, depth > 1 ? new Nested(value + 1, depth - 1) : null);
+        }
+
+        Nested(int value, ASN1Object next)
+        {
+            this.value = value;
+            this.next = next;
+        }
+
+        public ASN1Primitive toASN1Primitive()
+        {
+            conversions++;
+
+            ASN1EncodableVector v = new ASN1EncodableVector();
+            v.add(new ASN1Integer(value));
+            v.add(new DEROctetString(new byte[value % 3 == 0 ? 130 : 2]));
+            if (next != null)
+            {
+                v.add(value % 2 == 0 ? (ASN1Object)new DERTaggedObject(true, 0, next) : new DLSequence(next));
+            }
+
+            return new DLSequence(v);
+        }
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new DirectEncodingTest());
+    }
+}
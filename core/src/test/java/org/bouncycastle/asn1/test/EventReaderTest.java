@@ -0,0 +1,316 @@
+package org.bouncycastle.asn1.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Date;
+
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1EncodableVector;
+import org.bouncycastle.asn1.ASN1EventReader;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.BEROctetString;
+import org.bouncycastle.asn1.BERSequence;
+import org.bouncycastle.asn1.BERTaggedObject;
+import org.bouncycastle.asn1.BERTags;
+import org.bouncycastle.asn1.DERBitString;
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.asn1.DERSet;
+import org.bouncycastle.asn1.DERTaggedObject;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.asn1.x509.CertificateList;
+import org.bouncycastle.asn1.x509.CertificateListReader;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.asn1.x509.TBSCertList;
+import org.bouncycastle.asn1.x509.Time;
+import org.bouncycastle.asn1.x509.V2TBSCertListGenerator;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.io.Streams;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check the events reported by ASN1EventReader, and reading a CRL one entry at a time.
+ */
+public class EventReaderTest
+    extends SimpleTest
+{
+    private static final AlgorithmIdentifier SIG_ALG = new AlgorithmIdentifier(
+        new ASN1ObjectIdentifier("1.2.840.113549.1.1.11"));
+
+    public String getName()
+    {
+        return "EventReader";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        eventTest();
+        berTest();
+        skipTest();
+        truncationTest();
+        crlTest(0, true, true);
+        crlTest(1, false, false);
+        crlTest(1000, true, false);
+        emptyCrlTest();
+    }
+
+    private void eventTest()
+        throws IOException
+    {
+        ASN1EncodableVector v = new ASN1EncodableVector();
+        v.add(new ASN1Integer(5));
+        v.add(new DERTaggedObject(true, 1, new DEROctetString(new byte[]{ 1, 2, 3 })));
+        v.add(new DERTaggedObject(false, 40, new DERSequence()));
+        v.add(new DERSet(new ASN1Integer(6)));
+
+        byte[] encoding = new DERSequence(v).getEncoded();
+        ASN1EventReader reader = new ASN1EventReader(new ByteArrayInputStream(encoding));
+
+        isEquals(-1, reader.getEventType());
+        checkEvent(reader, reader.next(), ASN1EventReader.START_CONSTRUCTED, 0, BERTags.UNIVERSAL, BERTags.SEQUENCE);
+        isEquals(encoding.length - 2, reader.getLength());
+
+        checkEvent(reader, reader.next(), ASN1EventReader.PRIMITIVE, 1, BERTags.UNIVERSAL, BERTags.INTEGER);
+        isTrue("integer contents", Arrays.areEqual(new byte[]{ 5 }, Streams.readAll(reader.getContentStream())));
+
+        checkEvent(reader, reader.next(), ASN1EventReader.START_CONSTRUCTED, 1, BERTags.CONTEXT_SPECIFIC, 1);
+        checkEvent(reader, reader.next(), ASN1EventReader.PRIMITIVE, 2, BERTags.UNIVERSAL, BERTags.OCTET_STRING);
+        isEquals(3, reader.getLength());
+        // not read, so skipped
+        checkEvent(reader, reader.next(), ASN1EventReader.END_CONSTRUCTED, 1, BERTags.CONTEXT_SPECIFIC, 1);
+
+        checkEvent(reader, reader.next(), ASN1EventReader.START_CONSTRUCTED, 1, BERTags.CONTEXT_SPECIFIC, 40);
+        isEquals(0, reader.getLength());
+        checkEvent(reader, reader.next(), ASN1EventReader.END_CONSTRUCTED, 1, BERTags.CONTEXT_SPECIFIC, 40);
+
+        checkEvent(reader, reader.next(), ASN1EventReader.START_CONSTRUCTED, 1, BERTags.UNIVERSAL, BERTags.SET);
+        isTrue("set differs", new DERSet(new ASN1Integer(6)).equals(reader.readObject()));
+
+        checkEvent(reader, reader.next(), ASN1EventReader.END_CONSTRUCTED, 0, BERTags.UNIVERSAL, BERTags.SEQUENCE);
+        isEquals(ASN1EventReader.END_DOCUMENT, reader.next());
+        isEquals(ASN1EventReader.END_DOCUMENT, reader.next());
+
+        try
+        {
+            reader.getTagNo();
+            fail("no exception at end of document");
+        }
+        catch (IllegalStateException e)
+        {
+            isEquals("no current element", e.getMessage());
+        }
+    }
+
+    private void berTest()
+        throws IOException
+    {
+        ASN1EncodableVector v = new ASN1EncodableVector();
+        v.add(new BEROctetString(new byte[300], 100));
+        v.add(new BERTaggedObject(true, 2, new BERSequence(new ASN1Integer(0))));
+        v.add(new ASN1Integer(9));
+
+        BERSequence seq = new BERSequence(v);
+        byte[] encoding = seq.getEncoded();
+
+        ASN1EventReader reader = new ASN1EventReader(encoding);
+        checkEvent(reader, reader.next(), ASN1EventReader.START_CONSTRUCTED, 0, BERTags.UNIVERSAL, BERTags.SEQUENCE);
+        isEquals(-1, reader.getLength());
+
+        // a constructed OCTET STRING reports its segments
+        checkEvent(reader, reader.next(), ASN1EventReader.START_CONSTRUCTED, 1, BERTags.UNIVERSAL, BERTags.OCTET_STRING);
+        int segments = 0;
+        while (reader.next() == ASN1EventReader.PRIMITIVE)
+        {
+            isEquals(2, reader.getDepth());
+            isEquals(100, reader.getLength());
+            segments++;
+        }
+        isEquals(3, segments);
+        checkEvent(reader, reader.getEventType(), ASN1EventReader.END_CONSTRUCTED, 1, BERTags.UNIVERSAL,
+            BERTags.OCTET_STRING);
+
+        checkEvent(reader, reader.next(), ASN1EventReader.START_CONSTRUCTED, 1, BERTags.CONTEXT_SPECIFIC, 2);
+        isTrue("tagged object differs", seq.getObjectAt(1).toASN1Primitive().equals(reader.readObject()));
+
+        checkEvent(reader, reader.next(), ASN1EventReader.PRIMITIVE, 1, BERTags.UNIVERSAL, BERTags.INTEGER);
+        isTrue("integer differs", new ASN1Integer(9).equals(reader.readObject()));
+
+        isEquals(ASN1EventReader.END_CONSTRUCTED, reader.next());
+        isEquals(ASN1EventReader.END_DOCUMENT, reader.next());
+
+        // the whole document loaded from the first event
+        reader = new ASN1EventReader(encoding);
+        reader.next();
+        isTrue("sequence differs", seq.equals(reader.readObject()));
+        isEquals(ASN1EventReader.END_DOCUMENT, reader.next());
+    }
+
+    private void skipTest()
+        throws IOException
+    {
+        ASN1EncodableVector v = new ASN1EncodableVector();
+        v.add(new BERSequence(new BERSequence(new BEROctetString(new byte[50], 7))));
+        v.add(new DERSequence(new DEROctetString(new byte[70000])));
+        v.add(new ASN1Integer(1));
+
+        byte[] encoding = new BERSequence(v).getEncoded();
+
+        ASN1EventReader reader = new ASN1EventReader(encoding);
+        reader.next();
+
+        isEquals(ASN1EventReader.START_CONSTRUCTED, reader.next());
+        reader.skipContents();
+        isEquals(ASN1EventReader.START_CONSTRUCTED, reader.getEventType());
+
+        isEquals(ASN1EventReader.START_CONSTRUCTED, reader.next());
+        isEquals(70005, reader.getLength());
+        reader.skipContents();
+
+        checkEvent(reader, reader.next(), ASN1EventReader.PRIMITIVE, 1, BERTags.UNIVERSAL, BERTags.INTEGER);
+
+        try
+        {
+            reader.readObject();
+            reader.readObject();
+            fail("element read twice");
+        }
+        catch (IllegalStateException e)
+        {
+            isEquals("no current element to read", e.getMessage());
+        }
+
+        isEquals(ASN1EventReader.END_CONSTRUCTED, reader.next());
+        isEquals(ASN1EventReader.END_DOCUMENT, reader.next());
+    }
+
+    private void truncationTest()
+        throws IOException
+    {
+        byte[] encoding = new DERSequence(new DERSequence(new DEROctetString(new byte[100]))).getEncoded();
+        byte[] truncated = Arrays.copyOf(encoding, encoding.length - 1);
+
+        ASN1EventReader reader = new ASN1EventReader(new ByteArrayInputStream(truncated), Integer.MAX_VALUE);
+        try
+        {
+            while (reader.next() != ASN1EventReader.END_DOCUMENT)
+            {
+            }
+            fail("truncated encoding read");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+    }
+
+    private void crlTest(int count, boolean withNextUpdate, boolean withExtensions)
+        throws IOException
+    {
+        V2TBSCertListGenerator gen = new V2TBSCertListGenerator();
+        gen.setSignature(SIG_ALG);
+        gen.setIssuer(new X500Name("CN=Test CA"));
+        gen.setThisUpdate(new Time(new Date(1000000000000L)));
+        if (withNextUpdate)
+        {
+            gen.setNextUpdate(new Time(new Date(1100000000000L)));
+        }
+        for (int i = 0; i != count; i++)
+        {
+            gen.addCRLEntry(new ASN1Integer(i + 1), new Time(new Date(1000000000000L + i)),
+                i % 2 == 0 ? CRLReason.keyCompromise : 0);
+        }
+        if (withExtensions)
+        {
+            gen.setExtensions(new Extensions(
+                new Extension(Extension.cRLNumber, false, new ASN1Integer(42).getEncoded())));
+        }
+
+        TBSCertList tbs = gen.generateTBSCertList();
+        byte[] encoding = new DERSequence(new ASN1Encodable[]{
+            tbs, SIG_ALG, new DERBitString(new byte[64]) }).getEncoded();
+
+        CertificateList expected = CertificateList.getInstance(encoding);
+        CertificateListReader reader = new CertificateListReader(new ByteArrayInputStream(encoding));
+
+        isEquals(expected.getVersionNumber(), reader.getVersionNumber());
+        isTrue("signature differs", expected.getTBSCertList().getSignature().equals(reader.getSignature()));
+        isTrue("issuer differs", expected.getIssuer().equals(reader.getIssuer()));
+        isTrue("thisUpdate differs", expected.getThisUpdate().equals(reader.getThisUpdate()));
+        isTrue("nextUpdate differs", withNextUpdate
+            ? expected.getNextUpdate().equals(reader.getNextUpdate()) : reader.getNextUpdate() == null);
+
+        if (count > 0)
+        {
+            try
+            {
+                reader.getSignatureValue();
+                fail("signature available before entries read");
+            }
+            catch (IllegalStateException e)
+            {
+                isEquals("revoked certificates not all read", e.getMessage());
+            }
+        }
+
+        TBSCertList.CRLEntry[] entries = expected.getRevokedCertificates();
+        for (int i = 0; i != entries.length; i++)
+        {
+            isTrue("entry " + i + " differs", entries[i].equals(reader.readEntry()));
+        }
+        isTrue("extra entry", reader.readEntry() == null);
+        isTrue("extra entry after end", reader.readEntry() == null);
+
+        isTrue("extensions differ", withExtensions
+            ? expected.getExtensions().equals(reader.getExtensions()) : reader.getExtensions() == null);
+        isTrue("signature algorithm differs", expected.getSignatureAlgorithm().equals(reader.getSignatureAlgorithm()));
+        isTrue("signature value differs", expected.getSignature().equals(reader.getSignatureValue()));
+    }
+
+    private void emptyCrlTest()
+        throws IOException
+    {
+        // a CRL where the revokedCertificates are present but empty
+        ASN1EncodableVector tbs = new ASN1EncodableVector();
+        tbs.add(SIG_ALG);
+        tbs.add(new X500Name("CN=Test CA"));
+        tbs.add(new Time(new Date(1000000000000L)));
+        tbs.add(new DERSequence());
+
+        byte[] encoding = new DERSequence(new ASN1Encodable[]{
+            new DERSequence(tbs), SIG_ALG, new DERBitString(new byte[64]) }).getEncoded();
+
+        CertificateListReader reader = new CertificateListReader(encoding);
+        isEquals(1, reader.getVersionNumber());
+        isTrue("entry in empty list", reader.readEntry() == null);
+        isTrue("extensions found", reader.getExtensions() == null);
+
+        try
+        {
+            new CertificateListReader(new DERSequence(new ASN1Integer(1)).getEncoded());
+            fail("no exception on bad CRL");
+        }
+        catch (IOException e)
+        {
+            isEquals("TBSCertList not found in CertificateList", e.getMessage());
+        }
+    }
+
+    private void checkEvent(ASN1EventReader reader, int event, int expectedEvent, int depth, int tagClass, int tagNo)
+    {
+        isEquals("event", expectedEvent, event);
+        isEquals("depth", depth, reader.getDepth());
+        isTrue("tag " + reader.getTagClass() + "/" + reader.getTagNo(), reader.hasTag(tagClass, tagNo));
+        isEquals(expectedEvent != ASN1EventReader.PRIMITIVE, reader.isConstructed());
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new EventReaderTest());
+    }
+}
@@ -0,0 +1,180 @@
+package org.bouncycastle.asn1.test;
+
+import java.util.Date;
+
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1EncodableVector;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.ASN1InputStream;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.asn1.DERBitString;
+import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.asn1.DERTaggedObject;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.Certificate;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.asn1.x509.TBSCertificate;
+import org.bouncycastle.asn1.x509.Time;
+import org.bouncycastle.asn1.x509.V3TBSCertificateGenerator;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check the fields of a certificate that are decoded on first access give the same results as decoding them up
+ * front, that the original encoding is kept, and that errors in them are reported when they are accessed.
+ */
+public class LazyCertificateTest
+    extends SimpleTest
+{
+    private static final AlgorithmIdentifier SIG_ALG = new AlgorithmIdentifier(
+        new ASN1ObjectIdentifier("1.2.840.113549.1.1.11"));
+
+    public String getName()
+    {
+        return "LazyCertificate";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        TBSCertificate tbs = createTBSCertificate();
+        byte[] certEnc = new Certificate(tbs, SIG_ALG, new DERBitString(new byte[64])).getEncoded(ASN1Encoding.DER);
+
+        Certificate eager = Certificate.getInstance(certEnc);
+        Certificate lazy = Certificate.getInstance(new ASN1InputStream(certEnc, true).readObject());
+
+        // checking the fields leaves them undecoded, so leaves the encoding alone
+        lazy.getTBSCertificate().checkFields();
+
+        isTrue("encoding changed", Arrays.areEqual(certEnc, lazy.getEncoded(ASN1Encoding.DER)));
+        isTrue("tbs encoding changed", Arrays.areEqual(tbs.getEncoded(ASN1Encoding.DER),
+            lazy.getTBSCertificate().getEncoded(ASN1Encoding.DER)));
+
+        isEquals(eager.getSerialNumber(), lazy.getSerialNumber());
+        isEquals(eager.getIssuer(), lazy.getIssuer());
+        isEquals(eager.getStartDate().getDate(), lazy.getStartDate().getDate());
+        isEquals(eager.getSubject(), lazy.getSubject());
+        isEquals(eager.getSubjectPublicKeyInfo(), lazy.getSubjectPublicKeyInfo());
+        isTrue("extensions differ", eager.getTBSCertificate().getExtensions().equivalent(
+            lazy.getTBSCertificate().getExtensions()));
+        isEquals(BasicConstraints.fromExtensions(eager.getTBSCertificate().getExtensions()),
+            BasicConstraints.fromExtensions(lazy.getTBSCertificate().getExtensions()));
+
+        // the encoding is unchanged once the fields have been decoded
+        isTrue("encoding changed after access", Arrays.areEqual(certEnc, lazy.getEncoded(ASN1Encoding.DER)));
+
+        repeatedExtensionTest(tbs);
+        malformedSubjectTest(tbs);
+    }
+
+    private void repeatedExtensionTest(TBSCertificate tbs)
+        throws Exception
+    {
+        Extension ext = tbs.getExtensions().getExtension(Extension.basicConstraints);
+
+        ASN1Encodable[] fields = ASN1Sequence.getInstance(tbs.toASN1Primitive()).toArray();
+        fields[fields.length - 1] = new DERTaggedObject(true, 3, new DERSequence(new ASN1Encodable[]{ ext, ext }));
+
+        TBSCertificate dodgy = TBSCertificate.getInstance(new DERSequence(fields));
+
+        try
+        {
+            dodgy.checkFields();
+            fail("no exception on checking repeated extension");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("repeated extension found: " + Extension.basicConstraints, e.getMessage());
+        }
+
+        isEquals(tbs.getSubject(), dodgy.getSubject());
+
+        Extensions extensions = dodgy.getExtensions();
+        try
+        {
+            extensions.getExtension(Extension.basicConstraints);
+            fail("no exception on repeated extension");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("repeated extension found: " + Extension.basicConstraints, e.getMessage());
+        }
+
+        // a failed decode leaves nothing half built behind
+        try
+        {
+            extensions.getExtensionOIDs();
+            fail("no exception on second access to repeated extension");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("repeated extension found: " + Extension.basicConstraints, e.getMessage());
+        }
+    }
+
+    private void malformedSubjectTest(TBSCertificate tbs)
+        throws Exception
+    {
+        ASN1Encodable[] fields = ASN1Sequence.getInstance(tbs.toASN1Primitive()).toArray();
+        fields[5] = new ASN1Integer(1);
+
+        byte[] enc = new DERSequence(fields).getEncoded(ASN1Encoding.DER);
+        TBSCertificate dodgy = TBSCertificate.getInstance(new ASN1InputStream(enc, true).readObject());
+
+        isEquals(tbs.getIssuer(), dodgy.getIssuer());
+        isTrue("encoding changed", Arrays.areEqual(enc, dodgy.getEncoded(ASN1Encoding.DER)));
+
+        try
+        {
+            dodgy.checkFields();
+            fail("no exception on checking malformed subject");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("malformed subject", e.getMessage());
+        }
+
+        try
+        {
+            dodgy.getSubject();
+            fail("no exception on malformed subject");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    private TBSCertificate createTBSCertificate()
+        throws Exception
+    {
+        V3TBSCertificateGenerator gen = new V3TBSCertificateGenerator();
+        gen.setSerialNumber(new ASN1Integer(42));
+        gen.setSignature(SIG_ALG);
+        gen.setIssuer(new X500Name("CN=Test CA, O=Bouncy Castle, C=AU"));
+        gen.setStartDate(new Time(new Date(1000000000000L)));
+        gen.setEndDate(new Time(new Date(1100000000000L)));
+        gen.setSubject(new X500Name("CN=Test, O=Bouncy Castle, C=AU"));
+        gen.setSubjectPublicKeyInfo(new SubjectPublicKeyInfo(SIG_ALG, new byte[32]));
+
+        ASN1EncodableVector v = new ASN1EncodableVector();
+        v.add(new Extension(Extension.basicConstraints, true, new BasicConstraints(true).getEncoded()));
+        v.add(new Extension(Extension.keyUsage, true, new KeyUsage(KeyUsage.keyCertSign).getEncoded()));
+        gen.setExtensions(Extensions.getInstance(new DERSequence(v)));
+
+        return gen.generateTBSCertificate();
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new LazyCertificateTest());
+    }
+}
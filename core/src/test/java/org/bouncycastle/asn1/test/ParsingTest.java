@@ -40,6 +40,7 @@ public void performTest()
         throws Exception
     {
         inputStreamTest();
+        sharedInputStreamTest();
         parserTest();
     }
 
@@ -91,6 +92,31 @@ private void inputStreamTest()
         }
     }
 
+    private void sharedInputStreamTest()
+    {
+        for (int i = 0; i != streams.length; i++)
+        {
+            byte[] data = Base64.decode(streams[i]);
+            ASN1InputStream aIn = new ASN1InputStream(data, 0, data.length, false, true);
+
+            try
+            {
+                Object obj;
+
+                while ((obj = aIn.readObject()) != null)
+                {
+
+                }
+
+                fail("bad stream parsed successfully!");
+            }
+            catch (IOException e)
+            {
+                // ignore
+            }
+        }
+    }
+
     public static void main(
         String[]    args)
     {
@@ -45,6 +45,10 @@
         new TargetInformationTest(),
         new SubjectKeyIdentifierTest(),
         new ParsingTest(),
+        new SharedInputTest(),
+        new DirectEncodingTest(),
+        new EventReaderTest(),
+        new LazyCertificateTest(),
         new GeneralNameTest(),
         new ObjectIdentifierTest(),
         new RFC4519Test(),
@@ -0,0 +1,221 @@
+package org.bouncycastle.asn1.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Enumeration;
+
+import org.bouncycastle.asn1.ASN1BitString;
+import org.bouncycastle.asn1.ASN1EncodableVector;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.ASN1InputStream;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.ASN1Sequence;
+import org.bouncycastle.asn1.ASN1TaggedObject;
+import org.bouncycastle.asn1.BEROctetString;
+import org.bouncycastle.asn1.BERSequence;
+import org.bouncycastle.asn1.DERBitString;
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.asn1.DERSet;
+import org.bouncycastle.asn1.DERTaggedObject;
+import org.bouncycastle.asn1.DLBitString;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.io.Streams;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check ASN1InputStream gives the same objects when it shares its input array with the objects it reads.
+ */
+public class SharedInputTest
+    extends SimpleTest
+{
+    public String getName()
+    {
+        return "SharedInput";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        byte[] encoding = createStructure().getEncoded(ASN1Encoding.DER);
+
+        equivalenceTest(encoding, false);
+        equivalenceTest(encoding, true);
+        berTest();
+        windowTest(encoding);
+        sharingTest();
+        truncationTest(encoding);
+    }
+
+    private ASN1Primitive createStructure()
+        throws IOException
+    {
+        byte[] large = new byte[70000];
+        for (int i = 0; i != large.length; i++)
+        {
+            large[i] = (byte)i;
+        }
+
+        ASN1EncodableVector inner = new ASN1EncodableVector();
+        inner.add(new DEROctetString(new byte[0]));
+        inner.add(new DERBitString(new byte[0], 0));
+        inner.add(new DERBitString(new byte[]{ (byte)0xF0 }, 4));
+        inner.add(new DERTaggedObject(false, 1, new DEROctetString(new byte[]{ 1, 2, 3 })));
+        inner.add(new DERTaggedObject(false, 2, new DERBitString(new byte[]{ 5, 6 }, 1)));
+        inner.add(new DERSet(new DEROctetString(new byte[]{ 7 })));
+
+        ASN1EncodableVector outer = new ASN1EncodableVector();
+        outer.add(new ASN1ObjectIdentifier("1.2.840.113549.1.7.1"));
+        outer.add(new ASN1Integer(12345));
+        outer.add(new DEROctetString(large));
+        outer.add(new DERBitString(large, 3));
+        outer.add(new DERSequence(inner));
+        outer.add(new DERTaggedObject(true, 0, new DEROctetString(new DERSequence(inner))));
+        outer.add(new DERSequence());
+
+        return new DERSequence(outer);
+    }
+
+    private void equivalenceTest(byte[] encoding, boolean lazy)
+        throws IOException
+    {
+        ASN1Primitive expected = new ASN1InputStream(encoding).readObject();
+        ASN1Primitive actual = new ASN1InputStream(encoding, 0, encoding.length, lazy, true).readObject();
+
+        isTrue("objects differ, lazy " + lazy, expected.equals(actual));
+        isTrue("hash codes differ, lazy " + lazy, expected.hashCode() == actual.hashCode());
+        isTrue("encodings differ, lazy " + lazy, Arrays.areEqual(encoding, actual.getEncoded()));
+        isTrue("DER encodings differ, lazy " + lazy,
+            Arrays.areEqual(encoding, actual.getEncoded(ASN1Encoding.DER)));
+
+        ASN1Sequence seq = ASN1Sequence.getInstance(actual);
+        ASN1OctetString octets = ASN1OctetString.getInstance(seq.getObjectAt(2));
+        isEquals(70000, octets.getOctetsLength());
+        isTrue("octet stream differs", Arrays.areEqual(octets.getOctets(), Streams.readAll(octets.getOctetStream())));
+        isTrue("octets not cached", octets.getOctets() == octets.getOctets());
+
+        ASN1BitString bits = ASN1BitString.getInstance(seq.getObjectAt(3));
+        isEquals(3, bits.getPadBits());
+        isTrue("bit stream differs", Arrays.areEqual(bits.getBytes(), Streams.readAll(bits.getBitStream())));
+
+        // implicitly tagged, so read as an OCTET STRING, then converted
+        ASN1Sequence inner = ASN1Sequence.getInstance(seq.getObjectAt(4));
+        ASN1BitString tagged = ASN1BitString.getInstance(ASN1TaggedObject.getInstance(inner.getObjectAt(4)), false);
+        isTrue("tagged bit string differs", Arrays.areEqual(new byte[]{ 5, 6 }, tagged.getBytes()));
+        isEquals(1, tagged.getPadBits());
+
+        // a nested encoding can be read again from the window of the outer one
+        ASN1OctetString wrapper = ASN1OctetString.getInstance(
+            ASN1TaggedObject.getInstance(seq.getObjectAt(5)).getExplicitBaseObject());
+        isTrue("nested encoding differs", inner.equals(ASN1Primitive.fromByteArray(wrapper.getOctets())));
+
+        // enumeration without forcing a lazy sequence
+        Enumeration e = ((ASN1Sequence)new ASN1InputStream(encoding, 0, encoding.length, lazy, true).readObject())
+            .getObjects();
+        for (int i = 0; e.hasMoreElements(); i++)
+        {
+            isTrue("element " + i + " differs", seq.getObjectAt(i).equals(e.nextElement()));
+        }
+    }
+
+    private void berTest()
+        throws IOException
+    {
+        // indefinite-length and constructed encodings are read as usual
+        ASN1EncodableVector v = new ASN1EncodableVector();
+        v.add(new BEROctetString(new byte[2500], 1000));
+        v.add(new DEROctetString(new byte[]{ 1 }));
+
+        byte[] ber = new BERSequence(v).getEncoded();
+        ASN1Primitive expected = new ASN1InputStream(ber).readObject();
+        ASN1Primitive actual = new ASN1InputStream(ber, 0, ber.length, false, true).readObject();
+        isTrue("BER objects differ", expected.equals(actual));
+
+        // a definite-length constructed OCTET STRING built from shared segments
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        bOut.write(new byte[]{ 0x24, 0x08, 0x04, 0x02, 1, 2, 0x04, 0x02, 3, 4 });
+        byte[] constructed = bOut.toByteArray();
+        ASN1OctetString octets = ASN1OctetString.getInstance(
+            new ASN1InputStream(constructed, 0, constructed.length, false, true).readObject());
+        isTrue("constructed octets differ", Arrays.areEqual(new byte[]{ 1, 2, 3, 4 }, octets.getOctets()));
+
+        // a BIT STRING with non-zero unused bits
+        byte[] dl = new byte[]{ 0x03, 0x02, 0x04, (byte)0xFF };
+        ASN1Primitive bits = new ASN1InputStream(dl, 0, dl.length, false, true).readObject();
+        isTrue("DL bit string not recognised", bits instanceof DLBitString);
+        isTrue("DL bit string differs", bits.equals(new ASN1InputStream(dl).readObject()));
+    }
+
+    private void windowTest(byte[] encoding)
+        throws IOException
+    {
+        byte[] buf = new byte[encoding.length + 20];
+        Arrays.fill(buf, (byte)0xFF);
+        System.arraycopy(encoding, 0, buf, 7, encoding.length);
+
+        ASN1InputStream aIn = new ASN1InputStream(buf, 7, encoding.length, false, true);
+        ASN1Primitive obj = aIn.readObject();
+        isTrue("window object differs", Arrays.areEqual(encoding, obj.getEncoded()));
+        isTrue("data after window read", aIn.readObject() == null);
+    }
+
+    private void sharingTest()
+        throws IOException
+    {
+        byte[] encoding = new DERSequence(new DEROctetString(new byte[]{ 1, 2, 3, 4 })).getEncoded();
+
+        ASN1Sequence shared = (ASN1Sequence)new ASN1InputStream(encoding, 0, encoding.length, false, true)
+            .readObject();
+        ASN1Sequence copied = (ASN1Sequence)new ASN1InputStream(encoding, 0, encoding.length, false, false)
+            .readObject();
+
+        // the shared object reads the input in place, the copied one does not
+        encoding[encoding.length - 1] = 5;
+
+        byte[] sharedOctets = ASN1OctetString.getInstance(shared.getObjectAt(0)).getOctets();
+        byte[] copiedOctets = ASN1OctetString.getInstance(copied.getObjectAt(0)).getOctets();
+        isTrue("input not shared", Arrays.areEqual(new byte[]{ 1, 2, 3, 5 }, sharedOctets));
+        isTrue("input shared", Arrays.areEqual(new byte[]{ 1, 2, 3, 4 }, copiedOctets));
+
+        // once materialised the octets are independent of the input
+        encoding[encoding.length - 1] = 6;
+        isTrue("materialised octets changed",
+            Arrays.areEqual(new byte[]{ 1, 2, 3, 5 }, ASN1OctetString.getInstance(shared.getObjectAt(0)).getOctets()));
+    }
+
+    private void truncationTest(byte[] encoding)
+    {
+        for (int len = 1; len < 40; len++)
+        {
+            try
+            {
+                new ASN1InputStream(encoding, 0, len, false, true).readObject();
+                fail("truncated encoding parsed: " + len);
+            }
+            catch (IOException e)
+            {
+                // expected
+            }
+        }
+
+        byte[] truncated = Arrays.copyOf(encoding, encoding.length - 1);
+        try
+        {
+            new ASN1InputStream(truncated, 0, truncated.length, true, true).readObject();
+            fail("truncated encoding parsed");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new SharedInputTest());
+    }
+}
@@ -150,6 +150,7 @@ public void performTest()
     {
         ietfUtilsTest();
         bogusEqualsTest();
+        internTest();
 
         testEncodingPrintableString(BCStyle.C, "AU");
         testEncodingPrintableString(BCStyle.SERIALNUMBER, "123456");
@@ -694,6 +695,44 @@ private void bogusEqualsTest()
         }
     }
 
+    private void internTest()
+        throws Exception
+    {
+        X500Name name = new X500Name("CN=Intern Test CA, O=Bouncy Castle, C=AU");
+        X500Name parsed = X500Name.getInstance(name.getEncoded());
+
+        isTrue("parsed name not interned", name.intern() == name);
+        isTrue("equal encoding not interned", parsed.intern() == name);
+
+        // equal according to the style, but a different encoding, must not share the pooled name
+        X500Name upper = new X500Name("CN=INTERN TEST CA, O=Bouncy Castle, C=AU");
+        isEquals(name, upper);
+        isEquals(name.hashCode(), upper.hashCode());
+        isTrue("differently encoded name interned", upper.intern() == upper);
+
+        // and neither must a different style
+        X500Name strict = X500Name.getInstance(BCStrictStyle.INSTANCE, name);
+        isTrue("different style interned", strict.intern() == strict);
+
+        // a name in use survives the pool filling up, others are dropped to make room
+        X500Name first = new X500Name("CN=Intern Test 0, O=Bouncy Castle, C=AU").intern();
+        for (int i = 1; i <= 4096; i++)
+        {
+            new X500Name("CN=Intern Test " + i + ", O=Bouncy Castle, C=AU").intern();
+            isTrue("name in use dropped", name.intern() == name);
+        }
+        isTrue("unused name kept", new X500Name("CN=Intern Test 0, O=Bouncy Castle, C=AU").intern() != first);
+
+        // the decoded values, and so their canonical forms, are kept by the RDN
+        RDN rdn = parsed.getRDNs()[0];
+        isTrue("values not kept", rdn.getFirst() == rdn.getTypesAndValues()[0]);
+        isEquals("intern test ca", rdn.getFirst().getCanonicalValue());
+        isTrue("canonical value not kept", rdn.getFirst().getCanonicalValue() == rdn.getFirst().getCanonicalValue());
+
+        isTrue(!name.equals(new X500Name("CN=Intern Test CA, O=Bouncy Castle, C=NZ")));
+        isTrue(!name.equals(new X500Name("CN=Intern Test CA, O=Bouncy Castle")));
+    }
+
     public static class DNQStyle
         extends BCStyle
     {
@@ -0,0 +1,257 @@
+package org.bouncycastle.crypto.test;
+
+import java.security.SecureRandom;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.MultiBlockCipher;
+import org.bouncycastle.crypto.engines.AESBitslicedEngine;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.AEADBlockCipher;
+import org.bouncycastle.crypto.modes.CCMBlockCipher;
+import org.bouncycastle.crypto.modes.GCMSIVBlockCipher;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.encoders.Hex;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Test vectors from the NIST standard tests and Brian Gladman's vector set
+ * <a href="https://fp.gladman.plus.com/cryptography_technology/rijndael/">
+ * https://fp.gladman.plus.com/cryptography_technology/rijndael/</a>, plus multi-block
+ * comparisons against the table based engine.
+ */
+public class AESBitslicedTest
+    extends CipherTest
+{
+    static SimpleTest[]  tests = 
+            {
+                new BlockCipherVectorTest(0, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("80000000000000000000000000000000")),
+                        "00000000000000000000000000000000", "0EDD33D3C621E546455BD8BA1418BEC8"),
+                new BlockCipherVectorTest(1, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("00000000000000000000000000000080")),
+                        "00000000000000000000000000000000", "172AEAB3D507678ECAF455C12587ADB7"),
+                new BlockCipherMonteCarloTest(2, 10000, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("00000000000000000000000000000000")),
+                        "00000000000000000000000000000000", "C34C052CC0DA8D73451AFE5F03BE297F"),
+                new BlockCipherMonteCarloTest(3, 10000, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("5F060D3716B345C253F6749ABAC10917")),
+                        "355F697E8B868B65B25A04E18D782AFA", "ACC863637868E3E068D2FD6E3508454A"),
+                new BlockCipherVectorTest(4, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("000000000000000000000000000000000000000000000000")),
+                        "80000000000000000000000000000000", "6CD02513E8D4DC986B4AFE087A60BD0C"),
+                new BlockCipherMonteCarloTest(5, 10000, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("AAFE47EE82411A2BF3F6752AE8D7831138F041560631B114")),
+                        "F3F6752AE8D7831138F041560631B114", "77BA00ED5412DFF27C8ED91F3C376172"),
+                new BlockCipherVectorTest(6, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("0000000000000000000000000000000000000000000000000000000000000000")),
+                        "80000000000000000000000000000000", "DDC6BF790C15760D8D9AEB6F9A75FD4E"),
+                new BlockCipherMonteCarloTest(7, 10000, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("28E79E2AFC5F7745FCCABE2F6257C2EF4C4EDFB37324814ED4137C288711A386")),
+                        "C737317FE0846F132B23C8C2A672CE22", "E58B82BFBA53C0040DC610C642121168")
+            };
+
+    private BlockCipher _engine = new AESBitslicedEngine();
+
+    AESBitslicedTest()
+    {
+        super(tests, new AESBitslicedEngine(), new KeyParameter(new byte[16]));
+    }
+
+    public String getName()
+    {
+        return "AESBitsliced";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        super.performTest();
+
+        byte[] keyBytes = new byte[16];
+
+        _engine.init(true, new KeyParameter(keyBytes));
+
+        //
+        // init tests
+        //
+        try
+        {
+            byte[]      dudKey = new byte[6];
+
+            _engine.init(true, new KeyParameter(dudKey));
+
+            fail("failed key length check");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            byte[]      iv = new byte[16];
+
+            _engine.init(true, new ParametersWithIV(null, iv));
+
+            fail("failed parameter check");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            new AESBitslicedEngine().processBlock(new byte[16], 0, new byte[16], 0);
+
+            fail("failed initialisation check");
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+
+        multiBlockTests();
+        counterModeTests();
+    }
+
+    private void multiBlockTests()
+    {
+        SecureRandom random = new SecureRandom();
+
+        for (int keySize = 16; keySize <= 32; keySize += 8)
+        {
+            byte[] key = new byte[keySize];
+            random.nextBytes(key);
+
+            for (int blockCount = 0; blockCount <= 9; ++blockCount)
+            {
+                byte[] input = new byte[blockCount * 16];
+                random.nextBytes(input);
+
+                checkMultiBlock(true, key, input);
+                checkMultiBlock(false, key, input);
+            }
+        }
+    }
+
+    private void checkMultiBlock(boolean forEncryption, byte[] key, byte[] input)
+    {
+        int blockCount = input.length / 16;
+
+        BlockCipher ref = new AESEngine();
+        ref.init(forEncryption, new KeyParameter(key));
+
+        byte[] expected = new byte[input.length];
+        for (int i = 0; i < blockCount; ++i)
+        {
+            ref.processBlock(input, i * 16, expected, i * 16);
+        }
+
+        MultiBlockCipher engine = new AESBitslicedEngine();
+        engine.init(forEncryption, new KeyParameter(key));
+
+        byte[] output = new byte[input.length + 3];
+        engine.processBlocks(input, 0, blockCount, output, 3);
+        if (!Arrays.areEqual(expected, Arrays.copyOfRange(output, 3, output.length)))
+        {
+            fail("multi-block mismatch: " + blockCount + " blocks, " + (forEncryption ? "encrypt" : "decrypt"));
+        }
+
+        for (int i = 0; i < blockCount; ++i)
+        {
+            engine.processBlock(input, i * 16, output, i * 16);
+        }
+        if (!Arrays.areEqual(expected, Arrays.copyOfRange(output, 0, input.length)))
+        {
+            fail("single block mismatch: " + (forEncryption ? "encrypt" : "decrypt"));
+        }
+
+        // overlapping, in place processing in both directions
+        for (int shift = -5; shift <= 5; shift += 5)
+        {
+            byte[] buf = new byte[input.length + 10];
+            System.arraycopy(input, 0, buf, 5, input.length);
+            engine.processBlocks(buf, 5, blockCount, buf, 5 + shift);
+            if (!Arrays.areEqual(expected, Arrays.copyOfRange(buf, 5 + shift, 5 + shift + input.length)))
+            {
+                fail("in place mismatch: " + blockCount + " blocks, shift " + shift);
+            }
+        }
+    }
+
+    private void counterModeTests()
+        throws InvalidCipherTextException
+    {
+        SecureRandom random = new SecureRandom();
+
+        byte[] key = new byte[16];
+        random.nextBytes(key);
+        byte[] input = new byte[1000];
+        random.nextBytes(input);
+
+        // split so the bulk path starts mid stream and is left on a partial block
+        byte[] expected = new byte[input.length];
+        SICBlockCipher ref = new SICBlockCipher(new AESEngine());
+        ref.init(true, new ParametersWithIV(new KeyParameter(key), new byte[16]));
+        ref.processBytes(input, 0, input.length, expected, 0);
+
+        byte[] output = new byte[input.length];
+        SICBlockCipher sic = new SICBlockCipher(new AESBitslicedEngine());
+        sic.init(true, new ParametersWithIV(new KeyParameter(key), new byte[16]));
+        sic.processBytes(input, 0, 7, output, 0);
+        sic.processBytes(input, 7, 9, output, 7);
+        sic.processBytes(input, 16, 600, output, 16);
+        sic.processBlocks(input, 616, 20, output, 616);
+        sic.processBytes(input, 936, 64, output, 936);
+        isTrue("SIC mismatch", Arrays.areEqual(expected, output));
+
+        // a 15 byte IV leaves 256 counter values, the bulk path must stop at the end of them
+        sic.init(true, new ParametersWithIV(new KeyParameter(key), new byte[15]));
+        byte[] buf = new byte[257 * 16];
+        try
+        {
+            sic.processBytes(buf, 0, buf.length, buf, 0);
+            fail("no exception on counter overflow");
+        }
+        catch (IllegalStateException e)
+        {
+            isEquals("Counter in CTR/SIC mode out of range.", e.getMessage());
+        }
+
+        checkAEAD(new CCMBlockCipher(new AESEngine()), new CCMBlockCipher(new AESBitslicedEngine()), key, 13, input);
+        checkAEAD(new GCMSIVBlockCipher(new AESEngine()), new GCMSIVBlockCipher(new AESBitslicedEngine()), key, 12,
+            input);
+    }
+
+    private void checkAEAD(AEADBlockCipher ref, AEADBlockCipher cipher, byte[] key, int nonceLen, byte[] input)
+        throws InvalidCipherTextException
+    {
+        AEADParameters params = new AEADParameters(new KeyParameter(key), 128, new byte[nonceLen]);
+
+        ref.init(true, params);
+        byte[] expected = new byte[ref.getOutputSize(input.length)];
+        ref.doFinal(expected, ref.processBytes(input, 0, input.length, expected, 0));
+
+        cipher.init(true, params);
+        byte[] output = new byte[cipher.getOutputSize(input.length)];
+        cipher.doFinal(output, cipher.processBytes(input, 0, input.length, output, 0));
+        isTrue(cipher.getAlgorithmName() + " encrypt mismatch", Arrays.areEqual(expected, output));
+
+        cipher.init(false, params);
+        byte[] plain = new byte[cipher.getOutputSize(output.length)];
+        cipher.doFinal(plain, cipher.processBytes(output, 0, output.length, plain, 0));
+        isTrue(cipher.getAlgorithmName() + " decrypt mismatch", Arrays.areEqual(input, plain));
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        runTest(new AESBitslicedTest());
+    }
+}
@@ -0,0 +1,329 @@
+package org.bouncycastle.crypto.test;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.Signer;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.ChaCha7539Engine;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.Ed25519PrivateKeyParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bouncycastle.crypto.signers.Ed25519Signer;
+import org.bouncycastle.crypto.util.ByteBuffers;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check the ByteBuffer utility methods give the same results as the array based APIs, for heap, direct and
+ * read only buffers.
+ */
+public class ByteBuffersTest
+    extends SimpleTest
+{
+    private static final int HEAP = 0;
+    private static final int DIRECT = 1;
+    private static final int READ_ONLY = 2;
+
+    private final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "ByteBuffers";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        int[] lengths = { 0, 1, 17, 4095, 4096, 4097, 20000 };
+
+        for (int i = 0; i != lengths.length; i++)
+        {
+            for (int kind = HEAP; kind <= READ_ONLY; kind++)
+            {
+                digestTest(lengths[i], kind);
+                macTest(lengths[i], kind);
+                signerTest(lengths[i], kind);
+                streamCipherTest(lengths[i], kind);
+                bufferedCipherTest(lengths[i], kind);
+                aeadTest(lengths[i], kind);
+            }
+        }
+
+        checksTest();
+    }
+
+    private void digestTest(int len, int kind)
+    {
+        byte[] data = randomBytes(len);
+        Digest digest = new SHA256Digest();
+
+        byte[] expected = new byte[digest.getDigestSize()];
+        digest.update(data, 0, len);
+        digest.doFinal(expected, 0);
+
+        ByteBuffer in = wrap(data, kind);
+        ByteBuffer out = allocate(expected.length + 5, kind == READ_ONLY ? HEAP : kind);
+        out.position(5);
+
+        ByteBuffers.update(digest, in);
+        isEquals(expected.length, ByteBuffers.doFinal(digest, out));
+
+        isTrue("input not consumed", !in.hasRemaining());
+        isTrue("digest mismatch: " + len + "/" + kind, Arrays.areEqual(expected, contents(out, 5)));
+
+        // a caller supplied scratch array of any size gives the same result, and is left cleared
+        byte[] scratch = new byte[17];
+        ByteBuffers.update(digest, wrap(data, kind), scratch);
+        out.position(5);
+        ByteBuffers.doFinal(digest, out);
+
+        isTrue("scratch digest mismatch: " + len + "/" + kind, Arrays.areEqual(expected, contents(out, 5)));
+        isTrue("scratch not cleared", Arrays.areAllZeroes(scratch, 0, scratch.length));
+    }
+
+    private void macTest(int len, int kind)
+    {
+        byte[] data = randomBytes(len);
+        Mac mac = new HMac(new SHA256Digest());
+        KeyParameter key = new KeyParameter(randomBytes(32));
+
+        byte[] expected = new byte[mac.getMacSize()];
+        mac.init(key);
+        mac.update(data, 0, len);
+        mac.doFinal(expected, 0);
+
+        ByteBuffer in = wrap(data, kind);
+        ByteBuffer out = allocate(expected.length, kind == READ_ONLY ? DIRECT : kind);
+
+        ByteBuffers.update(mac, in);
+        isEquals(expected.length, ByteBuffers.doFinal(mac, out));
+
+        isTrue("mac mismatch: " + len + "/" + kind, Arrays.areEqual(expected, contents(out, 0)));
+    }
+
+    private void signerTest(int len, int kind)
+        throws Exception
+    {
+        byte[] data = randomBytes(len);
+        Ed25519PrivateKeyParameters key = new Ed25519PrivateKeyParameters(random);
+        Signer signer = new Ed25519Signer();
+
+        // Ed25519 signatures are deterministic
+        signer.init(true, key);
+        signer.update(data, 0, len);
+        byte[] expected = signer.generateSignature();
+
+        signer.init(true, key);
+        ByteBuffers.update(signer, wrap(data, kind));
+
+        isTrue("signer mismatch: " + len + "/" + kind, Arrays.areEqual(expected, signer.generateSignature()));
+    }
+
+    private void streamCipherTest(int len, int kind)
+    {
+        byte[] data = randomBytes(len);
+        ParametersWithIV params = new ParametersWithIV(new KeyParameter(randomBytes(32)), randomBytes(12));
+        StreamCipher cipher = new ChaCha7539Engine();
+
+        byte[] expected = new byte[len];
+        cipher.init(true, params);
+        cipher.processBytes(data, 0, len, expected, 0);
+
+        ByteBuffer in = wrap(data, kind);
+        ByteBuffer out = allocate(len + 3, kind == READ_ONLY ? HEAP : kind);
+        out.position(3);
+
+        cipher.init(true, params);
+        isEquals(len, ByteBuffers.processBytes(cipher, in, out));
+
+        isTrue("stream cipher mismatch: " + len + "/" + kind, Arrays.areEqual(expected, contents(out, 3)));
+
+        // in place, through a duplicate
+        ByteBuffer buf = allocate(len, kind == READ_ONLY ? DIRECT : kind);
+        buf.put(data);
+        buf.flip();
+
+        cipher.init(true, params);
+        ByteBuffers.processBytes(cipher, buf.duplicate(), buf);
+
+        isTrue("in place mismatch: " + len + "/" + kind, Arrays.areEqual(expected, contents(buf, 0)));
+    }
+
+    private void bufferedCipherTest(int len, int kind)
+        throws Exception
+    {
+        byte[] data = randomBytes(len);
+        ParametersWithIV params = new ParametersWithIV(new KeyParameter(randomBytes(16)), randomBytes(16));
+        BufferedBlockCipher cipher = new PaddedBufferedBlockCipher(CBCBlockCipher.newInstance(AESEngine.newInstance()));
+
+        cipher.init(true, params);
+        byte[] expected = new byte[cipher.getOutputSize(len)];
+        int expectedLen = cipher.processBytes(data, 0, len, expected, 0);
+        expectedLen += cipher.doFinal(expected, expectedLen);
+
+        ByteBuffer out = allocate(expected.length, kind == READ_ONLY ? DIRECT : kind);
+
+        // split the input, so the cipher is holding data between calls
+        cipher.init(true, params);
+        int split = len / 3;
+        ByteBuffers.processBytes(cipher, wrap(Arrays.copyOfRange(data, 0, split), kind), out);
+        ByteBuffers.processBytes(cipher, wrap(Arrays.copyOfRange(data, split, len), kind), out);
+        ByteBuffers.doFinal(cipher, out);
+
+        isEquals(expectedLen, out.position());
+        isTrue("buffered cipher mismatch: " + len + "/" + kind, Arrays.areEqual(expected, contents(out, 0)));
+
+        // and back again
+        ByteBuffer plain = allocate(expected.length, kind == READ_ONLY ? HEAP : kind);
+        out.flip();
+        cipher.init(false, params);
+        ByteBuffers.processBytes(cipher, kind == READ_ONLY ? out.asReadOnlyBuffer() : out, plain);
+        ByteBuffers.doFinal(cipher, plain);
+
+        isEquals(len, plain.position());
+        isTrue("buffered decryption mismatch: " + len + "/" + kind,
+            Arrays.areEqual(data, Arrays.copyOfRange(contents(plain, 0), 0, len)));
+    }
+
+    private void aeadTest(int len, int kind)
+        throws Exception
+    {
+        byte[] data = randomBytes(len);
+        byte[] aad = randomBytes(len % 50);
+        AEADParameters params = new AEADParameters(new KeyParameter(randomBytes(16)), 128, randomBytes(12));
+        AEADCipher cipher = GCMBlockCipher.newInstance(AESEngine.newInstance());
+
+        cipher.init(true, params);
+        cipher.processAADBytes(aad, 0, aad.length);
+        byte[] expected = new byte[cipher.getOutputSize(len)];
+        int expectedLen = cipher.processBytes(data, 0, len, expected, 0);
+        cipher.doFinal(expected, expectedLen);
+
+        ByteBuffer out = allocate(expected.length, kind == READ_ONLY ? DIRECT : kind);
+
+        // GCM won't allow the nonce to be reused for encryption
+        cipher = GCMBlockCipher.newInstance(AESEngine.newInstance());
+        cipher.init(true, params);
+        ByteBuffers.processAADBytes(cipher, wrap(aad, kind));
+        ByteBuffers.processBytes(cipher, wrap(data, kind), out);
+        ByteBuffers.doFinal(cipher, out);
+
+        isTrue("aead mismatch: " + len + "/" + kind, Arrays.areEqual(expected, contents(out, 0)));
+
+        // decryption, split so the tag is held back across calls
+        ByteBuffer plain = allocate(len, kind == READ_ONLY ? HEAP : kind);
+        int split = random.nextInt(expected.length + 1);
+
+        cipher.init(false, params);
+        ByteBuffers.processAADBytes(cipher, wrap(aad, kind));
+        ByteBuffers.processBytes(cipher, wrap(Arrays.copyOfRange(expected, 0, split), kind), plain);
+        ByteBuffers.processBytes(cipher, wrap(Arrays.copyOfRange(expected, split, expected.length), kind), plain);
+        ByteBuffers.doFinal(cipher, plain);
+
+        isTrue("aead decryption mismatch: " + len + "/" + kind, Arrays.areEqual(data, contents(plain, 0)));
+    }
+
+    private void checksTest()
+    {
+        StreamCipher cipher = new ChaCha7539Engine();
+        cipher.init(true, new ParametersWithIV(new KeyParameter(new byte[32]), new byte[12]));
+
+        ByteBuffer buf = ByteBuffer.allocate(16);
+        try
+        {
+            ByteBuffers.processBytes(cipher, buf, buf);
+            fail("same buffer accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            ByteBuffers.processBytes(cipher, ByteBuffer.allocate(16), ByteBuffer.allocateDirect(15));
+            fail("short output accepted");
+        }
+        catch (OutputLengthException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            ByteBuffers.doFinal(new SHA256Digest(), ByteBuffer.allocate(32).asReadOnlyBuffer());
+            fail("read only output accepted");
+        }
+        catch (java.nio.ReadOnlyBufferException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            ByteBuffers.update(new SHA256Digest(), ByteBuffer.allocateDirect(16), new byte[0]);
+            fail("empty scratch accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    private byte[] randomBytes(int len)
+    {
+        byte[] bytes = new byte[len];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Return a buffer of the requested kind holding data, at a non-zero offset in the underlying storage.
+     */
+    private ByteBuffer wrap(byte[] data, int kind)
+    {
+        ByteBuffer buf = allocate(data.length + 7, kind == READ_ONLY ? HEAP : kind);
+        buf.position(7);
+        buf.put(data);
+        buf.position(7);
+
+        ByteBuffer slice = buf.slice();
+        return kind == READ_ONLY ? slice.asReadOnlyBuffer() : slice;
+    }
+
+    private static ByteBuffer allocate(int len, int kind)
+    {
+        return kind == DIRECT ? ByteBuffer.allocateDirect(len) : ByteBuffer.allocate(len);
+    }
+
+    /**
+     * Return the bytes from start up to the current position of a buffer.
+     */
+    private static byte[] contents(ByteBuffer buf, int start)
+    {
+        ByteBuffer dup = buf.duplicate();
+        byte[] bytes = new byte[dup.position() - start];
+        dup.position(start);
+        dup.get(bytes);
+        return bytes;
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new ByteBuffersTest());
+    }
+}
@@ -287,6 +287,34 @@ private void randomTest(SecureRandom random) throws InvalidCipherTextException
             fail("decryption produced different mac from encryption");
         }
 
+        //
+        // split decryption test
+        //
+        cipher.init(false, parameters);
+        cipher.processAADBytes(C, 0, saLength);
+
+        decP = new byte[decPLength];
+        int pos = 0;
+        len = 0;
+        while (pos < ctLength)
+        {
+            int chunk = Math.min(ctLength - pos, nextInt(random, 200));
+            predicted = cipher.getUpdateOutputSize(chunk);
+            int chunkLen = cipher.processBytes(C, saLength + pos, chunk, decP, len);
+            if (predicted != chunkLen)
+            {
+                fail("split decryption reported incorrect update length in randomised test");
+            }
+            pos += chunk;
+            len += chunkLen;
+        }
+        len += cipher.doFinal(decP, len);
+
+        if (decPLength != len || !areEqual(P, pHead, pHead + pLength, decP, 0, decPLength))
+        {
+            fail("incorrect split decrypt in randomised test");
+        }
+
         //
         // key reuse test
         //
@@ -4,6 +4,7 @@
 
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.engines.ChaCha7539Engine;
 import org.bouncycastle.crypto.engines.ChaChaEngine;
 import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.crypto.params.ParametersWithIV;
@@ -159,6 +160,8 @@ public void performTest()
                   set6v1_0, set6v1_65472, set6v1_65536);
         reinitBug();
         skipTest();
+        bulkTest(new ChaChaEngine(), new ChaChaEngine(), 8);
+        bulkTest(new ChaCha7539Engine(), new ChaCha7539Engine(), 12);
     }
 
     private void chachaTest1(int rounds, CipherParameters params, String v0, String v192, String v256, String v448)
@@ -281,6 +284,49 @@ private boolean areEqual(byte[] a, int aOff, byte[] b, int bOff)
         return true;
     }
 
+    private void bulkTest(StreamCipher engine, StreamCipher reference, int ivLength)
+    {
+        SecureRandom random = new SecureRandom();
+
+        byte[] key = new byte[32];
+        byte[] iv = new byte[ivLength];
+        random.nextBytes(key);
+        random.nextBytes(iv);
+
+        CipherParameters params = new ParametersWithIV(new KeyParameter(key), iv);
+
+        byte[] plain = new byte[3000];
+        random.nextBytes(plain);
+
+        byte[] expected = new byte[plain.length];
+        reference.init(true, params);
+        for (int i = 0; i < plain.length; ++i)
+        {
+            expected[i] = reference.returnByte(plain[i]);
+        }
+
+        for (int trial = 0; trial < 20; ++trial)
+        {
+            byte[] cipher = new byte[plain.length];
+
+            engine.init(true, params);
+
+            int pos = 0;
+            while (pos < plain.length)
+            {
+                int len = Math.min(plain.length - pos, random.nextInt(trial < 10 ? 80 : 700));
+
+                engine.processBytes(plain, pos, len, cipher, pos);
+                pos += len;
+            }
+
+            if (!areEqual(expected, cipher))
+            {
+                fail(engine.getAlgorithmName() + " bulk processing failed");
+            }
+        }
+    }
+
     private void skipTest()
     {
         SecureRandom rand = new SecureRandom();
@@ -0,0 +1,375 @@
+package org.bouncycastle.crypto.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.SecureRandom;
+
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.Signer;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.io.CipherInputStream;
+import org.bouncycastle.crypto.io.CipherOutputStream;
+import org.bouncycastle.crypto.io.CipherReadableByteChannel;
+import org.bouncycastle.crypto.io.CipherWritableByteChannel;
+import org.bouncycastle.crypto.io.DigestReadableByteChannel;
+import org.bouncycastle.crypto.io.DigestWritableByteChannel;
+import org.bouncycastle.crypto.io.InvalidCipherTextIOException;
+import org.bouncycastle.crypto.io.MacReadableByteChannel;
+import org.bouncycastle.crypto.io.MacWritableByteChannel;
+import org.bouncycastle.crypto.io.SignerReadableByteChannel;
+import org.bouncycastle.crypto.io.SignerWritableByteChannel;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.modes.AEADBlockCipher;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.Ed25519PrivateKeyParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bouncycastle.crypto.signers.Ed25519Signer;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check the cipher, digest, MAC and signer channels, and the buffer size handling of the cipher streams, against the
+ * array based APIs.
+ */
+public class CipherChannelTest
+    extends SimpleTest
+{
+    private static final int CBC = 0;
+    private static final int CTR = 1;
+    private static final int GCM = 2;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final KeyParameter key = new KeyParameter(randomBytes(16));
+    private final byte[] iv = randomBytes(16);
+
+    public String getName()
+    {
+        return "CipherChannel";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        int[] lengths = { 0, 1, 15, 16, 17, 1000, 70000 };
+        int[] bufSizes = { 1, 16, 100, 64 * 1024 };
+
+        for (int i = 0; i != lengths.length; i++)
+        {
+            for (int mode = CBC; mode <= GCM; mode++)
+            {
+                for (int b = 0; b != bufSizes.length; b++)
+                {
+                    cipherTest(mode, lengths[i], bufSizes[b], false);
+                    cipherTest(mode, lengths[i], bufSizes[b], true);
+                }
+                streamTest(mode, lengths[i]);
+            }
+
+            digestMacSignerTest(lengths[i]);
+        }
+
+        tagFailureTest();
+    }
+
+    private void cipherTest(int mode, int len, int bufSize, boolean direct)
+        throws Exception
+    {
+        byte[] data = randomBytes(len);
+        byte[] expected = process(mode, true, data);
+
+        // encrypt through the writable channel, in uneven pieces
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        WritableByteChannel out = newWritable(mode, Channels.newChannel(bOut), bufSize);
+        int pos = 0;
+        while (pos < len)
+        {
+            int n = Math.min(len - pos, random.nextInt(3000));
+            out.write(toBuffer(data, pos, n, direct));
+            pos += n;
+        }
+        out.close();
+        isTrue("write mismatch: " + mode + "/" + len + "/" + bufSize,
+            Arrays.areEqual(expected, bOut.toByteArray()));
+
+        // decrypt through the readable channel, into buffers of varying sizes
+        ReadableByteChannel in = newReadable(mode, Channels.newChannel(new ByteArrayInputStream(expected)), bufSize);
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        ByteBuffer dst = direct ? ByteBuffer.allocateDirect(5000) : ByteBuffer.allocate(5000);
+        for (;;)
+        {
+            dst.clear();
+            dst.limit(1 + random.nextInt(dst.capacity()));
+            int n = in.read(dst);
+            if (n < 0)
+            {
+                break;
+            }
+            dst.flip();
+            byte[] chunk = new byte[dst.remaining()];
+            dst.get(chunk);
+            result.write(chunk);
+        }
+        in.close();
+        isTrue("read mismatch: " + mode + "/" + len + "/" + bufSize, Arrays.areEqual(data, result.toByteArray()));
+    }
+
+    private void streamTest(int mode, int len)
+        throws Exception
+    {
+        byte[] data = randomBytes(len);
+        byte[] expected = process(mode, true, data);
+
+        // a small buffer size on the way out, so large writes are split
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        CipherOutputStream cOut;
+        if (mode == CBC)
+        {
+            cOut = new CipherOutputStream(bOut, (BufferedBlockCipher)newCipher(mode, true), 100);
+        }
+        else if (mode == CTR)
+        {
+            cOut = new CipherOutputStream(bOut, (StreamCipher)newCipher(mode, true), 100);
+        }
+        else
+        {
+            cOut = new CipherOutputStream(bOut, (AEADBlockCipher)newCipher(mode, true), 100);
+        }
+        cOut.write(data);
+        cOut.close();
+        isTrue("stream write mismatch: " + mode + "/" + len, Arrays.areEqual(expected, bOut.toByteArray()));
+
+        // reads larger than the input buffer, which a stream cipher processes in place
+        CipherInputStream cIn;
+        if (mode == CBC)
+        {
+            cIn = new CipherInputStream(new ByteArrayInputStream(expected), (BufferedBlockCipher)newCipher(mode, false),
+                512);
+        }
+        else if (mode == CTR)
+        {
+            cIn = new CipherInputStream(new ByteArrayInputStream(expected), (StreamCipher)newCipher(mode, false), 512);
+        }
+        else
+        {
+            cIn = new CipherInputStream(new ByteArrayInputStream(expected), (AEADBlockCipher)newCipher(mode, false),
+                512);
+        }
+        byte[] result = new byte[len + 10];
+        int pos = 0;
+        for (;;)
+        {
+            int n = cIn.read(result, pos, Math.min(result.length - pos, random.nextBoolean() ? 10 : 2000));
+            if (n < 0)
+            {
+                break;
+            }
+            pos += n;
+        }
+        cIn.close();
+        isEquals("stream read length: " + mode + "/" + len, len, pos);
+        isTrue("stream read mismatch: " + mode + "/" + len, Arrays.areEqual(data, Arrays.copyOf(result, len)));
+    }
+
+    private void digestMacSignerTest(int len)
+        throws Exception
+    {
+        byte[] data = randomBytes(len);
+
+        SHA256Digest digest = new SHA256Digest();
+        byte[] expectedDigest = new byte[digest.getDigestSize()];
+        digest.update(data, 0, len);
+        digest.doFinal(expectedDigest, 0);
+
+        HMac mac = new HMac(new SHA256Digest());
+        mac.init(key);
+        byte[] expectedMac = new byte[mac.getMacSize()];
+        mac.update(data, 0, len);
+        mac.doFinal(expectedMac, 0);
+
+        Ed25519PrivateKeyParameters signingKey = new Ed25519PrivateKeyParameters(random);
+        Signer signer = new Ed25519Signer();
+        signer.init(true, signingKey);
+        signer.update(data, 0, len);
+        byte[] expectedSig = signer.generateSignature();
+
+        DigestWritableByteChannel digestOut = new DigestWritableByteChannel(digest);
+        digestOut.write(toBuffer(data, 0, len, true));
+        isTrue("digest write mismatch", Arrays.areEqual(expectedDigest, digestOut.getDigest()));
+
+        MacWritableByteChannel macOut = new MacWritableByteChannel(mac);
+        macOut.write(toBuffer(data, 0, len, false));
+        isTrue("mac write mismatch", Arrays.areEqual(expectedMac, macOut.getMac()));
+
+        signer.init(true, signingKey);
+        SignerWritableByteChannel signerOut = new SignerWritableByteChannel(signer);
+        signerOut.write(toBuffer(data, 0, len, true));
+        isTrue("signer write mismatch", Arrays.areEqual(expectedSig, signerOut.getSigner().generateSignature()));
+
+        DigestReadableByteChannel digestIn = new DigestReadableByteChannel(
+            Channels.newChannel(new ByteArrayInputStream(data)), digest);
+        drain(digestIn, false);
+        byte[] actual = new byte[digest.getDigestSize()];
+        digestIn.getDigest().doFinal(actual, 0);
+        isTrue("digest read mismatch", Arrays.areEqual(expectedDigest, actual));
+
+        MacReadableByteChannel macIn = new MacReadableByteChannel(
+            Channels.newChannel(new ByteArrayInputStream(data)), mac);
+        drain(macIn, true);
+        actual = new byte[mac.getMacSize()];
+        macIn.getMac().doFinal(actual, 0);
+        isTrue("mac read mismatch", Arrays.areEqual(expectedMac, actual));
+
+        signer.init(true, signingKey);
+        SignerReadableByteChannel signerIn = new SignerReadableByteChannel(
+            Channels.newChannel(new ByteArrayInputStream(data)), signer);
+        drain(signerIn, false);
+        isTrue("signer read mismatch", Arrays.areEqual(expectedSig, signerIn.getSigner().generateSignature()));
+    }
+
+    private void tagFailureTest()
+        throws Exception
+    {
+        byte[] data = randomBytes(1000);
+        byte[] encrypted = process(GCM, true, data);
+        encrypted[encrypted.length - 1] ^= 1;
+
+        ReadableByteChannel in = newReadable(GCM, Channels.newChannel(new ByteArrayInputStream(encrypted)), 100);
+        try
+        {
+            drain(in, false);
+            fail("no exception on bad tag");
+        }
+        catch (InvalidCipherTextIOException e)
+        {
+            // expected
+        }
+
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        WritableByteChannel out = new CipherWritableByteChannel(Channels.newChannel(bOut),
+            (AEADBlockCipher)newCipher(GCM, false));
+        out.write(ByteBuffer.wrap(encrypted));
+        try
+        {
+            out.close();
+            fail("no exception on bad tag");
+        }
+        catch (InvalidCipherTextIOException e)
+        {
+            // expected
+        }
+    }
+
+    private void drain(ReadableByteChannel in, boolean direct)
+        throws Exception
+    {
+        ByteBuffer dst = direct ? ByteBuffer.allocateDirect(777) : ByteBuffer.allocate(777);
+        while (in.read(dst) >= 0)
+        {
+            dst.clear();
+        }
+    }
+
+    private WritableByteChannel newWritable(int mode, WritableByteChannel out, int bufSize)
+    {
+        if (mode == CBC)
+        {
+            return new CipherWritableByteChannel(out, (BufferedBlockCipher)newCipher(mode, true), bufSize);
+        }
+        if (mode == CTR)
+        {
+            return new CipherWritableByteChannel(out, (StreamCipher)newCipher(mode, true), bufSize);
+        }
+        return new CipherWritableByteChannel(out, (AEADBlockCipher)newCipher(mode, true), bufSize);
+    }
+
+    private ReadableByteChannel newReadable(int mode, ReadableByteChannel in, int bufSize)
+    {
+        if (mode == CBC)
+        {
+            return new CipherReadableByteChannel(in, (BufferedBlockCipher)newCipher(mode, false), bufSize);
+        }
+        if (mode == CTR)
+        {
+            return new CipherReadableByteChannel(in, (StreamCipher)newCipher(mode, false));
+        }
+        return new CipherReadableByteChannel(in, (AEADBlockCipher)newCipher(mode, false), bufSize);
+    }
+
+    private Object newCipher(int mode, boolean forEncryption)
+    {
+        if (mode == CBC)
+        {
+            BufferedBlockCipher cipher = new PaddedBufferedBlockCipher(
+                CBCBlockCipher.newInstance(AESEngine.newInstance()));
+            cipher.init(forEncryption, new ParametersWithIV(key, iv));
+            return cipher;
+        }
+        if (mode == CTR)
+        {
+            StreamCipher cipher = SICBlockCipher.newInstance(AESEngine.newInstance());
+            cipher.init(forEncryption, new ParametersWithIV(key, iv));
+            return cipher;
+        }
+        AEADBlockCipher cipher = GCMBlockCipher.newInstance(AESEngine.newInstance());
+        cipher.init(forEncryption, new AEADParameters(key, 128, Arrays.copyOf(iv, 12)));
+        return cipher;
+    }
+
+    private byte[] process(int mode, boolean forEncryption, byte[] data)
+        throws Exception
+    {
+        Object cipher = newCipher(mode, forEncryption);
+        if (cipher instanceof BufferedBlockCipher)
+        {
+            BufferedBlockCipher c = (BufferedBlockCipher)cipher;
+            byte[] out = new byte[c.getOutputSize(data.length)];
+            int len = c.processBytes(data, 0, data.length, out, 0);
+            len += c.doFinal(out, len);
+            return Arrays.copyOf(out, len);
+        }
+        if (cipher instanceof StreamCipher)
+        {
+            byte[] out = new byte[data.length];
+            ((StreamCipher)cipher).processBytes(data, 0, data.length, out, 0);
+            return out;
+        }
+        AEADBlockCipher c = (AEADBlockCipher)cipher;
+        byte[] out = new byte[c.getOutputSize(data.length)];
+        int len = c.processBytes(data, 0, data.length, out, 0);
+        len += c.doFinal(out, len);
+        return Arrays.copyOf(out, len);
+    }
+
+    private ByteBuffer toBuffer(byte[] data, int off, int len, boolean direct)
+    {
+        ByteBuffer buf = direct ? ByteBuffer.allocateDirect(len) : ByteBuffer.allocate(len);
+        buf.put(data, off, len);
+        buf.flip();
+        return buf;
+    }
+
+    private byte[] randomBytes(int len)
+    {
+        byte[] bytes = new byte[len];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new CipherChannelTest());
+    }
+}
@@ -0,0 +1,224 @@
+package org.bouncycastle.crypto.test;
+
+import java.security.SecureRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.bouncycastle.crypto.Xof;
+import org.bouncycastle.crypto.digests.ConcurrentKangaroo;
+import org.bouncycastle.crypto.digests.ConcurrentParallelHash;
+import org.bouncycastle.crypto.digests.Kangaroo;
+import org.bouncycastle.crypto.digests.ParallelHash;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Strings;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check the concurrent ParallelHash and Kangaroo digests give exactly the same output as the serial ones.
+ */
+public class ConcurrentTreeHashTest
+    extends SimpleTest
+{
+    private static final byte[] S = Strings.toByteArray("Parallel Data");
+
+    private final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "ConcurrentTreeHash";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        ForkJoinPool forkJoin = new ForkJoinPool(3);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Executor rejecting = new Executor()
+        {
+            public void execute(Runnable task)
+            {
+                throw new RejectedExecutionException();
+            }
+        };
+
+        try
+        {
+            parallelHashTest(forkJoin, 128, 8, 1);
+            parallelHashTest(forkJoin, 256, 100, 4);
+            parallelHashTest(pool, 128, 1000, 3);
+            parallelHashTest(rejecting, 256, 64, 2);
+
+            kangarooTest(forkJoin, 1);
+            kangarooTest(forkJoin, 5);
+            kangarooTest(pool, 2);
+            kangarooTest(rejecting, 3);
+
+            copyTest(pool);
+        }
+        finally
+        {
+            forkJoin.shutdown();
+            pool.shutdown();
+        }
+
+        failureTest();
+        parameterTest();
+    }
+
+    private void parallelHashTest(Executor executor, int bitLength, int B, int maxInFlight)
+    {
+        int[] lengths = { 0, 1, B - 1, B, B + 1, 7 * B, 7 * B + 3, 50 * B + 5 };
+
+        for (int i = 0; i != lengths.length; i++)
+        {
+            checkSame("ParallelHash " + bitLength + "/" + B + "/" + lengths[i],
+                new ParallelHash(bitLength, S, B, 256),
+                new ConcurrentParallelHash(bitLength, S, B, 256, executor, maxInFlight), lengths[i]);
+        }
+    }
+
+    private void kangarooTest(Executor executor, int maxInFlight)
+    {
+        int leaf = 8192;
+        int[] lengths = { 0, 1, leaf - 1, leaf, leaf + 1, 2 * leaf, 3 * leaf + 1, 9 * leaf + 77 };
+
+        for (int i = 0; i != lengths.length; i++)
+        {
+            checkSame("KangarooTwelve " + lengths[i], new Kangaroo.KangarooTwelve(),
+                new ConcurrentKangaroo.KangarooTwelve(executor, maxInFlight), lengths[i]);
+            checkSame("MarsupilamiFourteen " + lengths[i], new Kangaroo.MarsupilamiFourteen(),
+                new ConcurrentKangaroo.MarsupilamiFourteen(executor, maxInFlight), lengths[i]);
+        }
+
+        // personalisation is absorbed after the message, so it can spill into a further leaf
+        Kangaroo.KangarooParameters params = new Kangaroo.KangarooParameters.Builder()
+            .setPersonalisation(new byte[5000]).build();
+        Kangaroo.KangarooTwelve reference = new Kangaroo.KangarooTwelve();
+        ConcurrentKangaroo.KangarooTwelve digest = new ConcurrentKangaroo.KangarooTwelve(executor, maxInFlight);
+        reference.init(params);
+        digest.init(params);
+        checkSame("KangarooTwelve personalised", reference, digest, 4 * leaf - 100);
+    }
+
+    private void copyTest(Executor executor)
+    {
+        byte[] data = new byte[10000];
+        random.nextBytes(data);
+
+        ParallelHash reference = new ParallelHash(128, S, 100);
+        ConcurrentParallelHash digest = new ConcurrentParallelHash(128, S, 100, executor, 4);
+
+        reference.update(data, 0, 5050);
+        digest.update(data, 0, 5050);
+
+        ConcurrentParallelHash copy = new ConcurrentParallelHash(digest);
+        reference.update(data, 5050, data.length - 5050);
+        digest.update(data, 5050, data.length - 5050);
+        copy.update(data, 5050, data.length - 5050);
+
+        byte[] expected = new byte[32];
+        byte[] actual = new byte[32];
+        reference.doFinal(expected, 0);
+        digest.doFinal(actual, 0);
+        isTrue("original mismatch", Arrays.areEqual(expected, actual));
+        copy.doFinal(actual, 0);
+        isTrue("copy mismatch", Arrays.areEqual(expected, actual));
+
+        // a reset part way through leaves nothing behind
+        digest.update(data, 0, 7777);
+        digest.reset();
+        reference.update(data, 0, 10);
+        digest.update(data, 0, 10);
+        reference.doFinal(expected, 0);
+        digest.doFinal(actual, 0);
+        isTrue("reset mismatch", Arrays.areEqual(expected, actual));
+    }
+
+    private void failureTest()
+    {
+        ConcurrentParallelHash digest = new ConcurrentParallelHash(128, S, 16, new Executor()
+        {
+            public void execute(Runnable task)
+            {
+                ((Future)task).cancel(false);
+            }
+        }, 2);
+
+        try
+        {
+            digest.update(new byte[100], 0, 100);
+            fail("no exception on cancelled block");
+        }
+        catch (CancellationException e)
+        {
+            // expected
+        }
+
+        // nothing is left outstanding after the failure
+        digest.reset();
+    }
+
+    private void parameterTest()
+    {
+        try
+        {
+            new ConcurrentParallelHash(128, S, 16, null, 0);
+            fail("no exception on zero maxInFlight");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("maxInFlight must be at least 1", e.getMessage());
+        }
+
+        try
+        {
+            new ConcurrentKangaroo.KangarooTwelve(null, 0);
+            fail("no exception on zero maxInFlight");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("maxInFlight must be at least 1", e.getMessage());
+        }
+    }
+
+    private void checkSame(String label, Xof reference, Xof digest, int length)
+    {
+        byte[] data = new byte[length];
+        random.nextBytes(data);
+
+        // the reference in one go, the concurrent digest in odd sized pieces and single bytes
+        reference.update(data, 0, length);
+        int pos = 0;
+        while (pos < length)
+        {
+            int n = Math.min(length - pos, random.nextInt(3000));
+            if (n == 0)
+            {
+                digest.update(data[pos++]);
+            }
+            else
+            {
+                digest.update(data, pos, n);
+                pos += n;
+            }
+        }
+
+        byte[] expected = new byte[100];
+        byte[] actual = new byte[100];
+        reference.doFinal(expected, 0, expected.length);
+        digest.doFinal(actual, 0, actual.length);
+
+        isTrue(label + " mismatch", Arrays.areEqual(expected, actual));
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new ConcurrentTreeHashTest());
+    }
+}
@@ -0,0 +1,309 @@
+package org.bouncycastle.crypto.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.security.SecureRandom;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.modes.GCMSIVBlockCipher;
+import org.bouncycastle.crypto.modes.GCMSIVChannelCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check the two pass GCM-SIV channel cipher against the cached GCMSIVBlockCipher.
+ */
+public class GCMSIVChannelTest
+    extends SimpleTest
+{
+    private final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "GCM-SIV Channel";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        File file = File.createTempFile("gcmsiv", ".dat");
+        try
+        {
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try
+            {
+                FileChannel channel = raf.getChannel();
+                int[] lengths = { 0, 1, 15, 16, 17, 8191, 8192, 8193, 40000 };
+
+                for (int i = 0; i != lengths.length; i++)
+                {
+                    channelTest(channel, 16, lengths[i]);
+                    channelTest(channel, 32, lengths[i]);
+                }
+
+                shortTest(channel);
+                changedInputTest(channel);
+            }
+            finally
+            {
+                raf.close();
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    private void channelTest(FileChannel channel, int keySize, int length)
+        throws Exception
+    {
+        byte[] key = new byte[keySize];
+        byte[] nonce = new byte[12];
+        byte[] aad = new byte[random.nextInt(40)];
+        byte[] data = new byte[length];
+
+        random.nextBytes(key);
+        random.nextBytes(nonce);
+        random.nextBytes(aad);
+        random.nextBytes(data);
+
+        AEADParameters params = new AEADParameters(new KeyParameter(key), 128, nonce, aad);
+
+        GCMSIVBlockCipher reference = new GCMSIVBlockCipher();
+        reference.init(true, params);
+        reference.processAADBytes(aad, 0, aad.length);
+
+        byte[] expected = new byte[reference.getOutputSize(length)];
+        reference.processBytes(data, 0, length, null, 0);
+        reference.doFinal(expected, 0);
+
+        GCMSIVChannelCipher cipher = new GCMSIVChannelCipher();
+
+        // the input is preceded by some unrelated bytes, to check the starting position is respected
+        writeFile(channel, data, 5);
+
+        cipher.init(true, params);
+        cipher.processAADBytes(aad, 0, aad.length);
+
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        isEquals(expected.length, cipher.doFinal(channel, Channels.newChannel(bOut)));
+        isTrue("encryption mismatch: " + length, Arrays.areEqual(expected, bOut.toByteArray()));
+        isTrue("mac mismatch: " + length, Arrays.areEqual(reference.getMac(), cipher.getMac()));
+        isEquals(channel.size(), channel.position());
+
+        // decryption
+        writeFile(channel, expected, 3);
+
+        cipher.init(false, params);
+        cipher.processAADBytes(aad, 0, aad.length);
+
+        bOut.reset();
+        isEquals(length, cipher.doFinal(channel, Channels.newChannel(bOut)));
+        isTrue("decryption mismatch: " + length, Arrays.areEqual(data, bOut.toByteArray()));
+
+        // a second message, relying on the reset after doFinal
+        writeFile(channel, expected, 0);
+        cipher.processAADBytes(aad, 0, aad.length);
+
+        bOut.reset();
+        cipher.doFinal(channel, Channels.newChannel(bOut));
+        isTrue("reset decryption mismatch: " + length, Arrays.areEqual(data, bOut.toByteArray()));
+
+        // a damaged message must not release any plain text
+        byte[] damaged = Arrays.clone(expected);
+        damaged[random.nextInt(damaged.length)] ^= 1 << random.nextInt(8);
+        writeFile(channel, damaged, 0);
+        cipher.processAADBytes(aad, 0, aad.length);
+
+        bOut.reset();
+        try
+        {
+            cipher.doFinal(channel, Channels.newChannel(bOut));
+            fail("damaged message accepted: " + length);
+        }
+        catch (InvalidCipherTextException e)
+        {
+            isEquals("mac check failed", e.getMessage());
+        }
+        isEquals("plain text released: " + length, 0, bOut.size());
+    }
+
+    private void shortTest(FileChannel channel)
+        throws Exception
+    {
+        GCMSIVChannelCipher cipher = new GCMSIVChannelCipher();
+
+        cipher.init(false, new AEADParameters(new KeyParameter(new byte[16]), 128, new byte[12]));
+        writeFile(channel, new byte[15], 0);
+
+        try
+        {
+            cipher.doFinal(channel, Channels.newChannel(new ByteArrayOutputStream()));
+            fail("short message accepted");
+        }
+        catch (InvalidCipherTextException e)
+        {
+            isEquals("Data too short", e.getMessage());
+        }
+    }
+
+    private void changedInputTest(FileChannel channel)
+        throws Exception
+    {
+        AEADParameters params = new AEADParameters(new KeyParameter(new byte[16]), 128, new byte[12]);
+        byte[] data = new byte[20000];
+        random.nextBytes(data);
+
+        GCMSIVBlockCipher reference = new GCMSIVBlockCipher();
+        reference.init(true, params);
+
+        byte[] expected = new byte[reference.getOutputSize(data.length)];
+        reference.processBytes(data, 0, data.length, null, 0);
+        reference.doFinal(expected, 0);
+
+        File outFile = File.createTempFile("gcmsiv", ".out");
+        try
+        {
+            RandomAccessFile outRaf = new RandomAccessFile(outFile, "rw");
+            try
+            {
+                FileChannel outChannel = outRaf.getChannel();
+                GCMSIVChannelCipher cipher = new GCMSIVChannelCipher();
+
+                cipher.init(false, params);
+                writeFile(channel, expected, 0);
+                outChannel.write(ByteBuffer.wrap(new byte[7]));
+
+                try
+                {
+                    cipher.doFinal(new ChangingChannel(channel), outChannel);
+                    fail("changed input accepted");
+                }
+                catch (InvalidCipherTextException e)
+                {
+                    isEquals("input changed during decryption", e.getMessage());
+                }
+                isEquals("plain text from changed input kept", 7, outChannel.size());
+
+                // an unchanged input still decrypts with the same cipher
+                writeFile(channel, expected, 0);
+                outChannel.truncate(0);
+
+                cipher.doFinal(channel, outChannel);
+
+                byte[] plain = new byte[data.length];
+                outChannel.read(ByteBuffer.wrap(plain), 0);
+                isTrue("decryption mismatch after changed input", Arrays.areEqual(data, plain));
+            }
+            finally
+            {
+                outRaf.close();
+            }
+        }
+        finally
+        {
+            outFile.delete();
+        }
+    }
+
+    private void writeFile(FileChannel channel, byte[] data, int prefix)
+        throws Exception
+    {
+        byte[] contents = new byte[prefix + data.length];
+
+        random.nextBytes(contents);
+        System.arraycopy(data, 0, contents, prefix, data.length);
+
+        channel.truncate(0);
+        channel.write(ByteBuffer.wrap(contents), 0);
+        channel.position(prefix);
+    }
+
+    /**
+     * A channel whose first byte is altered when it is rewound for the second pass of a decryption.
+     */
+    private static class ChangingChannel
+        implements SeekableByteChannel
+    {
+        private final FileChannel channel;
+
+        private int rewinds;
+
+        ChangingChannel(FileChannel channel)
+        {
+            this.channel = channel;
+        }
+
+        public int read(ByteBuffer dst)
+            throws IOException
+        {
+            return channel.read(dst);
+        }
+
+        public int write(ByteBuffer src)
+            throws IOException
+        {
+            return channel.write(src);
+        }
+
+        public long position()
+            throws IOException
+        {
+            return channel.position();
+        }
+
+        public SeekableByteChannel position(long newPosition)
+            throws IOException
+        {
+            if (newPosition == 0 && ++rewinds == 2)
+            {
+                ByteBuffer b = ByteBuffer.allocate(1);
+                channel.read(b, 0);
+                b.put(0, (byte)(b.get(0) ^ 1));
+                b.rewind();
+                channel.write(b, 0);
+            }
+            channel.position(newPosition);
+            return this;
+        }
+
+        public long size()
+            throws IOException
+        {
+            return channel.size();
+        }
+
+        public SeekableByteChannel truncate(long size)
+            throws IOException
+        {
+            channel.truncate(size);
+            return this;
+        }
+
+        public boolean isOpen()
+        {
+            return channel.isOpen();
+        }
+
+        public void close()
+            throws IOException
+        {
+            channel.close();
+        }
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new GCMSIVChannelTest());
+    }
+}
@@ -10,6 +10,7 @@
 import org.bouncycastle.crypto.modes.GCMModeCipher;
 import org.bouncycastle.crypto.modes.gcm.BasicGCMMultiplier;
 import org.bouncycastle.crypto.modes.gcm.GCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.Tables16kGCMMultiplier;
 import org.bouncycastle.crypto.modes.gcm.Tables4kGCMMultiplier;
 import org.bouncycastle.crypto.modes.gcm.Tables64kGCMMultiplier;
 import org.bouncycastle.crypto.modes.gcm.Tables8kGCMMultiplier;
@@ -309,6 +310,7 @@ public void performTest() throws Exception
 
 
         randomTests();
+        bulkTests();
         outputSizeTests();
         testExceptions();
         testResetBehavior();
@@ -460,6 +462,7 @@ private void runTestCase(String[] testVector, int macLength)
         runTestCase(new Tables4kGCMMultiplier(), new Tables4kGCMMultiplier(), testName, K, IV, A, P, C, T);
         runTestCase(new Tables8kGCMMultiplier(), new Tables8kGCMMultiplier(), testName, K, IV, A, P, C, T);
         runTestCase(new Tables64kGCMMultiplier(), new Tables64kGCMMultiplier(), testName, K, IV, A, P, C, T);
+        runTestCase(new Tables16kGCMMultiplier(), new Tables16kGCMMultiplier(), testName, K, IV, A, P, C, T);
     }
 
     private void runTestCase(
@@ -598,6 +601,7 @@ private void randomTests()
         randomTests(srng, new Tables4kGCMMultiplier());
         randomTests(srng, new Tables8kGCMMultiplier());
         randomTests(srng, new Tables64kGCMMultiplier());
+        randomTests(srng, new Tables16kGCMMultiplier());
     }
 
     private void randomTests(SecureRandom srng, GCMMultiplier m)
@@ -715,6 +719,78 @@ private void randomTest(SecureRandom srng, GCMMultiplier m)
         }
     }
 
+    /*
+     * Runs of whole blocks are processed in bulk, check the result against processing one byte at a time (and
+     * without a multi-block multiplier) for lengths either side of the bulk and GHASH aggregation boundaries.
+     */
+    private void bulkTests()
+        throws InvalidCipherTextException
+    {
+        SecureRandom srng = new SecureRandom();
+
+        byte[] K = new byte[16];
+        srng.nextBytes(K);
+        byte[] IV = new byte[12];
+        srng.nextBytes(IV);
+
+        for (int pLength = 0; pLength <= 600; pLength += 1 + (pLength >>> 4))
+        {
+            byte[] P = new byte[pLength];
+            srng.nextBytes(P);
+            byte[] A = new byte[pLength / 3];
+            srng.nextBytes(A);
+
+            AEADParameters parameters = new AEADParameters(new KeyParameter(K), 128, IV);
+
+            GCMModeCipher bulk = initCipher(new Tables16kGCMMultiplier(), true, parameters);
+            byte[] C = new byte[bulk.getOutputSize(P.length)];
+            bulk.processAADBytes(A, 0, A.length);
+            int len = bulk.processBytes(P, 0, P.length, C, 0);
+            bulk.doFinal(C, len);
+
+            GCMModeCipher single = initCipher(new BasicGCMMultiplier(), true, parameters);
+            byte[] expected = new byte[single.getOutputSize(P.length)];
+            for (int i = 0; i < A.length; ++i)
+            {
+                single.processAADByte(A[i]);
+            }
+            len = 0;
+            for (int i = 0; i < P.length; ++i)
+            {
+                len += single.processByte(P[i], expected, len);
+            }
+            single.doFinal(expected, len);
+
+            if (!areEqual(expected, C))
+            {
+                fail("bulk encryption mismatch for length " + pLength);
+            }
+
+            // the default multiplier hashes a run of blocks one block at a time
+            GCMModeCipher deflt = initCipher(null, true, parameters);
+            byte[] defltC = new byte[deflt.getOutputSize(P.length)];
+            deflt.processAADBytes(A, 0, A.length);
+            len = deflt.processBytes(P, 0, P.length, defltC, 0);
+            deflt.doFinal(defltC, len);
+
+            if (!areEqual(expected, defltC))
+            {
+                fail("default multiplier encryption mismatch for length " + pLength);
+            }
+
+            bulk = initCipher(new Tables16kGCMMultiplier(), false, parameters);
+            byte[] decP = new byte[bulk.getOutputSize(C.length)];
+            bulk.processAADBytes(A, 0, A.length);
+            len = bulk.processBytes(C, 0, C.length, decP, 0);
+            bulk.doFinal(decP, len);
+
+            if (!areEqual(P, decP))
+            {
+                fail("bulk decryption mismatch for length " + pLength);
+            }
+        }
+    }
+
     private void outputSizeTests()
     {
         byte[] K = new byte[16];
@@ -0,0 +1,312 @@
+package org.bouncycastle.crypto.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.security.SecureRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.Signer;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.params.Ed25519PrivateKeyParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.signers.Ed25519Signer;
+import org.bouncycastle.crypto.util.MappedFiles;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check digests, MACs and signatures over memory mapped files match those calculated over the same data in memory.
+ */
+public class MappedFilesTest
+    extends SimpleTest
+{
+    private final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "MappedFiles";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        int[] lengths = { 0, 1, 4096, 100000 };
+        byte[][] data = new byte[lengths.length][];
+        File[] files = new File[lengths.length];
+
+        try
+        {
+            for (int i = 0; i != lengths.length; i++)
+            {
+                data[i] = new byte[lengths[i]];
+                random.nextBytes(data[i]);
+                files[i] = createFile(data[i]);
+            }
+
+            for (int i = 0; i != lengths.length; i++)
+            {
+                fileTest(data[i], files[i]);
+                channelTest(data[i], files[i]);
+            }
+
+            ExecutorService pool = Executors.newFixedThreadPool(2);
+            Executor rejecting = new Executor()
+            {
+                public void execute(Runnable task)
+                {
+                    throw new RejectedExecutionException();
+                }
+            };
+
+            try
+            {
+                batchTest(data, files, pool);
+                batchTest(data, files, rejecting);
+                batchTest(data, files, null);
+            }
+            finally
+            {
+                pool.shutdown();
+            }
+
+            parameterTest(files[3]);
+        }
+        finally
+        {
+            for (int i = 0; i != files.length; i++)
+            {
+                if (files[i] != null)
+                {
+                    files[i].delete();
+                }
+            }
+        }
+    }
+
+    private void fileTest(byte[] data, File file)
+        throws Exception
+    {
+        Digest digest = new SHA256Digest();
+        MappedFiles.update(digest, file);
+        isTrue("digest mismatch: " + data.length, Arrays.areEqual(digest(data), doFinal(digest)));
+
+        Mac mac = newMac();
+        MappedFiles.update(mac, file);
+        isTrue("mac mismatch: " + data.length, Arrays.areEqual(mac(data), doFinal(mac)));
+
+        Signer signer = newSigner();
+        MappedFiles.update(signer, file);
+        isTrue("signature mismatch: " + data.length, Arrays.areEqual(sign(data), signer.generateSignature()));
+    }
+
+    private void channelTest(byte[] data, File file)
+        throws Exception
+    {
+        int[] windowSizes = { 1, 4096, 4097, 1 << 20 };
+
+        FileInputStream in = new FileInputStream(file);
+        try
+        {
+            FileChannel channel = in.getChannel();
+
+            for (int w = 0; w != windowSizes.length; w++)
+            {
+                int windowSize = windowSizes[w];
+                if (windowSize == 1 && data.length > 4096)
+                {
+                    continue;
+                }
+
+                int off = data.length / 3;
+                int len = data.length / 2;
+                byte[] part = Arrays.copyOfRange(data, off, off + len);
+
+                channel.position(data.length / 5);
+
+                Digest digest = new SHA256Digest();
+                MappedFiles.update(digest, channel, off, len, windowSize);
+                isTrue("channel digest mismatch: " + data.length + "/" + windowSize,
+                    Arrays.areEqual(digest(part), doFinal(digest)));
+
+                Mac mac = newMac();
+                MappedFiles.update(mac, channel, off, len, windowSize);
+                isTrue("channel mac mismatch: " + data.length + "/" + windowSize,
+                    Arrays.areEqual(mac(part), doFinal(mac)));
+
+                Signer signer = newSigner();
+                MappedFiles.update(signer, channel, off, len, windowSize);
+                isTrue("channel signature mismatch: " + data.length + "/" + windowSize,
+                    Arrays.areEqual(sign(part), signer.generateSignature()));
+
+                isTrue("channel position changed", channel.position() == data.length / 5);
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    private void batchTest(byte[][] data, File[] files, Executor executor)
+        throws Exception
+    {
+        Digest[] digests = new Digest[files.length];
+        Mac[] macs = new Mac[files.length];
+        Signer[] signers = new Signer[files.length];
+
+        for (int i = 0; i != files.length; i++)
+        {
+            digests[i] = new SHA256Digest();
+            macs[i] = newMac();
+            signers[i] = newSigner();
+        }
+
+        MappedFiles.update(digests, files, executor);
+        MappedFiles.update(macs, files, executor);
+        MappedFiles.update(signers, files, executor);
+
+        for (int i = 0; i != files.length; i++)
+        {
+            isTrue("batch digest mismatch: " + i, Arrays.areEqual(digest(data[i]), doFinal(digests[i])));
+            isTrue("batch mac mismatch: " + i, Arrays.areEqual(mac(data[i]), doFinal(macs[i])));
+            isTrue("batch signature mismatch: " + i,
+                Arrays.areEqual(sign(data[i]), signers[i].generateSignature()));
+        }
+    }
+
+    private void parameterTest(File file)
+        throws IOException
+    {
+        try
+        {
+            MappedFiles.update(new Digest[]{ new SHA256Digest() }, new File[0], null);
+            fail("no exception on mismatched batch");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("there must be one file for each input", e.getMessage());
+        }
+
+        try
+        {
+            MappedFiles.update(new SHA256Digest(), new File(file.getPath() + ".missing"));
+            fail("no exception on missing file");
+        }
+        catch (FileNotFoundException e)
+        {
+            // expected
+        }
+
+        FileInputStream in = new FileInputStream(file);
+        try
+        {
+            try
+            {
+                MappedFiles.update(new SHA256Digest(), in.getChannel(), 0, 10, 0);
+                fail("no exception on zero window size");
+            }
+            catch (IllegalArgumentException e)
+            {
+                isEquals("windowSize must be at least 1", e.getMessage());
+            }
+
+            try
+            {
+                MappedFiles.update(new SHA256Digest(), in.getChannel(), -1, 10, 4096);
+                fail("no exception on negative position");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    private File createFile(byte[] data)
+        throws IOException
+    {
+        File file = File.createTempFile("mapped", ".dat");
+        file.deleteOnExit();
+
+        FileOutputStream out = new FileOutputStream(file);
+        try
+        {
+            out.write(data);
+        }
+        finally
+        {
+            out.close();
+        }
+        return file;
+    }
+
+    private byte[] digest(byte[] data)
+    {
+        Digest digest = new SHA256Digest();
+        digest.update(data, 0, data.length);
+        return doFinal(digest);
+    }
+
+    private byte[] mac(byte[] data)
+    {
+        Mac mac = newMac();
+        mac.update(data, 0, data.length);
+        return doFinal(mac);
+    }
+
+    private byte[] sign(byte[] data)
+        throws Exception
+    {
+        Signer signer = newSigner();
+        signer.update(data, 0, data.length);
+        return signer.generateSignature();
+    }
+
+    private static byte[] doFinal(Digest digest)
+    {
+        byte[] out = new byte[digest.getDigestSize()];
+        digest.doFinal(out, 0);
+        return out;
+    }
+
+    private static byte[] doFinal(Mac mac)
+    {
+        byte[] out = new byte[mac.getMacSize()];
+        mac.doFinal(out, 0);
+        return out;
+    }
+
+    private static Mac newMac()
+    {
+        Mac mac = new HMac(new SHA256Digest());
+        mac.init(new KeyParameter(new byte[32]));
+        return mac;
+    }
+
+    private static Signer newSigner()
+    {
+        Signer signer = new Ed25519Signer();
+        signer.init(true, new Ed25519PrivateKeyParameters(new byte[32]));
+        return signer;
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new MappedFilesTest());
+    }
+}
@@ -0,0 +1,128 @@
+package org.bouncycastle.crypto.test;
+
+import java.security.SecureRandom;
+
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.MultiBufferDigest;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA256MultiBufferDigest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.digests.SHA512MultiBufferDigest;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check the multi-buffer digests against hashing each message with the ordinary digest.
+ */
+public class MultiBufferDigestTest
+    extends SimpleTest
+{
+    private final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "MultiBufferDigest";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        digestTest(new SHA256MultiBufferDigest(), new SHA256Digest());
+        digestTest(new SHA512MultiBufferDigest(), new SHA512Digest());
+
+        checksTest(new SHA256MultiBufferDigest());
+    }
+
+    private void digestTest(MultiBufferDigest multi, Digest digest)
+    {
+        isEquals(digest.getAlgorithmName(), multi.getAlgorithmName());
+        isEquals(digest.getDigestSize(), multi.getDigestSize());
+
+        int size = digest.getDigestSize();
+
+        // every padding case, across two blocks and a bit
+        for (int len = 0; len <= 300; len++)
+        {
+            int count = 1 + len % 5;
+            byte[] in = new byte[3 + len * count];
+            random.nextBytes(in);
+
+            byte[] expected = new byte[size * count];
+            byte[][] messages = new byte[count][];
+            for (int i = 0; i != count; i++)
+            {
+                digest.update(in, 3 + i * len, len);
+                digest.doFinal(expected, i * size);
+
+                messages[i] = Arrays.copyOfRange(in, 3 + i * len, 3 + (i + 1) * len);
+            }
+
+            byte[] out = new byte[size * count + 1];
+            multi.digest(in, 3, len, count, out, 1);
+            isTrue("contiguous mismatch: " + multi.getAlgorithmName() + " " + len + "/" + count,
+                Arrays.areEqual(expected, 0, expected.length, out, 1, out.length));
+
+            out = new byte[size * count];
+            multi.digest(messages, len, out, 0);
+            isTrue("array mismatch: " + multi.getAlgorithmName() + " " + len + "/" + count,
+                Arrays.areEqual(expected, out));
+        }
+
+        // hash tree nodes, the messages being pairs of digests
+        byte[] level = new byte[size * 64];
+        random.nextBytes(level);
+        byte[] next = new byte[size * 32];
+        multi.digest(level, 0, 2 * size, 32, next, 0);
+
+        byte[] node = new byte[size];
+        digest.update(level, 62 * size, 2 * size);
+        digest.doFinal(node, 0);
+        isTrue("tree mismatch: " + multi.getAlgorithmName(),
+            Arrays.areEqual(node, 0, size, next, 31 * size, 32 * size));
+
+        // no messages is not an error
+        multi.digest(level, 0, 2 * size, 0, new byte[0], 0);
+        multi.digest(new byte[0][], 2 * size, new byte[0], 0);
+    }
+
+    private void checksTest(MultiBufferDigest multi)
+    {
+        try
+        {
+            multi.digest(new byte[63], 0, 32, 2, new byte[64], 0);
+            fail("short input accepted");
+        }
+        catch (DataLengthException e)
+        {
+            isEquals("input buffer too short", e.getMessage());
+        }
+
+        try
+        {
+            multi.digest(new byte[][]{ new byte[32], new byte[31] }, 32, new byte[64], 0);
+            fail("short message accepted");
+        }
+        catch (DataLengthException e)
+        {
+            isEquals("input buffer too short", e.getMessage());
+        }
+
+        try
+        {
+            multi.digest(new byte[64], 0, 32, 2, new byte[63], 0);
+            fail("short output accepted");
+        }
+        catch (OutputLengthException e)
+        {
+            isEquals("output buffer too short", e.getMessage());
+        }
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new MultiBufferDigestTest());
+    }
+}
@@ -0,0 +1,201 @@
+package org.bouncycastle.crypto.test;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.security.SecureRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.bouncycastle.crypto.digests.Blake3Digest;
+import org.bouncycastle.crypto.digests.ParallelBlake3Digest;
+import org.bouncycastle.crypto.params.Blake3Parameters;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check the parallel BLAKE3 digest gives exactly the same output as Blake3Digest.
+ */
+public class ParallelBlake3Test
+    extends SimpleTest
+{
+    private static final int SUBTREE = 64 * 1024;
+
+    private final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "ParallelBlake3";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try
+        {
+            arrayTest(pool, null);
+            arrayTest(pool, Blake3Parameters.key(createKey()));
+            arrayTest(pool, Blake3Parameters.context(new byte[]{ 1, 2, 3 }));
+            arrayTest(new Executor()
+            {
+                public void execute(Runnable task)
+                {
+                    throw new RejectedExecutionException();
+                }
+            }, null);
+            channelTest(pool);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        parameterTest();
+    }
+
+    private void arrayTest(Executor executor, Blake3Parameters params)
+    {
+        byte[] data = new byte[9 * SUBTREE + 3000];
+        random.nextBytes(data);
+
+        // boundaries around whole subtrees, so around the smallest parallel update, and a couple of odd splits
+        int[] lengths = { 2 * SUBTREE, 2 * SUBTREE + 1, 3 * SUBTREE, 3 * SUBTREE + 1, 3 * SUBTREE + 1024,
+            9 * SUBTREE + 3000 };
+
+        for (int i = 0; i != lengths.length; i++)
+        {
+            for (int head = 0; head <= 1025; head += 1025 / 5)
+            {
+                checkArray(executor, params, data, head, lengths[i] - head);
+            }
+        }
+
+        // many updates, all of which can be split
+        Blake3Digest reference = new Blake3Digest(512);
+        ParallelBlake3Digest digest = new ParallelBlake3Digest(512, executor, 4);
+        reference.init(params);
+        digest.init(params);
+        for (int i = 0; i != 3; i++)
+        {
+            reference.update(data, 7, data.length - 7);
+            digest.update(data, 7, data.length - 7);
+        }
+        byte[] expected = new byte[200];
+        byte[] actual = new byte[200];
+        reference.doFinal(expected, 0, expected.length);
+        digest.doFinal(actual, 0, actual.length);
+        isTrue("repeated update mismatch", Arrays.areEqual(expected, actual));
+    }
+
+    private void checkArray(Executor executor, Blake3Parameters params, byte[] data, int head, int length)
+    {
+        Blake3Digest reference = new Blake3Digest();
+        ParallelBlake3Digest digest = new ParallelBlake3Digest(executor, 3);
+
+        reference.init(params);
+        digest.init(params);
+
+        reference.update(data, 0, head + length);
+
+        digest.update(data, 0, head);
+        digest.update(data, head, length);
+
+        // the copy has its own workers
+        ParallelBlake3Digest copy = (ParallelBlake3Digest)digest.copy();
+
+        byte[] expected = new byte[100];
+        byte[] actual = new byte[100];
+        reference.doFinal(expected, 0, expected.length);
+        digest.doFinal(actual, 0, actual.length);
+        isTrue("array mismatch: " + head + "/" + length, Arrays.areEqual(expected, actual));
+
+        copy.doFinal(actual, 0, actual.length);
+        isTrue("copy mismatch: " + head + "/" + length, Arrays.areEqual(expected, actual));
+    }
+
+    private void channelTest(Executor executor)
+        throws Exception
+    {
+        byte[] data = new byte[5 * SUBTREE + 777];
+        random.nextBytes(data);
+
+        Blake3Digest reference = new Blake3Digest();
+        reference.update(data, 100, data.length - 100);
+        byte[] expected = new byte[32];
+        reference.doFinal(expected, 0);
+
+        File file = File.createTempFile("pblake3", ".dat");
+        try
+        {
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try
+            {
+                raf.write(data);
+
+                FileChannel channel = raf.getChannel();
+                ParallelBlake3Digest digest = new ParallelBlake3Digest(executor, 3);
+
+                byte[] actual = new byte[32];
+                digest.update(channel, 100, data.length - 100);
+                digest.doFinal(actual, 0);
+                isTrue("channel mismatch", Arrays.areEqual(expected, actual));
+
+                reference.update(data, 0, data.length);
+                reference.doFinal(expected, 0);
+                channel.position(10);
+                digest.update(channel);
+                digest.doFinal(actual, 0);
+                isTrue("whole channel mismatch", Arrays.areEqual(expected, actual));
+                isEquals("position moved", 10L, channel.position());
+
+                try
+                {
+                    digest.update(channel, data.length - 4 * SUBTREE, 4 * SUBTREE + 1);
+                    fail("no exception on short channel");
+                }
+                catch (EOFException e)
+                {
+                    // expected
+                }
+            }
+            finally
+            {
+                raf.close();
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    private void parameterTest()
+    {
+        try
+        {
+            new ParallelBlake3Digest(null, 0);
+            fail("no exception on zero parallelism");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("parallelism must be at least 1", e.getMessage());
+        }
+    }
+
+    private byte[] createKey()
+    {
+        byte[] key = new byte[32];
+        random.nextBytes(key);
+        return key;
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new ParallelBlake3Test());
+    }
+}
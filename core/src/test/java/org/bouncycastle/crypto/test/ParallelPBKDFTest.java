@@ -0,0 +1,332 @@
+package org.bouncycastle.crypto.test;
+
+import java.security.SecureRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.PBEParametersGenerator;
+import org.bouncycastle.crypto.digests.Blake2bDigest;
+import org.bouncycastle.crypto.digests.SHA1Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.generators.Argon2BytesGenerator;
+import org.bouncycastle.crypto.generators.PKCS5S2ParametersGenerator;
+import org.bouncycastle.crypto.generators.ParallelArgon2BytesGenerator;
+import org.bouncycastle.crypto.generators.ParallelPKCS5S2ParametersGenerator;
+import org.bouncycastle.crypto.generators.ParallelSCrypt;
+import org.bouncycastle.crypto.generators.SCrypt;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.params.Argon2Parameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.encoders.Hex;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check the parallel PBKDF2, scrypt and Argon2 generators give exactly the same output as the serial ones.
+ */
+public class ParallelPBKDFTest
+    extends SimpleTest
+{
+    private final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "ParallelPBKDF";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        Executor rejecting = new Executor()
+        {
+            public void execute(Runnable task)
+            {
+                throw new RejectedExecutionException();
+            }
+        };
+
+        try
+        {
+            pbkdf2Test(pool, 4);
+            pbkdf2Test(pool, 2);
+            pbkdf2Test(rejecting, 3);
+
+            scryptTest(pool, 4);
+            scryptTest(pool, 2);
+            scryptTest(rejecting, 3);
+
+            argon2Test(pool, 4);
+            argon2Test(pool, 3);
+            argon2Test(rejecting, 2);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        failureTest();
+        parameterTest();
+    }
+
+    private void pbkdf2Test(Executor executor, int parallelism)
+    {
+        // RFC 6070 test vector, two blocks
+        PBEParametersGenerator generator = new ParallelPKCS5S2ParametersGenerator(new SHA1Digest(), executor,
+            parallelism);
+        generator.init("passwordPASSWORDpassword".getBytes(), "saltSALTsaltSALTsaltSALTsaltSALTsalt".getBytes(), 4096);
+        isTrue("pbkdf2 vector mismatch",
+            Arrays.areEqual(Hex.decode("3d2eec4fe41c849b80c8d83662c0e44a8b291a964cf2f07038"),
+                ((KeyParameter)generator.generateDerivedParameters(25 * 8)).getKey()));
+
+        Digest[] digests = { new SHA1Digest(), new SHA256Digest(), new SHA512Digest() };
+        int[] passwordLengths = { 0, 8, 64, 200 };
+        int[] keyLengths = { 1, 20, 32, 33, 64, 65, 200 };
+
+        for (int d = 0; d != digests.length; d++)
+        {
+            generator = new ParallelPKCS5S2ParametersGenerator(digests[d], executor, parallelism);
+
+            for (int p = 0; p != passwordLengths.length; p++)
+            {
+                byte[] password = randomBytes(passwordLengths[p]);
+                byte[] salt = randomBytes(16);
+                int iterations = 1 + random.nextInt(50);
+
+                for (int k = 0; k != keyLengths.length; k++)
+                {
+                    byte[] expected = pbkdf2(digests[d].getClass(), password, salt, iterations, keyLengths[k]);
+
+                    generator.init(password, salt, iterations);
+                    byte[] actual = ((KeyParameter)generator.generateDerivedParameters(keyLengths[k] * 8)).getKey();
+                    isTrue("pbkdf2 mismatch: " + digests[d].getAlgorithmName() + "/" + passwordLengths[p] + "/"
+                        + keyLengths[k], Arrays.areEqual(expected, actual));
+
+                    PBEParametersGenerator serial = new PKCS5S2ParametersGenerator(
+                        newDigest(digests[d].getClass()));
+                    serial.init(password, salt, iterations);
+                    actual = ((KeyParameter)serial.generateDerivedParameters(keyLengths[k] * 8)).getKey();
+                    isTrue("serial pbkdf2 mismatch: " + digests[d].getAlgorithmName() + "/" + passwordLengths[p]
+                        + "/" + keyLengths[k], Arrays.areEqual(expected, actual));
+                }
+            }
+        }
+    }
+
+    /**
+     * PBKDF2 directly over HMac, as a reference.
+     */
+    private byte[] pbkdf2(Class digestClass, byte[] password, byte[] salt, int iterations, int dkLen)
+    {
+        HMac hMac = new HMac(newDigest(digestClass));
+        int hLen = hMac.getMacSize();
+        byte[] out = new byte[(dkLen + hLen - 1) / hLen * hLen];
+        byte[] u = new byte[hLen];
+
+        hMac.init(new KeyParameter(password));
+        for (int i = 1; i * hLen <= out.length; i++)
+        {
+            hMac.update(salt, 0, salt.length);
+            hMac.update(new byte[]{ 0, 0, 0, (byte)i }, 0, 4);
+            hMac.doFinal(u, 0);
+            System.arraycopy(u, 0, out, (i - 1) * hLen, hLen);
+
+            for (int c = 1; c < iterations; c++)
+            {
+                hMac.update(u, 0, hLen);
+                hMac.doFinal(u, 0);
+                for (int j = 0; j != hLen; j++)
+                {
+                    out[(i - 1) * hLen + j] ^= u[j];
+                }
+            }
+        }
+
+        return Arrays.copyOf(out, dkLen);
+    }
+
+    private Digest newDigest(Class digestClass)
+    {
+        try
+        {
+            return (Digest)digestClass.newInstance();
+        }
+        catch (Exception e)
+        {
+            throw new IllegalStateException(e.toString());
+        }
+    }
+
+    private void scryptTest(Executor executor, int parallelism)
+    {
+        // RFC 7914 test vector
+        ParallelSCrypt scrypt = new ParallelSCrypt(executor, parallelism);
+        byte[] key = scrypt.generate("password".getBytes(), "NaCl".getBytes(), 1024, 8, 16, 64);
+        isTrue("scrypt vector mismatch", Arrays.areEqual(Hex.decode(
+            "fdbabe1c9d3472007856e7190d01e9fe7c6ad7cbc8237830e77376634b373162"
+                + "2eaf30d92e22a3886ff109279d9830dac727afb94a83ee6d8360cbdfa2cc0640"), key));
+
+        // the workspaces are reused for the same N and r, and replaced for others
+        int[][] params = { { 16, 1, 1 }, { 16, 1, 5 }, { 1024, 2, 4 }, { 1024, 2, 7 }, { 256, 8, 3 } };
+        for (int i = 0; i != params.length; i++)
+        {
+            int N = params[i][0], r = params[i][1], p = params[i][2];
+            byte[] P = randomBytes(12);
+            byte[] S = randomBytes(16);
+
+            isTrue("scrypt mismatch: " + N + "/" + r + "/" + p,
+                Arrays.areEqual(SCrypt.generate(P, S, N, r, p, 40), scrypt.generate(P, S, N, r, p, 40)));
+        }
+    }
+
+    private void argon2Test(Executor executor, int parallelism)
+    {
+        int[] types = { Argon2Parameters.ARGON2_d, Argon2Parameters.ARGON2_i, Argon2Parameters.ARGON2_id };
+        int[] versions = { Argon2Parameters.ARGON2_VERSION_10, Argon2Parameters.ARGON2_VERSION_13 };
+        int[] lanes = { 1, 2, 4, 5 };
+
+        ParallelArgon2BytesGenerator generator = new ParallelArgon2BytesGenerator(executor, parallelism);
+
+        for (int t = 0; t != types.length; t++)
+        {
+            for (int v = 0; v != versions.length; v++)
+            {
+                for (int l = 0; l != lanes.length; l++)
+                {
+                    // the same generator with new salts, so reusing its memory
+                    Argon2Parameters params = new Argon2Parameters.Builder(types[t])
+                        .withVersion(versions[v])
+                        .withIterations(2)
+                        .withMemoryAsKB(64)
+                        .withParallelism(lanes[l])
+                        .withSalt(randomBytes(16))
+                        .withAdditional(randomBytes(4))
+                        .build();
+                    byte[] password = randomBytes(10);
+
+                    Argon2BytesGenerator reference = new Argon2BytesGenerator();
+                    reference.init(params);
+                    byte[] expected = new byte[32];
+                    reference.generateBytes(password, expected);
+
+                    generator.init(params);
+                    byte[] actual = new byte[32];
+                    generator.generateBytes(password, actual);
+
+                    isTrue("argon2 mismatch: " + types[t] + "/" + versions[v] + "/" + lanes[l],
+                        Arrays.areEqual(expected, actual));
+
+                    generator.generateBytes(password, actual);
+                    isTrue("argon2 repeat mismatch: " + types[t] + "/" + versions[v] + "/" + lanes[l],
+                        Arrays.areEqual(expected, actual));
+                }
+            }
+        }
+    }
+
+    private void failureTest()
+    {
+        Executor cancelling = new Executor()
+        {
+            public void execute(Runnable task)
+            {
+                ((Future)task).cancel(false);
+            }
+        };
+
+        try
+        {
+            new ParallelSCrypt(cancelling, 2).generate(new byte[8], new byte[8], 16, 1, 2, 32);
+            fail("no exception on cancelled scrypt worker");
+        }
+        catch (CancellationException e)
+        {
+            // expected
+        }
+
+        ParallelArgon2BytesGenerator generator = new ParallelArgon2BytesGenerator(cancelling, 2);
+        generator.init(new Argon2Parameters.Builder(Argon2Parameters.ARGON2_id).withParallelism(2)
+            .withMemoryAsKB(16).withSalt(new byte[8]).build());
+        try
+        {
+            generator.generateBytes(new byte[8], new byte[32]);
+            fail("no exception on cancelled argon2 worker");
+        }
+        catch (CancellationException e)
+        {
+            // expected
+        }
+    }
+
+    private void parameterTest()
+    {
+        try
+        {
+            new ParallelPKCS5S2ParametersGenerator(new SHA256Digest(), null, 0);
+            fail("no exception on zero parallelism");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("parallelism must be at least 1", e.getMessage());
+        }
+
+        try
+        {
+            new ParallelPKCS5S2ParametersGenerator(new Blake2bDigest(), null, 2);
+            fail("no exception on digest without Memoable");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            new ParallelSCrypt(null, 0);
+            fail("no exception on zero parallelism");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("parallelism must be at least 1", e.getMessage());
+        }
+
+        try
+        {
+            new ParallelArgon2BytesGenerator(null, 0);
+            fail("no exception on zero parallelism");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("parallelism must be at least 1", e.getMessage());
+        }
+
+        try
+        {
+            new ParallelSCrypt(null, 2).generate(new byte[8], new byte[8], 15, 1, 2, 32);
+            fail("no exception on bad N");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    private byte[] randomBytes(int len)
+    {
+        byte[] bytes = new byte[len];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new ParallelPBKDFTest());
+    }
+}
@@ -0,0 +1,336 @@
+package org.bouncycastle.crypto.test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.SecureRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.BlockCipherFactory;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.ParallelSICBlockCipher;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check the parallel SIC/CTR mode produces exactly the same key stream as SICBlockCipher.
+ */
+public class ParallelSICTest
+    extends SimpleTest
+{
+    private static final BlockCipherFactory AES_FACTORY = new BlockCipherFactory()
+    {
+        public BlockCipher get()
+        {
+            return AESEngine.newInstance();
+        }
+    };
+
+    private final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "ParallelSIC";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try
+        {
+            arrayTest(pool, 16);
+            arrayTest(pool, 10);
+            arrayTest(new Executor()
+            {
+                public void execute(Runnable task)
+                {
+                    throw new RejectedExecutionException();
+                }
+            }, 16);
+            inPlaceTest(pool);
+            bufferTest(pool);
+            channelTest(pool);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        sameExecutorTest();
+
+        parameterTest();
+    }
+
+    private void arrayTest(Executor executor, int ivLength)
+    {
+        CipherParameters params = createParams(ivLength);
+        SICBlockCipher reference = new SICBlockCipher(AESEngine.newInstance());
+        ParallelSICBlockCipher cipher = new ParallelSICBlockCipher(AES_FACTORY, executor, 4, 256);
+
+        reference.init(true, params);
+        cipher.init(true, params);
+
+        for (int i = 0; i != 50; i++)
+        {
+            int len = random.nextInt(10000);
+            byte[] in = new byte[len + 7];
+            random.nextBytes(in);
+
+            byte[] expected = new byte[len + 5];
+            byte[] actual = new byte[len + 5];
+
+            switch (random.nextInt(4))
+            {
+            case 0:
+                long pos = random.nextInt(100000);
+                reference.seekTo(pos);
+                cipher.seekTo(pos);
+                break;
+            case 1:
+                int skip = random.nextInt(5000) - 2500;
+                if (reference.getPosition() + skip >= 0)
+                {
+                    reference.skip(skip);
+                    cipher.skip(skip);
+                }
+                break;
+            case 2:
+                expected[0] = reference.returnByte(in[0]);
+                actual[0] = cipher.returnByte(in[0]);
+                break;
+            default:
+                break;
+            }
+
+            reference.processBytes(in, 3, len, expected, 1);
+            cipher.processBytes(in, 3, len, actual, 1);
+
+            isTrue("array output mismatch", Arrays.areEqual(expected, actual));
+            isEquals("position mismatch", reference.getPosition(), cipher.getPosition());
+        }
+
+        // through the MultiBlockCipher interface
+        byte[] in = new byte[4096];
+        byte[] expected = new byte[4096];
+        byte[] actual = new byte[4096];
+
+        random.nextBytes(in);
+        reference.reset();
+        cipher.reset();
+
+        reference.processBlocks(in, 0, in.length / 16, expected, 0);
+        cipher.processBlocks(in, 0, in.length / 16, actual, 0);
+
+        isTrue("processBlocks mismatch", Arrays.areEqual(expected, actual));
+    }
+
+    private void inPlaceTest(Executor executor)
+    {
+        CipherParameters params = createParams(16);
+        SICBlockCipher reference = new SICBlockCipher(AESEngine.newInstance());
+        ParallelSICBlockCipher cipher = new ParallelSICBlockCipher(AES_FACTORY, executor, 3, 64);
+
+        for (int shift = -37; shift <= 37; shift += 37)
+        {
+            byte[] data = new byte[5000];
+            random.nextBytes(data);
+
+            byte[] expected = new byte[data.length];
+            reference.init(true, params);
+            reference.processBytes(data, 100, 4800, expected, 0);
+
+            cipher.init(true, params);
+            cipher.processBytes(data, 100, 4800, data, 100 + shift);
+
+            isTrue("in place mismatch: " + shift, Arrays.areEqual(expected, 0, 4800, data, 100 + shift, 4900 + shift));
+        }
+    }
+
+    private void bufferTest(Executor executor)
+    {
+        CipherParameters params = createParams(16);
+        SICBlockCipher reference = new SICBlockCipher(AESEngine.newInstance());
+        ParallelSICBlockCipher cipher = new ParallelSICBlockCipher(AES_FACTORY, executor, 4, 128);
+
+        byte[] data = new byte[3000];
+        random.nextBytes(data);
+
+        byte[] expected = new byte[data.length];
+        reference.init(true, params);
+        reference.seekTo(11);
+        reference.processBytes(data, 0, data.length, expected, 0);
+
+        for (int i = 0; i != 4; i++)
+        {
+            ByteBuffer in = ((i & 1) == 0) ? ByteBuffer.allocate(data.length + 10) : ByteBuffer.allocateDirect(data.length + 10);
+            ByteBuffer out = ((i & 2) == 0) ? ByteBuffer.allocate(data.length + 20) : ByteBuffer.allocateDirect(data.length + 20);
+
+            in.position(3);
+            in.put(data);
+            in.flip();
+            in.position(3);
+            out.position(7);
+
+            cipher.init(true, params);
+            cipher.seekTo(11);
+
+            isEquals(data.length, cipher.processBytes(in, out));
+            isEquals(in.limit(), in.position());
+            isEquals(7 + data.length, out.position());
+            isEquals(11 + data.length, cipher.getPosition());
+
+            byte[] actual = new byte[data.length];
+            out.position(7);
+            out.get(actual);
+
+            isTrue("buffer mismatch: " + i, Arrays.areEqual(expected, actual));
+        }
+    }
+
+    private void channelTest(Executor executor)
+        throws Exception
+    {
+        CipherParameters params = createParams(16);
+        SICBlockCipher reference = new SICBlockCipher(AESEngine.newInstance());
+        ParallelSICBlockCipher cipher = new ParallelSICBlockCipher(AES_FACTORY, executor, 3, 512);
+
+        byte[] data = new byte[20000];
+        random.nextBytes(data);
+
+        byte[] expected = new byte[data.length - 100];
+        reference.init(true, params);
+        reference.processBytes(data, 100, expected.length, expected, 0);
+
+        File file = File.createTempFile("psic", ".dat");
+        try
+        {
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try
+            {
+                raf.write(data);
+
+                FileChannel channel = raf.getChannel();
+
+                cipher.init(true, params);
+                isEquals(expected.length, cipher.processBytes(channel, 100, expected.length, channel, data.length));
+                isEquals(expected.length, cipher.getPosition());
+
+                byte[] actual = new byte[expected.length];
+                raf.seek(data.length);
+                raf.readFully(actual);
+
+                isTrue("channel mismatch", Arrays.areEqual(expected, actual));
+
+                try
+                {
+                    cipher.processBytes(channel, data.length, data.length, channel, 0);
+                    fail("no exception on short channel");
+                }
+                catch (java.io.EOFException e)
+                {
+                    // expected
+                }
+                isEquals("position moved on failure", expected.length, cipher.getPosition());
+            }
+            finally
+            {
+                raf.close();
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    private void sameExecutorTest()
+        throws Exception
+    {
+        // every thread of the executor is busy running the caller, so the other ranges are never started by it
+        final ExecutorService pool = Executors.newFixedThreadPool(1);
+        try
+        {
+            final CipherParameters params = createParams(16);
+            final byte[] data = new byte[4096];
+            random.nextBytes(data);
+
+            Future<byte[]> result = pool.submit(new Callable<byte[]>()
+            {
+                public byte[] call()
+                {
+                    ParallelSICBlockCipher cipher = new ParallelSICBlockCipher(AES_FACTORY, pool, 4, 256);
+                    byte[] out = new byte[data.length];
+
+                    cipher.init(true, params);
+                    cipher.processBytes(data, 0, data.length, out, 0);
+
+                    return out;
+                }
+            });
+
+            SICBlockCipher reference = new SICBlockCipher(AESEngine.newInstance());
+            byte[] expected = new byte[data.length];
+            reference.init(true, params);
+            reference.processBytes(data, 0, data.length, expected, 0);
+
+            isTrue("same executor mismatch", Arrays.areEqual(expected, result.get(30, TimeUnit.SECONDS)));
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+
+    private void parameterTest()
+    {
+        try
+        {
+            new ParallelSICBlockCipher(AES_FACTORY, null, 0);
+            fail("no exception on zero parallelism");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            new ParallelSICBlockCipher(AES_FACTORY, null, 2, 100);
+            fail("no exception on unaligned segment size");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    private CipherParameters createParams(int ivLength)
+    {
+        byte[] key = new byte[16];
+        byte[] iv = new byte[ivLength];
+
+        random.nextBytes(key);
+        random.nextBytes(iv);
+
+        return new ParametersWithIV(new KeyParameter(key), iv);
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new ParallelSICTest());
+    }
+}
@@ -116,6 +116,7 @@ public void performTest()
         }
         testSequential();
         testReset();
+        testSplitUpdates();
         rfc7539Test();
     }
 
@@ -274,6 +275,45 @@ private void testReset()
         }
     }
 
+    private void testSplitUpdates()
+    {
+        SecureRandom random = new SecureRandom();
+
+        byte[] key = new byte[32];
+        random.nextBytes(key);
+
+        byte[] m = new byte[MAXLEN];
+        random.nextBytes(m);
+
+        Mac mac = new Poly1305();
+        mac.init(new KeyParameter(key));
+
+        for (int len = 0; len < MAXLEN; len += 1 + random.nextInt(50))
+        {
+            byte[] expected = new byte[16];
+            for (int i = 0; i < len; ++i)
+            {
+                mac.update(m[i]);
+            }
+            mac.doFinal(expected, 0);
+
+            byte[] out = new byte[16];
+            int pos = 0;
+            while (pos < len)
+            {
+                int chunk = Math.min(len - pos, random.nextInt(70));
+                mac.update(m, pos, chunk);
+                pos += chunk;
+            }
+            mac.doFinal(out, 0);
+
+            if (!Arrays.areEqual(expected, out))
+            {
+                fail("split update mismatch at length " + len);
+            }
+        }
+    }
+
     private void testInit()
     {
         CipherKeyGenerator gen = new Poly1305KeyGenerator();
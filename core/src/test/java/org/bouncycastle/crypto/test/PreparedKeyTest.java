@@ -0,0 +1,261 @@
+package org.bouncycastle.crypto.test;
+
+import java.security.SecureRandom;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA3Digest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.digests.SHA512tDigest;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.modes.GCMModeCipher;
+import org.bouncycastle.crypto.modes.gcm.BasicGCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.GCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.Tables4kGCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.Tables64kGCMMultiplier;
+import org.bouncycastle.crypto.modes.gcm.Tables8kGCMMultiplier;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.PreparedKeyParameter;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check engines give the same results with a PreparedKeyParameter as with a plain KeyParameter, including when
+ * the prepared key is shared between threads.
+ */
+public class PreparedKeyTest
+    extends SimpleTest
+{
+    private final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "PreparedKey";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        int[] keySizes = { 16, 24, 32 };
+
+        for (int i = 0; i != keySizes.length; i++)
+        {
+            byte[] key = randomBytes(keySizes[i]);
+
+            aesTest(key, new PreparedKeyParameter(key));
+            gcmTest(key, new PreparedKeyParameter(key));
+        }
+
+        byte[][] macKeys = { randomBytes(0), randomBytes(20), randomBytes(64), randomBytes(200) };
+        for (int i = 0; i != macKeys.length; i++)
+        {
+            hmacTest(macKeys[i], new PreparedKeyParameter(macKeys[i]));
+        }
+
+        threadTest();
+    }
+
+    private void aesTest(byte[] key, PreparedKeyParameter prepared)
+    {
+        byte[] data = randomBytes(64);
+
+        // twice, the second time round the round keys come from the prepared key
+        for (int pass = 0; pass != 2; pass++)
+        {
+            isTrue("AES encryption mismatch", Arrays.areEqual(
+                aes(true, new KeyParameter(key), data), aes(true, prepared, data)));
+            isTrue("AES decryption mismatch", Arrays.areEqual(
+                aes(false, new KeyParameter(key), data), aes(false, prepared, data)));
+        }
+
+        // an instance initialised with a prepared key is still usable with a plain one
+        BlockCipher engine = AESEngine.newInstance();
+        byte[] other = randomBytes(key.length);
+        byte[] out = new byte[16];
+
+        engine.init(true, prepared);
+        engine.init(true, new KeyParameter(other));
+        engine.processBlock(data, 0, out, 0);
+        isTrue("AES re-init mismatch",
+            Arrays.areEqual(aes(true, new KeyParameter(other), data), 0, 16, out, 0, 16));
+    }
+
+    private void gcmTest(byte[] key, PreparedKeyParameter prepared)
+        throws Exception
+    {
+        GCMMultiplier[] multipliers = { null, new Tables4kGCMMultiplier(), new Tables8kGCMMultiplier(),
+            new Tables64kGCMMultiplier(), new BasicGCMMultiplier() };
+
+        for (int i = 0; i != multipliers.length; i++)
+        {
+            byte[] nonce = randomBytes(i == 0 ? 12 : 20);
+            byte[] data = randomBytes(100);
+
+            byte[] expected = gcm(GCMBlockCipher.newInstance(AESEngine.newInstance()), new KeyParameter(key), nonce,
+                data);
+
+            GCMModeCipher cipher = GCMBlockCipher.newInstance(AESEngine.newInstance(),
+                multipliers[i]);
+
+            isTrue("GCM mismatch: " + i, Arrays.areEqual(expected, gcm(cipher, prepared, nonce, data)));
+
+            // a plain key on the same instance must not disturb the tables shared through the prepared key
+            byte[] other = randomBytes(key.length);
+            isTrue("GCM plain key mismatch: " + i, Arrays.areEqual(
+                gcm(GCMBlockCipher.newInstance(AESEngine.newInstance()), new KeyParameter(other), nonce, data),
+                gcm(cipher, new KeyParameter(other), nonce, data)));
+
+            GCMModeCipher second = GCMBlockCipher.newInstance(AESEngine.newInstance(),
+                multipliers[i]);
+            isTrue("GCM shared mismatch: " + i, Arrays.areEqual(expected, gcm(second, prepared, nonce, data)));
+        }
+    }
+
+    private void hmacTest(byte[] key, PreparedKeyParameter prepared)
+    {
+        byte[] data = randomBytes(300);
+
+        // SHA3Digest is not Memoable, so takes the ordinary path
+        for (int i = 0; i != 5; i++)
+        {
+            Mac plain = new HMac(newDigest(i));
+            Mac mac = new HMac(newDigest(i));
+
+            byte[] expected = mac(plain, new KeyParameter(key), data);
+
+            isTrue("HMAC mismatch: " + plain.getAlgorithmName(), Arrays.areEqual(expected, mac(mac, prepared, data)));
+
+            // doFinal leaves the MAC ready for another message under the same key
+            mac.update(data, 0, data.length);
+            byte[] again = new byte[mac.getMacSize()];
+            mac.doFinal(again, 0);
+            isTrue("HMAC repeat mismatch: " + plain.getAlgorithmName(), Arrays.areEqual(expected, again));
+
+            // and a new instance picks up the stored pad states
+            isTrue("HMAC shared mismatch: " + plain.getAlgorithmName(),
+                Arrays.areEqual(expected, mac(new HMac(newDigest(i)), prepared, data)));
+        }
+    }
+
+    private void threadTest()
+        throws Exception
+    {
+        final byte[] key = randomBytes(16);
+        final PreparedKeyParameter prepared = new PreparedKeyParameter(key);
+        final byte[] nonce = randomBytes(12);
+        final byte[] data = randomBytes(1000);
+
+        final byte[] expectedGCM = gcm(GCMBlockCipher.newInstance(AESEngine.newInstance()), new KeyParameter(key),
+            nonce, data);
+        final byte[] expectedMac = mac(new HMac(new SHA256Digest()), new KeyParameter(key), data);
+        final boolean[] failed = new boolean[1];
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t != threads.length; t++)
+        {
+            threads[t] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        for (int i = 0; i != 50; i++)
+                        {
+                            if (!Arrays.areEqual(expectedGCM,
+                                gcm(GCMBlockCipher.newInstance(AESEngine.newInstance()), prepared, nonce, data))
+                                || !Arrays.areEqual(expectedMac, mac(new HMac(new SHA256Digest()), prepared, data)))
+                            {
+                                failed[0] = true;
+                            }
+                        }
+                    }
+                    catch (Exception e)
+                    {
+                        failed[0] = true;
+                    }
+                }
+            };
+        }
+
+        for (int t = 0; t != threads.length; t++)
+        {
+            threads[t].start();
+        }
+        for (int t = 0; t != threads.length; t++)
+        {
+            threads[t].join();
+        }
+
+        isTrue("mismatch in shared use", !failed[0]);
+    }
+
+    private static byte[] aes(boolean forEncryption, KeyParameter key, byte[] data)
+    {
+        BlockCipher engine = AESEngine.newInstance();
+        byte[] out = new byte[data.length];
+
+        engine.init(forEncryption, key);
+        for (int off = 0; off < data.length; off += 16)
+        {
+            engine.processBlock(data, off, out, off);
+        }
+        return out;
+    }
+
+    private static byte[] gcm(GCMModeCipher cipher, KeyParameter key, byte[] nonce,
+        byte[] data)
+        throws Exception
+    {
+        cipher.init(true, new AEADParameters(key, 128, nonce));
+
+        byte[] out = new byte[cipher.getOutputSize(data.length)];
+        int len = cipher.processBytes(data, 0, data.length, out, 0);
+        cipher.doFinal(out, len);
+        return out;
+    }
+
+    private static byte[] mac(Mac mac, KeyParameter key, byte[] data)
+    {
+        byte[] out = new byte[mac.getMacSize()];
+
+        mac.init(key);
+        mac.update(data, 0, data.length);
+        mac.doFinal(out, 0);
+        return out;
+    }
+
+    private static Digest newDigest(int i)
+    {
+        switch (i)
+        {
+        case 0:
+            return new SHA256Digest();
+        case 1:
+            return new SHA512Digest();
+        case 2:
+            return new SHA512tDigest(256);
+        case 3:
+            return new SHA512tDigest(224);
+        default:
+            return new SHA3Digest(256);
+        }
+    }
+
+    private byte[] randomBytes(int len)
+    {
+        byte[] bytes = new byte[len];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new PreparedKeyTest());
+    }
+}
@@ -10,12 +10,18 @@
             new AESTest(),
             new AESLightTest(),
             new AESFastTest(),
+            new AESBitslicedTest(),
             new AESWrapTest(),
             new AESWrapPadTest(),
             new ARIATest(),
             new DESTest(),
             new DESedeTest(),
             new ModeTest(),
+            new XTSTest(),
+            new PreparedKeyTest(),
+            new ParallelSICTest(),
+            new ByteBuffersTest(),
+            new MappedFilesTest(),
             new PaddingTest(),
             new DHTest(),
             new ElGamalTest(),
@@ -65,6 +71,7 @@
             new SHA256DigestTest(),
             new SHA384DigestTest(),
             new SHA512DigestTest(),
+            new MultiBufferDigestTest(),
             new SHA512t224DigestTest(),
             new SHA512t256DigestTest(),
             new SHA3DigestTest(),
@@ -91,6 +98,7 @@
             new NISTCTSTest(),
             new NISTECCTest(),
             new CCMTest(),
+            new StreamingCCMTest(),
             new PKCS5Test(),
             new PKCS12Test(),
             new KDF1GeneratorTest(),
@@ -136,6 +144,7 @@
             new ECIESKeyEncapsulationTest(),
             new HashCommitmentTest(),
             new CipherStreamTest(),
+            new CipherChannelTest(),
             new BlockCipherResetTest(),
             new StreamCipherResetTest(),
             new SM3DigestTest(),
@@ -152,6 +161,7 @@
             new Blake2xsDigestTest(),
             new KeccakDigestTest(),
             new SHAKEDigestTest(),
+            new SHAKEX4Test(),
             new SM2EngineTest(),
             new SM2KeyExchangeTest(),
             new SM2SignerTest(),
@@ -168,6 +178,7 @@
             new Ed448Test(),
             new CSHAKETest(),
             new Argon2Test(),
+            new ParallelPBKDFTest(),
             new OpenSSHKeyParsingTests(),
             new EthereumIESTest(),
             new BigIntegersTest(),
@@ -177,11 +188,14 @@
             new KMACTest(),
             new SipHash128Test(),
             new GCMSIVTest(),
+            new GCMSIVChannelTest(),
             new Blake3Test(),
+            new ParallelBlake3Test(),
             new KangarooTest(),
             new SP80038GTest(),
             new TupleHashTest(),
             new ParallelHashTest(),
+            new ConcurrentTreeHashTest(),
             new CryptoServiceConstraintsTest(),
             new SymmetricConstraintsTest(),
             new AsymmetricConstraintsTest(),
@@ -0,0 +1,100 @@
+package org.bouncycastle.crypto.test;
+
+import java.security.SecureRandom;
+
+import org.bouncycastle.crypto.digests.SHAKEDigest;
+import org.bouncycastle.crypto.digests.SHAKEX4;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check each lane of SHAKEX4 against SHAKEDigest.
+ */
+public class SHAKEX4Test
+    extends SimpleTest
+{
+    private final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "SHAKEX4";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        laneTest(128);
+        laneTest(256);
+
+        try
+        {
+            new SHAKEX4(512);
+            fail("bad strength accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        SHAKEX4 x4 = new SHAKEX4(128);
+        x4.squeezeBlocks(new byte[168], new byte[168], new byte[168], new byte[168], 0, 1);
+        try
+        {
+            x4.absorb(new byte[1], 0, 1);
+            fail("absorb after squeeze accepted");
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+    }
+
+    private void laneTest(int bitStrength)
+    {
+        SHAKEX4 x4 = new SHAKEX4(bitStrength);
+        SHAKEDigest shake = new SHAKEDigest(bitStrength);
+        int rate = x4.getBlockSize();
+
+        isEquals(shake.getAlgorithmName() + "x4", x4.getAlgorithmName());
+
+        // shared prefixes and separate suffixes of every length across a couple of blocks, odd offsets included
+        for (int len = 0; len <= 2 * rate + 9; len++)
+        {
+            byte[] shared = new byte[1 + len];
+            random.nextBytes(shared);
+            byte[][] in = new byte[4][len + 3];
+            for (int l = 0; l != 4; l++)
+            {
+                random.nextBytes(in[l]);
+            }
+
+            int split = len / 3;
+            int blocks = 1 + len % 3;
+            byte[][] out = new byte[4][1 + blocks * rate];
+
+            x4.reset();
+            x4.absorb(shared, 1, len);
+            x4.absorb(in[0], in[1], in[2], in[3], 3, split);
+            x4.absorb(in[0], in[1], in[2], in[3], 3 + split, len - split);
+            x4.squeezeBlocks(out[0], out[1], out[2], out[3], 1, 1);
+            x4.squeezeBlocks(out[0], out[1], out[2], out[3], 1 + rate, blocks - 1);
+
+            for (int l = 0; l != 4; l++)
+            {
+                byte[] expected = new byte[blocks * rate];
+                shake.update(shared, 1, len);
+                shake.update(in[l], 3, len);
+                shake.doFinal(expected, 0, expected.length);
+
+                isTrue("lane " + l + " mismatch: " + x4.getAlgorithmName() + " " + len,
+                    Arrays.areEqual(expected, 0, expected.length, out[l], 1, out[l].length));
+            }
+        }
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new SHAKEX4Test());
+    }
+}
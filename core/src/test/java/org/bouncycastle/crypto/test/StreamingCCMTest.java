@@ -0,0 +1,263 @@
+package org.bouncycastle.crypto.test;
+
+import java.security.SecureRandom;
+
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.CCMBlockCipher;
+import org.bouncycastle.crypto.modes.CCMModeCipher;
+import org.bouncycastle.crypto.modes.StreamingCCMBlockCipher;
+import org.bouncycastle.crypto.params.AEADLengthParameters;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.encoders.Hex;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Streaming CCM tests, checked against the NIST SP 800-38C vectors and the packet based CCMBlockCipher.
+ */
+public class StreamingCCMTest
+    extends SimpleTest
+{
+    private static final byte[] K = Hex.decode("404142434445464748494a4b4c4d4e4f");
+
+    private final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "StreamingCCM";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        vectorTest(1, 32, "10111213141516", "0001020304050607", "20212223", "7162015b4dac255d");
+        vectorTest(2, 48, "1011121314151617", "000102030405060708090a0b0c0d0e0f",
+            "202122232425262728292a2b2c2d2e2f", "d2a1f0e051ea5f62081a7792073d593d1fc64fbfaccd");
+        vectorTest(3, 64, "101112131415161718191a1b", "000102030405060708090a0b0c0d0e0f10111213",
+            "202122232425262728292a2b2c2d2e2f3031323334353637",
+            "e3b201a9f5b71a7a9b1ceaeccd97e70b6176aad9a4428aa5484392fbc1b09951");
+
+        // vector 4 has 2^16 bytes of associated text, so uses the long length encoding
+        byte[] a4 = new byte[65536];
+        for (int i = 0; i < a4.length; i++)
+        {
+            a4[i] = (byte)i;
+        }
+        vectorTest(4, 112, "101112131415161718191a1b1c", Hex.toHexString(a4),
+            "202122232425262728292a2b2c2d2e2f303132333435363738393a3b3c3d3e3f",
+            "69915dad1e84c6376a68c2967e4dab615ae0fd1faec44cc484828529463ccf72b4ac6bec93e8598e7f0dadbcea5b");
+
+        int[] lengths = { 0, 1, 15, 16, 17, 100, 1000, 5000 };
+        for (int i = 0; i != lengths.length; i++)
+        {
+            for (int j = 0; j != lengths.length; j++)
+            {
+                packetTest(lengths[i], lengths[j]);
+            }
+        }
+
+        exceptionTest();
+    }
+
+    private void vectorTest(int id, int macSize, String nonce, String aad, String plainText, String cipherText)
+        throws Exception
+    {
+        byte[] n = Hex.decode(nonce);
+        byte[] a = Hex.decode(aad);
+        byte[] p = Hex.decode(plainText);
+        byte[] c = Hex.decode(cipherText);
+
+        CCMModeCipher ccm = StreamingCCMBlockCipher.newInstance(AESEngine.newInstance());
+
+        // associated text passed in the parameters
+        ccm.init(true, new AEADLengthParameters(new KeyParameter(K), macSize, n, a, a.length, p.length));
+        isTrue("vector " + id + " encryption failed", Arrays.areEqual(c, process(ccm, new byte[0], p, 1)));
+
+        // and passed separately, one byte at a time
+        ccm.init(false, new AEADLengthParameters(new KeyParameter(K), macSize, n, a.length, p.length));
+        isTrue("vector " + id + " decryption failed", Arrays.areEqual(p, process(ccm, a, c, 0)));
+        isTrue("vector " + id + " mac failed",
+            Arrays.areEqual(Arrays.copyOfRange(c, p.length, c.length), ccm.getMac()));
+    }
+
+    private void packetTest(int aadLen, int dataLen)
+        throws Exception
+    {
+        byte[] key = new byte[16 + 8 * random.nextInt(3)];
+        byte[] nonce = new byte[7 + random.nextInt(7)];
+        byte[] aad = new byte[aadLen];
+        byte[] data = new byte[dataLen];
+        int macSize = 32 + 16 * random.nextInt(7);
+
+        random.nextBytes(key);
+        random.nextBytes(nonce);
+        random.nextBytes(aad);
+        random.nextBytes(data);
+
+        CCMBlockCipher reference = new CCMBlockCipher(AESEngine.newInstance());
+        reference.init(true, new AEADParameters(new KeyParameter(key), macSize, nonce, aad));
+        byte[] expected = reference.processPacket(data, 0, data.length);
+
+        CCMModeCipher ccm = StreamingCCMBlockCipher.newInstance(AESEngine.newInstance());
+        ccm.init(true, new AEADLengthParameters(new KeyParameter(key), macSize, nonce, aadLen, dataLen));
+
+        byte[] cipherText = process(ccm, aad, data, 1 + random.nextInt(40));
+        isTrue("encryption mismatch: " + aadLen + "/" + dataLen, Arrays.areEqual(expected, cipherText));
+
+        // doFinal resets, so the same message again, in place
+        byte[] buf = Arrays.clone(data);
+        ccm.processAADBytes(aad, 0, aad.length);
+        int len = ccm.processBytes(buf, 0, buf.length, buf, 0);
+        isEquals(dataLen, len);
+        byte[] tag = new byte[macSize / 8];
+        ccm.doFinal(tag, 0);
+        isTrue("in place mismatch: " + aadLen + "/" + dataLen,
+            Arrays.areEqual(expected, Arrays.concatenate(buf, tag)));
+
+        ccm.init(false, new AEADLengthParameters(null, macSize, nonce, aadLen, dataLen));
+        isTrue("decryption mismatch: " + aadLen + "/" + dataLen,
+            Arrays.areEqual(data, process(ccm, aad, cipherText, 1 + random.nextInt(40))));
+
+        // a damaged message fails the MAC check
+        cipherText[random.nextInt(cipherText.length)] ^= 1 << random.nextInt(8);
+        try
+        {
+            process(ccm, aad, cipherText, 1 + random.nextInt(40));
+            fail("damaged message accepted: " + aadLen + "/" + dataLen);
+        }
+        catch (InvalidCipherTextException e)
+        {
+            isEquals("mac check in CCM failed", e.getMessage());
+        }
+    }
+
+    private void exceptionTest()
+        throws Exception
+    {
+        CCMModeCipher ccm = StreamingCCMBlockCipher.newInstance(AESEngine.newInstance());
+
+        try
+        {
+            ccm.init(true, new AEADParameters(new KeyParameter(K), 128, new byte[12]));
+            fail("parameters without lengths accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            ccm.init(true, new AEADLengthParameters(new KeyParameter(K), 128, new byte[13], 0, 1 << 16));
+            fail("data length too long for nonce accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("CCM data length too large for choice of nonce", e.getMessage());
+        }
+
+        ccm.init(true, new AEADLengthParameters(new KeyParameter(K), 128, new byte[13], 4, 10));
+        try
+        {
+            ccm.processBytes(new byte[10], 0, 10, new byte[10], 0);
+            fail("short associated text accepted");
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+
+        ccm.init(true, new AEADLengthParameters(new KeyParameter(K), 128, new byte[13], 4, 10));
+        try
+        {
+            ccm.processAADBytes(new byte[5], 0, 5);
+            fail("long associated text accepted");
+        }
+        catch (DataLengthException e)
+        {
+            // expected
+        }
+
+        ccm.init(true, new AEADLengthParameters(new KeyParameter(K), 128, new byte[13], 0, 10));
+        try
+        {
+            ccm.processBytes(new byte[11], 0, 11, new byte[11], 0);
+            fail("long data accepted");
+        }
+        catch (DataLengthException e)
+        {
+            isEquals("CCM data exceeds the length given at init", e.getMessage());
+        }
+
+        ccm.init(true, new AEADLengthParameters(new KeyParameter(K), 128, new byte[13], 0, 10));
+        ccm.processBytes(new byte[9], 0, 9, new byte[9], 0);
+        try
+        {
+            ccm.doFinal(new byte[16], 0);
+            fail("short data accepted");
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+
+        ccm.init(false, new AEADLengthParameters(new KeyParameter(K), 128, new byte[13], 0, 10));
+        ccm.processBytes(new byte[25], 0, 25, new byte[25], 0);
+        try
+        {
+            ccm.doFinal(new byte[0], 0);
+            fail("truncated tag accepted");
+        }
+        catch (InvalidCipherTextException e)
+        {
+            isEquals("data too short", e.getMessage());
+        }
+    }
+
+    /**
+     * Run a message through the cipher, with the input in chunks of the given size, or single bytes if the size
+     * is zero.
+     */
+    private static byte[] process(CCMModeCipher ccm, byte[] aad, byte[] in, int chunk)
+        throws InvalidCipherTextException
+    {
+        byte[] out = new byte[ccm.getOutputSize(in.length)];
+        int outOff = 0;
+
+        if (chunk == 0)
+        {
+            for (int i = 0; i != aad.length; i++)
+            {
+                ccm.processAADByte(aad[i]);
+            }
+            for (int i = 0; i != in.length; i++)
+            {
+                outOff += ccm.processByte(in[i], out, outOff);
+            }
+        }
+        else
+        {
+            for (int off = 0; off < aad.length; off += chunk)
+            {
+                ccm.processAADBytes(aad, off, Math.min(chunk, aad.length - off));
+            }
+            for (int off = 0; off < in.length; off += chunk)
+            {
+                outOff += ccm.processBytes(in, off, Math.min(chunk, in.length - off), out, outOff);
+            }
+        }
+
+        outOff += ccm.doFinal(out, outOff);
+
+        return Arrays.copyOfRange(out, 0, outOff);
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new StreamingCCMTest());
+    }
+}
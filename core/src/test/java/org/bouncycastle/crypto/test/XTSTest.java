@@ -0,0 +1,200 @@
+package org.bouncycastle.crypto.test;
+
+import java.security.SecureRandom;
+
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.XTSBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.encoders.Hex;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * XTS-AES tests, vectors from IEEE 1619 Annex B.
+ */
+public class XTSTest
+    extends SimpleTest
+{
+    private final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "XTS";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        // IEEE 1619 vector 2
+        vectorTest(2,
+            "11111111111111111111111111111111" + "22222222222222222222222222222222",
+            0x3333333333L,
+            "4444444444444444444444444444444444444444444444444444444444444444",
+            "c454185e6a16936e39334038acef838bfb186fff7480adc4289382ecd6d394f0");
+
+        // IEEE 1619 vectors 15 and 18, ciphertext stealing
+        vectorTest(15,
+            "fffefdfcfbfaf9f8f7f6f5f4f3f2f1f0" + "bfbebdbcbbbab9b8b7b6b5b4b3b2b1b0",
+            0x123456789aL,
+            "000102030405060708090a0b0c0d0e0f10",
+            "6c1625db4671522d3d7599601de7ca09ed");
+        vectorTest(18,
+            "fffefdfcfbfaf9f8f7f6f5f4f3f2f1f0" + "bfbebdbcbbbab9b8b7b6b5b4b3b2b1b0",
+            0x123456789aL,
+            "000102030405060708090a0b0c0d0e0f10111213",
+            "9d84c813f719aa2c7be3f66171c7c5c2edbf9dac");
+
+        // 256 bit keys, a sector number with the top bit set, and ciphertext stealing across a batch
+        byte[] data = new byte[100];
+        for (int i = 0; i != data.length; i++)
+        {
+            data[i] = (byte)(i * 7);
+        }
+        vectorTest(0,
+            "000102030405060708090a0b0c0d0e0f101112131415161718191a1b1c1d1e1f"
+                + "202122232425262728292a2b2c2d2e2f303132333435363738393a3b3c3d3e3f",
+            0xfedcba9876543210L,
+            Hex.toHexString(data),
+            "2d83799464490198937167fc61da2ea1b7c3c63e9a5f80d1d162177f1a38ac76ab6ddb242249556a66f913068120ce9b"
+                + "8e2e8cf3f6797d45500388c6dd1b3060d3f98f1849f0f8571704cc1f46ed44e1d76fcee3331316f65fe1665d6a1b0998"
+                + "662ebf3d");
+
+        sectorsTest(512);
+        sectorsTest(4096);
+        sectorsTest(4096 + 5);
+        sectorsTest(16);
+        sectorsTest(31);
+
+        parameterTest();
+    }
+
+    private void vectorTest(int id, String key, long sectorNumber, String plainText, String cipherText)
+    {
+        byte[] k = Hex.decode(key);
+        byte[] p = Hex.decode(plainText);
+        byte[] c = Hex.decode(cipherText);
+        byte[] buf = new byte[p.length];
+
+        XTSBlockCipher xts = new XTSBlockCipher();
+
+        xts.init(true, new KeyParameter(k));
+        xts.processSector(sectorNumber, p, 0, p.length, buf, 0);
+        isTrue("vector " + id + " encryption failed", Arrays.areEqual(c, buf));
+
+        xts.init(false, new KeyParameter(k));
+        xts.processSector(sectorNumber, buf, 0, buf.length, buf, 0);
+        isTrue("vector " + id + " decryption failed", Arrays.areEqual(p, buf));
+    }
+
+    private void sectorsTest(int sectorSize)
+    {
+        byte[] key = new byte[32];
+        random.nextBytes(key);
+
+        int count = 5;
+        long first = random.nextLong();
+        byte[] data = new byte[sectorSize * count + 3];
+        random.nextBytes(data);
+
+        XTSBlockCipher xts = new XTSBlockCipher(AESEngine.newInstance(), AESEngine.newInstance());
+        xts.init(true, new KeyParameter(key));
+
+        // each sector on its own
+        byte[] expected = new byte[sectorSize * count];
+        for (int i = 0; i != count; i++)
+        {
+            xts.processSector(first + i, data, 3 + i * sectorSize, sectorSize, expected, i * sectorSize);
+        }
+
+        // as a batch
+        byte[] batch = new byte[expected.length + 1];
+        isEquals(expected.length, xts.processSectors(first, sectorSize, data, 3, count, batch, 1));
+        isTrue("batch mismatch: " + sectorSize, Arrays.areEqual(expected, 0, expected.length, batch, 1, batch.length));
+
+        // in place, and shifted in place
+        for (int shift = -3; shift <= 0; shift += 3)
+        {
+            byte[] buf = Arrays.clone(data);
+            xts.processSectors(first, sectorSize, buf, 3, count, buf, 3 + shift);
+            isTrue("in place mismatch: " + sectorSize + "/" + shift,
+                Arrays.areEqual(expected, 0, expected.length, buf, 3 + shift, 3 + shift + expected.length));
+        }
+
+        // sectors are independent of each other, and decrypt back
+        xts.init(false, new KeyParameter(key));
+        byte[] plain = new byte[sectorSize];
+        xts.processSector(first + 2, expected, 2 * sectorSize, sectorSize, plain, 0);
+        isTrue("sector decryption mismatch: " + sectorSize,
+            Arrays.areEqual(plain, 0, sectorSize, data, 3 + 2 * sectorSize, 3 + 3 * sectorSize));
+
+        xts.processSectors(first, sectorSize, expected, 0, count, expected, 0);
+        isTrue("batch decryption mismatch: " + sectorSize,
+            Arrays.areEqual(expected, 0, expected.length, data, 3, data.length));
+    }
+
+    private void parameterTest()
+    {
+        XTSBlockCipher xts = new XTSBlockCipher();
+
+        try
+        {
+            xts.processSector(0, new byte[16], 0, 16, new byte[16], 0);
+            fail("no exception on uninitialised cipher");
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            xts.init(true, new KeyParameter(new byte[32]));
+            fail("no exception on equal key halves");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("XTS data and tweak keys must be different", e.getMessage());
+        }
+
+        try
+        {
+            xts.init(true, new KeyParameter(new byte[33]));
+            fail("no exception on odd key length");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        byte[] key = new byte[32];
+        key[0] = 1;
+        xts.init(true, new KeyParameter(key));
+
+        try
+        {
+            xts.processSector(0, new byte[15], 0, 15, new byte[15], 0);
+            fail("no exception on short sector");
+        }
+        catch (DataLengthException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            xts.processSectors(0, 32, new byte[64], 0, 3, new byte[96], 0);
+            fail("no exception on short input");
+        }
+        catch (DataLengthException e)
+        {
+            isEquals("input buffer too short", e.getMessage());
+        }
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new XTSTest());
+    }
+}
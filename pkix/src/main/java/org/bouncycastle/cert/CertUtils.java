@@ -17,6 +17,7 @@
 import org.bouncycastle.asn1.ASN1EncodableVector;
 import org.bouncycastle.asn1.ASN1Encoding;
 import org.bouncycastle.asn1.ASN1GeneralizedTime;
+import org.bouncycastle.asn1.ASN1InputStream;
 import org.bouncycastle.asn1.ASN1Object;
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
 import org.bouncycastle.asn1.ASN1Primitive;
@@ -56,6 +57,25 @@ static ASN1Primitive parseNonEmptyASN1(byte[] encoding)
         return p;
     }
 
+    /**
+     * Parse an encoding leaving the contents of its definite-length sequences to be decoded on first access.
+     */
+    static ASN1Primitive parseNonEmptyLazyASN1(byte[] encoding)
+        throws IOException
+    {
+        ASN1InputStream aIn = new ASN1InputStream(encoding, true);
+
+        ASN1Primitive p = aIn.readObject();
+        if (p == null)
+        {
+            throw new IOException("no content found");
+        }
+        if (aIn.available() != 0)
+        {
+            throw new IOException("Extra data detected in stream");
+        }
+        return p;
+    }
 
     static X509CertificateHolder generateFullCert(ContentSigner signer, TBSCertificate tbsCert)
     {
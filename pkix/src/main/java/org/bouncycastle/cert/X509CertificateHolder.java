@@ -13,6 +13,7 @@
 import org.bouncycastle.asn1.ASN1EncodableVector;
 import org.bouncycastle.asn1.ASN1Encoding;
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1ParsingException;
 import org.bouncycastle.asn1.ASN1Sequence;
 import org.bouncycastle.asn1.DERSequence;
 import org.bouncycastle.asn1.x500.X500Name;
@@ -44,7 +45,12 @@ private static Certificate parseBytes(byte[] certEncoding)
     {
         try
         {
-            return Certificate.getInstance(CertUtils.parseNonEmptyASN1(certEncoding));
+            Certificate cert = Certificate.getInstance(CertUtils.parseNonEmptyLazyASN1(certEncoding));
+
+            // the fields decoded on first access are only checked for now
+            cert.getTBSCertificate().checkFields();
+
+            return cert;
         }
         catch (ClassCastException e)
         {
@@ -54,6 +60,10 @@ private static Certificate parseBytes(byte[] certEncoding)
         {
             throw new CertIOException("malformed data: " + e.getMessage(), e);
         }
+        catch (ASN1ParsingException e)
+        {
+            throw new CertIOException("malformed data: " + e.getMessage(), e);
+        }
     }
 
     /**
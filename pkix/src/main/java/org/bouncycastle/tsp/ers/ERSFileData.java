@@ -14,6 +14,8 @@
 public class ERSFileData
     extends ERSCachingData
 {
+    private static final int BUF_SIZE = 64 * 1024;
+
     private final File content;
 
     public ERSFileData(File content)
@@ -39,7 +41,7 @@ protected byte[] calculateHash(DigestCalculator digestCalculator, byte[] previou
         try
         {
             InputStream contentStream = new FileInputStream(content);
-            byte[] hash = ERSUtil.calculateDigest(digestCalculator, contentStream);
+            byte[] hash = ERSUtil.calculateDigest(digestCalculator, contentStream, BUF_SIZE);
             contentStream.close();
 
             if (previousChainHash != null)
@@ -100,12 +100,17 @@ static byte[] calculateDigest(DigestCalculator digCalc, Iterator<byte[]> dataGro
     }
 
     static byte[] calculateDigest(DigestCalculator digCalc, InputStream inStream)
+    {
+        return calculateDigest(digCalc, inStream, 4096);
+    }
+
+    static byte[] calculateDigest(DigestCalculator digCalc, InputStream inStream, int bufSize)
     {
         try
         {
             OutputStream mdOut = digCalc.getOutputStream();
 
-            Streams.pipeAll(inStream, mdOut);
+            Streams.pipeAll(inStream, mdOut, bufSize);
 
             mdOut.close();
 
@@ -49,9 +49,11 @@
 import org.bouncycastle.asn1.ASN1Encodable;
 import org.bouncycastle.asn1.ASN1EncodableVector;
 import org.bouncycastle.asn1.ASN1Enumerated;
+import org.bouncycastle.asn1.ASN1Integer;
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
 import org.bouncycastle.asn1.ASN1OctetString;
 import org.bouncycastle.asn1.ASN1Primitive;
+import org.bouncycastle.asn1.ASN1Sequence;
 import org.bouncycastle.asn1.DERNull;
 import org.bouncycastle.asn1.DEROctetString;
 import org.bouncycastle.asn1.DERSequence;
@@ -82,6 +84,7 @@
 import org.bouncycastle.asn1.x9.X9ECParameters;
 import org.bouncycastle.asn1.x9.X9ObjectIdentifiers;
 import org.bouncycastle.cert.CertException;
+import org.bouncycastle.cert.CertIOException;
 import org.bouncycastle.cert.X509AttributeCertificateHolder;
 import org.bouncycastle.cert.X509CRLEntryHolder;
 import org.bouncycastle.cert.X509CRLHolder;
@@ -136,6 +139,7 @@
 import org.bouncycastle.pqc.jcajce.spec.SPHINCSPlusParameterSpec;
 import org.bouncycastle.pqc.jcajce.spec.XMSSMTParameterSpec;
 import org.bouncycastle.pqc.jcajce.spec.XMSSParameterSpec;
+import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.Encodable;
 import org.bouncycastle.util.Strings;
 import org.bouncycastle.util.encoders.Base64;
@@ -5452,6 +5456,74 @@ private void zeroDataTest()
         }
     }
 
+    private void malformedFieldsTest()
+        throws Exception
+    {
+        org.bouncycastle.asn1.x509.Certificate cert = org.bouncycastle.asn1.x509.Certificate.getInstance(cert1);
+        ASN1Sequence tbsSeq = ASN1Sequence.getInstance(cert.getTBSCertificate());
+
+        // subject
+        ASN1Encodable[] fields = tbsSeq.toArray();
+        fields[5] = new ASN1Integer(1);
+        checkMalformed("subject", createCertificate(cert, fields));
+
+        // subjectPublicKeyInfo
+        fields = tbsSeq.toArray();
+        fields[6] = new DERSequence(new ASN1Integer(1));
+        checkMalformed("key", createCertificate(cert, fields));
+
+        // subjectPublicKeyInfo with a broken algorithm identifier encoding
+        byte[] enc = cert.getEncoded();
+        byte[] keyEnc = cert.getSubjectPublicKeyInfo().getEncoded();
+        int keyOff = indexOf(enc, keyEnc);
+        int algOff = keyOff + (((keyEnc[1] & 0x80) == 0) ? 2 : 2 + (keyEnc[1] & 0x7f));
+        enc[algOff + 1] = 0x7f;
+        checkMalformed("key encoding", enc);
+    }
+
+    private byte[] createCertificate(org.bouncycastle.asn1.x509.Certificate cert, ASN1Encodable[] tbsFields)
+        throws IOException
+    {
+        return new DERSequence(new ASN1Encodable[]{ new DERSequence(tbsFields), cert.getSignatureAlgorithm(),
+            cert.getSignature() }).getEncoded();
+    }
+
+    private void checkMalformed(String label, byte[] enc)
+        throws Exception
+    {
+        try
+        {
+            new X509CertificateHolder(enc);
+            fail("malformed " + label + " accepted by holder");
+        }
+        catch (CertIOException e)
+        {
+            isTrue(e.getMessage().startsWith("malformed data: "));
+        }
+
+        try
+        {
+            CertificateFactory.getInstance("X.509", BC).generateCertificate(new ByteArrayInputStream(enc));
+            fail("malformed " + label + " accepted by factory");
+        }
+        catch (CertificateException e)
+        {
+            isTrue(e.getMessage().startsWith("parsing issue: "));
+        }
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern)
+    {
+        for (int i = 0; i <= data.length - pattern.length; i++)
+        {
+            if (Arrays.areEqual(pattern, 0, pattern.length, data, i, i + pattern.length))
+            {
+                return i;
+            }
+        }
+        throw new IllegalStateException("pattern not found");
+    }
+
     private void checkSerialisation()
         throws Exception
     {
@@ -5745,6 +5817,8 @@ public void performTest()
 
         zeroDataTest();
 
+        malformedFieldsTest();
+
         checkSerialisation();
 
         checkCompositeSignatureCertificateCreation();
@@ -242,7 +242,7 @@ else if (currentStream != in) // reset if input stream has changed
             }
             else
             {
-                return readDERCertificate(new ASN1InputStream(pis));
+                return readDERCertificate(new ASN1InputStream(pis, true));
             }
         }
         catch (Exception e)
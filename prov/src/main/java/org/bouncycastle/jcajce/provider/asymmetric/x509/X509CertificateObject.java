@@ -15,6 +15,7 @@
 import org.bouncycastle.asn1.ASN1Encodable;
 import org.bouncycastle.asn1.ASN1Encoding;
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1ParsingException;
 import org.bouncycastle.asn1.x509.BasicConstraints;
 import org.bouncycastle.asn1.x509.Extension;
 import org.bouncycastle.jcajce.provider.asymmetric.util.PKCS12BagAttributeCarrierImpl;
@@ -41,7 +42,8 @@
     X509CertificateObject(JcaJceHelper bcHelper, org.bouncycastle.asn1.x509.Certificate c)
         throws CertificateParsingException
     {
-        super(bcHelper, c, createBasicConstraints(c), createKeyUsage(c), createSigAlgName(c), createSigAlgParams(c));
+        super(bcHelper, checkFields(c), createBasicConstraints(c), createKeyUsage(c), createSigAlgName(c),
+            createSigAlgParams(c));
     }
 
     public void checkValidity(Date date) throws CertificateExpiredException, CertificateNotYetValidException
@@ -292,6 +294,28 @@ private X509CertificateInternal getInternalCertificate()
         }
     }
 
+    /**
+     * The subject, key, unique IDs and extensions of a certificate are only decoded on first access, so make sure a
+     * certificate with any of them malformed is rejected here rather than when the field is looked at.
+     */
+    private static org.bouncycastle.asn1.x509.Certificate checkFields(org.bouncycastle.asn1.x509.Certificate c)
+        throws CertificateParsingException
+    {
+        try
+        {
+            c.getTBSCertificate().checkFields();
+            return c;
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new CertificateParsingException(e.getMessage());
+        }
+        catch (ASN1ParsingException e)
+        {
+            throw new CertificateParsingException(e.getMessage());
+        }
+    }
+
     private static BasicConstraints createBasicConstraints(org.bouncycastle.asn1.x509.Certificate c)
         throws CertificateParsingException
     {
@@ -36,6 +36,7 @@
 import org.bouncycastle.crypto.modes.CFBBlockCipher;
 import org.bouncycastle.crypto.modes.GCMBlockCipher;
 import org.bouncycastle.crypto.modes.OFBBlockCipher;
+import org.bouncycastle.crypto.modes.gcm.Tables16kGCMMultiplier;
 import org.bouncycastle.internal.asn1.cms.CCMParameters;
 import org.bouncycastle.internal.asn1.cms.GCMParameters;
 import org.bouncycastle.jcajce.provider.config.ConfigurableProvider;
@@ -240,7 +241,7 @@ public OFB256()
     {
         public GCM()
         {
-            super(GCMBlockCipher.newInstance(AESEngine.newInstance()));
+            super(GCMBlockCipher.newInstance(AESEngine.newInstance(), new Tables16kGCMMultiplier()));
         }
     }
 
@@ -249,7 +250,7 @@ public GCM()
     {
         public GCM128()
         {
-            super(128, (AEADBlockCipher)GCMBlockCipher.newInstance(AESEngine.newInstance()));
+            super(128, (AEADBlockCipher)GCMBlockCipher.newInstance(AESEngine.newInstance(), new Tables16kGCMMultiplier()));
         }
     }
 
@@ -258,7 +259,7 @@ public GCM128()
     {
         public GCM192()
         {
-            super(192, (AEADBlockCipher)GCMBlockCipher.newInstance(AESEngine.newInstance()));
+            super(192, (AEADBlockCipher)GCMBlockCipher.newInstance(AESEngine.newInstance(), new Tables16kGCMMultiplier()));
         }
     }
 
@@ -267,7 +268,7 @@ public GCM192()
     {
         public GCM256()
         {
-            super(256, (AEADBlockCipher)GCMBlockCipher.newInstance(AESEngine.newInstance()));
+            super(256, (AEADBlockCipher)GCMBlockCipher.newInstance(AESEngine.newInstance(), new Tables16kGCMMultiplier()));
         }
     }
         
@@ -56,6 +56,7 @@
 import org.bouncycastle.crypto.modes.OpenPGPCFBBlockCipher;
 import org.bouncycastle.crypto.modes.PGPCFBBlockCipher;
 import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.modes.gcm.Tables16kGCMMultiplier;
 import org.bouncycastle.crypto.paddings.BlockCipherPadding;
 import org.bouncycastle.crypto.paddings.ISO10126d2Padding;
 import org.bouncycastle.crypto.paddings.ISO7816d4Padding;
@@ -561,7 +562,8 @@ else if (modeName.equals("GCM"))
             else
             {
                 ivLength = 12;
-                cipher = new AEADGenericBlockCipher(GCMBlockCipher.newInstance(baseEngine));
+                // a Cipher is generally used for bulk data, so use the multiplier that aggregates GHASH
+                cipher = new AEADGenericBlockCipher(GCMBlockCipher.newInstance(baseEngine, new Tables16kGCMMultiplier()));
             }
         }
         else
@@ -517,7 +517,7 @@ static void checkCertificate(X509Certificate cert)
 
         try
         {
-            TBSCertificate.getInstance(cert.getTBSCertificate());
+            TBSCertificate.getInstance(cert.getTBSCertificate()).checkFields();
         }
         catch (CertificateEncodingException e)
         {
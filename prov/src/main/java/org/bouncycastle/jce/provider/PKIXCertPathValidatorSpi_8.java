@@ -535,7 +535,7 @@ static void checkCertificate(X509Certificate cert)
 
         try
         {
-            TBSCertificate.getInstance(cert.getTBSCertificate());
+            TBSCertificate.getInstance(cert.getTBSCertificate()).checkFields();
         }
         catch (CertificateEncodingException e)
         {
@@ -15,7 +15,8 @@
 {
     static X500Name getCA(TrustAnchor trustAnchor)
     {
-        return getX500Name(notNull(trustAnchor).getCA());
+        // trust anchors are compared against every path validated with them
+        return getX500Name(notNull(trustAnchor).getCA()).intern();
     }
 
     /**
@@ -47,7 +48,8 @@ static X500Name getIssuerPrincipal(X509Certificate certificate)
 
     static X500Name getIssuerPrincipal(X509CRL crl)
     {
-        return getX500Name(notNull(crl).getIssuerX500Principal());
+        // the same CRL is checked against many certificates
+        return getX500Name(notNull(crl).getIssuerX500Principal()).intern();
     }
 
     static X500Name getSubjectPrincipal(X509Certificate certificate)
@@ -19,6 +19,12 @@
 import javax.crypto.spec.SecretKeySpec;
 
 import junit.framework.TestCase;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.modes.GCMModeCipher;
+import org.bouncycastle.crypto.modes.gcm.Tables4kGCMMultiplier;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.internal.asn1.cms.GCMParameters;
 import org.bouncycastle.jcajce.spec.AEADParameterSpec;
 import org.bouncycastle.jcajce.spec.RepeatedSecretKeySpec;
@@ -68,6 +74,7 @@ public void performTest() throws Exception
             testGCMGeneric(KGCM, NGCM, new byte[0], new byte[0], CGCM);
             testGCMParameterSpecWithMultipleUpdates(K2, N2, A2, P2, C2);
             testRepeatedGCMWithSpec(KGCM, NGCM, A2, P2, Hex.decode("f4732d84342623f65b7d63c3c335dd44b87d"));
+            testGCMBulk();
         }
         else
         {
@@ -314,6 +321,64 @@ private void testGCMParameterSpecWithMultipleUpdates(byte[] K,
     }
 
 
+    /**
+     * The provider's GCM aggregates GHASH over runs of blocks, so check it against a GCM hashing one block at a
+     * time, for lengths either side of the aggregation boundaries, in one call and in odd sized pieces.
+     */
+    private void testGCMBulk()
+        throws Exception
+    {
+        SecureRandom random = new SecureRandom();
+        byte[] K = new byte[16];
+        random.nextBytes(K);
+
+        Cipher gcm = Cipher.getInstance("AES/GCM/NoPadding", "BC");
+        SecretKeySpec key = new SecretKeySpec(K, "AES");
+
+        for (int i = 0; i <= 300; i += 7)
+        {
+            // a GCM cipher will not encrypt twice with the same nonce
+            byte[] N = new byte[12];
+            random.nextBytes(N);
+            AEADParameters params = new AEADParameters(new KeyParameter(K), 128, N);
+
+            byte[] A = new byte[i / 2];
+            byte[] P = new byte[i];
+            random.nextBytes(A);
+            random.nextBytes(P);
+
+            GCMModeCipher ref = GCMBlockCipher.newInstance(AESEngine.newInstance(), new Tables4kGCMMultiplier());
+            ref.init(true, params);
+            ref.processAADBytes(A, 0, A.length);
+            byte[] expected = new byte[ref.getOutputSize(P.length)];
+            int len = ref.processBytes(P, 0, P.length, expected, 0);
+            ref.doFinal(expected, len);
+
+            gcm.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, N));
+            gcm.updateAAD(A);
+            if (!Arrays.areEqual(expected, gcm.doFinal(P)))
+            {
+                fail("bulk GCM mismatch: " + i);
+            }
+
+            gcm.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(128, N));
+            gcm.updateAAD(A);
+            byte[] dec = new byte[P.length];
+            int off = 0;
+            int pos = 0;
+            while (expected.length - pos > 37)
+            {
+                off += gcm.update(expected, pos, 37, dec, off);
+                pos += 37;
+            }
+            off += gcm.doFinal(expected, pos, expected.length - pos, dec, off);
+            if (off != P.length || !Arrays.areEqual(P, dec))
+            {
+                fail("bulk GCM decryption mismatch: " + i);
+            }
+        }
+    }
+
     private void testGCMParameterSpecWithRepeatKey(byte[] K,
                                                    byte[] N,
                                                    byte[] A,
@@ -29,6 +29,7 @@
 import org.bouncycastle.crypto.modes.CBCBlockCipher;
 import org.bouncycastle.crypto.modes.CCMBlockCipher;
 import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.modes.gcm.Tables16kGCMMultiplier;
 import org.bouncycastle.crypto.params.SRP6GroupParameters;
 import org.bouncycastle.crypto.prng.DigestRandomGenerator;
 import org.bouncycastle.tls.AlertDescription;
@@ -712,8 +713,8 @@ protected AEADBlockCipher createCCMMode(BlockCipher engine)
 
     protected AEADBlockCipher createGCMMode(BlockCipher engine)
     {
-        // TODO Consider allowing custom configuration of multiplier
-        return GCMBlockCipher.newInstance(engine);
+        // record protection is bulk data, so use the multiplier that aggregates GHASH
+        return GCMBlockCipher.newInstance(engine, new Tables16kGCMMultiplier());
     }
 
     protected AEADBlockCipher createAEADBlockCipher_AES_CCM()
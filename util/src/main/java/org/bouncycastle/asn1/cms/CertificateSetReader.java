@@ -0,0 +1,134 @@
+package org.bouncycastle.asn1.cms;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1EventReader;
+import org.bouncycastle.asn1.BERTags;
+import org.bouncycastle.asn1.x509.Certificate;
+
+/**
+ * A reader for the certificates of a <a href="https://tools.ietf.org/html/rfc5652#section-5.1">RFC 5652</a>
+ * {@link SignedData} that loads one certificate at a time, so a SignedData of any size can be processed in constant
+ * memory.
+ * <p>
+ * The reader takes the encoding of a ContentInfo containing the SignedData, and skips the digest algorithms and the
+ * encapsulated content without loading them. Each element of the certificates is returned as a {@link Certificate}
+ * for an X.509 certificate, or as the tagged object for any other CertificateChoices alternative.
+ * </p>
+ * <pre>
+ * SignedData ::= SEQUENCE {
+ *     version CMSVersion,
+ *     digestAlgorithms DigestAlgorithmIdentifiers,
+ *     encapContentInfo EncapsulatedContentInfo,
+ *     certificates [0] IMPLICIT CertificateSet OPTIONAL,
+ *     ...
+ *   }
+ * </pre>
+ */
+public class CertificateSetReader
+{
+    private final ASN1EventReader reader;
+
+    private boolean inCertificates;
+
+    public CertificateSetReader(InputStream in)
+        throws IOException
+    {
+        this(new ASN1EventReader(in));
+    }
+
+    public CertificateSetReader(byte[] encoding)
+        throws IOException
+    {
+        this(new ASN1EventReader(encoding));
+    }
+
+    /**
+     * Create a reader for the certificates of the SignedData ContentInfo at the next event of an event reader.
+     *
+     * @param reader the event reader to read the ContentInfo from.
+     * @throws IOException if the ContentInfo is not a SignedData, or cannot be read.
+     */
+    public CertificateSetReader(ASN1EventReader reader)
+        throws IOException
+    {
+        this.reader = reader;
+
+        expect(reader.next(), BERTags.UNIVERSAL, BERTags.SEQUENCE, "ContentInfo");
+        if (reader.next() != ASN1EventReader.PRIMITIVE || !reader.hasTag(BERTags.UNIVERSAL, BERTags.OBJECT_IDENTIFIER)
+            || !CMSObjectIdentifiers.signedData.equals(reader.readObject()))
+        {
+            throw new IOException("ContentInfo does not contain SignedData");
+        }
+
+        expect(reader.next(), BERTags.CONTEXT_SPECIFIC, 0, "content");
+        expect(reader.next(), BERTags.UNIVERSAL, BERTags.SEQUENCE, "SignedData");
+
+        if (reader.next() != ASN1EventReader.PRIMITIVE || !reader.hasTag(BERTags.UNIVERSAL, BERTags.INTEGER))
+        {
+            throw new IOException("version not found in SignedData");
+        }
+
+        expect(reader.next(), BERTags.UNIVERSAL, BERTags.SET, "digestAlgorithms");
+        reader.skipContents();
+
+        expect(reader.next(), BERTags.UNIVERSAL, BERTags.SEQUENCE, "encapContentInfo");
+        reader.skipContents();
+
+        // leave the reader at the start of the certificates, if present, so the next event is the first certificate
+        inCertificates = reader.next() == ASN1EventReader.START_CONSTRUCTED
+            && reader.hasTag(BERTags.CONTEXT_SPECIFIC, 0);
+    }
+
+    /**
+     * Read the next element of the certificates.
+     *
+     * @return a Certificate, or the tagged object for another type of certificate, or null if there are no more.
+     * @throws IOException if a certificate cannot be read.
+     */
+    public ASN1Encodable readCertificate()
+        throws IOException
+    {
+        if (!inCertificates)
+        {
+            return null;
+        }
+
+        int event = reader.next();
+        if (event == ASN1EventReader.END_CONSTRUCTED)
+        {
+            inCertificates = false;
+            return null;
+        }
+
+        if (event == ASN1EventReader.START_CONSTRUCTED && reader.hasTag(BERTags.UNIVERSAL, BERTags.SEQUENCE))
+        {
+            try
+            {
+                return Certificate.getInstance(reader.readObject());
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw new IOException("malformed certificate: " + e.getMessage());
+            }
+        }
+
+        if (reader.getTagClass() != BERTags.CONTEXT_SPECIFIC)
+        {
+            throw new IOException("unknown object in certificates: " + reader.getTagNo());
+        }
+
+        return reader.readObject();
+    }
+
+    private void expect(int event, int tagClass, int tagNo, String name)
+        throws IOException
+    {
+        if (event != ASN1EventReader.START_CONSTRUCTED || !reader.hasTag(tagClass, tagNo))
+        {
+            throw new IOException(name + " not found in SignedData ContentInfo");
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.bouncycastle.asn1.cms.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Date;
+
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1EncodableVector;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1Set;
+import org.bouncycastle.asn1.BEROctetString;
+import org.bouncycastle.asn1.DERBitString;
+import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.asn1.DERSet;
+import org.bouncycastle.asn1.DERTaggedObject;
+import org.bouncycastle.asn1.cms.CMSObjectIdentifiers;
+import org.bouncycastle.asn1.cms.CertificateSetReader;
+import org.bouncycastle.asn1.cms.ContentInfo;
+import org.bouncycastle.asn1.cms.SignedData;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.asn1.x509.Certificate;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.asn1.x509.Time;
+import org.bouncycastle.asn1.x509.V1TBSCertificateGenerator;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check reading the certificates of a SignedData one at a time.
+ */
+public class CertificateSetReaderTest
+    extends SimpleTest
+{
+    private static final AlgorithmIdentifier SIG_ALG = new AlgorithmIdentifier(
+        new ASN1ObjectIdentifier("1.2.840.113549.1.1.11"));
+
+    public String getName()
+    {
+        return "CertificateSetReader";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        ASN1EncodableVector certs = new ASN1EncodableVector();
+        for (int i = 0; i != 50; i++)
+        {
+            certs.add(createCertificate(i));
+        }
+        // a v2 attribute certificate alternative of CertificateChoices
+        certs.add(new DERTaggedObject(false, 2, new DERSequence(new ASN1Integer(7))));
+
+        ASN1Set certSet = new DERSet(certs);
+
+        readTest(createSignedData(certSet, false).getEncoded(ASN1Encoding.DER), certSet);
+        readTest(createSignedData(certSet, true).getEncoded(ASN1Encoding.BER), certSet);
+        readTest(createSignedData(null, false).getEncoded(ASN1Encoding.DER), null);
+
+        try
+        {
+            new CertificateSetReader(new ContentInfo(CMSObjectIdentifiers.data, new BEROctetString(new byte[10]))
+                .getEncoded());
+            fail("no exception on data ContentInfo");
+        }
+        catch (IOException e)
+        {
+            isEquals("ContentInfo does not contain SignedData", e.getMessage());
+        }
+    }
+
+    private void readTest(byte[] encoding, ASN1Set expected)
+        throws IOException
+    {
+        CertificateSetReader reader = new CertificateSetReader(new ByteArrayInputStream(encoding));
+
+        if (expected != null)
+        {
+            for (int i = 0; i != expected.size(); i++)
+            {
+                ASN1Encodable cert = reader.readCertificate();
+
+                isTrue("certificate " + i + " differs", Arrays.areEqual(
+                    expected.getObjectAt(i).toASN1Primitive().getEncoded(ASN1Encoding.DER),
+                    cert.toASN1Primitive().getEncoded(ASN1Encoding.DER)));
+                isTrue("certificate " + i + " wrong type", (cert instanceof Certificate) == (i < expected.size() - 1));
+            }
+        }
+
+        isTrue("extra certificate", reader.readCertificate() == null);
+        isTrue("extra certificate after end", reader.readCertificate() == null);
+    }
+
+    private ContentInfo createSignedData(ASN1Set certificates, boolean largeContent)
+    {
+        ContentInfo content = largeContent
+            ? new ContentInfo(CMSObjectIdentifiers.data, new BEROctetString(new byte[100000], 1000))
+            : new ContentInfo(CMSObjectIdentifiers.data, null);
+
+        SignedData signedData = new SignedData(new DERSet(SIG_ALG), content, certificates, null, new DERSet());
+
+        return new ContentInfo(CMSObjectIdentifiers.signedData, signedData);
+    }
+
+    private Certificate createCertificate(int serialNumber)
+    {
+        V1TBSCertificateGenerator gen = new V1TBSCertificateGenerator();
+        gen.setSerialNumber(new ASN1Integer(serialNumber));
+        gen.setSignature(SIG_ALG);
+        gen.setIssuer(new X500Name("CN=Test CA"));
+        gen.setStartDate(new Time(new Date(1000000000000L)));
+        gen.setEndDate(new Time(new Date(1100000000000L)));
+        gen.setSubject(new X500Name("CN=Test " + serialNumber));
+        gen.setSubjectPublicKeyInfo(new SubjectPublicKeyInfo(SIG_ALG, new byte[32]));
+
+        return Certificate.getInstance(new DERSequence(new ASN1Encodable[]{
+            gen.generateTBSCertificate(), SIG_ALG, new DERBitString(new byte[64]) }));
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new CertificateSetReaderTest());
+    }
+}
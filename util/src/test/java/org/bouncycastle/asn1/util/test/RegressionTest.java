@@ -38,6 +38,7 @@
 import org.bouncycastle.asn1.cmp.test.PollReqContentTest;
 import org.bouncycastle.asn1.cms.test.AttributeTableUnitTest;
 import org.bouncycastle.asn1.cms.test.CMSTest;
+import org.bouncycastle.asn1.cms.test.CertificateSetReaderTest;
 import org.bouncycastle.asn1.crmf.test.DhSigStaticTest;
 import org.bouncycastle.asn1.crmf.test.PKIPublicationInfoTest;
 import org.bouncycastle.asn1.esf.test.CommitmentTypeIndicationUnitTest;
@@ -107,6 +108,7 @@
         new PollReqContentTest(),
         new AttributeTableUnitTest(),
         new CMSTest(),
+        new CertificateSetReaderTest(),
         new DhSigStaticTest(),
         new PKIPublicationInfoTest(),
         new CommitmentTypeIndicationUnitTest(),